@@ -0,0 +1,96 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.metrics.jfr;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import jdk.jfr.SettingControl;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * JFR setting for the minimum subscriber callback time recorded by the slow subscriber event, given as a timespan
+ * such as <code>20 ms</code>. When several recordings are running, the lowest threshold applies.
+ */
+@Slf4j
+public class CallbackThresholdSetting extends SettingControl
+{
+    private static final String DEFAULT_VALUE = "20 ms";
+    private static final Pattern TIMESPAN_PATTERN = Pattern.compile("^\\s*(?<amount>\\d+)\\s*(?<unit>ns|us|ms|s|m|h)?\\s*$");
+
+    private String value = DEFAULT_VALUE;
+    private volatile long thresholdNanos = parseNanos(DEFAULT_VALUE);
+
+    @Override
+    public String combine(Set<String> settingValues)
+    {
+        String lowest = null;
+        long lowestNanos = Long.MAX_VALUE;
+        for (String settingValue : settingValues) {
+            final long nanos = parseNanos(settingValue);
+            if (nanos < lowestNanos) {
+                lowest = settingValue;
+                lowestNanos = nanos;
+            }
+        }
+        return lowest == null ? DEFAULT_VALUE : lowest;
+    }
+
+    @Override
+    public void setValue(String settingValue)
+    {
+        this.value = settingValue;
+        this.thresholdNanos = parseNanos(settingValue);
+    }
+
+    @Override
+    public String getValue()
+    {
+        return value;
+    }
+
+    boolean isAtLeastThreshold(long nanos)
+    {
+        return nanos >= thresholdNanos;
+    }
+
+    private static long parseNanos(String settingValue)
+    {
+        Matcher matcher = TIMESPAN_PATTERN.matcher(settingValue == null ? "" : settingValue);
+        if (!matcher.matches()) {
+            log.warn("Invalid callback threshold '{}', expected a timespan such as '{}'", settingValue, DEFAULT_VALUE);
+            return Long.MAX_VALUE;
+        }
+        final long amount = Long.parseLong(matcher.group("amount"));
+        final String unit = matcher.group("unit");
+        if (unit == null || unit.equals("ns")) {
+            return amount;
+        }
+        switch (unit) {
+            case "us":
+                return TimeUnit.MICROSECONDS.toNanos(amount);
+            case "ms":
+                return TimeUnit.MILLISECONDS.toNanos(amount);
+            case "s":
+                return TimeUnit.SECONDS.toNanos(amount);
+            case "m":
+                return TimeUnit.MINUTES.toNanos(amount);
+            default:
+                return TimeUnit.HOURS.toNanos(amount);
+        }
+    }
+}
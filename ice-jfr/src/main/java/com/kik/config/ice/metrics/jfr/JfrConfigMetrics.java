@@ -0,0 +1,98 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.metrics.jfr;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Module;
+import com.google.inject.Singleton;
+import com.kik.config.ice.metrics.CompositeConfigMetrics;
+import com.kik.config.ice.metrics.ConfigMetrics;
+import java.util.Objects;
+
+/**
+ * {@link ConfigMetrics} implementation which emits Java Flight Recorder events, so config changes can be lined up
+ * with other activity in a recording. The following events are emitted:
+ * <ul>
+ * <li><code>com.kik.config.ice.ValueChange</code> - each new active value of a config property</li>
+ * <li><code>com.kik.config.ice.Reload</code> - each file reload or ZooKeeper sync</li>
+ * <li><code>com.kik.config.ice.SlowSubscriber</code> - subscriber callbacks slower than the
+ * <code>callbackThreshold</code> setting (20 ms by default)</li>
+ * </ul>
+ * Events are enabled and disabled through the recording's settings, like any other JFR event. Requires a JVM which
+ * provides the <code>jdk.jfr</code> API (JDK 8u262 or later).
+ */
+@Singleton
+public class JfrConfigMetrics implements ConfigMetrics
+{
+    @Override
+    public void onSourceEvent(String sourceName, String configName, boolean changed)
+    {
+    }
+
+    @Override
+    public void onConversion(String configName, long conversionNanos, boolean success)
+    {
+    }
+
+    @Override
+    public void onPropertyEmit(String configName, String sourceName, Object oldValue, Object newValue, long conversionNanos, long subscriberNanos)
+    {
+        ValueChangeEvent changeEvent = new ValueChangeEvent();
+        if (changeEvent.isEnabled()) {
+            changeEvent.configName = configName;
+            changeEvent.sourceName = sourceName;
+            changeEvent.oldValueHash = Objects.hashCode(oldValue);
+            changeEvent.newValueHash = Objects.hashCode(newValue);
+            changeEvent.conversionTime = conversionNanos;
+            changeEvent.subscriberTime = subscriberNanos;
+            changeEvent.commit();
+        }
+
+        SlowSubscriberEvent slowEvent = new SlowSubscriberEvent();
+        if (slowEvent.isEnabled()) {
+            slowEvent.configName = configName;
+            slowEvent.callbackTime = subscriberNanos;
+            slowEvent.commit();
+        }
+    }
+
+    @Override
+    public void onReload(String sourceName, long reloadNanos, int keyCount, int changedCount, boolean success)
+    {
+        ReloadEvent reloadEvent = new ReloadEvent();
+        if (reloadEvent.isEnabled()) {
+            reloadEvent.sourceName = sourceName;
+            reloadEvent.reloadTime = reloadNanos;
+            reloadEvent.keyCount = keyCount;
+            reloadEvent.changedCount = changedCount;
+            reloadEvent.success = success;
+            reloadEvent.commit();
+        }
+    }
+
+    public static Module module()
+    {
+        return new AbstractModule()
+        {
+            @Override
+            protected void configure()
+            {
+                bind(JfrConfigMetrics.class);
+                CompositeConfigMetrics.addBinding(binder(), JfrConfigMetrics.class);
+            }
+        };
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("com.kik.config.ice.Reload")
+@Label("Config Source Reload")
+@Category({"ICE", "Config"})
+@Description("A full reload of the values in a config source")
+@StackTrace(false)
+class ReloadEvent extends Event
+{
+    @Label("Source Name")
+    String sourceName;
+
+    @Label("Reload Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long reloadTime;
+
+    @Label("Key Count")
+    int keyCount;
+
+    @Label("Changed Count")
+    int changedCount;
+
+    @Label("Success")
+    boolean success;
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.SettingDefinition;
+import jdk.jfr.Timespan;
+
+@Name("com.kik.config.ice.SlowSubscriber")
+@Label("Slow Config Subscriber")
+@Category({"ICE", "Config"})
+@Description("Subscriber callbacks for a config value change which took longer than the callback threshold")
+class SlowSubscriberEvent extends Event
+{
+    @Label("Config Name")
+    String configName;
+
+    @Label("Callback Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long callbackTime;
+
+    @Name("callbackThreshold")
+    @Label("Callback Threshold")
+    @Description("Minimum subscriber callback time for the event to be recorded")
+    @SettingDefinition
+    protected boolean callbackThreshold(CallbackThresholdSetting setting)
+    {
+        return setting.isAtLeastThreshold(callbackTime);
+    }
+}
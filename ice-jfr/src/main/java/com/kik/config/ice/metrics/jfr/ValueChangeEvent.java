@@ -0,0 +1,53 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("com.kik.config.ice.ValueChange")
+@Label("Config Value Change")
+@Category({"ICE", "Config"})
+@Description("A new active value for a config property")
+@StackTrace(false)
+class ValueChangeEvent extends Event
+{
+    @Label("Config Name")
+    String configName;
+
+    @Label("Source Name")
+    @Description("Config source providing the new value, or null if the default value is in use")
+    String sourceName;
+
+    @Label("Old Value Hash")
+    int oldValueHash;
+
+    @Label("New Value Hash")
+    int newValueHash;
+
+    @Label("Conversion Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long conversionTime;
+
+    @Label("Subscriber Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long subscriberTime;
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.metrics.jfr;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+import com.kik.config.ice.ConfigConfigurator;
+import com.kik.config.ice.ConfigSystem;
+import com.kik.config.ice.annotations.DefaultValue;
+import com.kik.config.ice.metrics.CountingConfigMetrics;
+import com.kik.config.ice.source.DebugDynamicConfigSource;
+import java.io.File;
+import java.util.List;
+import java.util.Optional;
+import static java.util.stream.Collectors.toList;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import rx.Observable;
+
+public class JfrConfigMetricsTest
+{
+    private static final String timeoutName = "com.kik.config.ice.metrics.jfr.JfrConfigMetricsTest$Config.timeout";
+
+    public interface Config
+    {
+        @DefaultValue("100")
+        long timeout();
+
+        Observable<Long> timeoutObservable();
+    }
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Inject
+    private DebugDynamicConfigSource dcs;
+
+    @Inject
+    private Config config;
+
+    @Inject
+    private CountingConfigMetrics countingMetrics;
+
+    @Before
+    public void setup()
+    {
+        Injector injector = Guice.createInjector(new AbstractModule()
+        {
+            @Override
+            protected void configure()
+            {
+                install(ConfigConfigurator.testModules());
+                install(JfrConfigMetrics.module());
+                install(CountingConfigMetrics.module());
+                install(ConfigSystem.configModule(Config.class));
+
+                binder().requireExplicitBindings();
+            }
+        });
+
+        injector.injectMembers(this);
+    }
+
+    @Test(timeout = 5000)
+    public void testEventsRecorded() throws Exception
+    {
+        assertEquals(100L, config.timeout());
+
+        // Only the slow subscriber should produce a SlowSubscriber event
+        config.timeoutObservable().filter(value -> value == 300L).subscribe(value -> sleep(30));
+
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable(ValueChangeEvent.class);
+            recording.enable(SlowSubscriberEvent.class).with("callbackThreshold", "25 ms");
+            recording.start();
+
+            dcs.fireEvent(timeoutName, Optional.of("200"));
+            dcs.fireEvent(timeoutName, Optional.of("300"));
+
+            recording.stop();
+            File dump = tempFolder.newFile("config.jfr");
+            recording.dump(dump.toPath());
+            events = RecordingFile.readAllEvents(dump.toPath());
+        }
+
+        List<RecordedEvent> changes = events.stream()
+            .filter(event -> event.getEventType().getName().equals("com.kik.config.ice.ValueChange"))
+            .collect(toList());
+        assertEquals(2, changes.size());
+        assertEquals(timeoutName, changes.get(0).getString("configName"));
+        assertEquals(DebugDynamicConfigSource.class.getSimpleName(), changes.get(0).getString("sourceName"));
+        assertEquals(Long.valueOf(200L).hashCode(), changes.get(0).getInt("newValueHash"));
+        assertEquals(Long.valueOf(200L).hashCode(), changes.get(1).getInt("oldValueHash"));
+
+        List<RecordedEvent> slow = events.stream()
+            .filter(event -> event.getEventType().getName().equals("com.kik.config.ice.SlowSubscriber"))
+            .collect(toList());
+        assertEquals(1, slow.size());
+        assertTrue(slow.get(0).getLong("callbackTime") >= 25_000_000L);
+
+        // Metrics installed alongside JFR see the same events
+        assertEquals(Long.valueOf(2L), countingMetrics.getPropertyEmitCounts().get(timeoutName));
+    }
+
+    private static void sleep(long millis)
+    {
+        try {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of the metrics recorded by {@link JmxConfigMetrics}.
+ */
+public interface ConfigMetricsMXBean
+{
+    Map<String, Long> getSourceEventCounts();
+
+    Map<String, Long> getSourceChangeCounts();
+
+    Map<String, Long> getPropertyEmitCounts();
+
+    Map<String, TimerSnapshot> getConversionTimes();
+
+    Map<String, TimerSnapshot> getSubscriberCallbackTimes();
+
+    Map<String, TimerSnapshot> getReloadTimes();
+
+    Map<String, HistogramSnapshot> getPropagationLatencies();
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.metrics;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * JMX view of config property read tracking, published by {@link JmxConfigReadStats}.
+ */
+public interface ConfigReadStatsMXBean
+{
+    Map<String, Long> getReadCounts();
+
+    Map<String, Double> getReadRates();
+
+    Set<String> getUnreadProperties();
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.metrics;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Inject;
+import com.google.inject.Module;
+import com.google.inject.Singleton;
+import com.kik.config.ice.exception.ConfigException;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link CountingConfigMetrics} which publishes its counters and timers in JMX as an MXBean named
+ * {@value #MBEAN_NAME}.
+ */
+@Slf4j
+@Singleton
+public class JmxConfigMetrics extends CountingConfigMetrics implements ConfigMetricsMXBean
+{
+    public static final String MBEAN_NAME = "com.kik.config.ice:name=IceMetrics";
+
+    private final MBeanServer mbeanServer;
+
+    @Inject
+    protected JmxConfigMetrics(MBeanServer mbeanServer)
+    {
+        this.mbeanServer = mbeanServer;
+    }
+
+    /**
+     * Registers this bean. Invoked by Guice once construction is complete.
+     */
+    @Inject
+    protected void registerMBean()
+    {
+        try {
+            mbeanServer.registerMBean(this, new ObjectName(MBEAN_NAME));
+            log.debug("Registered config metrics bean with name {}", MBEAN_NAME);
+        }
+        catch (MalformedObjectNameException | InstanceAlreadyExistsException | MBeanRegistrationException | NotCompliantMBeanException ex) {
+            throw new ConfigException("Failed to register MBean {}", MBEAN_NAME, ex);
+        }
+    }
+
+    public static Module module()
+    {
+        return new AbstractModule()
+        {
+            @Override
+            protected void configure()
+            {
+                bind(JmxConfigMetrics.class);
+                CompositeConfigMetrics.addBinding(binder(), JmxConfigMetrics.class);
+            }
+        };
+    }
+}
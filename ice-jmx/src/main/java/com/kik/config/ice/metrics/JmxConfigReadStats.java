@@ -0,0 +1,99 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.metrics;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Inject;
+import com.google.inject.Module;
+import com.google.inject.Singleton;
+import com.kik.config.ice.ConfigSystem;
+import com.kik.config.ice.exception.ConfigException;
+import java.util.Map;
+import java.util.Set;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Publishes the config read tracking results from {@link ConfigSystem} in JMX as an MXBean named
+ * {@value #MBEAN_NAME}. Installing {@link #module()} also enables read tracking.
+ */
+@Slf4j
+@Singleton
+public class JmxConfigReadStats implements ConfigReadStatsMXBean
+{
+    public static final String MBEAN_NAME = "com.kik.config.ice:name=IceReadStats";
+
+    private final ConfigSystem configSystem;
+    private final MBeanServer mbeanServer;
+
+    @Inject
+    protected JmxConfigReadStats(ConfigSystem configSystem, MBeanServer mbeanServer)
+    {
+        this.configSystem = configSystem;
+        this.mbeanServer = mbeanServer;
+    }
+
+    /**
+     * Registers this bean. Invoked by Guice once construction is complete.
+     */
+    @Inject
+    protected void registerMBean()
+    {
+        try {
+            mbeanServer.registerMBean(this, new ObjectName(MBEAN_NAME));
+            log.debug("Registered config read stats bean with name {}", MBEAN_NAME);
+        }
+        catch (MalformedObjectNameException | InstanceAlreadyExistsException | MBeanRegistrationException | NotCompliantMBeanException ex) {
+            throw new ConfigException("Failed to register MBean {}", MBEAN_NAME, ex);
+        }
+    }
+
+    @Override
+    public Map<String, Long> getReadCounts()
+    {
+        return configSystem.getReadCounts();
+    }
+
+    @Override
+    public Map<String, Double> getReadRates()
+    {
+        return configSystem.getReadRates();
+    }
+
+    @Override
+    public Set<String> getUnreadProperties()
+    {
+        return configSystem.getUnreadProperties();
+    }
+
+    public static Module module()
+    {
+        return new AbstractModule()
+        {
+            @Override
+            protected void configure()
+            {
+                install(ConfigReadTracker.module());
+                bind(JmxConfigReadStats.class).asEagerSingleton();
+            }
+        };
+    }
+}
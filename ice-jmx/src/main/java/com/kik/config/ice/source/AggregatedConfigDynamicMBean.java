@@ -0,0 +1,177 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.source;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.Provider;
+import com.google.inject.TypeLiteral;
+import com.google.inject.util.Types;
+import com.kik.config.ice.ConfigSystem;
+import com.kik.config.ice.internal.ConfigDescriptor;
+import com.kik.config.ice.internal.PropertyAccessor;
+import com.kik.config.ice.sink.ConfigEventSink;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentMap;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.InvalidAttributeValueException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanException;
+import javax.management.MBeanInfo;
+import javax.management.ReflectionException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Single bean used by {@link JmxDynamicConfigSource} in {@link JmxDynamicConfigSource.RegistrationMode#AGGREGATED}
+ * mode to expose every configuration value in JMX.
+ * <br>
+ * Attributes are named with the full configuration name (as produced by the config system's naming strategy), and are
+ * resolved on demand. The attribute lookup and the {@link MBeanInfo} are only built the first time they are needed, so
+ * registering this bean costs the same regardless of how many config interfaces are installed.
+ */
+@Slf4j
+public class AggregatedConfigDynamicMBean implements DynamicMBean
+{
+    public static final String MBEAN_NAME = "com.kik.config.ice:name=IceMBean";
+
+    private final WeakReference<Injector> injectorRef;
+    private final ConfigEventSink<String> eventSink;
+    private final List<ConfigDescriptor> configDescriptors;
+    private final Supplier<ImmutableMap<String, ConfigDescriptor>> descLookupByAttributeName;
+    private final Supplier<MBeanInfo> mbeanInfo;
+    private final ConcurrentMap<String, Provider<PropertyAccessor<?>>> providerLookupByAttributeName;
+
+    public AggregatedConfigDynamicMBean(ConfigEventSink<String> eventSink, Injector injector, List<ConfigDescriptor> configDescriptors)
+    {
+        this.eventSink = checkNotNull(eventSink);
+        this.injectorRef = new WeakReference<>(checkNotNull(injector));
+        this.configDescriptors = checkNotNull(configDescriptors);
+        this.providerLookupByAttributeName = Maps.newConcurrentMap();
+        this.descLookupByAttributeName = Suppliers.memoize(this::buildDescLookup);
+        this.mbeanInfo = Suppliers.memoize(this::buildMBeanInfo);
+    }
+
+    private ImmutableMap<String, ConfigDescriptor> buildDescLookup()
+    {
+        ImmutableMap.Builder<String, ConfigDescriptor> builder = ImmutableMap.builder();
+        configDescriptors.forEach(desc -> builder.put(desc.getConfigName(), desc));
+        ImmutableMap<String, ConfigDescriptor> lookup = builder.build();
+        log.debug("MBean {} built attribute lookup for {} configuration values", MBEAN_NAME, lookup.size());
+        return lookup;
+    }
+
+    private MBeanInfo buildMBeanInfo()
+    {
+        // configDescriptors are already sorted by config name
+        MBeanAttributeInfo[] attributeInfos = configDescriptors.stream()
+            .map(desc -> ConfigDynamicMBean.descToAttributeInfo(desc.getConfigName(), desc))
+            .toArray(MBeanAttributeInfo[]::new);
+        return new MBeanInfo(getClass().getName(), "", attributeInfos, null, null, null);
+    }
+
+    private Provider<PropertyAccessor<?>> getProvider(ConfigDescriptor desc)
+    {
+        return providerLookupByAttributeName.computeIfAbsent(desc.getConfigName(), name -> {
+            TypeLiteral<PropertyAccessor<?>> accessorKey = (TypeLiteral<PropertyAccessor<?>>) TypeLiteral.get(Types.newParameterizedType(PropertyAccessor.class, desc.getConfigType()));
+            return injectorRef.get().getProvider(Key.get(accessorKey, ConfigSystem.getIdentifier(desc)));
+        });
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException, MBeanException, ReflectionException
+    {
+        ConfigDescriptor desc = descLookupByAttributeName.get().get(attribute);
+        if (desc == null) {
+            log.warn("Attribute {} requested on MXBean {}, but no matching configDescriptor found.", attribute, MBEAN_NAME);
+            throw new AttributeNotFoundException();
+        }
+        Object value = ConfigDynamicMBean.toAttributeValue(getProvider(desc).get().get());
+        log.trace("Attribute {} requested on MXBean {}, returning value '{}'", attribute, MBEAN_NAME, value);
+        return value;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException, InvalidAttributeValueException, MBeanException, ReflectionException
+    {
+        ConfigDescriptor desc = descLookupByAttributeName.get().get(attribute.getName());
+        if (desc == null) {
+            log.warn("Attribute Set name={} value={} requested on MXBean {}, but no matching configDescriptor found.",
+                attribute.getName(), attribute.getValue(), MBEAN_NAME);
+            throw new AttributeNotFoundException();
+        }
+
+        String strValue = ConfigDynamicMBean.toCheckedStringValue(this.injectorRef.get(), desc, attribute, MBEAN_NAME);
+        this.eventSink.fireEvent(desc.getConfigName(), Optional.ofNullable(strValue));
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes)
+    {
+        AttributeList lst = new AttributeList(attributes.length);
+        for (String attribute : attributes) {
+            try {
+                lst.add(new Attribute(attribute, getAttribute(attribute)));
+            }
+            catch (AttributeNotFoundException | MBeanException | ReflectionException ex) {
+                // warn is logged by individual getAttribute calls
+                log.debug("getAttributes was unable to fetch attribute {} from MXBean {}", attribute, MBEAN_NAME, ex);
+            }
+        }
+        return lst;
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes)
+    {
+        List<String> toGet = new ArrayList<>();
+        for (Attribute attrib : attributes.asList()) {
+            try {
+                setAttribute(attrib);
+                toGet.add(attrib.getName());
+            }
+            catch (AttributeNotFoundException | InvalidAttributeValueException | MBeanException | ReflectionException ex) {
+                // warn is logged by individual setAttribute calls
+                log.debug("Could not set attribute {} on MXBean {}", attrib.getName(), MBEAN_NAME, ex);
+            }
+        }
+        return getAttributes(toGet.stream().toArray(String[]::new));
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws MBeanException, ReflectionException
+    {
+        log.warn("Unexpected invoke for action {} on MXBean {}", actionName, MBEAN_NAME);
+        throw new MBeanException(
+            new UnsupportedOperationException("methods not implemented."));
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo()
+    {
+        return mbeanInfo.get();
+    }
+}
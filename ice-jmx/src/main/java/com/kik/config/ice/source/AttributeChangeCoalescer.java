@@ -0,0 +1,101 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.source;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Collects attribute changes for a single MBean and hands them off in batches no more often than the configured
+ * interval. Repeated changes to the same attribute within one interval are coalesced into a single change from the
+ * first old value to the latest new value, and dropped entirely if the value ends up unchanged.
+ */
+@Slf4j
+class AttributeChangeCoalescer
+{
+    private final ScheduledExecutorService scheduler;
+    private final long minIntervalMillis;
+    private final Consumer<List<AttributeChange>> flushConsumer;
+
+    private final Object lock = new Object();
+    // Guarded by lock. Keeps changes in the order attributes were first changed.
+    private Map<String, AttributeChange> pendingChanges = Maps.newLinkedHashMap();
+    private boolean flushScheduled = false;
+    private long lastFlushMillis = 0L;
+
+    AttributeChangeCoalescer(ScheduledExecutorService scheduler, Duration minInterval, Consumer<List<AttributeChange>> flushConsumer)
+    {
+        this.scheduler = checkNotNull(scheduler);
+        this.minIntervalMillis = checkNotNull(minInterval).toMillis();
+        this.flushConsumer = checkNotNull(flushConsumer);
+    }
+
+    void onChange(String attributeName, Object oldValue, Object newValue, String sourceName)
+    {
+        synchronized (lock) {
+            AttributeChange existing = pendingChanges.get(attributeName);
+            Object firstOldValue = existing == null ? oldValue : existing.getOldValue();
+            pendingChanges.put(attributeName, new AttributeChange(attributeName, firstOldValue, newValue, sourceName));
+
+            if (!flushScheduled) {
+                long delay = Math.max(0L, lastFlushMillis + minIntervalMillis - System.currentTimeMillis());
+                scheduler.schedule(this::flush, delay, TimeUnit.MILLISECONDS);
+                flushScheduled = true;
+            }
+        }
+    }
+
+    private void flush()
+    {
+        final Map<String, AttributeChange> toFlush;
+        synchronized (lock) {
+            toFlush = pendingChanges;
+            pendingChanges = Maps.newLinkedHashMap();
+            flushScheduled = false;
+            lastFlushMillis = System.currentTimeMillis();
+        }
+
+        ImmutableList.Builder<AttributeChange> changes = ImmutableList.builder();
+        toFlush.values().stream()
+            .filter(change -> !Objects.deepEquals(change.getOldValue(), change.getNewValue()))
+            .forEach(changes::add);
+        try {
+            flushConsumer.accept(changes.build());
+        }
+        catch (Exception ex) {
+            log.warn("Failed to flush {} attribute changes", toFlush.size(), ex);
+        }
+    }
+
+    @Value
+    static class AttributeChange
+    {
+        private String attributeName;
+        private Object oldValue;
+        private Object newValue;
+        private String sourceName;
+    }
+}
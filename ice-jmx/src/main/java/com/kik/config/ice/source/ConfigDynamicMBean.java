@@ -25,34 +25,66 @@ import com.google.inject.TypeLiteral;
 import com.google.inject.util.Types;
 import com.kik.config.ice.ConfigSystem;
 import com.kik.config.ice.convert.ConfigValueConverter;
+import com.kik.config.ice.convert.ConfigValueConverters;
 import com.kik.config.ice.internal.ConfigDescriptor;
 import com.kik.config.ice.internal.PropertyAccessor;
 import com.kik.config.ice.sink.ConfigEventSink;
 import java.lang.ref.WeakReference;
+import java.lang.reflect.Array;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import static java.util.Comparator.comparing;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import static java.util.stream.Collectors.joining;
+import java.util.stream.IntStream;
 import javax.management.Attribute;
+import javax.management.AttributeChangeNotification;
 import javax.management.AttributeList;
 import javax.management.AttributeNotFoundException;
 import javax.management.DynamicMBean;
 import javax.management.InvalidAttributeValueException;
+import javax.management.ListenerNotFoundException;
 import javax.management.MBeanAttributeInfo;
 import javax.management.MBeanException;
 import javax.management.MBeanInfo;
+import javax.management.MBeanNotificationInfo;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationFilter;
+import javax.management.NotificationListener;
 import javax.management.ReflectionException;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
+import rx.Subscription;
 
 /**
  * Bean class used by {@link JmxDynamicConfigSource} to register configuration in JMX.
+ * <br>
+ * The bean emits an {@link AttributeChangeNotification} when the active value of one of its attributes changes. The
+ * config values are only observed while at least one notification listener is registered, and changes are coalesced
+ * so that notifications are sent no more often than the given notification interval.
  */
 @Slf4j
-public class ConfigDynamicMBean implements DynamicMBean
+public class ConfigDynamicMBean implements DynamicMBean, NotificationEmitter
 {
     private final static String MBEAN_SUFFIX = "IceMBean";
+    /**
+     * Source name reported in notifications when no config source overrides the static default.
+     */
+    public final static String DEFAULT_SOURCE_NAME = "default";
+    private final static MBeanNotificationInfo[] NOTIFICATION_INFO = new MBeanNotificationInfo[]{
+        new MBeanNotificationInfo(
+            new String[]{AttributeChangeNotification.ATTRIBUTE_CHANGE},
+            AttributeChangeNotification.class.getName(),
+            "Sent when the active value of a configuration attribute changes")
+    };
+
     private final WeakReference<Injector> injectorRef;
     private final ConfigEventSink<String> eventSink;
     private final Map<String, Provider<PropertyAccessor<?>>> providerLookupByAttributeName;
@@ -61,7 +93,19 @@ public class ConfigDynamicMBean implements DynamicMBean
     private final String mbeanName;
     private final MBeanInfo mbeanInfo;
 
-    public ConfigDynamicMBean(ConfigEventSink<String> eventSink, Injector injector, List<ConfigDescriptor> configDescriptors)
+    private final AttributeChangeCoalescer changeCoalescer;
+    private final List<ListenerRegistration> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong notificationSequence = new AtomicLong();
+    private final Object subscriptionLock = new Object();
+    // Guarded by subscriptionLock
+    private List<Subscription> subscriptions = Collections.emptyList();
+
+    public ConfigDynamicMBean(
+        ConfigEventSink<String> eventSink,
+        Injector injector,
+        List<ConfigDescriptor> configDescriptors,
+        ScheduledExecutorService notificationScheduler,
+        Duration notificationInterval)
     {
         checkNotNull(eventSink);
         checkNotNull(injector);
@@ -71,6 +115,7 @@ public class ConfigDynamicMBean implements DynamicMBean
         this.mbeanName = descToBeanName(configDescriptors.get(0));
         this.eventSink = eventSink;
         this.injectorRef = new WeakReference<>(injector);
+        this.changeCoalescer = new AttributeChangeCoalescer(notificationScheduler, notificationInterval, this::sendNotifications);
         this.providerLookupByAttributeName = Maps.newHashMap();
         this.descLookupByAttributeName = Maps.newHashMap();
         for (ConfigDescriptor desc : configDescriptors) {
@@ -87,17 +132,17 @@ public class ConfigDynamicMBean implements DynamicMBean
 
         MBeanAttributeInfo[] attributeInfos = configDescriptors.stream()
             .sorted(comparing(d -> d.getConfigName()))
-            .map(ConfigDynamicMBean::descToAttributeInfo)
+            .map(desc -> descToAttributeInfo(desc.getMethod().getName(), desc))
             .toArray(MBeanAttributeInfo[]::new);
 
         String className = configDescriptors.get(0).getMethod().getDeclaringClass().getDeclaringClass().getName();
-        this.mbeanInfo = new MBeanInfo(className, "", attributeInfos, null, null, null);
+        this.mbeanInfo = new MBeanInfo(className, "", attributeInfos, null, null, NOTIFICATION_INFO);
     }
 
-    private static MBeanAttributeInfo descToAttributeInfo(ConfigDescriptor desc)
+    static MBeanAttributeInfo descToAttributeInfo(String attrName, ConfigDescriptor desc)
     {
         return new MBeanAttributeInfo(
-            desc.getMethod().getName(),
+            attrName,
             "java.lang.String", // Always use string, or JMX will try to parse things for us.
             "Actual Type: " + desc.getConfigType().getTypeName(), // description - TODO: get from an annotation?
             true, // readable
@@ -124,14 +169,7 @@ public class ConfigDynamicMBean implements DynamicMBean
             log.warn("Attribute {} requested on MXBean {}, but associated propertyAccessorProvider not found.", attribute, mbeanName);
             throw new AttributeNotFoundException();
         }
-        Object value = propertyAccessorProvider.get().get();
-        if (value instanceof Optional) {
-            value = ((Optional) value).orElse(null);
-        }
-        else if (value instanceof List) {
-            // TODO - Bit of a hack - need to revisit how to do this.
-            value = ((List) value).stream().map(String::valueOf).collect(joining(","));
-        }
+        Object value = toAttributeValue(propertyAccessorProvider.get().get());
         log.trace("Attribute {} requested on MXBean {}, returning value '{}'", attribute, mbeanName, value);
         return value;
     }
@@ -146,8 +184,41 @@ public class ConfigDynamicMBean implements DynamicMBean
             throw new AttributeNotFoundException();
         }
 
-        // get appropriate config value converter and test the conversion for immediate error feedback
-        ConfigValueConverter<?> converter = (ConfigValueConverter<?>) this.injectorRef.get().getInstance(Key.get(Types.newParameterizedType(ConfigValueConverter.class, desc.getConfigType())));
+        // emit event
+        String strValue = toCheckedStringValue(this.injectorRef.get(), desc, attribute, mbeanName);
+        this.eventSink.fireEvent(desc.getConfigName(), Optional.ofNullable(strValue));
+    }
+
+    /**
+     * Converts a config value into the form shown in JMX.
+     */
+    static Object toAttributeValue(Object value)
+    {
+        if (value instanceof Optional) {
+            return ((Optional) value).orElse(null);
+        }
+        else if (value instanceof List) {
+            // TODO - Bit of a hack - need to revisit how to do this.
+            return ((List) value).stream().map(String::valueOf).collect(joining(","));
+        }
+        else if (value instanceof Map) {
+            return ConfigValueConverters.fromMap((Map<String, ?>) value);
+        }
+        else if (value != null && value.getClass().isArray()) {
+            return IntStream.range(0, Array.getLength(value)).mapToObj(idx -> String.valueOf(Array.get(value, idx))).collect(joining(","));
+        }
+        return value;
+    }
+
+    /**
+     * Provides the string form of an attribute value being set, having checked it converts to the configured type
+     * for immediate error feedback.
+     */
+    static String toCheckedStringValue(Injector injector, ConfigDescriptor desc, Attribute attribute, String mbeanName)
+        throws InvalidAttributeValueException
+    {
+        // get appropriate config value converter and test the conversion
+        ConfigValueConverter<?> converter = (ConfigValueConverter<?>) injector.getInstance(Key.get(Types.newParameterizedType(ConfigValueConverter.class, desc.getConfigType())));
         String strValue = attribute.getValue() == null ? null : attribute.getValue().toString();
         try {
             converter.apply(strValue);
@@ -157,9 +228,7 @@ public class ConfigDynamicMBean implements DynamicMBean
                 attribute.getName(), attribute.getValue(), mbeanName, desc.getConfigType().getTypeName());
             throw new InvalidAttributeValueException("Failed to parse value: " + ex.getMessage());
         }
-
-        // emit event
-        this.eventSink.fireEvent(desc.getConfigName(), Optional.ofNullable(strValue));
+        return strValue;
     }
 
     @Override
@@ -213,4 +282,109 @@ public class ConfigDynamicMBean implements DynamicMBean
     {
         return this.mbeanName;
     }
+
+    @Override
+    public void addNotificationListener(NotificationListener listener, NotificationFilter filter, Object handback)
+    {
+        checkNotNull(listener);
+        listeners.add(new ListenerRegistration(listener, filter, handback));
+        updateSubscriptions();
+    }
+
+    @Override
+    public void removeNotificationListener(NotificationListener listener) throws ListenerNotFoundException
+    {
+        boolean removed = listeners.removeIf(reg -> reg.getListener() == listener);
+        if (!removed) {
+            throw new ListenerNotFoundException("Listener not registered on MXBean " + mbeanName);
+        }
+        updateSubscriptions();
+    }
+
+    @Override
+    public void removeNotificationListener(NotificationListener listener, NotificationFilter filter, Object handback) throws ListenerNotFoundException
+    {
+        ListenerRegistration toRemove = listeners.stream()
+            .filter(reg -> reg.getListener() == listener && reg.getFilter() == filter && reg.getHandback() == handback)
+            .findFirst()
+            .orElseThrow(() -> new ListenerNotFoundException("Listener not registered on MXBean " + mbeanName));
+        listeners.remove(toRemove);
+        updateSubscriptions();
+    }
+
+    @Override
+    public MBeanNotificationInfo[] getNotificationInfo()
+    {
+        return NOTIFICATION_INFO.clone();
+    }
+
+    /**
+     * Subscribes to the property accessors of this bean when the first listener is added, and unsubscribes when the
+     * last one is removed, so no work is done for changes nobody is listening for.
+     */
+    private void updateSubscriptions()
+    {
+        synchronized (subscriptionLock) {
+            if (listeners.isEmpty() && !subscriptions.isEmpty()) {
+                subscriptions.forEach(Subscription::unsubscribe);
+                subscriptions = Collections.emptyList();
+                log.debug("MBean {} stopped observing attribute changes", mbeanName);
+            }
+            else if (!listeners.isEmpty() && subscriptions.isEmpty()) {
+                List<Subscription> newSubscriptions = new ArrayList<>(providerLookupByAttributeName.size());
+                providerLookupByAttributeName.forEach((attrName, provider) -> newSubscriptions.add(subscribeToChanges(attrName, provider.get())));
+                subscriptions = newSubscriptions;
+                log.debug("MBean {} started observing attribute changes", mbeanName);
+            }
+        }
+    }
+
+    private <T> Subscription subscribeToChanges(String attrName, PropertyAccessor<T> accessor)
+    {
+        // The accessor observable provides the current value first, which is only used as the baseline.
+        final AtomicReference<Object> lastValue = new AtomicReference<>(toAttributeValue(accessor.get()));
+        return accessor.getObservable()
+            .skip(1)
+            .subscribe(value -> {
+                Object newValue = toAttributeValue(value);
+                Object oldValue = lastValue.getAndSet(newValue);
+                changeCoalescer.onChange(attrName, oldValue, newValue, accessor.getActiveSourceName().orElse(DEFAULT_SOURCE_NAME));
+            });
+    }
+
+    private void sendNotifications(List<AttributeChangeCoalescer.AttributeChange> changes)
+    {
+        for (AttributeChangeCoalescer.AttributeChange change : changes) {
+            AttributeChangeNotification notification = new AttributeChangeNotification(
+                this,
+                notificationSequence.incrementAndGet(),
+                System.currentTimeMillis(),
+                String.format("%s changed, value provided by %s", change.getAttributeName(), change.getSourceName()),
+                change.getAttributeName(),
+                "java.lang.String",
+                change.getOldValue(),
+                change.getNewValue());
+            notification.setUserData(change.getSourceName());
+
+            log.trace("MBean {} sending change notification for attribute {}", mbeanName, change.getAttributeName());
+            for (ListenerRegistration reg : listeners) {
+                try {
+                    if (reg.getFilter() == null || reg.getFilter().isNotificationEnabled(notification)) {
+                        reg.getListener().handleNotification(notification, reg.getHandback());
+                    }
+                }
+                catch (Exception ex) {
+                    log.warn("Notification listener on MXBean {} failed to handle change of {}", mbeanName, change.getAttributeName(), ex);
+                }
+            }
+        }
+    }
+
+    @Value
+    private static class ListenerRegistration
+    {
+        private NotificationListener listener;
+        private NotificationFilter filter;
+        private Object handback;
+    }
 }
@@ -15,24 +15,34 @@
  */
 package com.kik.config.ice.source;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.AbstractModule;
 import com.google.inject.Inject;
 import com.google.inject.Injector;
 import com.google.inject.Module;
 import com.google.inject.Singleton;
 import com.google.inject.multibindings.MapBinder;
+import com.google.inject.name.Named;
+import com.google.inject.name.Names;
 import com.kik.config.ice.exception.ConfigException;
 import com.kik.config.ice.internal.ConfigDescriptor;
 import com.kik.config.ice.internal.ConfigDescriptorHolder;
 import com.kik.config.ice.sink.ConfigEventSink;
+import java.io.IOException;
 import java.lang.ref.WeakReference;
+import java.time.Duration;
 import static java.util.Comparator.comparing;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.toList;
 import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
 import javax.management.MBeanRegistrationException;
 import javax.management.MBeanServer;
 import javax.management.MalformedObjectNameException;
@@ -52,6 +62,14 @@ import lombok.extern.slf4j.Slf4j;
  * until the attribute list has been refreshed.
  * <b>NOTE:</b> To undo a JMX change, clear the attribute field. This will remove any JMX-based override of the value,
  * and the value shown will be the new active value of the config system.
+ * <br>
+ * When a large number of config interfaces or scopes are installed, the source can instead be set up in
+ * {@link RegistrationMode#AGGREGATED} mode, which registers a single {@link AggregatedConfigDynamicMBean} for all
+ * configuration values.
+ * <br>
+ * In {@link RegistrationMode#PER_INTERFACE} mode, each bean also emits an
+ * {@link javax.management.AttributeChangeNotification} when a value changes, regardless of which config source
+ * changed it. Notifications are rate limited per bean to one batch every {@link #NOTIFICATION_INTERVAL_NAME}.
  */
 @Slf4j
 @Singleton
@@ -59,19 +77,103 @@ public class JmxDynamicConfigSource extends AbstractDynamicConfigSource implemen
 {
     private static final int CONFIG_SOURCE_PRIORITY_DEFAULT = 25;
 
+    private static final String CONFIG_PREFIX = "JmxDynamicConfigSource.";
+
+    /**
+     * Name of optional binding for the {@link RegistrationMode} to use.
+     */
+    public static final String REGISTRATION_MODE_NAME = CONFIG_PREFIX + "registration_mode";
+
+    /**
+     * Name of optional binding for the minimum {@link Duration} between change notifications sent by a single bean.
+     */
+    public static final String NOTIFICATION_INTERVAL_NAME = CONFIG_PREFIX + "notification_interval";
+
+    private static final Duration NOTIFICATION_INTERVAL_DEFAULT = Duration.ofSeconds(1);
+
+    /**
+     * Controls how configuration values are registered in the MBeanServer.
+     */
+    public enum RegistrationMode
+    {
+        /**
+         * One {@link ConfigDynamicMBean} is registered for each config interface and scope. This is the default.
+         */
+        PER_INTERFACE,
+        /**
+         * A single {@link AggregatedConfigDynamicMBean} is registered for all config interfaces and scopes.
+         */
+        AGGREGATED;
+    }
+
     private final WeakReference<Injector> injectorRef; // WeakReference to prevent the mbean server from leaking the injector
     private final MBeanServer mbeanServer;
 
+    @Inject(optional = true)
+    @Named(REGISTRATION_MODE_NAME)
+    private RegistrationMode registrationMode = RegistrationMode.PER_INTERFACE;
+
+    @Inject(optional = true)
+    @Named(NOTIFICATION_INTERVAL_NAME)
+    private Duration notificationInterval = NOTIFICATION_INTERVAL_DEFAULT;
+
+    private final ScheduledExecutorService notificationScheduler;
+    private final List<ObjectName> registeredNames = new CopyOnWriteArrayList<>();
+
     @Inject
     protected JmxDynamicConfigSource(Injector injector, MBeanServer mbeanServer, ConfigDescriptorHolder configDescriptorHolder)
     {
         super(configDescriptorHolder.configDescriptors);
         this.injectorRef = new WeakReference<>(injector);
         this.mbeanServer = mbeanServer;
-        initializeJmxBeans();
+
+        // The thread is only started once a notification is scheduled, and is allowed to exit when idle.
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder()
+            .setDaemon(true)
+            .setNameFormat("ice-jmx-notifications-%d")
+            .build());
+        executor.setKeepAliveTime(30, TimeUnit.SECONDS);
+        executor.allowCoreThreadTimeOut(true);
+        this.notificationScheduler = executor;
+    }
+
+    /**
+     * Registers the configuration beans. Invoked by Guice once the optional bindings have been injected.
+     */
+    @Inject
+    protected void initializeJmxBeans()
+    {
+        if (registrationMode == RegistrationMode.AGGREGATED) {
+            initializeAggregatedJmxBean();
+        }
+        else {
+            initializePerInterfaceJmxBeans();
+        }
     }
 
-    private void initializeJmxBeans()
+    private void initializeAggregatedJmxBean()
+    {
+        if (configDescriptors.isEmpty()) {
+            log.debug("No config descriptors found, not registering {}", AggregatedConfigDynamicMBean.MBEAN_NAME);
+            return;
+        }
+
+        AggregatedConfigDynamicMBean bean = new AggregatedConfigDynamicMBean(this, injectorRef.get(), configDescriptors);
+        try {
+            ObjectName objName = new ObjectName(AggregatedConfigDynamicMBean.MBEAN_NAME);
+            mbeanServer.registerMBean(bean, objName);
+            registeredNames.add(objName);
+            log.debug("Registered aggregated bean with name {} for {} configuration values",
+                AggregatedConfigDynamicMBean.MBEAN_NAME, configDescriptors.size());
+        }
+        catch (MalformedObjectNameException | InstanceAlreadyExistsException | MBeanRegistrationException | NotCompliantMBeanException ex) {
+            String msg = String.format("Failed to register aggregated MBean %s", AggregatedConfigDynamicMBean.MBEAN_NAME);
+            log.warn(msg, ex);
+            throw new ConfigException(msg, ex);
+        }
+    }
+
+    private void initializePerInterfaceJmxBeans()
     {
         Map<String, List<ConfigDescriptor>> sortedDescriptors = configDescriptors.stream()
             .collect(groupingBy(desc -> desc.getMethod().getDeclaringClass().getName() + desc.getScope().orElse("")));
@@ -81,13 +183,15 @@ public class JmxDynamicConfigSource extends AbstractDynamicConfigSource implemen
 
         // Construct JMX beans for each config class
         List<ConfigDynamicMBean> configBeans = sortedDescriptors.values().stream()
-            .map(descList -> new ConfigDynamicMBean(this, injectorRef.get(), descList))
+            .map(descList -> new ConfigDynamicMBean(this, injectorRef.get(), descList, notificationScheduler, notificationInterval))
             .collect(toList());
 
         // Register to MBeanServer
         configBeans.stream().forEach(bean -> {
             try {
-                mbeanServer.registerMBean(bean, new ObjectName(bean.getMBeanName()));
+                ObjectName objName = new ObjectName(bean.getMBeanName());
+                mbeanServer.registerMBean(bean, objName);
+                registeredNames.add(objName);
                 log.debug("Registered bean with name {}", bean.getMBeanName());
             }
             catch (MalformedObjectNameException | InstanceAlreadyExistsException | MBeanRegistrationException | NotCompliantMBeanException ex) {
@@ -101,6 +205,27 @@ public class JmxDynamicConfigSource extends AbstractDynamicConfigSource implemen
         });
     }
 
+    /**
+     * Unregisters the configuration beans, and stops the notification thread.
+     *
+     * @throws IOException never
+     */
+    @Override
+    public void close() throws IOException
+    {
+        for (ObjectName objName : registeredNames) {
+            try {
+                mbeanServer.unregisterMBean(objName);
+            }
+            catch (InstanceNotFoundException | MBeanRegistrationException ex) {
+                log.info("Failed to unregister MBean {}", objName, ex);
+            }
+        }
+        registeredNames.clear();
+        notificationScheduler.shutdownNow();
+        super.close();
+    }
+
     /**
      * Used by instances of {@link ConfigDynamicMBean} to emit values back to the config system.
      *
@@ -131,4 +256,17 @@ public class JmxDynamicConfigSource extends AbstractDynamicConfigSource implemen
             }
         };
     }
+
+    public static Module module(final int priority, final RegistrationMode registrationMode)
+    {
+        return new AbstractModule()
+        {
+            @Override
+            protected void configure()
+            {
+                install(module(priority));
+                bind(RegistrationMode.class).annotatedWith(Names.named(REGISTRATION_MODE_NAME)).toInstance(registrationMode);
+            }
+        };
+    }
 }
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.metrics;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+import com.kik.config.ice.ConfigConfigurator;
+import com.kik.config.ice.ConfigSystem;
+import com.kik.config.ice.annotations.DefaultValue;
+import com.kik.config.ice.source.DebugDynamicConfigSource;
+import java.util.Optional;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import static org.junit.Assert.assertEquals;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JmxConfigMetricsTest
+{
+    private static final String enabledName = "com.kik.config.ice.metrics.JmxConfigMetricsTest$Config.enabled";
+
+    public interface Config
+    {
+        @DefaultValue("true")
+        boolean enabled();
+    }
+
+    @Inject
+    private DebugDynamicConfigSource dcs;
+
+    @Inject
+    private Config config;
+
+    private MBeanServer mbeanServer;
+
+    @Before
+    public void setup()
+    {
+        // Use a private MBeanServer so registrations do not collide with other tests
+        mbeanServer = MBeanServerFactory.newMBeanServer();
+
+        Injector injector = Guice.createInjector(
+            ConfigConfigurator.testModules(),
+            JmxConfigMetrics.module(),
+            ConfigSystem.configModule(Config.class),
+            new AbstractModule()
+            {
+                @Override
+                protected void configure()
+                {
+                    bind(MBeanServer.class).toInstance(mbeanServer);
+
+                    // Ensure the test works with explicit bindings required
+                    binder().requireExplicitBindings();
+                }
+            });
+
+        injector.injectMembers(this);
+    }
+
+    @Test(timeout = 5000)
+    public void testMetricsPublished() throws Exception
+    {
+        assertEquals(true, config.enabled());
+        dcs.fireEvent(enabledName, Optional.of("false"));
+        assertEquals(false, config.enabled());
+
+        ObjectName objName = new ObjectName(JmxConfigMetrics.MBEAN_NAME);
+
+        TabularData eventCounts = (TabularData) mbeanServer.getAttribute(objName, "SourceEventCounts");
+        CompositeData row = eventCounts.get(new Object[]{DebugDynamicConfigSource.class.getSimpleName()});
+        assertEquals(1L, row.get("value"));
+
+        TabularData conversionTimes = (TabularData) mbeanServer.getAttribute(objName, "ConversionTimes");
+        CompositeData timer = (CompositeData) conversionTimes.get(new Object[]{enabledName}).get("value");
+        assertEquals(0L, timer.get("failureCount"));
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.source;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+import com.kik.config.ice.ConfigConfigurator;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Set;
+import static java.util.stream.Collectors.toSet;
+import javax.management.Attribute;
+import javax.management.AttributeNotFoundException;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AggregatedJmxDynamicConfigSourceTest
+{
+    private static final String enabledName = "com.kik.config.ice.source.ExampleComponent$Config.enabled";
+    private static final String expiryName = "com.kik.config.ice.source.ExampleSubComponent$Config.expiry:EXAMPLE";
+
+    @Inject
+    private ExampleComponent component;
+
+    // NOTE: injected to force construction of the source, which registers the bean
+    @Inject
+    private JmxDynamicConfigSource source;
+
+    private MBeanServer mbeanServer;
+    private ObjectName objName;
+
+    @Before
+    public void setup() throws Exception
+    {
+        // Use a private MBeanServer so registrations do not collide with other tests
+        mbeanServer = MBeanServerFactory.newMBeanServer();
+        objName = new ObjectName(AggregatedConfigDynamicMBean.MBEAN_NAME);
+
+        Injector injector = Guice.createInjector(
+            ConfigConfigurator.testModules(),
+            JmxDynamicConfigSource.module(25, JmxDynamicConfigSource.RegistrationMode.AGGREGATED),
+            ExampleComponent.module(),
+            new AbstractModule()
+            {
+                @Override
+                protected void configure()
+                {
+                    bind(MBeanServer.class).toInstance(mbeanServer);
+
+                    // Ensure the test works with explicit bindings required
+                    binder().requireExplicitBindings();
+                }
+            });
+
+        injector.injectMembers(this);
+    }
+
+    @Test(timeout = 5000)
+    public void testSingleBeanRegistered() throws Exception
+    {
+        assertTrue(mbeanServer.isRegistered(objName));
+        assertFalse(mbeanServer.isRegistered(new ObjectName("com.kik.config.ice.source:name=ExampleComponentIceMBean")));
+
+        Set<String> attributeNames = Arrays.stream(mbeanServer.getMBeanInfo(objName).getAttributes())
+            .map(info -> info.getName())
+            .collect(toSet());
+        assertEquals(7, attributeNames.size());
+        assertTrue(attributeNames.contains(enabledName));
+        assertTrue(attributeNames.contains(expiryName));
+    }
+
+    @Test(timeout = 5000)
+    public void testGetAndSetAttributes() throws Exception
+    {
+        assertEquals(true, mbeanServer.getAttribute(objName, enabledName));
+        assertEquals(Duration.parse("PT5M30S"), mbeanServer.getAttribute(objName, expiryName));
+        assertEquals("a,b,c", mbeanServer.getAttribute(objName, "com.kik.config.ice.source.ExampleComponent$Config.hostnames"));
+
+        mbeanServer.setAttribute(objName, new Attribute(enabledName, false));
+        assertFalse(component.config.enabled());
+        assertEquals(false, mbeanServer.getAttribute(objName, enabledName));
+
+        mbeanServer.setAttribute(objName, new Attribute("com.kik.config.ice.source.ExampleComponent$Config.connectionString", "asdf"));
+        assertEquals(Optional.of("asdf"), component.config.connectionString());
+
+        Duration dur = Duration.parse("PT6M15S");
+        mbeanServer.setAttribute(objName, new Attribute(expiryName, dur));
+        assertEquals(dur, component.subComp.config.expiry());
+    }
+
+    @Test(timeout = 5000, expected = AttributeNotFoundException.class)
+    public void testUnknownAttribute() throws Exception
+    {
+        mbeanServer.getAttribute(objName, "com.kik.config.ice.source.ExampleComponent$Config.unknown");
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.source;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+import com.google.inject.name.Names;
+import com.kik.config.ice.ConfigConfigurator;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import javax.management.AttributeChangeNotification;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.Notification;
+import javax.management.NotificationListener;
+import javax.management.ObjectName;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JmxChangeNotificationTest
+{
+    @Inject
+    private DebugDynamicConfigSource debugSource;
+
+    @Inject
+    private ExampleComponent component;
+
+    // NOTE: injected to force construction of the source, which registers the beans
+    @Inject
+    private JmxDynamicConfigSource jmxSource;
+
+    private MBeanServer mbeanServer;
+    private ObjectName objName;
+    private final BlockingQueue<Notification> received = new LinkedBlockingQueue<>();
+    private final NotificationListener listener = (notification, handback) -> received.add(notification);
+
+    @Before
+    public void setup() throws Exception
+    {
+        // Use a private MBeanServer so registrations do not collide with other tests
+        mbeanServer = MBeanServerFactory.newMBeanServer();
+        objName = new ObjectName("com.kik.config.ice.source:name=ExampleComponentIceMBean");
+
+        Injector injector = Guice.createInjector(
+            ConfigConfigurator.testModules(),
+            JmxDynamicConfigSource.module(),
+            ExampleComponent.module(),
+            new AbstractModule()
+            {
+                @Override
+                protected void configure()
+                {
+                    bind(MBeanServer.class).toInstance(mbeanServer);
+                    bind(Duration.class).annotatedWith(Names.named(JmxDynamicConfigSource.NOTIFICATION_INTERVAL_NAME))
+                        .toInstance(Duration.ofMillis(300));
+
+                    // Ensure the test works with explicit bindings required
+                    binder().requireExplicitBindings();
+                }
+            });
+
+        injector.injectMembers(this);
+    }
+
+    @Test(timeout = 5000)
+    public void testNotificationFromOtherSource() throws Exception
+    {
+        mbeanServer.addNotificationListener(objName, listener, null, null);
+
+        debugSource.set(debugSource.id(ExampleComponent.Config.class).enabled()).toValue(false);
+        assertFalse(component.config.enabled());
+
+        AttributeChangeNotification notification = (AttributeChangeNotification) received.take();
+        assertEquals(AttributeChangeNotification.ATTRIBUTE_CHANGE, notification.getType());
+        assertEquals("enabled", notification.getAttributeName());
+        assertEquals(true, notification.getOldValue());
+        assertEquals(false, notification.getNewValue());
+        assertEquals(debugSource.getName(), notification.getUserData());
+    }
+
+    @Test(timeout = 5000)
+    public void testRapidChangesCoalesced() throws Exception
+    {
+        mbeanServer.addNotificationListener(objName, listener, null, null);
+
+        // First change is sent immediately, and starts the rate limit interval
+        debugSource.set(debugSource.id(ExampleComponent.Config.class).maxPageSize()).toValue(1);
+        AttributeChangeNotification first = (AttributeChangeNotification) received.take();
+        assertNull(first.getOldValue());
+        assertEquals(1, first.getNewValue());
+
+        debugSource.set(debugSource.id(ExampleComponent.Config.class).maxPageSize()).toValue(2);
+        debugSource.set(debugSource.id(ExampleComponent.Config.class).maxPageSize()).toValue(3);
+        debugSource.set(debugSource.id(ExampleComponent.Config.class).maxPageSize()).toValue(4);
+
+        AttributeChangeNotification coalesced = (AttributeChangeNotification) received.take();
+        assertEquals("maxPageSize", coalesced.getAttributeName());
+        assertEquals(1, coalesced.getOldValue());
+        assertEquals(4, coalesced.getNewValue());
+        assertTrue(coalesced.getSequenceNumber() > first.getSequenceNumber());
+
+        // Changes which end up where they started are not reported
+        debugSource.set(debugSource.id(ExampleComponent.Config.class).maxPageSize()).toValue(5);
+        debugSource.set(debugSource.id(ExampleComponent.Config.class).maxPageSize()).toValue(4);
+        assertNull(received.poll(600, TimeUnit.MILLISECONDS));
+    }
+
+    @Test(timeout = 5000)
+    public void testNoNotificationsAfterListenerRemoved() throws Exception
+    {
+        mbeanServer.addNotificationListener(objName, listener, null, null);
+        mbeanServer.removeNotificationListener(objName, listener);
+
+        debugSource.set(debugSource.id(ExampleComponent.Config.class).enabled()).toValue(false);
+        assertFalse(component.config.enabled());
+        assertNull(received.poll(500, TimeUnit.MILLISECONDS));
+    }
+}
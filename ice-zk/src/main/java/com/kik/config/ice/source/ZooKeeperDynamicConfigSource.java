@@ -17,7 +17,9 @@ package com.kik.config.ice.source;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.inject.AbstractModule;
 import com.google.inject.Inject;
 import com.google.inject.Module;
@@ -27,7 +29,8 @@ import com.google.inject.Singleton;
 import com.google.inject.multibindings.MapBinder;
 import com.google.inject.name.Named;
 import com.kik.config.ice.internal.ConfigDescriptor;
-import java.io.Closeable;
+import com.kik.config.ice.internal.ConfigResourceRegistry;
+import com.kik.config.ice.metrics.ConfigMetrics;
 import java.io.IOException;
 import java.lang.management.ManagementFactory;
 import java.net.InetAddress;
@@ -35,6 +38,7 @@ import java.time.Duration;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import lombok.extern.slf4j.Slf4j;
@@ -49,13 +53,15 @@ import org.apache.curator.framework.recipes.nodes.PersistentEphemeralNode;
 import static org.apache.curator.framework.recipes.nodes.PersistentEphemeralNode.Mode.EPHEMERAL;
 import org.apache.curator.retry.BoundedExponentialBackoffRetry;
 import static org.apache.curator.utils.ZKPaths.makePath;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.Stat;
 import rx.Completable;
 import rx.Observable;
 import rx.schedulers.Schedulers;
 
 @Slf4j
 @Singleton
-public class ZooKeeperDynamicConfigSource extends AbstractDynamicConfigSource implements Closeable
+public class ZooKeeperDynamicConfigSource extends AbstractDynamicConfigSource
 {
     private static final String CONFIG_PREFIX = "dynamic_config_source_zookeeper_";
 
@@ -97,8 +103,10 @@ public class ZooKeeperDynamicConfigSource extends AbstractDynamicConfigSource im
     private final int retryLimit;
     final String localNodeName;
     private CuratorFramework curator;
-    private final Map<ConfigDescriptor, NodeCache> configNodeCaches = Maps.newConcurrentMap();
-    private final Map<ConfigDescriptor, PersistentEphemeralNode> ephemeralNodes = Maps.newConcurrentMap();
+    private final Map<String, NodeCache> configNodeCaches = Maps.newConcurrentMap();
+    private final Map<String, PersistentEphemeralNode> ephemeralNodes = Maps.newConcurrentMap();
+    // Names of runtime config values currently in use; their node caches are created on first use
+    private final Set<String> runtimeConfigNames = Sets.newConcurrentHashSet();
 
     /**
      * Note: Constructor used by {@link ZooKeeperDynamicConfigSourceProvider} only
@@ -110,9 +118,14 @@ public class ZooKeeperDynamicConfigSource extends AbstractDynamicConfigSource im
         Set<ConfigDescriptor> configDescriptors,
         String connectionString, String namespace,
         int sessionTimeout, int connectionTimeout,
-        int retryBaseTime, int retryMaxTime, int retryLimit)
+        int retryBaseTime, int retryMaxTime, int retryLimit,
+        Set<ConfigMetrics> metrics)
     {
         super(configDescriptors);
+        if (metrics != null) {
+            // Not constructed by Guice, so metrics need to be set here rather than injected
+            setConfigMetrics(metrics);
+        }
 
         this.connectionString = connectionString;
         this.namespace = namespace;
@@ -125,7 +138,13 @@ public class ZooKeeperDynamicConfigSource extends AbstractDynamicConfigSource im
         this.localNodeName = getLocalNodeName();
 
         // Start and wait for curator initialization.
+        final long syncStart = metricsEnabled ? System.nanoTime() : 0L;
         initializeCurator().await();
+        if (metricsEnabled) {
+            // All values start out empty, so every value present after the initial sync is a change
+            final int changedCount = (int) lastEmittedValues.values().stream().filter(Optional::isPresent).count();
+            this.metrics.onReload(getName(), System.nanoTime() - syncStart, this.configDescriptors.size(), changedCount, true);
+        }
     }
 
     private Completable initializeCurator()
@@ -145,23 +164,23 @@ public class ZooKeeperDynamicConfigSource extends AbstractDynamicConfigSource im
         // Create a NodeCache for each config descriptor
         // This creates N node caches at a time on the RxJava IO scheduler thread pool.
         return Observable.from(configDescriptors)
-            .flatMap(desc -> buildNodeCache(desc)
+            .flatMap(desc -> buildNodeCache(desc.getConfigName())
                 .subscribeOn(Schedulers.io())
-                .map(nc -> this.configNodeCaches.put(desc, nc)), getConcurrentNodeCacheCreations())
+                .map(nc -> this.configNodeCaches.put(desc.getConfigName(), nc)), getConcurrentNodeCacheCreations())
             .toCompletable();
     }
 
-    private Observable<NodeCache> buildNodeCache(final ConfigDescriptor desc)
+    private Observable<NodeCache> buildNodeCache(final String configName)
     {
         return Observable.fromCallable(() -> {
-            final String configPath = makePath(ROOT_ZK_PATH, desc.getConfigName());
+            final String configPath = makePath(ROOT_ZK_PATH, configName);
             final NodeCache nc = new NodeCache(curator, configPath);
-            nc.getListenable().addListener(() -> onNodeChanged(nc, desc));
+            nc.getListenable().addListener(() -> onNodeChanged(nc, configName));
             try {
                 nc.start(true);
 
                 // Note that we have to force calling onNodeChanged() here since `nc.start(true)` will not emit an initial event.
-                onNodeChanged(nc, desc);
+                onNodeChanged(nc, configName);
 
                 // Create the ephemeral node last, just in case something goes wrong with setting up the node cache
                 // NOTE: This process is what actually creates the configuration node if it was missing.
@@ -170,7 +189,7 @@ public class ZooKeeperDynamicConfigSource extends AbstractDynamicConfigSource im
                 if (!en.waitForInitialCreate(getDefaultNodeCreationTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
                     throw new TimeoutException("Timeout on creation of ephemeral node for " + makePath(configPath, localNodeName));
                 }
-                ephemeralNodes.put(desc, en);
+                ephemeralNodes.put(configName, en);
 
                 return nc;
             }
@@ -181,6 +200,99 @@ public class ZooKeeperDynamicConfigSource extends AbstractDynamicConfigSource im
         });
     }
 
+    @Override
+    protected void onRuntimeSubscribe(String configName)
+    {
+        // Watch the node in the background; the value is emitted once the node cache has started
+        runtimeConfigNames.add(configName);
+        buildNodeCache(configName)
+            .subscribeOn(Schedulers.io())
+            .subscribe(
+                nc -> {
+                    configNodeCaches.put(configName, nc);
+                    if (!runtimeConfigNames.contains(configName)) {
+                        // Released while the node cache was being built
+                        closeNodes(configName);
+                    }
+                },
+                ex -> log.warn("Failed to watch runtime config {}", configName, ex));
+    }
+
+    @Override
+    protected void onRuntimeRelease(String configName)
+    {
+        runtimeConfigNames.remove(configName);
+        closeNodes(configName);
+        lastEmittedValues.remove(configName);
+    }
+
+    /**
+     * Reads every watched node from ZooKeeper again, and applies any changes as one change set. The connected server is
+     * first synced with the leader, so that writes made through other servers before the refresh are seen. Node caches
+     * are then rebuilt on the RxJava IO scheduler, as many at a time as when the source is initialized.
+     *
+     * @return a future which completes once the changes have been emitted, or completes exceptionally if the sync
+     *         failed or a node could not be read
+     */
+    @Override
+    public CompletableFuture<Void> refresh()
+    {
+        final CompletableFuture<Void> refreshed = new CompletableFuture<>();
+        try {
+            curator.sync()
+                .inBackground((client, event) -> {
+                    if (event.getResultCode() != KeeperException.Code.OK.intValue()) {
+                        refreshed.completeExceptionally(KeeperException.create(KeeperException.Code.get(event.getResultCode()), event.getPath()));
+                        return;
+                    }
+                    rebuildNodeCaches(refreshed);
+                })
+                .forPath(ROOT_ZK_PATH);
+        }
+        catch (Exception ex) {
+            refreshed.completeExceptionally(ex);
+        }
+        return refreshed;
+    }
+
+    private void rebuildNodeCaches(CompletableFuture<Void> refreshed)
+    {
+        Observable.from(ImmutableMap.copyOf(configNodeCaches).entrySet())
+            .flatMap(entry -> Observable.fromCallable(() -> {
+                entry.getValue().rebuild();
+                return entry;
+            }).subscribeOn(Schedulers.io()), getConcurrentNodeCacheCreations())
+            .toList()
+            .subscribe(
+                rebuilt -> {
+                    emitChangeSet(() -> rebuilt.forEach(entry -> onNodeChanged(entry.getValue(), entry.getKey())));
+                    refreshed.complete(null);
+                },
+                refreshed::completeExceptionally);
+    }
+
+    private void closeNodes(String configName)
+    {
+        final PersistentEphemeralNode en = ephemeralNodes.remove(configName);
+        if (en != null) {
+            try {
+                en.close();
+            }
+            catch (Exception ex) {
+                log.info("Failed to close PersistentEphemeralNode for configName {}", configName, ex);
+            }
+        }
+        final NodeCache nc = configNodeCaches.remove(configName);
+        if (nc != null) {
+            try {
+                nc.close();
+            }
+            catch (Exception ex) {
+                log.info("Failed to close NodeCache for configName {}", configName, ex);
+            }
+        }
+    }
+
     private static String getLocalNodeName()
     {
         try {
@@ -205,31 +317,39 @@ public class ZooKeeperDynamicConfigSource extends AbstractDynamicConfigSource im
     @Override
     public void close() throws IOException
     {
-        for (Map.Entry<ConfigDescriptor, PersistentEphemeralNode> entry : ephemeralNodes.entrySet()) {
+        for (Map.Entry<String, PersistentEphemeralNode> entry : ephemeralNodes.entrySet()) {
             try {
                 entry.getValue().close();
             }
             catch (Exception ex) {
-                log.info("Failed to close PersistentEphemeralNode for configName {}", entry.getKey().getConfigName(), ex);
+                log.info("Failed to close PersistentEphemeralNode for configName {}", entry.getKey(), ex);
             }
         }
         ephemeralNodes.clear();
 
-        for (Map.Entry<ConfigDescriptor, NodeCache> entry : configNodeCaches.entrySet()) {
+        for (Map.Entry<String, NodeCache> entry : configNodeCaches.entrySet()) {
             try {
                 entry.getValue().close();
             }
             catch (Exception ex) {
-                log.info("Failed to close NodeCache for configName {}", entry.getKey().getConfigName(), ex);
+                log.info("Failed to close NodeCache for configName {}", entry.getKey(), ex);
             }
         }
         configNodeCaches.clear();
 
-        curator.close();
-        curator = null;
+        if (curator != null) {
+            curator.close();
+            curator = null;
+        }
+        super.close();
     }
 
     public void onNodeChanged(final NodeCache cache, final ConfigDescriptor desc)
+    {
+        onNodeChanged(cache, desc.getConfigName());
+    }
+
+    private void onNodeChanged(final NodeCache cache, final String configName)
     {
         ChildData childData = cache.getCurrentData();
         try {
@@ -237,10 +357,18 @@ public class ZooKeeperDynamicConfigSource extends AbstractDynamicConfigSource im
             if (childData != null && childData.getData() != null && childData.getData().length > 0) {
                 valueOpt = Optional.of(new String(childData.getData(), Charsets.UTF_8));
             }
-            emitEvent(desc.getConfigName(), valueOpt);
+
+            // Identify the value by the zxid which last modified the node, and the node's data version
+            Stat stat = childData == null ? null : childData.getStat();
+            if (stat != null) {
+                emitEvent(configName, valueOpt, Optional.of(stat.getMzxid() + ":" + stat.getVersion()), stat.getMtime());
+            }
+            else {
+                emitEvent(configName, valueOpt);
+            }
         }
         catch (Exception ex) {
-            log.warn("Failed to handle onNodeChanged w/ new data for config key {}, data {}", desc.getConfigName(), childData, ex);
+            log.warn("Failed to handle onNodeChanged w/ new data for config key {}, data {}", configName, childData, ex);
         }
     }
 
@@ -299,6 +427,12 @@ public class ZooKeeperDynamicConfigSource extends AbstractDynamicConfigSource im
         @Named(CONFIG_CURATOR_RETRY_LIMIT)
         private Integer retryLimit;
 
+        @Inject(optional = true)
+        private Set<ConfigMetrics> metrics;
+
+        @Inject(optional = true)
+        private ConfigResourceRegistry resourceRegistry;
+
         private void fillInDefaults()
         {
             if (namespace == null) {
@@ -325,11 +459,17 @@ public class ZooKeeperDynamicConfigSource extends AbstractDynamicConfigSource im
         public ZooKeeperDynamicConfigSource get()
         {
             fillInDefaults();
-            return new ZooKeeperDynamicConfigSource(
+            ZooKeeperDynamicConfigSource source = new ZooKeeperDynamicConfigSource(
                 configDescriptors,
                 connectionString, namespace,
                 sessionTimeout, connectionTimeout,
-                retryBaseTime, retryMaxTime, retryLimit);
+                retryBaseTime, retryMaxTime, retryLimit,
+                metrics);
+            if (resourceRegistry != null) {
+                // Not constructed by Guice, so the source is registered here rather than on injection
+                source.setConfigResourceRegistry(resourceRegistry);
+            }
+            return source;
         }
     }
 
@@ -24,6 +24,8 @@ import com.google.inject.Inject;
 import com.google.inject.Injector;
 import com.google.inject.name.Names;
 import com.kik.config.ice.ConfigConfigurator;
+import com.kik.config.ice.ConfigSystem;
+import com.kik.config.ice.RefreshReport;
 import com.kik.config.ice.internal.ConfigBuilder;
 import com.kik.config.ice.internal.ConfigDescriptor;
 import com.kik.config.ice.internal.ConstantValuePropertyAccessor;
@@ -33,6 +35,7 @@ import com.kik.zookeeper.ZooKeeperServerRule;
 import java.time.Duration;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.curator.RetryPolicy;
 import org.apache.curator.ensemble.EnsembleProvider;
@@ -90,6 +93,9 @@ public class ZooKeeperDynamicConfigSourceTest
     @Inject
     Set<ConfigDescriptor> configDescriptors;
 
+    @Inject
+    ConfigSystem configSystem;
+
     @BeforeClass
     public static void setupTestCurator()
     {
@@ -229,4 +235,21 @@ public class ZooKeeperDynamicConfigSourceTest
         example = getSetupInjector().getInstance(ExampleComponent.class);
         assertEquals(false, example.config.enabled());
     }
+
+    @Test(timeout = 5_000)
+    public void testRefresh() throws Exception
+    {
+        ConfigDescriptor maxRetriesDesc = findByMethodName("maxRetries").get();
+        try {
+            setData(maxRetriesDesc, "9");
+            // The change is applied once the refresh completes, without waiting for the watch
+            RefreshReport report = configSystem.refresh().get(2, TimeUnit.SECONDS);
+            assertTrue(report.getSummary(), report.isSuccessful());
+            assertEquals(9, example.subComp.config.maxRetries());
+            assertTrue(report.getResults().stream().anyMatch(result -> result.getName().equals("ZooKeeperDynamicConfigSource")));
+        }
+        finally {
+            setData(maxRetriesDesc, null);
+        }
+    }
 }
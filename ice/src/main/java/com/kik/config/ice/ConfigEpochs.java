@@ -0,0 +1,255 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import com.google.common.collect.MapMaker;
+import com.google.inject.AbstractModule;
+import com.google.inject.Module;
+import com.kik.config.ice.internal.PropertyVersions;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Global version (epoch) of all configuration values, for reading one coherent version of every config interface
+ * for the duration of a request.
+ * <br>
+ * The epoch advances each time a change set is applied, where a change set is a single changed value, or all values
+ * changed by one reload of a source that changes many values at once (such as a config file). A thread can
+ * {@link #pin()} the current epoch; until the pin is closed, every config interface method called on that thread
+ * returns the value as of the pinned epoch, even if the configuration changes in the meantime:
+ * <pre>
+ * try (ConfigEpochs.Pin pin = configEpochs.pin()) {
+ *     // handle request
+ * }
+ * </pre>
+ * Each property keeps the older values that pinned readers may still need. Pins are reused per thread and reads are
+ * a thread-local lookup plus an array scan, so neither allocates.
+ * <br>
+ * Versions are kept from the epoch at which each property is first used; reading a property on a thread pinned to an
+ * earlier epoch throws a {@link com.kik.config.ice.exception.ConfigException}, as its value at that epoch is unknown. Call
+ * {@link ConfigSystem#validateStaticConfiguration()} at startup so that every property is versioned from the start.
+ * <br>
+ * Epochs are disabled unless {@link #module()} is installed. Observables and {@link ConfigSystem#snapshot(Class)
+ * snapshots} are not affected by pinning.
+ */
+@Slf4j
+public class ConfigEpochs
+{
+    /**
+     * Epoch value used when a thread is not pinned.
+     */
+    public static final long NOT_PINNED = -1L;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile long currentEpoch = 0L;
+
+    // Guarded by writeLock
+    private long changeSetEpoch = NOT_PINNED;
+    private boolean changeSetChanged = false;
+
+    // Pins of live threads; pins of threads which have exited are dropped
+    private final Set<Pin> pins = Collections.newSetFromMap(new MapMaker().weakKeys().<Pin, Boolean>makeMap());
+    private final ThreadLocal<Pin> threadPin = ThreadLocal.withInitial(this::newPin);
+
+    // Private so Guice cannot create an instance unless epochs were explicitly enabled via module()
+    private ConfigEpochs()
+    {
+    }
+
+    private Pin newPin()
+    {
+        final Pin pin = new Pin();
+        pins.add(pin);
+        return pin;
+    }
+
+    /**
+     * Pins the current epoch on the calling thread, until the returned pin is closed. Pins may be nested, in which
+     * case the outermost pin's epoch is kept until it is closed.
+     *
+     * @return the calling thread's pin, to be closed on the same thread
+     */
+    public Pin pin()
+    {
+        final Pin pin = threadPin.get();
+        pin.acquire();
+        return pin;
+    }
+
+    /**
+     * @return the latest epoch
+     */
+    public long getCurrentEpoch()
+    {
+        return currentEpoch;
+    }
+
+    /**
+     * @return the epoch pinned by the calling thread, or {@link #NOT_PINNED}
+     */
+    public long getPinnedEpoch()
+    {
+        return threadPin.get().epoch;
+    }
+
+    /**
+     * Applies a change set as a single epoch. Every value changed while the given action runs becomes visible to
+     * readers pinning an epoch at once, when the action completes. Changes from other threads wait until then.
+     * Subscribers of the changed values are only notified once the change set is complete and the write lock is
+     * released, so that a slow subscriber does not hold up other changes.
+     *
+     * @param action applies the changes, by emitting them from a config source
+     */
+    public void applyChangeSet(Runnable action)
+    {
+        checkNotNull(action);
+        writeLock.lock();
+        try {
+            if (changeSetEpoch != NOT_PINNED) {
+                // Already inside a change set on this thread
+                action.run();
+                return;
+            }
+            changeSetEpoch = currentEpoch + 1;
+            changeSetChanged = false;
+            try {
+                action.run();
+            }
+            finally {
+                if (changeSetChanged) {
+                    currentEpoch = changeSetEpoch;
+                    log.trace("Advanced to config epoch {}", currentEpoch);
+                }
+                changeSetEpoch = NOT_PINNED;
+            }
+        }
+        finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Acquires the lock that serializes changes to property versions. Intended for use by property accessors only,
+     * which take it before their own lock.
+     */
+    public void lockForWrite()
+    {
+        writeLock.lock();
+    }
+
+    public void unlockForWrite()
+    {
+        writeLock.unlock();
+    }
+
+    /**
+     * Records a new value of a property, advancing the epoch unless a change set is being applied. Intended for use by
+     * property accessors only, while holding the write lock.
+     *
+     * @param <T>      the type of the config property
+     * @param versions the versions of the property
+     * @param value    the new value
+     */
+    public <T> void recordChange(PropertyVersions<T> versions, T value)
+    {
+        checkState(writeLock.isHeldByCurrentThread(), "Write lock must be held to record a change");
+        final long minPinned = getMinPinnedEpoch();
+        if (changeSetEpoch != NOT_PINNED) {
+            versions.put(changeSetEpoch, value, minPinned);
+            changeSetChanged = true;
+        }
+        else {
+            final long epoch = currentEpoch + 1;
+            versions.put(epoch, value, minPinned);
+            currentEpoch = epoch;
+            log.trace("Advanced to config epoch {}", epoch);
+        }
+    }
+
+    private long getMinPinnedEpoch()
+    {
+        long min = NOT_PINNED;
+        for (Pin pin : pins) {
+            final long epoch = pin.epoch;
+            if (epoch != NOT_PINNED && (min == NOT_PINNED || epoch < min)) {
+                min = epoch;
+            }
+        }
+        return min;
+    }
+
+    /**
+     * An epoch pinned by a thread. Closing the pin unpins the thread.
+     */
+    public final class Pin implements AutoCloseable
+    {
+        private volatile long epoch = NOT_PINNED;
+        // Only accessed by the owning thread
+        private int depth = 0;
+
+        private Pin()
+        {
+        }
+
+        private void acquire()
+        {
+            if (depth++ > 0) {
+                return;
+            }
+            // Re-check after publishing the pin, so that a writer either sees the pin or has already advanced the
+            // epoch, in which case the newer epoch is pinned instead
+            long pinned;
+            do {
+                pinned = currentEpoch;
+                epoch = pinned;
+            }
+            while (currentEpoch != pinned);
+        }
+
+        /**
+         * @return the pinned epoch
+         */
+        public long getEpoch()
+        {
+            return epoch;
+        }
+
+        @Override
+        public void close()
+        {
+            checkState(depth > 0, "Epoch pin closed more times than it was pinned");
+            if (--depth == 0) {
+                epoch = NOT_PINNED;
+            }
+        }
+    }
+
+    public static Module module()
+    {
+        return new AbstractModule()
+        {
+            @Override
+            protected void configure()
+            {
+                bind(ConfigEpochs.class).toInstance(new ConfigEpochs());
+            }
+        };
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Sets;
+import com.google.inject.AbstractModule;
+import com.google.inject.Binding;
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.Module;
+import com.google.inject.TypeLiteral;
+import com.google.inject.name.Names;
+import com.google.inject.util.Types;
+import com.kik.config.ice.exception.ConfigException;
+import com.kik.config.ice.internal.ConfigDescriptor;
+import com.kik.config.ice.internal.PropertyAccessor;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Interpolation of configuration values which reference other configuration values by config name, such as
+ * {@code ${com.example.Db$Config.host}:${com.example.Db$Config.port}}. A reference is replaced with the raw value in
+ * use for the referenced config, after its own interceptors and interpolation, or with an empty string if it has no
+ * value. <code>$${</code> is an escaped, literal <code>${</code>.
+ * <br>
+ * References are resolved before conversion, for default values and for the values from every config source. The
+ * references of each config form a dependency graph, which must not have cycles; a value which would add a cycle is
+ * rejected like a value which fails to convert. When the value in use for a config changes, only the configs which
+ * reference it are resolved again, followed by the configs which reference those, and so on.
+ * <br>
+ * Interpolation is disabled unless {@link #module()} is installed.
+ */
+@Slf4j
+public class ConfigInterpolation
+{
+    private static final String REFERENCE_START = "${";
+    private static final String ESCAPED_REFERENCE_START = "$${";
+    private static final char REFERENCE_END = '}';
+
+    private final Object lock = new Object();
+    // Guarded by lock. Config names referenced by each config, and the reverse.
+    private final SetMultimap<String, String> dependencies = HashMultimap.create();
+    private final SetMultimap<String, String> dependents = HashMultimap.create();
+    private final ConcurrentMap<String, PropertyAccessor<?>> accessors = Maps.newConcurrentMap();
+    private Injector injector;
+
+    // Private so Guice cannot create an instance unless interpolation was explicitly configured via module()
+    private ConfigInterpolation()
+    {
+    }
+
+    @Inject
+    void setInjector(Injector injector)
+    {
+        this.injector = checkNotNull(injector);
+    }
+
+    /**
+     * @param configName the name of a config
+     * @return the config names referenced by the values of the given config
+     */
+    public Set<String> getDependencies(String configName)
+    {
+        synchronized (lock) {
+            return ImmutableSet.copyOf(dependencies.get(configName));
+        }
+    }
+
+    /**
+     * @param configName the name of a config
+     * @return the config names whose values reference the given config
+     */
+    public Set<String> getDependents(String configName)
+    {
+        synchronized (lock) {
+            return ImmutableSet.copyOf(dependents.get(configName));
+        }
+    }
+
+    /**
+     * Parses the references in a raw value.
+     *
+     * @param rawValue a raw config value
+     * @return the config names referenced by the value
+     * @throws ConfigException if a reference is not terminated
+     */
+    public static Set<String> references(String rawValue)
+    {
+        if (rawValue == null || !rawValue.contains(REFERENCE_START)) {
+            return ImmutableSet.of();
+        }
+        final ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+        substitute(rawValue, name -> {
+            builder.add(name);
+            return "";
+        });
+        return builder.build();
+    }
+
+    /**
+     * Intended for use by the property accessors only. Replaces the references of a config with the given set, which
+     * is the union of the references of all of its raw values.
+     *
+     * @throws ConfigException if the references would make a cycle, in which case the references are not changed
+     */
+    public void setDependencies(String configName, Set<String> referencedNames)
+    {
+        synchronized (lock) {
+            for (String referencedName : referencedNames) {
+                final List<String> cycle = findPath(referencedName, configName);
+                if (cycle != null) {
+                    cycle.add(0, configName);
+                    throw new ConfigException("Config {} has a cyclic reference: {}", configName, String.join(" -> ", cycle));
+                }
+            }
+            for (String previous : dependencies.removeAll(configName)) {
+                dependents.remove(previous, configName);
+            }
+            for (String referencedName : referencedNames) {
+                dependencies.put(configName, referencedName);
+                dependents.put(referencedName, configName);
+            }
+        }
+    }
+
+    // Depth-first search for a path of references from one config to another, inclusive of both ends
+    private List<String> findPath(String from, String to)
+    {
+        if (from.equals(to)) {
+            return Lists.newArrayList(to);
+        }
+        final Deque<List<String>> pending = Lists.newLinkedList();
+        final Set<String> visited = Sets.newHashSet();
+        pending.push(Lists.newArrayList(from));
+        while (!pending.isEmpty()) {
+            final List<String> path = pending.pop();
+            final String last = path.get(path.size() - 1);
+            if (!visited.add(last)) {
+                continue;
+            }
+            for (String next : dependencies.get(last)) {
+                final List<String> nextPath = Lists.newArrayList(path);
+                nextPath.add(next);
+                if (next.equals(to)) {
+                    return nextPath;
+                }
+                pending.push(nextPath);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Intended for use by the property accessors only. Resolves the references in a raw value of a config.
+     *
+     * @throws ConfigException if a referenced config does not exist, or a reference is not terminated
+     */
+    public String interpolate(String configName, String rawValue)
+    {
+        if (rawValue == null || !rawValue.contains(REFERENCE_START)) {
+            return rawValue;
+        }
+        return substitute(rawValue, name -> accessorFor(configName, name).getResolvedValue().orElse(""));
+    }
+
+    private PropertyAccessor<?> accessorFor(String configName, String referencedName)
+    {
+        final PropertyAccessor<?> registered = accessors.get(referencedName);
+        if (registered != null) {
+            return registered;
+        }
+        final Binding<ConfigDescriptor> descBinding = injector.getExistingBinding(Key.get(ConfigDescriptor.class, Names.named(referencedName)));
+        if (descBinding == null) {
+            throw new ConfigException("Config {} references unknown config {}", configName, referencedName);
+        }
+        final ConfigDescriptor desc = descBinding.getProvider().get();
+        final TypeLiteral<PropertyAccessor<?>> accessorType =
+            (TypeLiteral<PropertyAccessor<?>>) TypeLiteral.get(Types.newParameterizedType(PropertyAccessor.class, desc.getConfigType()));
+        // Creating the accessor registers it
+        return injector.getInstance(Key.get(accessorType, ConfigSystem.getIdentifier(desc)));
+    }
+
+    private static String substitute(String rawValue, Function<String, String> resolver)
+    {
+        final StringBuilder result = new StringBuilder(rawValue.length());
+        int pos = 0;
+        while (pos < rawValue.length()) {
+            final int start = rawValue.indexOf(REFERENCE_START, pos);
+            if (start < 0) {
+                result.append(rawValue, pos, rawValue.length());
+                break;
+            }
+            if (start > 0 && rawValue.startsWith(ESCAPED_REFERENCE_START, start - 1)) {
+                // Drop the escaping '$' which was already copied, and keep the literal "${"
+                result.append(rawValue, pos, start - 1).append(REFERENCE_START);
+                pos = start + REFERENCE_START.length();
+                continue;
+            }
+            final int end = rawValue.indexOf(REFERENCE_END, start);
+            if (end < 0) {
+                throw new ConfigException("Unterminated reference at position {} of value '{}'", start, rawValue);
+            }
+            result.append(rawValue, pos, start).append(resolver.apply(rawValue.substring(start + REFERENCE_START.length(), end)));
+            pos = end + 1;
+        }
+        return result.toString();
+    }
+
+    /**
+     * Intended for use by the property accessors only, when an accessor is created.
+     */
+    public void register(String configName, PropertyAccessor<?> accessor)
+    {
+        accessors.put(configName, accessor);
+    }
+
+    /**
+     * Intended for use by the property accessors only, when an accessor is closed.
+     */
+    public void unregister(String configName, PropertyAccessor<?> accessor)
+    {
+        accessors.remove(configName, accessor);
+    }
+
+    /**
+     * Intended for use by the property accessors only, when the resolved value in use for a config changes. Resolves
+     * the configs which reference it again.
+     */
+    public void onValueChanged(String configName)
+    {
+        final Set<String> toResolve = getDependents(configName);
+        for (String dependent : toResolve) {
+            final PropertyAccessor<?> accessor = accessors.get(dependent);
+            if (accessor != null) {
+                log.trace("Resolving {} again, as referenced config {} changed", dependent, configName);
+                accessor.resolveReferences();
+            }
+        }
+    }
+
+    public static Module module()
+    {
+        return new AbstractModule()
+        {
+            @Override
+            protected void configure()
+            {
+                bind(ConfigInterpolation.class).toInstance(new ConfigInterpolation());
+            }
+        };
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import com.google.inject.AbstractModule;
+import com.google.inject.Module;
+import com.google.inject.Stage;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.Value;
+
+/**
+ * Selects when the property accessors behind config interfaces are built, and tracks how many exist.
+ * <br>
+ * Building an accessor subscribes to every config source, and converts and intercepts the default value. With
+ * {@link Strategy#LAZY}, an accessor is only built when its value is first read, even when the injector is created in
+ * {@link Stage#PRODUCTION}, so configuration which is never used costs nothing. With {@link Strategy#EAGER}, all
+ * accessors are built in parallel by {@link ConfigSystem#provision()}, which the application calls during startup
+ * before reporting itself ready, so that the first requests do not pay for building them.
+ * <br>
+ * Provisioning is only tracked if {@link #module(Strategy)} is installed. Otherwise, accessors are built lazily, or
+ * all at once when the injector is created in {@link Stage#PRODUCTION}, as Guice does for other singletons.
+ */
+public class ConfigProvisioning
+{
+    public enum Strategy
+    {
+        /**
+         * Accessors are built on first read. {@link ConfigSystem#provision()} builds nothing.
+         */
+        LAZY,
+        /**
+         * Accessors are all built in parallel by {@link ConfigSystem#provision()}.
+         */
+        EAGER;
+    }
+
+    /**
+     * Provisioning state, as reported by {@link ConfigSystem#provision()}.
+     */
+    @Value
+    public static class Report
+    {
+        private Strategy strategy;
+        /**
+         * Number of property accessors currently built, including those of runtime scopes.
+         */
+        private int accessorCount;
+        /**
+         * Time spent building accessors during warm-up, or 0 if no warm-up was done.
+         */
+        private long warmUpNanos;
+    }
+
+    private final Strategy strategy;
+    private final int parallelism;
+    private final AtomicInteger accessorCount = new AtomicInteger();
+    private volatile long warmUpNanos = 0L;
+
+    // Private so Guice cannot create an instance unless provisioning was explicitly configured via module()
+    private ConfigProvisioning(Strategy strategy, int parallelism)
+    {
+        this.strategy = strategy;
+        this.parallelism = parallelism;
+    }
+
+    public Strategy getStrategy()
+    {
+        return strategy;
+    }
+
+    /**
+     * @return number of threads used to build accessors in {@link Strategy#EAGER} mode
+     */
+    public int getParallelism()
+    {
+        return parallelism;
+    }
+
+    /**
+     * @return the current provisioning state
+     */
+    public Report getReport()
+    {
+        return new Report(strategy, accessorCount.get(), warmUpNanos);
+    }
+
+    /**
+     * Intended for use by {@link ConfigSystem} only.
+     *
+     * @param nanos time spent building accessors during warm-up
+     */
+    public void recordWarmUp(long nanos)
+    {
+        this.warmUpNanos = nanos;
+    }
+
+    /**
+     * Intended for use by the property accessors only, when one is built.
+     */
+    public void onAccessorCreated()
+    {
+        accessorCount.incrementAndGet();
+    }
+
+    /**
+     * Intended for use by the property accessors only, when one is closed.
+     */
+    public void onAccessorClosed()
+    {
+        accessorCount.decrementAndGet();
+    }
+
+    public static Module module(Strategy strategy)
+    {
+        return module(strategy, Runtime.getRuntime().availableProcessors());
+    }
+
+    public static Module module(Strategy strategy, int parallelism)
+    {
+        checkNotNull(strategy);
+        checkArgument(parallelism > 0, "parallelism must be positive");
+        return new AbstractModule()
+        {
+            @Override
+            protected void configure()
+            {
+                bind(ConfigProvisioning.class).toInstance(new ConfigProvisioning(strategy, parallelism));
+            }
+        };
+    }
+}
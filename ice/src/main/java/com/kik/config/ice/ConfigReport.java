@@ -0,0 +1,115 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice;
+
+import com.kik.config.ice.exception.ConfigException;
+import java.util.List;
+import java.util.Optional;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+import lombok.Getter;
+import lombok.Value;
+
+/**
+ * Outcome of an operation run over many configuration values or config sources, with a result for each.
+ *
+ * @see ValidationReport
+ * @see RefreshReport
+ */
+@Getter
+public abstract class ConfigReport
+{
+    public enum Status
+    {
+        OK,
+        FAILED
+    }
+
+    @Value
+    public static class Result
+    {
+        /**
+         * The config name or config source name the result is for.
+         */
+        private String name;
+        private Status status;
+        private long elapsedNanos;
+        private Optional<Throwable> error;
+    }
+
+    private final List<Result> results;
+    /**
+     * Wall clock time taken by the whole operation.
+     */
+    private final long elapsedNanos;
+
+    protected ConfigReport(List<Result> results, long elapsedNanos)
+    {
+        this.results = results;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @return what failing results did, for messages, eg: "configuration values failed static config checks"
+     */
+    protected abstract String describeFailures();
+
+    /**
+     * @return details appended to the summary line, if any
+     */
+    protected String describeDetails()
+    {
+        return "";
+    }
+
+    public List<Result> getFailures()
+    {
+        return results.stream().filter(r -> r.getStatus() == Status.FAILED).collect(toList());
+    }
+
+    public boolean isSuccessful()
+    {
+        return results.stream().allMatch(r -> r.getStatus() == Status.OK);
+    }
+
+    /**
+     * @return a description of the operation, listing each failure
+     */
+    public String getSummary()
+    {
+        final List<Result> failures = getFailures();
+        final String header = String.format("%d of %d %s in %d ms%s",
+            failures.size(), results.size(), describeFailures(), elapsedNanos / 1_000_000L, describeDetails());
+        return failures.stream()
+            .map(r -> "\n  " + r.getName() + ": " + r.getError().map(Throwable::getMessage).orElse(""))
+            .collect(joining("", header, ""));
+    }
+
+    /**
+     * @throws ConfigException if any result failed, with the first failure as the cause
+     */
+    public void throwIfFailed()
+    {
+        final List<Result> failures = getFailures();
+        if (!failures.isEmpty()) {
+            throw new ConfigException("{} of {} {}",
+                failures.size(),
+                results.size(),
+                describeFailures(),
+                failures.get(0).getError().orElse(null));
+        }
+    }
+}
@@ -15,32 +15,67 @@
  */
 package com.kik.config.ice;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.AbstractModule;
+import com.google.inject.ConfigurationException;
 import com.google.inject.Inject;
 import com.google.inject.Injector;
 import com.google.inject.Key;
 import com.google.inject.Module;
 import com.google.inject.Provider;
 import com.google.inject.ProvisionException;
+import com.google.inject.Scopes;
 import com.google.inject.Singleton;
+import com.google.inject.Stage;
 import com.google.inject.TypeLiteral;
+import com.google.inject.multibindings.Multibinder;
 import com.google.inject.name.Named;
+import com.google.inject.name.Names;
 import com.google.inject.util.Modules;
 import com.google.inject.util.Types;
 import com.kik.config.ice.exception.ConfigException;
 import com.kik.config.ice.internal.ConfigBuilder;
 import com.kik.config.ice.internal.ConfigDescriptor;
 import com.kik.config.ice.internal.ConfigDescriptorFactory;
+import com.kik.config.ice.internal.ConfigDescriptorHolder;
+import com.kik.config.ice.internal.ConfigResourceRegistry;
+import com.kik.config.ice.internal.DeliveryTracker;
 import com.kik.config.ice.internal.OverrideModule;
 import com.kik.config.ice.internal.PropertyAccessor;
+import com.kik.config.ice.internal.RuntimeScopedConfigFactory;
+import com.kik.config.ice.internal.SnapshotPublisher;
+import com.kik.config.ice.internal.StaticConfigHelper;
 import com.kik.config.ice.internal.annotations.PropertyIdentifier;
 import com.kik.config.ice.internal.annotations.PropertyIdentifierImpl;
+import com.kik.config.ice.metrics.ConfigReadTracker;
 import com.kik.config.ice.naming.ConfigNamingStrategy;
 import com.kik.config.ice.naming.SimpleConfigNamingStrategy;
+import com.kik.config.ice.source.DynamicConfigSource;
+import java.time.Duration;
+import static java.util.Comparator.comparing;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import static java.util.stream.Collectors.toList;
+import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
+import rx.Observable;
 
 /**
  * Central location for tools and static configurations for the ConfigSystem.
@@ -48,17 +83,42 @@ import lombok.extern.slf4j.Slf4j;
  */
 @Slf4j
 @Singleton
-public class ConfigSystem
+public class ConfigSystem implements AutoCloseable
 {
     public static final ConfigNamingStrategy namingStrategy = new SimpleConfigNamingStrategy();
     public static final ConfigDescriptorFactory descriptorFactory = new ConfigDescriptorFactory(namingStrategy);
+    public static final Duration DEFAULT_SCOPE_IDLE_TIMEOUT = Duration.ofMinutes(10);
 
     @Inject(optional = true)
     private Set<ConfigDescriptor> allConfigDescriptors;
 
+    @Inject(optional = true)
+    @Named(ConfigDescriptorHolder.CONSTANT_DESCRIPTORS_NAME)
+    private Set<ConfigDescriptor> constantConfigDescriptors;
+
     @Inject
     private Injector injector;
 
+    @Inject(optional = true)
+    private ConfigReadTracker readTracker;
+
+    @Inject(optional = true)
+    private ConfigEpochs epochs;
+
+    @Inject(optional = true)
+    private ConfigProvisioning provisioning;
+
+    @Inject(optional = true)
+    private ConfigResourceRegistry resourceRegistry;
+
+    @Inject(optional = true)
+    private DeliveryTracker deliveryTracker;
+
+    @Inject(optional = true)
+    private Map<Integer, DynamicConfigSource> configSources;
+
+    private final ConcurrentMap<Key<?>, SnapshotPublisher<?>> snapshotPublishers = Maps.newConcurrentMap();
+
     /**
      * Generates a Guice Module for use with Injector creation. The generated Guice Module binds a number of support
      * classes to service a dynamically generated implementation of the provided configuration interface. See
@@ -214,8 +274,132 @@ public class ConfigSystem
     }
 
     /**
-     * Validates all static configurations (i.e. strings in your @DefaultValue annotations) which are found in the
-     * injector in which ConfigSystem was retrieved from.
+     * Generates a Guice Module which installs a config interface for scopes only known at runtime, such as tenants.
+     * See {@link #scoped(Class)} and {@link ScopedConfigFactory}. Scopes are evicted after not being requested for
+     * {@link #DEFAULT_SCOPE_IDLE_TIMEOUT}.
+     *
+     * @param <C>             The configuration interface type to be implemented
+     * @param configInterface The configuration interface
+     * @return a module to install in your Guice Injector
+     * @throws ConfigException if the config interface has {@link com.kik.config.ice.annotations.Constant} methods,
+     *                         whose values cannot vary by scope
+     */
+    public static <C> Module scopedConfigModule(final Class<C> configInterface)
+    {
+        return scopedConfigModule(configInterface, DEFAULT_SCOPE_IDLE_TIMEOUT);
+    }
+
+    /**
+     * Generates a Guice Module which installs a config interface for scopes only known at runtime, as
+     * {@link #scopedConfigModule(Class)} does.
+     *
+     * @param <C>             The configuration interface type to be implemented
+     * @param configInterface The configuration interface
+     * @param idleTimeout     how long a scope is kept after it was last requested from its {@link ScopedConfigFactory} or
+     *                        read; scopes with subscribers to any of their Observables are kept regardless. Idle scopes
+     *                        are evicted in the background, up to half the timeout after it elapses.
+     * @return a module to install in your Guice Injector
+     * @throws ConfigException if the config interface has {@link com.kik.config.ice.annotations.Constant} methods
+     */
+    public static <C> Module scopedConfigModule(final Class<C> configInterface, final Duration idleTimeout)
+    {
+        checkNotNull(configInterface);
+        checkNotNull(idleTimeout);
+        checkArgument(!idleTimeout.isNegative(), "idleTimeout may not be negative");
+
+        // Validates the config interface once, when the module is created
+        final List<ConfigDescriptor> templates = descriptorFactory.buildDescriptors(configInterface, Optional.empty());
+        templates.stream()
+            .filter(desc -> StaticConfigHelper.isConstant(desc.getMethod()))
+            .findAny()
+            .ifPresent(desc -> {
+                throw new ConfigException("Config {} cannot be installed for runtime scopes, since {} is constant",
+                    configInterface.getName(), desc.getMethod().getName());
+            });
+        return new AbstractModule()
+        {
+            @Override
+            protected void configure()
+            {
+                Multibinder<ConfigDescriptor> multiBinder = Multibinder.newSetBinder(binder(), ConfigDescriptor.class,
+                    Names.named(ConfigDescriptorHolder.RUNTIME_SCOPED_DESCRIPTORS_NAME));
+                templates.stream()
+                    .filter(desc -> !desc.isObservable())
+                    .forEach(desc -> multiBinder.addBinding().toInstance(desc));
+
+                final Provider<Injector> injectorProvider = getProvider(Injector.class);
+                bind(scopedConfigFactoryKey(configInterface))
+                    .toProvider((Provider<ScopedConfigFactory<C>>) () -> new RuntimeScopedConfigFactory<>(injectorProvider.get(), configInterface, templates, idleTimeout))
+                    .in(Scopes.SINGLETON);
+            }
+        };
+    }
+
+    private static <C> Key<ScopedConfigFactory<C>> scopedConfigFactoryKey(final Class<C> configInterface)
+    {
+        return Key.get((TypeLiteral<ScopedConfigFactory<C>>) TypeLiteral.get(Types.newParameterizedType(ScopedConfigFactory.class, configInterface)));
+    }
+
+    /**
+     * Property accessors are bound in a lazy scope, so that {@link ConfigProvisioning.Strategy#LAZY} holds in every
+     * stage. Unless it was selected, an injector created in {@link Stage#PRODUCTION} still builds all accessors up
+     * front, as it does for other singletons.
+     */
+    @Inject
+    private void buildAccessorsInProductionStage(Stage stage)
+    {
+        if (stage != Stage.PRODUCTION || (provisioning != null && provisioning.getStrategy() == ConfigProvisioning.Strategy.LAZY)) {
+            return;
+        }
+        validateStaticConfiguration();
+    }
+
+    /**
+     * Provisions property accessors according to the installed {@link ConfigProvisioning.Strategy}. Intended to be
+     * called once during startup, before the application reports itself ready. With
+     * {@link ConfigProvisioning.Strategy#EAGER}, all accessors are built in parallel; with
+     * {@link ConfigProvisioning.Strategy#LAZY}, nothing is built and accessors are created on first read.
+     *
+     * @return the number of accessors built and the warm-up time
+     * @throws ConfigException if provisioning is not configured, or an accessor could not be built
+     */
+    public ConfigProvisioning.Report provision()
+    {
+        final ConfigProvisioning configProvisioning = requireProvisioning();
+        if (configProvisioning.getStrategy() == ConfigProvisioning.Strategy.EAGER) {
+            final ValidationReport validationReport = validateStaticConfiguration(configProvisioning.getParallelism());
+            configProvisioning.recordWarmUp(validationReport.getElapsedNanos());
+            validationReport.throwIfFailed();
+        }
+        final ConfigProvisioning.Report report = configProvisioning.getReport();
+        log.info("Config provisioning {}: {} accessors, warm-up took {} ms",
+            report.getStrategy(), report.getAccessorCount(), report.getWarmUpNanos() / 1_000_000L);
+        return report;
+    }
+
+    /**
+     * Provides the current number of property accessors and the warm-up time. Requires provisioning to be configured
+     * by installing {@link ConfigProvisioning#module(ConfigProvisioning.Strategy)}.
+     *
+     * @return the current provisioning state
+     * @throws ConfigException if provisioning is not configured
+     */
+    public ConfigProvisioning.Report getProvisioningReport()
+    {
+        return requireProvisioning().getReport();
+    }
+
+    private ConfigProvisioning requireProvisioning()
+    {
+        if (provisioning == null) {
+            throw new ConfigException("Config provisioning is not configured. Install {} to configure it.", "ConfigProvisioning.module(strategy)");
+        }
+        return provisioning;
+    }
+
+    /**
+     * Validates all static configurations (i.e. strings in your @DefaultValue annotations, including those of constants)
+     * which are found in the injector in which ConfigSystem was retrieved from.
      * Intended to be used both in unit tests as well as in the initialization logic of your application immediately
      * after the Guice Injector has been created. It is essentially a sanity check of all static configurations.
      *
@@ -223,17 +407,71 @@ public class ConfigSystem
      */
     public void validateStaticConfiguration()
     {
-        int failedConfigCount = 0;
+        validateStaticConfiguration(1).throwIfFailed();
+    }
 
-        if (allConfigDescriptors == null) {
+    /**
+     * Validates all static configurations as {@link #validateStaticConfiguration()} does, provisioning the property
+     * accessors on a pool of the given number of threads. Failures are logged and included in the report rather than
+     * thrown, see {@link ValidationReport#throwIfFailed()}.
+     * <br>
+     * Since accessors are singletons, this also warms them up so that they are not built on first use.
+     *
+     * @param parallelism number of threads to use; with 1, validation is done on the calling thread
+     * @return a report with the outcome and provisioning time of each configuration value
+     */
+    public ValidationReport validateStaticConfiguration(int parallelism)
+    {
+        checkArgument(parallelism > 0, "parallelism must be positive");
+        final long start = System.nanoTime();
+
+        if (allConfigDescriptors == null && constantConfigDescriptors == null) {
             log.warn("No config descriptors found. If you don't have any configurations installed, this warning can be ignored");
-            return;
+            return new ValidationReport(ImmutableList.of(), System.nanoTime() - start, parallelism);
         }
 
-        for (ConfigDescriptor desc : allConfigDescriptors) {
+        // Validated in config name order, so results are reported in that order
+        final List<ConfigDescriptor> descriptors = Stream.of(allConfigDescriptors, constantConfigDescriptors)
+            .filter(Objects::nonNull)
+            .flatMap(Set::stream)
+            .sorted(comparing(ConfigDescriptor::getConfigName))
+            .collect(toList());
+        final List<ConfigReport.Result> results;
+        if (parallelism == 1 || descriptors.size() < 2) {
+            results = descriptors.stream().map(this::validateDescriptor).collect(toList());
+        }
+        else {
+            final ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(parallelism, descriptors.size()),
+                new ThreadFactoryBuilder().setNameFormat("ice-validation-%d").setDaemon(true).build());
             try {
-                log.trace("Checking static config for property {}, with default value of {}",
-                    desc.getConfigName(), desc.getDefaultValue());
+                final List<Future<ConfigReport.Result>> futures = descriptors.stream()
+                    .map(desc -> executor.submit(() -> validateDescriptor(desc)))
+                    .collect(toList());
+                results = futures.stream().map(Futures::getUnchecked).collect(toList());
+            }
+            finally {
+                executor.shutdownNow();
+            }
+        }
+
+        final ValidationReport report = new ValidationReport(ImmutableList.copyOf(results), System.nanoTime() - start, parallelism);
+        log.debug("Validated {} configuration values in {} ms with parallelism {}",
+            results.size(), report.getElapsedNanos() / 1_000_000L, parallelism);
+        return report;
+    }
+
+    private ConfigReport.Result validateDescriptor(ConfigDescriptor desc)
+    {
+        final long start = System.nanoTime();
+        try {
+            log.trace("Checking static config for property {}, with default value of {}",
+                desc.getConfigName(), desc.getDefaultValue());
+            if (StaticConfigHelper.isConstant(desc.getMethod())) {
+                // Constants have no accessor, so their value is resolved as the config implementation does
+                ConfigBuilder.resolveConstant(injector, desc);
+            }
+            else {
                 PropertyIdentifier propertyId = getIdentifier(desc);
                 TypeLiteral<PropertyAccessor<?>> accessorKey =
                     (TypeLiteral<PropertyAccessor<?>>) TypeLiteral.get(
@@ -242,17 +480,304 @@ public class ConfigSystem
 
                 propertyAccessor.get();
             }
-            catch (ProvisionException ex) {
-                ++failedConfigCount;
-                log.warn("Failed static config check for property {}", desc.getConfigName(), ex);
+            return new ConfigReport.Result(desc.getConfigName(), ConfigReport.Status.OK,
+                System.nanoTime() - start, Optional.empty());
+        }
+        catch (ProvisionException | ConfigurationException | ConfigException ex) {
+            log.warn("Failed static config check for property {}", desc.getConfigName(), ex);
+            return new ConfigReport.Result(desc.getConfigName(), ConfigReport.Status.FAILED,
+                System.nanoTime() - start, Optional.of(ex));
+        }
+    }
+
+    /**
+     * Provides the source-specific version of the value currently in use for a config property, such as a ZooKeeper
+     * zxid or a file modification time and hash. This can be used to check that a change has reached this process.
+     *
+     * @param configName the full configuration name
+     * @return the version of the active value, or empty if the default value is in use or the source has no versions
+     * @throws ConfigException if no config property has the given name
+     */
+    public Optional<String> getActiveVersion(String configName)
+    {
+        checkNotNull(configName);
+        final ConfigDescriptor desc = Optional.ofNullable(allConfigDescriptors)
+            .flatMap(descs -> descs.stream().filter(d -> d.getConfigName().equals(configName)).findAny())
+            .orElseThrow(() -> new ConfigException("Unknown configName {}", configName));
+
+        TypeLiteral<PropertyAccessor<?>> accessorKey =
+            (TypeLiteral<PropertyAccessor<?>>) TypeLiteral.get(
+                Types.newParameterizedType(PropertyAccessor.class, desc.getConfigType()));
+        return injector.getInstance(Key.get(accessorKey, getIdentifier(desc))).getActiveVersion();
+    }
+
+    /**
+     * Has every config source read its values again, such as re-reading the config file or the ZooKeeper nodes, and
+     * apply any changes. The future completes once every source has finished, at which point all changes have been
+     * applied to the property accessors and emitted to subscribers, including changes being emitted by other threads
+     * (subscribers which observe on another scheduler have been handed the values). Sources which fail are included in
+     * the report rather than failing the future, see {@link RefreshReport#throwIfFailed()}.
+     *
+     * @return a future of the report with the outcome and time taken by each source
+     */
+    public CompletableFuture<RefreshReport> refresh()
+    {
+        final long start = System.nanoTime();
+        final List<CompletableFuture<ConfigReport.Result>> sourceResults = configSources == null
+            ? Collections.emptyList()
+            : configSources.entrySet().stream()
+                .sorted(comparing(entry -> entry.getKey()))
+                .map(entry -> refreshSource(entry.getValue(), start))
+                .collect(toList());
+        return CompletableFuture.allOf(sourceResults.toArray(new CompletableFuture<?>[sourceResults.size()]))
+            // Another thread may still be delivering a changed value to subscribers, having taken over its delivery
+            .thenCompose(ignored -> deliveryTracker == null ? CompletableFuture.completedFuture(null) : deliveryTracker.whenDelivered())
+            .thenApply(ignored -> {
+                final RefreshReport report = new RefreshReport(
+                    sourceResults.stream().map(CompletableFuture::join).collect(toList()),
+                    System.nanoTime() - start,
+                    System.currentTimeMillis());
+                log.debug("Config refresh done: {}", report.getSummary());
+                return report;
+            });
+    }
+
+    private static CompletableFuture<ConfigReport.Result> refreshSource(DynamicConfigSource source, long start)
+    {
+        CompletableFuture<Void> refreshed;
+        try {
+            refreshed = source.refresh();
+            if (refreshed == null) {
+                throw new ConfigException("Config source {} returned no refresh future", source.getName());
+            }
+        }
+        catch (Exception ex) {
+            refreshed = new CompletableFuture<>();
+            refreshed.completeExceptionally(ex);
+        }
+        return refreshed.handle((ignored, ex) -> {
+            if (ex != null) {
+                final Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                log.warn("Config source {} failed to refresh", source.getName(), cause);
+                return new ConfigReport.Result(source.getName(), ConfigReport.Status.FAILED, System.nanoTime() - start, Optional.of(cause));
+            }
+            return new ConfigReport.Result(source.getName(), ConfigReport.Status.OK, System.nanoTime() - start, Optional.empty());
+        });
+    }
+
+    /**
+     * Provides the latest immutable snapshot of a config interface. All values read from a snapshot are from the same
+     * point in time, and are plain field reads. Keep a reference to the snapshot to read several related values
+     * consistently, and call this again to see later changes.
+     * <br>
+     * Observable methods of the snapshot emit only the snapshot's value; see {@link #snapshotObservable(Class)} to observe
+     * changes.
+     *
+     * @param <C>             the config interface type
+     * @param configInterface the config interface, installed with {@link #configModule(Class)}
+     * @return the latest snapshot of the config interface
+     */
+    public <C> C snapshot(Class<C> configInterface)
+    {
+        return getSnapshotPublisher(configInterface, Optional.empty()).get();
+    }
+
+    /**
+     * Provides the latest immutable snapshot of a scoped config interface, as {@link #snapshot(Class)} does.
+     *
+     * @param <C>             the config interface type
+     * @param configInterface the config interface, installed with {@link #configModule(Class, Named)}
+     * @param name            the scope the config interface was installed with
+     * @return the latest snapshot of the config interface
+     */
+    public <C> C snapshot(Class<C> configInterface, Named name)
+    {
+        checkNotNull(name);
+        return getSnapshotPublisher(configInterface, Optional.of(name)).get();
+    }
+
+    /**
+     * Provides an Observable of immutable snapshots of a config interface. The latest snapshot is emitted on
+     * subscription, and a new snapshot whenever any value of the interface changes. Values changed together by one
+     * change set of a config source are published as a single snapshot.
+     *
+     * @param <C>             the config interface type
+     * @param configInterface the config interface, installed with {@link #configModule(Class)}
+     * @return an Observable of snapshots of the config interface
+     */
+    public <C> Observable<C> snapshotObservable(Class<C> configInterface)
+    {
+        return getSnapshotPublisher(configInterface, Optional.empty()).getObservable();
+    }
+
+    /**
+     * Provides an Observable of immutable snapshots of a scoped config interface, as
+     * {@link #snapshotObservable(Class)} does.
+     *
+     * @param <C>             the config interface type
+     * @param configInterface the config interface, installed with {@link #configModule(Class, Named)}
+     * @param name            the scope the config interface was installed with
+     * @return an Observable of snapshots of the config interface
+     */
+    public <C> Observable<C> snapshotObservable(Class<C> configInterface, Named name)
+    {
+        checkNotNull(name);
+        return getSnapshotPublisher(configInterface, Optional.of(name)).getObservable();
+    }
+
+    private <C> SnapshotPublisher<C> getSnapshotPublisher(Class<C> configInterface, Optional<Named> nameOpt)
+    {
+        checkNotNull(configInterface);
+        final Key<SnapshotPublisher<C>> key = ConfigBuilder.snapshotPublisherKey(configInterface, nameOpt);
+        final SnapshotPublisher<?> publisher = snapshotPublishers.computeIfAbsent(key, k -> {
+            if (injector.getExistingBinding(k) == null) {
+                throw new ConfigException("Config {} is not installed{}", configInterface.getName(),
+                    nameOpt.map(n -> " with name " + n.value()).orElse(""));
             }
+            return injector.getInstance(key);
+        });
+        return (SnapshotPublisher<C>) publisher;
+    }
+
+    /**
+     * Provides the factory of instances of a config interface for scopes only known at runtime.
+     *
+     * @param <C>             the config interface type
+     * @param configInterface the config interface, installed with {@link #scopedConfigModule(Class)}
+     * @return the factory of runtime scoped instances of the config interface
+     * @throws ConfigException if the config interface is not installed for runtime scopes
+     */
+    public <C> ScopedConfigFactory<C> scoped(Class<C> configInterface)
+    {
+        checkNotNull(configInterface);
+        final Key<ScopedConfigFactory<C>> key = scopedConfigFactoryKey(configInterface);
+        if (injector.getExistingBinding(key) == null) {
+            throw new ConfigException("Config {} is not installed for runtime scopes", configInterface.getName());
         }
+        return injector.getInstance(key);
+    }
 
-        if (failedConfigCount > 0) {
-            throw new ConfigException("{} of {} configuration values failed static config checks",
-                failedConfigCount,
-                allConfigDescriptors.size());
+    /**
+     * Pins the current config epoch on the calling thread until the returned pin is closed, so that every config value
+     * read on the thread is from one coherent version of all config interfaces. Requires epochs to be enabled by
+     * installing {@link ConfigEpochs#module()}. See {@link ConfigEpochs} for details.
+     *
+     * @return the calling thread's pin, to be closed on the same thread
+     * @throws ConfigException if epochs are not enabled
+     */
+    public ConfigEpochs.Pin pinEpoch()
+    {
+        return requireEpochs().pin();
+    }
+
+    /**
+     * Provides the current config epoch, which advances with each applied change set. Requires epochs to be enabled
+     * by installing {@link ConfigEpochs#module()}.
+     *
+     * @return the current epoch
+     * @throws ConfigException if epochs are not enabled
+     */
+    public long getCurrentEpoch()
+    {
+        return requireEpochs().getCurrentEpoch();
+    }
+
+    private ConfigEpochs requireEpochs()
+    {
+        if (epochs == null) {
+            throw new ConfigException("Config epochs are not enabled. Install {} to enable them.", "ConfigEpochs.module()");
+        }
+        return epochs;
+    }
+
+    /**
+     * Releases the resources of this config system: the subscriptions of all property accessors and snapshots, the
+     * scopes of runtime scoped configs, and the resources of the config sources, such as file polling or ZooKeeper
+     * connections. Call this when the injector is discarded, such as on redeploy or at the end of a test, so that it can
+     * be garbage collected along with its generated classes.
+     * <br>
+     * Config interfaces keep returning their last values once closed, but no longer see changes.
+     */
+    @Override
+    public void close()
+    {
+        if (resourceRegistry == null) {
+            log.warn("ConfigSystem was not installed with {}, so its resources cannot be closed", "ConfigSystem.module()");
+            return;
+        }
+        if (resourceRegistry.isClosed()) {
+            return;
+        }
+        snapshotPublishers.values().forEach(SnapshotPublisher::close);
+        resourceRegistry.closeAll();
+        log.debug("Closed config system");
+    }
+
+    /**
+     * Provides the number of reads of each config property by application code since startup. Requires read tracking
+     * to be enabled by installing {@link ConfigReadTracker#module()}.
+     *
+     * @return read counts keyed by config name, including properties which were never read
+     * @throws ConfigException if read tracking is not enabled
+     */
+    public Map<String, Long> getReadCounts()
+    {
+        final Map<String, Long> readCounts = requireReadTracker().getReadCounts();
+        ImmutableMap.Builder<String, Long> builder = ImmutableMap.builder();
+        getDeclaredConfigNames().forEach(name -> builder.put(name, readCounts.getOrDefault(name, 0L)));
+        return builder.build();
+    }
+
+    /**
+     * Provides the average rate of reads of each config property by application code since startup. Requires read
+     * tracking to be enabled by installing {@link ConfigReadTracker#module()}.
+     *
+     * @return reads per second keyed by config name, including properties which were never read
+     * @throws ConfigException if read tracking is not enabled
+     */
+    public Map<String, Double> getReadRates()
+    {
+        final double trackedSeconds = Math.max(requireReadTracker().getTrackedSeconds(), 1.0);
+        ImmutableMap.Builder<String, Double> builder = ImmutableMap.builder();
+        getReadCounts().forEach((name, count) -> builder.put(name, count / trackedSeconds));
+        return builder.build();
+    }
+
+    /**
+     * Lists the declared config properties which have not been read by application code since startup. Requires read
+     * tracking to be enabled by installing {@link ConfigReadTracker#module()}.
+     *
+     * @return sorted names of config properties which were never read
+     * @throws ConfigException if read tracking is not enabled
+     */
+    public Set<String> getUnreadProperties()
+    {
+        ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+        getReadCounts().forEach((name, count) -> {
+            if (count == 0L) {
+                builder.add(name);
+            }
+        });
+        return builder.build();
+    }
+
+    private ConfigReadTracker requireReadTracker()
+    {
+        if (readTracker == null) {
+            throw new ConfigException("Config read tracking is not enabled. Install {} to enable it.", "ConfigReadTracker.module()");
+        }
+        return readTracker;
+    }
+
+    private List<String> getDeclaredConfigNames()
+    {
+        if (allConfigDescriptors == null) {
+            return Collections.emptyList();
         }
+        return allConfigDescriptors.stream()
+            .map(ConfigDescriptor::getConfigName)
+            .sorted()
+            .collect(toList());
     }
 
     /**
@@ -286,6 +811,8 @@ public class ConfigSystem
             protected void configure()
             {
                 bind(ConfigSystem.class);
+                bind(ConfigResourceRegistry.class);
+                bind(DeliveryTracker.class);
             }
         };
     }
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Module;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Selects constant-folded reads of configuration values. When {@link #module()} is installed, each value method of a
+ * config interface is implemented with an invokedynamic instruction linked to a
+ * {@link java.lang.invoke.MutableCallSite} whose target returns the current value as a constant, which the JIT may
+ * inline into the code that reads it, much as it does a {@code static final} field. When the value changes, the call
+ * site is relinked, which deoptimizes the code that inlined the old value; nothing is relinked for events which do not
+ * change the value.
+ * <br>
+ * Reads of a property only go through the property accessor when read tracking or {@link ConfigEpochs} are installed,
+ * as those need to see every read. Observable methods are not affected.
+ */
+public class FoldedConfigReads
+{
+    private final AtomicLong relinkCount = new AtomicLong();
+
+    // Private so Guice cannot create an instance unless folded reads were explicitly configured via module()
+    private FoldedConfigReads()
+    {
+    }
+
+    /**
+     * @return number of times a call site was relinked to a new value, across all properties
+     */
+    public long getRelinkCount()
+    {
+        return relinkCount.get();
+    }
+
+    /**
+     * Intended for use by the property accessors only, when a call site is relinked.
+     */
+    public void onRelink()
+    {
+        relinkCount.incrementAndGet();
+    }
+
+    public static Module module()
+    {
+        return new AbstractModule()
+        {
+            @Override
+            protected void configure()
+            {
+                bind(FoldedConfigReads.class).toInstance(new FoldedConfigReads());
+            }
+        };
+    }
+}
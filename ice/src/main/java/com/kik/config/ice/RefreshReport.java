@@ -0,0 +1,44 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice;
+
+import java.util.List;
+import lombok.Getter;
+
+/**
+ * Result of {@link ConfigSystem#refresh()}, with the outcome of each config source, in priority order. The elapsed
+ * time of each source is from the start of the refresh until its changes were applied.
+ */
+@Getter
+public class RefreshReport extends ConfigReport
+{
+    /**
+     * Time at which every change was applied, in milliseconds since the epoch.
+     */
+    private final long appliedMillis;
+
+    public RefreshReport(List<Result> results, long elapsedNanos, long appliedMillis)
+    {
+        super(results, elapsedNanos);
+        this.appliedMillis = appliedMillis;
+    }
+
+    @Override
+    protected String describeFailures()
+    {
+        return "config sources failed to refresh";
+    }
+}
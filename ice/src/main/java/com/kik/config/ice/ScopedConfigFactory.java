@@ -0,0 +1,51 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice;
+
+/**
+ * Provides instances of a config interface for scopes which are only known at runtime, such as tenants or customers.
+ * Obtain one with {@link ConfigSystem#scoped(Class)}, after installing
+ * {@link ConfigSystem#scopedConfigModule(Class)}.
+ * <br>
+ * Values for a scope are named as they would be for <code>configModule(Foo.class, Names.named(scope))</code>, so a
+ * scope can be configured in the config sources without any code or Guice module for it. Instances of every scope share
+ * a single generated class, and the values of a scope are only subscribed to in the config sources once they are read.
+ *
+ * @param <C> the config interface type
+ */
+public interface ScopedConfigFactory<C>
+{
+    /**
+     * Provides the config instance for a scope, creating it on first use.
+     *
+     * @param scope the runtime scope
+     * @return the config instance for the scope
+     */
+    C get(String scope);
+
+    /**
+     * Releases the config values of a scope, and the config source subscriptions held for them. Instances previously
+     * returned for the scope remain usable, and re-create the scope when read.
+     *
+     * @param scope the runtime scope
+     */
+    void evict(String scope);
+
+    /**
+     * @return the number of scopes currently held by this factory
+     */
+    long size();
+}
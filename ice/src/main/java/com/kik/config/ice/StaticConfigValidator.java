@@ -0,0 +1,78 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice;
+
+import com.google.inject.Guice;
+import com.google.inject.Module;
+import com.kik.config.ice.exception.ConfigException;
+import java.util.Arrays;
+
+/**
+ * Helper for validating static configuration outside of a running application, such as in a unit test run as part of
+ * the build. The modules given must provide everything the config system needs, typically
+ * {@link ConfigConfigurator#testModules()} along with the application's config modules. For example:
+ * <pre><code>
+ * {@literal @}Test
+ * public void testStaticConfig()
+ * {
+ *     StaticConfigValidator.assertValid(ConfigConfigurator.testModules(), MyApp.configModules());
+ * }
+ * </code></pre>
+ */
+public final class StaticConfigValidator
+{
+    private StaticConfigValidator()
+    {
+    }
+
+    /**
+     * Validates all static configuration in an injector created from the given modules, using one thread per
+     * available processor.
+     *
+     * @param modules the modules to create the injector from
+     * @return the validation report
+     */
+    public static ValidationReport validate(Module... modules)
+    {
+        return validate(Runtime.getRuntime().availableProcessors(), Arrays.asList(modules));
+    }
+
+    /**
+     * Validates all static configuration in an injector created from the given modules.
+     *
+     * @param parallelism number of threads to validate with
+     * @param modules     the modules to create the injector from
+     * @return the validation report
+     */
+    public static ValidationReport validate(int parallelism, Iterable<? extends Module> modules)
+    {
+        return Guice.createInjector(modules).getInstance(ConfigSystem.class).validateStaticConfiguration(parallelism);
+    }
+
+    /**
+     * Validates all static configuration in an injector created from the given modules.
+     *
+     * @param modules the modules to create the injector from
+     * @throws ConfigException if any configuration value is invalid, with a message listing each failure
+     */
+    public static void assertValid(Module... modules)
+    {
+        final ValidationReport report = validate(modules);
+        if (!report.isSuccessful()) {
+            throw new ConfigException("{}", report.getSummary(), report.getFailures().get(0).getError().orElse(null));
+        }
+    }
+}
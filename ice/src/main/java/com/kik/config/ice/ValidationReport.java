@@ -0,0 +1,47 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice;
+
+import java.util.List;
+import lombok.Getter;
+
+/**
+ * Result of {@link ConfigSystem#validateStaticConfiguration(int)}, with the outcome and provisioning time of each
+ * configuration value, in config name order.
+ */
+@Getter
+public class ValidationReport extends ConfigReport
+{
+    private final int parallelism;
+
+    public ValidationReport(List<Result> results, long elapsedNanos, int parallelism)
+    {
+        super(results, elapsedNanos);
+        this.parallelism = parallelism;
+    }
+
+    @Override
+    protected String describeFailures()
+    {
+        return "configuration values failed static config checks";
+    }
+
+    @Override
+    protected String describeDetails()
+    {
+        return String.format(" (parallelism %d)", parallelism);
+    }
+}
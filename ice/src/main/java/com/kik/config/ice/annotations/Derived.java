@@ -0,0 +1,42 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a default method of a config interface as a value derived from other config methods, eg:
+ * <pre>
+ * &#64;Derived
+ * default Duration timeout()
+ * {
+ *     return Duration.ofMillis(timeoutMillis());
+ * }
+ * </pre>
+ * The result is cached, and the method is only evaluated again once the value of a config method it read has changed.
+ * The config methods read are recorded on each evaluation, so derivations which read different methods depending on
+ * values are supported. Derived values are not versioned by {@link com.kik.config.ice.ConfigEpochs}.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Documented
+public @interface Derived
+{
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.collect;
+
+/**
+ * Fixed size bloom filter over pre-computed 64 bit hashes, used to reject most non-members of a compact set before
+ * the set itself is searched.
+ */
+final class BloomFilter
+{
+    private static final int BITS_PER_ENTRY = 10;
+    private static final int NUM_HASHES = 6;
+
+    private final long[] bits;
+    private final int mask;
+
+    BloomFilter(int expectedEntries)
+    {
+        final int targetBits = (int) Math.min(1L << 30, Math.max(64L, (long) expectedEntries * BITS_PER_ENTRY));
+        final int numBits = Integer.bitCount(targetBits) == 1 ? targetBits : Integer.highestOneBit(targetBits) << 1;
+        this.bits = new long[numBits >>> 6];
+        this.mask = numBits - 1;
+    }
+
+    private BloomFilter(BloomFilter other)
+    {
+        this.bits = other.bits.clone();
+        this.mask = other.mask;
+    }
+
+    BloomFilter copy()
+    {
+        return new BloomFilter(this);
+    }
+
+    void put(long hash)
+    {
+        final int h1 = (int) hash;
+        final int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < NUM_HASHES; ++i) {
+            final int bit = (h1 + i * h2) & mask;
+            bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    boolean mightContain(long hash)
+    {
+        final int h1 = (int) hash;
+        final int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < NUM_HASHES; ++i) {
+            final int bit = (h1 + i * h2) & mask;
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.collect;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable set of longs stored as a sorted primitive array, using 8 bytes per entry.
+ * <br>
+ * {@link #contains(long)} is a binary search which does not allocate. Large sets also keep a bloom filter which
+ * rejects most non-members without searching the array. The {@link java.util.Set} methods taking objects box their
+ * values, and should be avoided on hot paths.
+ */
+public final class CompactLongSet extends AbstractSet<Long>
+{
+    /**
+     * Sets with at least this many entries get a bloom filter prefilter when built by {@link #copyOf(long...)}.
+     */
+    public static final int BLOOM_PREFILTER_MIN_SIZE = 1 << 16;
+
+    private static final CompactLongSet EMPTY = new CompactLongSet(new long[0], null);
+
+    private final long[] values;
+    private final BloomFilter bloomFilter;
+
+    private CompactLongSet(long[] sortedDistinctValues, BloomFilter bloomFilter)
+    {
+        this.values = sortedDistinctValues;
+        this.bloomFilter = bloomFilter;
+    }
+
+    public static CompactLongSet of()
+    {
+        return EMPTY;
+    }
+
+    public static CompactLongSet copyOf(long... values)
+    {
+        return copyOf(values, values.length >= BLOOM_PREFILTER_MIN_SIZE);
+    }
+
+    public static CompactLongSet copyOf(long[] values, boolean bloomPrefilter)
+    {
+        checkNotNull(values);
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int size = 0;
+        for (int idx = 0; idx < sorted.length; ++idx) {
+            if (size == 0 || sorted[size - 1] != sorted[idx]) {
+                sorted[size++] = sorted[idx];
+            }
+        }
+        if (size != sorted.length) {
+            sorted = Arrays.copyOf(sorted, size);
+        }
+
+        BloomFilter bloomFilter = null;
+        if (bloomPrefilter) {
+            bloomFilter = new BloomFilter(size);
+            for (long value : sorted) {
+                bloomFilter.put(Hashes.mix(value));
+            }
+        }
+        return new CompactLongSet(sorted, bloomFilter);
+    }
+
+    public boolean contains(long value)
+    {
+        if (bloomFilter != null && !bloomFilter.mightContain(Hashes.mix(value))) {
+            return false;
+        }
+        return Arrays.binarySearch(values, value) >= 0;
+    }
+
+    @Override
+    public boolean contains(Object o)
+    {
+        return o instanceof Long && contains(((Long) o).longValue());
+    }
+
+    @Override
+    public int size()
+    {
+        return values.length;
+    }
+
+    /**
+     * @return a copy of the values in this set, in ascending order.
+     */
+    public long[] toLongArray()
+    {
+        return values.clone();
+    }
+
+    boolean hasBloomPrefilter()
+    {
+        return bloomFilter != null;
+    }
+
+    @Override
+    public Iterator<Long> iterator()
+    {
+        return new Iterator<Long>()
+        {
+            private int idx = 0;
+
+            @Override
+            public boolean hasNext()
+            {
+                return idx < values.length;
+            }
+
+            @Override
+            public Long next()
+            {
+                if (idx >= values.length) {
+                    throw new NoSuchElementException();
+                }
+                return values[idx++];
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (o instanceof CompactLongSet) {
+            return Arrays.equals(values, ((CompactLongSet) o).values);
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        // Same as the Set contract, without boxing
+        int hash = 0;
+        for (long value : values) {
+            hash += (int) (value ^ (value >>> 32));
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.collect;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Immutable map with String keys, stored as a sorted key array and a parallel value array.
+ * <br>
+ * Uses two references per entry, rather than the entry objects and hash table of a regular hash map, at the cost of a
+ * binary search for {@link #get(Object)}. Lookups do not allocate. Iteration is in key order.
+ *
+ * @param <V> type of the values
+ */
+public final class CompactStringMap<V> extends AbstractMap<String, V>
+{
+    private static final CompactStringMap<?> EMPTY = new CompactStringMap<>(new String[0], new Object[0]);
+
+    private final String[] keys;
+    private final Object[] values;
+
+    private CompactStringMap(String[] sortedKeys, Object[] values)
+    {
+        this.keys = sortedKeys;
+        this.values = values;
+    }
+
+    public static <V> CompactStringMap<V> of()
+    {
+        return (CompactStringMap<V>) EMPTY;
+    }
+
+    /**
+     * @param entries entries of the map, which must not contain null values
+     * @return a map of the given entries
+     * @throws IllegalArgumentException if the map contains the same key more than once
+     */
+    public static <V> CompactStringMap<V> copyOf(Map<String, ? extends V> entries)
+    {
+        if (entries instanceof CompactStringMap) {
+            return (CompactStringMap<V>) entries;
+        }
+        @SuppressWarnings("unchecked")
+        final Map.Entry<String, ? extends V>[] sorted = entries.entrySet().toArray(new Map.Entry[entries.size()]);
+        Arrays.sort(sorted, Comparator.comparing(Map.Entry::getKey));
+
+        final String[] keys = new String[sorted.length];
+        final Object[] values = new Object[sorted.length];
+        for (int idx = 0; idx < sorted.length; ++idx) {
+            keys[idx] = checkNotNull(sorted[idx].getKey());
+            values[idx] = checkNotNull(sorted[idx].getValue(), "Null value for key %s", keys[idx]);
+            checkArgument(idx == 0 || !keys[idx].equals(keys[idx - 1]), "Duplicate key %s", keys[idx]);
+        }
+        return new CompactStringMap<>(keys, values);
+    }
+
+    private int indexOf(Object key)
+    {
+        return key instanceof String ? Arrays.binarySearch(keys, key) : -1;
+    }
+
+    @Override
+    public V get(Object key)
+    {
+        final int idx = indexOf(key);
+        return idx < 0 ? null : (V) values[idx];
+    }
+
+    @Override
+    public boolean containsKey(Object key)
+    {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public int size()
+    {
+        return keys.length;
+    }
+
+    @Override
+    public Set<Entry<String, V>> entrySet()
+    {
+        return new AbstractSet<Entry<String, V>>()
+        {
+            @Override
+            public Iterator<Entry<String, V>> iterator()
+            {
+                return new Iterator<Entry<String, V>>()
+                {
+                    private int idx = 0;
+
+                    @Override
+                    public boolean hasNext()
+                    {
+                        return idx < keys.length;
+                    }
+
+                    @Override
+                    public Entry<String, V> next()
+                    {
+                        if (idx >= keys.length) {
+                            throw new NoSuchElementException();
+                        }
+                        final Entry<String, V> entry = new SimpleImmutableEntry<>(keys[idx], (V) values[idx]);
+                        ++idx;
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size()
+            {
+                return keys.length;
+            }
+        };
+    }
+}
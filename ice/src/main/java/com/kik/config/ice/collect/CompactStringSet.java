@@ -0,0 +1,477 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.collect;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import com.google.common.collect.ImmutableSet;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Immutable set of strings, stored as a perfect hash table over a single packed character array.
+ * <br>
+ * Each entry costs its characters plus around 5 bytes, rather than the object headers, hash table entry and cached
+ * hash code of a String in a regular hash set. {@link #contains(String)} hashes the value, looks up its one possible
+ * slot and compares the characters in place, without allocating. Large sets also keep a bloom filter which rejects
+ * most non-members before the table is read.
+ * <br>
+ * A set built from a previous set with {@link #copyOf(Collection, CompactStringSet)} reuses the previous perfect
+ * hash when only a small fraction of the values changed, keeping the changes alongside it instead of rebuilding.
+ */
+public final class CompactStringSet extends AbstractSet<String>
+{
+    /**
+     * Sets with at least this many entries get a bloom filter prefilter when built by {@link #copyOf(Collection)}.
+     */
+    public static final int BLOOM_PREFILTER_MIN_SIZE = 1 << 16;
+
+    // Changes to at most this many values, or to 1/MAX_DELTA_DIVISOR of the values, are kept alongside the previous table
+    private static final int MIN_DELTA_LIMIT = 16;
+    private static final int MAX_DELTA_DIVISOR = 16;
+
+    private static final String[] NO_STRINGS = new String[0];
+    private static final CompactStringSet EMPTY = new CompactStringSet(Table.EMPTY, null, NO_STRINGS, false, null);
+
+    private final Table table;
+    // Slots of table removed by a delta, or null if none are
+    private final BitSet removed;
+    // Sorted values which are not in table: added by a delta, or sharing their full hash with a key in table
+    private final String[] added;
+    // The empty string is kept out of the table, where it marks unused slots
+    private final boolean containsEmpty;
+    private final BloomFilter bloomFilter;
+    private final int size;
+
+    private CompactStringSet(Table table, BitSet removed, String[] added, boolean containsEmpty, BloomFilter bloomFilter)
+    {
+        this.table = table;
+        this.removed = removed;
+        this.added = added;
+        this.containsEmpty = containsEmpty;
+        this.bloomFilter = bloomFilter;
+        this.size = table.numKeys - (removed == null ? 0 : removed.cardinality()) + added.length + (containsEmpty ? 1 : 0);
+    }
+
+    public static CompactStringSet of()
+    {
+        return EMPTY;
+    }
+
+    public static CompactStringSet copyOf(Collection<String> values)
+    {
+        return copyOf(values, values.size() >= BLOOM_PREFILTER_MIN_SIZE);
+    }
+
+    public static CompactStringSet copyOf(Collection<String> values, boolean bloomPrefilter)
+    {
+        final Set<String> distinct = ImmutableSet.copyOf(values);
+        final List<String> keys = new ArrayList<>(distinct.size());
+        for (String value : distinct) {
+            if (!value.isEmpty()) {
+                keys.add(value);
+            }
+        }
+
+        BloomFilter bloomFilter = null;
+        if (bloomPrefilter) {
+            bloomFilter = new BloomFilter(keys.size());
+            for (String key : keys) {
+                bloomFilter.put(Hashes.hash(key));
+            }
+        }
+        final String[] collidingKeys = removeHashCollisions(keys);
+        return new CompactStringSet(Table.build(keys), null, collidingKeys, distinct.contains(""), bloomFilter);
+    }
+
+    /**
+     * Keys with the same 64 bit hash land in the same slot for every seed, so no perfect hash table can hold them
+     * all. Removes all but the first key of each such group, to be found by comparing strings instead.
+     *
+     * @return the removed keys, sorted
+     */
+    private static String[] removeHashCollisions(List<String> keys)
+    {
+        final long[] hashes = new long[keys.size()];
+        for (int idx = 0; idx < hashes.length; ++idx) {
+            hashes[idx] = Hashes.hash(keys.get(idx));
+        }
+        Arrays.sort(hashes);
+        final Set<Long> collidingHashes = new HashSet<>();
+        for (int idx = 1; idx < hashes.length; ++idx) {
+            if (hashes[idx] == hashes[idx - 1]) {
+                collidingHashes.add(hashes[idx]);
+            }
+        }
+        if (collidingHashes.isEmpty()) {
+            return NO_STRINGS;
+        }
+
+        final Set<Long> keptHashes = new HashSet<>();
+        final List<String> removedKeys = new ArrayList<>();
+        for (Iterator<String> iterator = keys.iterator(); iterator.hasNext();) {
+            final String key = iterator.next();
+            final long hash = Hashes.hash(key);
+            if (collidingHashes.contains(hash) && !keptHashes.add(hash)) {
+                removedKeys.add(key);
+                iterator.remove();
+            }
+        }
+        final String[] removed = removedKeys.toArray(NO_STRINGS);
+        Arrays.sort(removed);
+        return removed;
+    }
+
+    /**
+     * Builds a set of the given values, reusing the perfect hash table of {@code previous} if only a small fraction of
+     * the values in it were added or removed.
+     *
+     * @param values  the values of the new set
+     * @param previous a set which likely holds most of the given values
+     * @return a set of the given values
+     */
+    public static CompactStringSet copyOf(Collection<String> values, CompactStringSet previous)
+    {
+        checkNotNull(previous);
+        final Set<String> distinct = ImmutableSet.copyOf(values);
+        if (previous.bloomFilter == null && distinct.size() >= BLOOM_PREFILTER_MIN_SIZE) {
+            return copyOf(distinct, true);
+        }
+        final Table base = previous.table;
+
+        final BitSet present = new BitSet(base.slotCount());
+        final List<String> addedValues = new ArrayList<>();
+        for (String value : distinct) {
+            if (value.isEmpty()) {
+                continue;
+            }
+            final int slot = base.find(value, Hashes.hash(value));
+            if (slot >= 0) {
+                present.set(slot);
+            }
+            else {
+                addedValues.add(value);
+            }
+        }
+
+        final int removedCount = base.numKeys - present.cardinality();
+        if (removedCount + addedValues.size() > Math.max(MIN_DELTA_LIMIT, base.numKeys / MAX_DELTA_DIVISOR)) {
+            return copyOf(distinct, previous.bloomFilter != null);
+        }
+
+        BitSet removed = null;
+        if (removedCount > 0) {
+            removed = new BitSet(base.slotCount());
+            for (int slot = 0; slot < base.slotCount(); ++slot) {
+                if (base.isOccupied(slot) && !present.get(slot)) {
+                    removed.set(slot);
+                }
+            }
+        }
+
+        final String[] added = addedValues.toArray(NO_STRINGS);
+        Arrays.sort(added);
+
+        BloomFilter bloomFilter = null;
+        if (previous.bloomFilter != null) {
+            // Bits of removed values stay set, which only lets a few more lookups through to the table
+            bloomFilter = previous.bloomFilter.copy();
+            for (String value : added) {
+                bloomFilter.put(Hashes.hash(value));
+            }
+        }
+        return new CompactStringSet(base, removed, added, distinct.contains(""), bloomFilter);
+    }
+
+    public boolean contains(String value)
+    {
+        if (value == null) {
+            return false;
+        }
+        if (value.isEmpty()) {
+            return containsEmpty;
+        }
+        final long hash = Hashes.hash(value);
+        if (bloomFilter != null && !bloomFilter.mightContain(hash)) {
+            return false;
+        }
+        final int slot = table.find(value, hash);
+        if (slot >= 0) {
+            return removed == null || !removed.get(slot);
+        }
+        return added.length > 0 && Arrays.binarySearch(added, value) >= 0;
+    }
+
+    @Override
+    public boolean contains(Object o)
+    {
+        return o instanceof String && contains((String) o);
+    }
+
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    boolean isDelta()
+    {
+        return removed != null || added.length > 0;
+    }
+
+    boolean hasBloomPrefilter()
+    {
+        return bloomFilter != null;
+    }
+
+    @Override
+    public Iterator<String> iterator()
+    {
+        return new Iterator<String>()
+        {
+            private int slot = nextSlot(0);
+            private int addedIdx = 0;
+            private boolean emptyPending = containsEmpty;
+
+            private int nextSlot(int from)
+            {
+                int idx = from;
+                while (idx < table.slotCount() && (!table.isOccupied(idx) || (removed != null && removed.get(idx)))) {
+                    ++idx;
+                }
+                return idx;
+            }
+
+            @Override
+            public boolean hasNext()
+            {
+                return slot < table.slotCount() || addedIdx < added.length || emptyPending;
+            }
+
+            @Override
+            public String next()
+            {
+                if (slot < table.slotCount()) {
+                    final String value = table.keyAt(slot);
+                    slot = nextSlot(slot + 1);
+                    return value;
+                }
+                if (addedIdx < added.length) {
+                    return added[addedIdx++];
+                }
+                if (emptyPending) {
+                    emptyPending = false;
+                    return "";
+                }
+                throw new NoSuchElementException();
+            }
+        };
+    }
+
+    /**
+     * Hash and displace perfect hash table: keys are grouped into small buckets by hash, and each bucket has a seed
+     * which places all of its keys in otherwise unused slots. Buckets are placed largest first, while the table is
+     * emptiest. The table has 1% spare slots, so that placing the last buckets stays quick.
+     */
+    private static final class Table
+    {
+        private static final int KEYS_PER_BUCKET = 4;
+        private static final double LOAD_FACTOR = 0.99;
+        private static final int MAX_SEED = 1 << 20;
+        private static final int MAX_BUILD_ATTEMPTS = 8;
+        private static final long SEED_MULTIPLIER = 0x9e3779b97f4a7c15L;
+
+        static final Table EMPTY = new Table(new char[0], new int[1], new int[0], 0, 0L);
+
+        private final char[] chars;
+        // Key in slot i is chars[offsets[i]] to chars[offsets[i + 1]], and empty if the slot is unused
+        private final int[] offsets;
+        private final int[] seeds;
+        private final int numKeys;
+        private final long salt;
+
+        private Table(char[] chars, int[] offsets, int[] seeds, int numKeys, long salt)
+        {
+            this.chars = chars;
+            this.offsets = offsets;
+            this.seeds = seeds;
+            this.numKeys = numKeys;
+            this.salt = salt;
+        }
+
+        static Table build(List<String> keys)
+        {
+            final int numKeys = keys.size();
+            if (numKeys == 0) {
+                return EMPTY;
+            }
+            final long[] hashes = new long[numKeys];
+            for (int idx = 0; idx < numKeys; ++idx) {
+                hashes[idx] = Hashes.hash(keys.get(idx));
+            }
+            final int numSlots = (int) Math.ceil(numKeys / LOAD_FACTOR);
+            final int numBuckets = (numKeys + KEYS_PER_BUCKET - 1) / KEYS_PER_BUCKET;
+
+            for (int attempt = 0; attempt < MAX_BUILD_ATTEMPTS; ++attempt) {
+                final long salt = Hashes.mix(attempt);
+                final int[] seeds = new int[numBuckets];
+                final int[] slotToKey = place(hashes, seeds, numSlots, salt);
+                if (slotToKey == null) {
+                    continue;
+                }
+
+                int totalChars = 0;
+                for (String key : keys) {
+                    totalChars += key.length();
+                }
+                final char[] chars = new char[totalChars];
+                final int[] offsets = new int[numSlots + 1];
+                int pos = 0;
+                for (int slot = 0; slot < numSlots; ++slot) {
+                    offsets[slot] = pos;
+                    if (slotToKey[slot] >= 0) {
+                        final String key = keys.get(slotToKey[slot]);
+                        key.getChars(0, key.length(), chars, pos);
+                        pos += key.length();
+                    }
+                }
+                offsets[numSlots] = pos;
+                return new Table(chars, offsets, seeds, numKeys, salt);
+            }
+            throw new IllegalStateException("Unable to build a perfect hash table for " + numKeys + " keys");
+        }
+
+        /**
+         * @return the key index placed in each slot (or -1 if unused), or null if some bucket could not be placed.
+         */
+        private static int[] place(long[] hashes, int[] seeds, int numSlots, long salt)
+        {
+            final int numBuckets = seeds.length;
+
+            // Group keys by bucket with a counting sort
+            final int[] bucketStart = new int[numBuckets + 1];
+            for (long hash : hashes) {
+                ++bucketStart[bucketOf(hash, numBuckets) + 1];
+            }
+            int maxBucketSize = 0;
+            for (int bucket = 0; bucket < numBuckets; ++bucket) {
+                maxBucketSize = Math.max(maxBucketSize, bucketStart[bucket + 1]);
+                bucketStart[bucket + 1] += bucketStart[bucket];
+            }
+            final int[] keysByBucket = new int[hashes.length];
+            final int[] fill = Arrays.copyOf(bucketStart, numBuckets);
+            for (int idx = 0; idx < hashes.length; ++idx) {
+                keysByBucket[fill[bucketOf(hashes[idx], numBuckets)]++] = idx;
+            }
+
+            // Largest buckets first
+            final long[] order = new long[numBuckets];
+            for (int bucket = 0; bucket < numBuckets; ++bucket) {
+                order[bucket] = ((long) (bucketStart[bucket + 1] - bucketStart[bucket]) << 32) | bucket;
+            }
+            Arrays.sort(order);
+
+            final int[] slotToKey = new int[numSlots];
+            Arrays.fill(slotToKey, -1);
+            final int[] candidateSlots = new int[maxBucketSize];
+            for (int orderIdx = numBuckets - 1; orderIdx >= 0; --orderIdx) {
+                final int bucket = (int) order[orderIdx];
+                final int start = bucketStart[bucket];
+                final int end = bucketStart[bucket + 1];
+                if (start == end) {
+                    // remaining buckets are all empty
+                    break;
+                }
+
+                boolean placed = false;
+                for (int seed = 0; seed < MAX_SEED && !placed; ++seed) {
+                    placed = true;
+                    for (int keyIdx = start; keyIdx < end && placed; ++keyIdx) {
+                        final int slot = slotOf(hashes[keysByBucket[keyIdx]], seed, numSlots, salt);
+                        placed = slotToKey[slot] < 0;
+                        for (int prevIdx = start; prevIdx < keyIdx && placed; ++prevIdx) {
+                            placed = candidateSlots[prevIdx - start] != slot;
+                        }
+                        candidateSlots[keyIdx - start] = slot;
+                    }
+                    if (placed) {
+                        for (int keyIdx = start; keyIdx < end; ++keyIdx) {
+                            slotToKey[candidateSlots[keyIdx - start]] = keysByBucket[keyIdx];
+                        }
+                        seeds[bucket] = seed;
+                    }
+                }
+                if (!placed) {
+                    return null;
+                }
+            }
+            return slotToKey;
+        }
+
+        private static int bucketOf(long hash, int numBuckets)
+        {
+            return (int) ((hash >>> 1) % numBuckets);
+        }
+
+        private static int slotOf(long hash, int seed, int numSlots, long salt)
+        {
+            return (int) ((Hashes.mix(hash ^ salt ^ (seed * SEED_MULTIPLIER)) >>> 1) % numSlots);
+        }
+
+        int slotCount()
+        {
+            return offsets.length - 1;
+        }
+
+        boolean isOccupied(int slot)
+        {
+            return offsets[slot + 1] > offsets[slot];
+        }
+
+        String keyAt(int slot)
+        {
+            return new String(chars, offsets[slot], offsets[slot + 1] - offsets[slot]);
+        }
+
+        /**
+         * @return the slot holding the given non-empty key, or -1 if it is not in the table.
+         */
+        int find(String key, long hash)
+        {
+            if (numKeys == 0) {
+                return -1;
+            }
+            final int slot = slotOf(hash, seeds[bucketOf(hash, seeds.length)], slotCount(), salt);
+            final int start = offsets[slot];
+            if (offsets[slot + 1] - start != key.length()) {
+                return -1;
+            }
+            for (int idx = 0; idx < key.length(); ++idx) {
+                if (chars[start + idx] != key.charAt(idx)) {
+                    return -1;
+                }
+            }
+            return slot;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.collect;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import com.google.common.primitives.Longs;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * Immutable feature flag, evaluated per id without allocating.
+ * <br>
+ * A flag is enabled for an id if the id is not denied, and is either allowed or hashed into the rollout. Ids are hashed
+ * with the flag's salt into one of 10,000 buckets, and the flag is enabled for the buckets below its rollout
+ * percentage (in steps of 0.01%). Raising the percentage therefore only ever adds ids, and flags with different salts
+ * roll out to independent sets of ids. Long and String ids hash differently, so a flag should always be evaluated with
+ * the same kind of id.
+ * <br>
+ * Allowed and denied ids are held in a {@link CompactStringSet}, and those which are numbers also in a
+ * {@link CompactLongSet}, so that either kind of id can be checked without conversion.
+ */
+public final class FeatureFlag
+{
+    /**
+     * Number of buckets ids are hashed into.
+     */
+    public static final int BUCKETS = 10_000;
+
+    public static final FeatureFlag OFF = new FeatureFlag(0, "", CompactStringSet.of(), CompactStringSet.of());
+    public static final FeatureFlag ON = new FeatureFlag(BUCKETS, "", CompactStringSet.of(), CompactStringSet.of());
+
+    private final int rolloutBuckets;
+    private final String salt;
+    private final long saltHash;
+    private final CompactStringSet allowedIds;
+    private final CompactLongSet allowedLongIds;
+    private final CompactStringSet deniedIds;
+    private final CompactLongSet deniedLongIds;
+
+    private FeatureFlag(int rolloutBuckets, String salt, CompactStringSet allowedIds, CompactStringSet deniedIds)
+    {
+        this.rolloutBuckets = rolloutBuckets;
+        this.salt = salt;
+        this.saltHash = Hashes.hash(salt);
+        this.allowedIds = allowedIds;
+        this.allowedLongIds = longIds(allowedIds);
+        this.deniedIds = deniedIds;
+        this.deniedLongIds = longIds(deniedIds);
+    }
+
+    /**
+     * @param rolloutPercent percentage of ids the flag is enabled for, between 0 and 100 with at most two decimals
+     * @param salt           mixed into the hash of each id, so that flags can roll out to independent sets of ids
+     * @param allowedIds     ids the flag is always enabled for, unless denied
+     * @param deniedIds      ids the flag is never enabled for
+     * @return the flag
+     */
+    public static FeatureFlag of(BigDecimal rolloutPercent, String salt, Collection<String> allowedIds, Collection<String> deniedIds)
+    {
+        checkNotNull(rolloutPercent);
+        checkNotNull(salt);
+        checkArgument(rolloutPercent.signum() >= 0 && rolloutPercent.compareTo(BigDecimal.valueOf(100)) <= 0,
+            "Rollout percentage must be between 0 and 100: %s", rolloutPercent);
+        checkArgument(rolloutPercent.stripTrailingZeros().scale() <= 2,
+            "Rollout percentage must have at most two decimals: %s", rolloutPercent);
+        return new FeatureFlag(rolloutPercent.movePointRight(2).intValueExact(), salt,
+            CompactStringSet.copyOf(allowedIds), CompactStringSet.copyOf(deniedIds));
+    }
+
+    private static CompactLongSet longIds(CompactStringSet ids)
+    {
+        return CompactLongSet.copyOf(ids.stream()
+            .map(Longs::tryParse)
+            .filter(Objects::nonNull)
+            .mapToLong(Long::longValue)
+            .toArray());
+    }
+
+    public boolean isEnabledFor(long id)
+    {
+        if (deniedLongIds.contains(id)) {
+            return false;
+        }
+        return allowedLongIds.contains(id) || isRolledOut(Hashes.mix(id ^ saltHash));
+    }
+
+    public boolean isEnabledFor(String id)
+    {
+        if (deniedIds.contains(id)) {
+            return false;
+        }
+        return allowedIds.contains(id) || isRolledOut(Hashes.mix(Hashes.hash(id) ^ saltHash));
+    }
+
+    private boolean isRolledOut(long hash)
+    {
+        return bucket(hash) < rolloutBuckets;
+    }
+
+    static int bucket(long hash)
+    {
+        // Multiply-shift reduction of the top 32 bits of the hash into [0, BUCKETS), avoiding a slow unsigned modulo
+        return (int) (((hash >>> 32) * BUCKETS) >>> 32);
+    }
+
+    public BigDecimal getRolloutPercent()
+    {
+        return BigDecimal.valueOf(rolloutBuckets, 2).stripTrailingZeros();
+    }
+
+    public String getSalt()
+    {
+        return salt;
+    }
+
+    public CompactStringSet getAllowedIds()
+    {
+        return allowedIds;
+    }
+
+    public CompactStringSet getDeniedIds()
+    {
+        return deniedIds;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof FeatureFlag)) {
+            return false;
+        }
+        FeatureFlag other = (FeatureFlag) o;
+        return rolloutBuckets == other.rolloutBuckets
+            && salt.equals(other.salt)
+            && allowedIds.equals(other.allowedIds)
+            && deniedIds.equals(other.deniedIds);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(rolloutBuckets, salt, allowedIds, deniedIds);
+    }
+
+    /**
+     * @return the flag in the syntax parsed by the feature flag config value converter
+     */
+    @Override
+    public String toString()
+    {
+        final StringBuilder result = new StringBuilder("percent=").append(getRolloutPercent().toPlainString());
+        if (!salt.isEmpty()) {
+            appendEscaped(result.append(",salt="), salt);
+        }
+        appendIds(result, "allow", allowedIds);
+        appendIds(result, "deny", deniedIds);
+        return result.toString();
+    }
+
+    private static void appendIds(StringBuilder result, String key, CompactStringSet ids)
+    {
+        if (ids.isEmpty()) {
+            return;
+        }
+        result.append(',').append(key).append('=');
+        boolean first = true;
+        for (String id : ids) {
+            if (!first) {
+                result.append(';');
+            }
+            appendEscaped(result, id);
+            first = false;
+        }
+    }
+
+    private static void appendEscaped(StringBuilder result, String value)
+    {
+        for (int idx = 0; idx < value.length(); ++idx) {
+            final char c = value.charAt(idx);
+            if (c == ',' || c == '=' || c == ';' || c == '\\') {
+                result.append('\\');
+            }
+            result.append(c);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.collect;
+
+/**
+ * Allocation free 64 bit hashing used by the compact collections.
+ */
+final class Hashes
+{
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private Hashes()
+    {
+    }
+
+    /**
+     * The splitmix64 finalizer, which spreads every input bit across the whole result.
+     */
+    static long mix(long value)
+    {
+        long z = value;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    static long hash(String value)
+    {
+        long h = FNV_OFFSET_BASIS;
+        for (int idx = 0; idx < value.length(); ++idx) {
+            h ^= value.charAt(idx);
+            h *= FNV_PRIME;
+        }
+        return mix(h);
+    }
+}
@@ -18,13 +18,18 @@ package com.kik.config.ice.convert;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Lists;
+import com.google.common.primitives.Ints;
+import com.google.common.primitives.Longs;
 import com.google.inject.AbstractModule;
 import com.google.inject.Module;
 import com.google.inject.TypeLiteral;
 import com.google.inject.multibindings.MapBinder;
 import com.google.inject.util.Types;
+import com.kik.config.ice.collect.CompactLongSet;
+import com.kik.config.ice.collect.CompactStringSet;
+import com.kik.config.ice.collect.FeatureFlag;
 import com.kik.config.ice.internal.ConfigBuilder;
+import java.math.BigDecimal;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDate;
@@ -32,21 +37,16 @@ import java.time.LocalTime;
 import java.time.ZonedDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Defines a module which binds standard {@link ConfigValueConverter} definitions for use with {@link ConfigBuilder}.
  */
 public class ConfigValueConverters
 {
-    private static final Pattern CSV_PATTERN = Pattern.compile("(^|,)(?:"
-        + "(?<notQuoted>[^,\"]*)"
-        + "|"
-        + "\\s*\"(?<quoted>(?:[^\"]|\"\")*)\"\\s*"
-        + ")(?=,|$)");
+    private static final Set<String> FEATURE_FLAG_KEYS = ImmutableSet.of("percent", "salt", "allow", "deny");
 
     public static String identity(String input)
     {
@@ -136,22 +136,7 @@ public class ConfigValueConverters
     @VisibleForTesting
     static List<String> parseCsvLine(final String input)
     {
-        if (input == null) {
-            return Collections.emptyList();
-        }
-        Matcher m = CSV_PATTERN.matcher(input);
-        List<String> result = Lists.newArrayList();
-        while (m.find()) {
-            final String notQuoted = m.group("notQuoted");
-            final String quoted = m.group("quoted");
-            if (quoted == null) {
-                result.add(notQuoted);
-            }
-            else {
-                result.add(quoted.replaceAll("\"\"", "\""));
-            }
-        }
-        return result;
+        return CsvParser.parseStrings(input);
     }
 
     public static List<String> toStringList(String input)
@@ -159,6 +144,7 @@ public class ConfigValueConverters
         if (Strings.isNullOrEmpty(input)) {
             return null;
         }
+        // The parsed list is immutable, so converted values can be safely shared between accessors
         return parseCsvLine(input);
     }
 
@@ -170,6 +156,188 @@ public class ConfigValueConverters
         return ImmutableSet.copyOf(parseCsvLine(input));
     }
 
+    public static List<Integer> toIntegerList(String input)
+    {
+        if (Strings.isNullOrEmpty(input)) {
+            return null;
+        }
+        return Collections.unmodifiableList(Ints.asList(CsvParser.parseInts(input)));
+    }
+
+    public static List<Long> toLongList(String input)
+    {
+        if (Strings.isNullOrEmpty(input)) {
+            return null;
+        }
+        return Collections.unmodifiableList(Longs.asList(CsvParser.parseLongs(input)));
+    }
+
+    public static Set<Long> toLongSet(String input)
+    {
+        if (Strings.isNullOrEmpty(input)) {
+            return null;
+        }
+        return ImmutableSet.copyOf(Longs.asList(CsvParser.parseLongs(input)));
+    }
+
+    public static CompactLongSet toCompactLongSet(String input)
+    {
+        if (Strings.isNullOrEmpty(input)) {
+            return null;
+        }
+        return CompactLongSet.copyOf(CsvParser.parseLongs(input));
+    }
+
+    public static CompactStringSet toCompactStringSet(String input)
+    {
+        if (Strings.isNullOrEmpty(input)) {
+            return null;
+        }
+        return CompactStringSet.copyOf(parseCsvLine(input));
+    }
+
+    public static CompactStringSet toCompactStringSet(String input, CompactStringSet previousValue)
+    {
+        if (Strings.isNullOrEmpty(input)) {
+            return null;
+        }
+        return CompactStringSet.copyOf(parseCsvLine(input), previousValue);
+    }
+
+    /**
+     * Note that arrays are shared by every caller of a config method returning an array, and must not be modified.
+     */
+    public static int[] toIntArray(String input)
+    {
+        if (Strings.isNullOrEmpty(input)) {
+            return null;
+        }
+        return CsvParser.parseInts(input);
+    }
+
+    /**
+     * Note that arrays are shared by every caller of a config method returning an array, and must not be modified.
+     */
+    public static long[] toLongArray(String input)
+    {
+        if (Strings.isNullOrEmpty(input)) {
+            return null;
+        }
+        return CsvParser.parseLongs(input);
+    }
+
+    /**
+     * Note that arrays are shared by every caller of a config method returning an array, and must not be modified.
+     */
+    public static double[] toDoubleArray(String input)
+    {
+        if (Strings.isNullOrEmpty(input)) {
+            return null;
+        }
+        return CsvParser.parseDoubles(input);
+    }
+
+    public static Map<String, String> toStringMap(String input)
+    {
+        if (Strings.isNullOrEmpty(input)) {
+            return null;
+        }
+        return MapSyntax.parse(input, v -> v);
+    }
+
+    public static Map<String, Integer> toIntegerMap(String input)
+    {
+        if (Strings.isNullOrEmpty(input)) {
+            return null;
+        }
+        return MapSyntax.parse(input, v -> Integer.valueOf(v.trim()));
+    }
+
+    public static Map<String, Long> toLongMap(String input)
+    {
+        if (Strings.isNullOrEmpty(input)) {
+            return null;
+        }
+        return MapSyntax.parse(input, v -> Long.valueOf(v.trim()));
+    }
+
+    public static Map<String, Double> toDoubleMap(String input)
+    {
+        if (Strings.isNullOrEmpty(input)) {
+            return null;
+        }
+        return MapSyntax.parse(input, Double::valueOf);
+    }
+
+    public static Map<String, List<String>> toStringListMap(String input)
+    {
+        if (Strings.isNullOrEmpty(input)) {
+            return null;
+        }
+        return MapSyntax.parseListValues(input);
+    }
+
+    /**
+     * Parses a feature flag, which is either {@code on}, {@code off}, or entries in the map syntax with keys
+     * {@code percent}, {@code salt}, {@code allow} and {@code deny}, where allowed and denied ids are separated by
+     * semicolons. For example: {@code percent=12.5,salt=checkout,allow=42;1001,deny=7}. An empty value is off.
+     *
+     * @param input the string form of the flag
+     * @return the flag
+     * @see FeatureFlag
+     */
+    public static FeatureFlag toFeatureFlag(String input)
+    {
+        if (Strings.isNullOrEmpty(input)) {
+            return FeatureFlag.OFF;
+        }
+        switch (input.trim()) {
+            case "on":
+            case "true":
+                return FeatureFlag.ON;
+            case "off":
+            case "false":
+                return FeatureFlag.OFF;
+            default:
+                break;
+        }
+
+        final Map<String, List<String>> entries = MapSyntax.parseListValues(input);
+        for (String key : entries.keySet()) {
+            if (!FEATURE_FLAG_KEYS.contains(key)) {
+                throw new IllegalArgumentException("Unknown feature flag key " + key + " in: " + input);
+            }
+        }
+        return FeatureFlag.of(
+            new BigDecimal(singleFlagValue(entries, "percent", "0").trim()),
+            singleFlagValue(entries, "salt", ""),
+            entries.getOrDefault("allow", Collections.emptyList()),
+            entries.getOrDefault("deny", Collections.emptyList()));
+    }
+
+    private static String singleFlagValue(Map<String, List<String>> entries, String key, String defaultValue)
+    {
+        final List<String> values = entries.get(key);
+        if (values == null) {
+            return defaultValue;
+        }
+        if (values.size() != 1) {
+            throw new IllegalArgumentException("Feature flag key " + key + " must have a single value: " + values);
+        }
+        return values.get(0);
+    }
+
+    /**
+     * Formats a map in the syntax read by the map converters, with collection values formatted as lists.
+     *
+     * @param map a map value
+     * @return the string form of the given map
+     */
+    public static String fromMap(Map<String, ?> map)
+    {
+        return MapSyntax.format(map);
+    }
+
     public static <T> Optional<T> toOptional(ConfigValueConverter<T> innerConverter, String input)
     {
         return Optional.ofNullable(innerConverter.apply(input));
@@ -253,6 +421,54 @@ public class ConfigValueConverters
                 {
                 };
                 bindConverter(setOfStringType, mapBinder, ConfigValueConverters::toStringSet);
+
+                bindConverter(new TypeLiteral<List<Integer>>()
+                {
+                }, mapBinder, ConfigValueConverters::toIntegerList);
+                bindConverter(new TypeLiteral<List<Long>>()
+                {
+                }, mapBinder, ConfigValueConverters::toLongList);
+                bindConverter(new TypeLiteral<Set<Long>>()
+                {
+                }, mapBinder, ConfigValueConverters::toLongSet);
+
+                bindConverter(new TypeLiteral<Map<String, String>>()
+                {
+                }, mapBinder, ConfigValueConverters::toStringMap);
+                bindConverter(new TypeLiteral<Map<String, Integer>>()
+                {
+                }, mapBinder, ConfigValueConverters::toIntegerMap);
+                bindConverter(new TypeLiteral<Map<String, Long>>()
+                {
+                }, mapBinder, ConfigValueConverters::toLongMap);
+                bindConverter(new TypeLiteral<Map<String, Double>>()
+                {
+                }, mapBinder, ConfigValueConverters::toDoubleMap);
+                bindConverter(new TypeLiteral<Map<String, List<String>>>()
+                {
+                }, mapBinder, ConfigValueConverters::toStringListMap);
+
+                bindConverter(CompactLongSet.class, mapBinder, ConfigValueConverters::toCompactLongSet);
+                bindConverter(CompactStringSet.class, mapBinder, new IncrementalConfigValueConverter<CompactStringSet>()
+                {
+                    @Override
+                    public CompactStringSet apply(String input)
+                    {
+                        return toCompactStringSet(input);
+                    }
+
+                    @Override
+                    public CompactStringSet applyIncrementally(String input, CompactStringSet previousValue)
+                    {
+                        return toCompactStringSet(input, previousValue);
+                    }
+                });
+
+                bindConverter(FeatureFlag.class, mapBinder, ConfigValueConverters::toFeatureFlag);
+
+                bindConverter(int[].class, mapBinder, ConfigValueConverters::toIntArray);
+                bindConverter(long[].class, mapBinder, ConfigValueConverters::toLongArray);
+                bindConverter(double[].class, mapBinder, ConfigValueConverters::toDoubleArray);
             }
 
             private <T> void bindConverter(
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.convert;
+
+import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.inject.AbstractModule;
+import com.google.inject.Inject;
+import com.google.inject.Module;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.google.inject.name.Names;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import lombok.Value;
+
+/**
+ * Cache of converted config values shared by all property accessors, keyed by {@link ConfigValueConverter} and raw
+ * string value. When the same raw value is used by several properties or scopes of the same type (eg: a large list
+ * used as the default in many scoped instances), it is only converted once, and the converted instance is shared.
+ * <br>
+ * The cache is enabled by installing {@link #module()}. Since converted values are shared, all converters in use must
+ * return immutable values. The standard converters in {@link ConfigValueConverters} do, except for those of array
+ * types; values of array config types are never cached, and each accessor has its own arrays. The cache is bounded to
+ * {@link #MAX_SIZE_NAME} entries (default {@value #MAX_SIZE_DEFAULT}), with least recently used entries evicted.
+ * Conversions which throw are not cached.
+ */
+@Singleton
+public class ConvertedValueCache
+{
+    private static final String CONFIG_PREFIX = "ConvertedValueCache.";
+
+    /**
+     * Name of optional binding for the maximum number of cached values.
+     */
+    public static final String MAX_SIZE_NAME = CONFIG_PREFIX + "max_size";
+
+    public static final long MAX_SIZE_DEFAULT = 10_000L;
+
+    private final Cache<CacheKey, Optional<Object>> cache;
+
+    @Inject
+    protected ConvertedValueCache(@Named(MAX_SIZE_NAME) Long maxSize)
+    {
+        this.cache = CacheBuilder.newBuilder()
+            .maximumSize(maxSize)
+            .recordStats()
+            .build();
+    }
+
+    /**
+     * Converts the given raw value, using a previously converted value if one is cached.
+     *
+     * @param <T>       the converted type
+     * @param converter the converter for the config type
+     * @param rawValue  the raw string value
+     * @return the converted value
+     */
+    public <T> T convert(ConfigValueConverter<T> converter, String rawValue)
+    {
+        return convert(converter, rawValue, converter);
+    }
+
+    /**
+     * Converts the given raw value, using a previously converted value if one is cached, or the given conversion
+     * otherwise.
+     *
+     * @param <T>        the converted type
+     * @param converter  the converter for the config type, which the cached value is keyed on
+     * @param rawValue   the raw string value
+     * @param conversion converts the raw value on a cache miss, giving the same result as {@code converter}
+     * @return the converted value
+     */
+    public <T> T convert(ConfigValueConverter<T> converter, String rawValue, Function<String, T> conversion)
+    {
+        if (Strings.isNullOrEmpty(rawValue)) {
+            // Not worth caching, and keeps unset values out of the cache
+            return conversion.apply(rawValue);
+        }
+        try {
+            return (T) cache.get(new CacheKey(converter, rawValue), () -> Optional.ofNullable(conversion.apply(rawValue))).orElse(null);
+        }
+        catch (ExecutionException | UncheckedExecutionException ex) {
+            // Rethrow the converter's own exception, as callers expect from a direct conversion
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new IllegalArgumentException(ex.getCause());
+        }
+    }
+
+    /**
+     * @return hit, miss and eviction statistics for the cache
+     */
+    public CacheStats getStats()
+    {
+        return cache.stats();
+    }
+
+    @Value
+    private static class CacheKey
+    {
+        private ConfigValueConverter<?> converter;
+        private String rawValue;
+    }
+
+    public static Module module()
+    {
+        return module(MAX_SIZE_DEFAULT);
+    }
+
+    public static Module module(final long maxSize)
+    {
+        return new AbstractModule()
+        {
+            @Override
+            protected void configure()
+            {
+                bind(Long.class).annotatedWith(Names.named(MAX_SIZE_NAME)).toInstance(maxSize);
+                bind(ConvertedValueCache.class);
+            }
+        };
+    }
+}
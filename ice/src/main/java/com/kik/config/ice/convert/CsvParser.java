@@ -0,0 +1,235 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.convert;
+
+import com.google.common.collect.ImmutableList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Single pass parser for the comma separated values used by the collection converters.
+ * <br>
+ * Fields are separated by commas. A field may be surrounded by double quotes (optionally padded with whitespace), in
+ * which case it may contain commas, and double quotes are escaped by doubling them. Unquoted fields are taken as-is,
+ * including any whitespace, as are quoted fields which are not terminated properly.
+ * <br>
+ * Numeric fields are parsed in place into primitive storage, ignoring surrounding whitespace.
+ */
+final class CsvParser
+{
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final String input;
+    private final int length;
+    private int pos = 0;
+    private boolean done = false;
+
+    // Bounds of the current field, excluding any surrounding quotes
+    private int fieldStart;
+    private int fieldEnd;
+    private boolean fieldHasEscapes;
+
+    private CsvParser(String input)
+    {
+        this.input = input;
+        this.length = input.length();
+    }
+
+    static List<String> parseStrings(String input)
+    {
+        if (input == null) {
+            return ImmutableList.of();
+        }
+        CsvParser parser = new CsvParser(input);
+        ImmutableList.Builder<String> result = ImmutableList.builder();
+        while (parser.nextField()) {
+            result.add(parser.stringField());
+        }
+        return result.build();
+    }
+
+    static int[] parseInts(String input)
+    {
+        CsvParser parser = new CsvParser(input);
+        int[] result = new int[INITIAL_CAPACITY];
+        int size = 0;
+        while (parser.nextField()) {
+            if (size == result.length) {
+                result = Arrays.copyOf(result, size * 2);
+            }
+            result[size++] = (int) parser.longField(Integer.MIN_VALUE, Integer.MAX_VALUE);
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    static long[] parseLongs(String input)
+    {
+        CsvParser parser = new CsvParser(input);
+        long[] result = new long[INITIAL_CAPACITY];
+        int size = 0;
+        while (parser.nextField()) {
+            if (size == result.length) {
+                result = Arrays.copyOf(result, size * 2);
+            }
+            result[size++] = parser.longField(Long.MIN_VALUE, Long.MAX_VALUE);
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    static double[] parseDoubles(String input)
+    {
+        CsvParser parser = new CsvParser(input);
+        double[] result = new double[INITIAL_CAPACITY];
+        int size = 0;
+        while (parser.nextField()) {
+            if (size == result.length) {
+                result = Arrays.copyOf(result, size * 2);
+            }
+            result[size++] = parser.doubleField();
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Advances to the next field.
+     *
+     * @return false once all fields have been read
+     */
+    private boolean nextField()
+    {
+        if (done) {
+            return false;
+        }
+        int idx = skipWhitespace(pos, length);
+        if (idx < length && input.charAt(idx) == '"' && scanQuotedField(idx)) {
+            return true;
+        }
+
+        int comma = input.indexOf(',', pos);
+        fieldStart = pos;
+        fieldEnd = comma < 0 ? length : comma;
+        fieldHasEscapes = false;
+        advancePast(fieldEnd);
+        return true;
+    }
+
+    private boolean scanQuotedField(int openQuote)
+    {
+        boolean hasEscapes = false;
+        int idx = openQuote + 1;
+        while (idx < length) {
+            if (input.charAt(idx) == '"') {
+                if (idx + 1 < length && input.charAt(idx + 1) == '"') {
+                    hasEscapes = true;
+                    idx += 2;
+                    continue;
+                }
+                break;
+            }
+            ++idx;
+        }
+        if (idx >= length) {
+            // unterminated quote
+            return false;
+        }
+
+        final int closeQuote = idx;
+        idx = skipWhitespace(closeQuote + 1, length);
+        if (idx < length && input.charAt(idx) != ',') {
+            // unexpected content after the closing quote
+            return false;
+        }
+
+        fieldStart = openQuote + 1;
+        fieldEnd = closeQuote;
+        fieldHasEscapes = hasEscapes;
+        advancePast(idx);
+        return true;
+    }
+
+    private void advancePast(int separatorIdx)
+    {
+        if (separatorIdx >= length) {
+            done = true;
+        }
+        else {
+            pos = separatorIdx + 1;
+        }
+    }
+
+    private String stringField()
+    {
+        String value = input.substring(fieldStart, fieldEnd);
+        return fieldHasEscapes ? value.replace("\"\"", "\"") : value;
+    }
+
+    private long longField(long min, long max)
+    {
+        int idx = skipWhitespace(fieldStart, fieldEnd);
+        int end = fieldEnd;
+        while (end > idx && Character.isWhitespace(input.charAt(end - 1))) {
+            --end;
+        }
+        if (idx >= end) {
+            throw invalidField();
+        }
+
+        // Accumulates negatively, as Long.parseLong does, so that the minimum value can be represented
+        boolean negative = false;
+        final char first = input.charAt(idx);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            if (++idx == end) {
+                throw invalidField();
+            }
+        }
+        final long limit = negative ? min : -max;
+        final long multLimit = limit / 10;
+        long result = 0;
+        for (; idx < end; ++idx) {
+            final int digit = input.charAt(idx) - '0';
+            if (digit < 0 || digit > 9 || result < multLimit) {
+                throw invalidField();
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw invalidField();
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    private double doubleField()
+    {
+        // Double.parseDouble ignores surrounding whitespace itself
+        return Double.parseDouble(input.substring(fieldStart, fieldEnd));
+    }
+
+    private int skipWhitespace(int from, int to)
+    {
+        int idx = from;
+        while (idx < to && Character.isWhitespace(input.charAt(idx))) {
+            ++idx;
+        }
+        return idx;
+    }
+
+    private NumberFormatException invalidField()
+    {
+        return new NumberFormatException("For input string: \"" + input.substring(fieldStart, fieldEnd) + "\"");
+    }
+}
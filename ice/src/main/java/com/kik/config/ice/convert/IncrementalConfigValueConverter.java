@@ -0,0 +1,35 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.convert;
+
+/**
+ * A {@link ConfigValueConverter} which can build a value from the previous value of the same property, when that is
+ * cheaper than converting the new string value from scratch.
+ *
+ * @param <T> type of the converted values
+ */
+public interface IncrementalConfigValueConverter<T> extends ConfigValueConverter<T>
+{
+    /**
+     * Converts a new string value, given the previous converted value from the same config source. The result must
+     * be equal to the result of {@link #apply(Object)} for the same input.
+     *
+     * @param input         the new string value
+     * @param previousValue the value previously converted for the same property and source, never null
+     * @return the converted value
+     */
+    T applyIncrementally(String input, T previousValue);
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.convert;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.kik.config.ice.collect.CompactStringMap;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Single pass parser and formatter for map values.
+ * <br>
+ * Entries are separated by commas, and keys are separated from values by the first equals sign. In maps with list
+ * values, list elements are separated by semicolons. A backslash escapes the next character, so keys and values may
+ * contain any of these characters. Keys and values are taken as-is, including any whitespace. For example:
+ * <pre>
+ * timeouts=PT5S,retries=3
+ * us-east=host1;host2,eu\,west=host3
+ * </pre>
+ */
+final class MapSyntax
+{
+    private static final char ENTRY_SEPARATOR = ',';
+    private static final char KEY_VALUE_SEPARATOR = '=';
+    private static final char LIST_SEPARATOR = ';';
+    private static final char ESCAPE = '\\';
+
+    private MapSyntax()
+    {
+    }
+
+    static <V> CompactStringMap<V> parse(String input, Function<String, V> valueConverter)
+    {
+        final Map<String, V> result = Maps.newHashMap();
+        scan(input, false, (key, value) -> putUnique(result, key, valueConverter.apply(value.get(0))));
+        return CompactStringMap.copyOf(result);
+    }
+
+    static CompactStringMap<List<String>> parseListValues(String input)
+    {
+        final Map<String, List<String>> result = Maps.newHashMap();
+        scan(input, true, (key, value) -> putUnique(result, key, value));
+        return CompactStringMap.copyOf(result);
+    }
+
+    private static <V> void putUnique(Map<String, V> map, String key, V value)
+    {
+        if (map.put(key, value) != null) {
+            throw new IllegalArgumentException("Duplicate key " + key);
+        }
+    }
+
+    private interface EntryConsumer
+    {
+        void accept(String key, List<String> valueParts);
+    }
+
+    private static void scan(String input, boolean splitValues, EntryConsumer consumer)
+    {
+        final int length = input.length();
+        final StringBuilder token = new StringBuilder();
+        String key = null;
+        ImmutableList.Builder<String> valueParts = ImmutableList.builder();
+
+        for (int idx = 0; idx <= length; ++idx) {
+            if (idx == length || input.charAt(idx) == ENTRY_SEPARATOR) {
+                if (key == null) {
+                    throw new IllegalArgumentException("Map entry without '" + KEY_VALUE_SEPARATOR + "' ending at index " + idx + " in: " + input);
+                }
+                consumer.accept(key, valueParts.add(token.toString()).build());
+                token.setLength(0);
+                key = null;
+                valueParts = ImmutableList.builder();
+                continue;
+            }
+
+            final char c = input.charAt(idx);
+            if (c == ESCAPE) {
+                if (++idx == length) {
+                    throw new IllegalArgumentException("Map value ends with an escape character: " + input);
+                }
+                token.append(input.charAt(idx));
+            }
+            else if (c == KEY_VALUE_SEPARATOR && key == null) {
+                key = token.toString();
+                token.setLength(0);
+            }
+            else if (c == LIST_SEPARATOR && splitValues && key != null) {
+                valueParts.add(token.toString());
+                token.setLength(0);
+            }
+            else {
+                token.append(c);
+            }
+        }
+    }
+
+    static String format(Map<String, ?> map)
+    {
+        final StringBuilder result = new StringBuilder();
+        for (Map.Entry<String, ?> entry : map.entrySet()) {
+            if (result.length() > 0) {
+                result.append(ENTRY_SEPARATOR);
+            }
+            appendEscaped(result, entry.getKey());
+            result.append(KEY_VALUE_SEPARATOR);
+            if (entry.getValue() instanceof Collection) {
+                boolean first = true;
+                for (Object element : (Collection<?>) entry.getValue()) {
+                    if (!first) {
+                        result.append(LIST_SEPARATOR);
+                    }
+                    appendEscaped(result, String.valueOf(element));
+                    first = false;
+                }
+            }
+            else {
+                appendEscaped(result, String.valueOf(entry.getValue()));
+            }
+        }
+        return result.toString();
+    }
+
+    private static void appendEscaped(StringBuilder result, String value)
+    {
+        for (int idx = 0; idx < value.length(); ++idx) {
+            final char c = value.charAt(idx);
+            if (c == ENTRY_SEPARATOR || c == KEY_VALUE_SEPARATOR || c == LIST_SEPARATOR || c == ESCAPE) {
+                result.append(ESCAPE);
+            }
+            result.append(c);
+        }
+    }
+}
@@ -16,6 +16,7 @@
 package com.kik.config.ice.interceptor;
 
 import java.lang.reflect.Method;
+import java.util.Collection;
 import java.util.Optional;
 
 /**
@@ -24,7 +25,41 @@ import java.util.Optional;
 public interface ConfigValueInterceptor
 {
     /**
-     * Detects if this filter should be applied to the value provided
+     * Whether an interceptor applies to the values of a config method, as far as can be told from the method alone.
+     */
+    enum Applicability
+    {
+        /**
+         * Never applies to the method, so is left out of its interceptor chain.
+         */
+        NEVER,
+        /**
+         * Applies to every value of the method, without {@link #shouldApply(Method, Optional)} being called.
+         */
+        ALWAYS,
+        /**
+         * Depends on the value, so {@link #shouldApply(Method, Optional)} is called for every value.
+         */
+        DEPENDS_ON_VALUE
+    }
+
+    /**
+     * Determines whether this interceptor applies to a config method, independently of its values. This is called
+     * once when the method's property accessor is built, to compile its interceptor chain. Interceptors should return
+     * {@link Applicability#NEVER} or {@link Applicability#ALWAYS} whenever they can, to keep themselves out of the
+     * per-value work for other methods.
+     *
+     * @param configMethod the method of the config interface
+     * @return the applicability of this interceptor to the method; {@link Applicability#DEPENDS_ON_VALUE} by default
+     */
+    default Applicability getApplicability(Method configMethod)
+    {
+        return Applicability.DEPENDS_ON_VALUE;
+    }
+
+    /**
+     * Detects if this filter should be applied to the value provided. Only called for methods where
+     * {@link #getApplicability(Method)} returns {@link Applicability#DEPENDS_ON_VALUE}.
      *
      * @param configMethod the method of the config interface
      * @param inputOpt     the input value to potentially be filtered and/or updated
@@ -41,6 +76,17 @@ public interface ConfigValueInterceptor
      */
     Optional<String> apply(Optional<String> inputOpt);
 
+    /**
+     * Called by config sources which change many values at once, such as on a file reload, with every changed value
+     * before any of them are emitted. Interceptors with costly per-value work can do it here in bulk, and have
+     * {@link #apply(Optional)} reuse the results. Does nothing by default.
+     *
+     * @param values the new values in the change set, before any interceptors are applied
+     */
+    default void prepare(Collection<String> values)
+    {
+    }
+
     /**
      * Determine if interceptors should be no longer applied if this interceptor was applied.
      *
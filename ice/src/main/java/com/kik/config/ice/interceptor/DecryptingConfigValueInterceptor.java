@@ -0,0 +1,248 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.interceptor;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.inject.AbstractModule;
+import com.google.inject.Inject;
+import com.google.inject.Module;
+import com.google.inject.Singleton;
+import com.google.inject.multibindings.MapBinder;
+import com.google.inject.name.Named;
+import com.google.inject.name.Names;
+import com.kik.config.ice.exception.ConfigException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toList;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Interceptor which decrypts config values of the form {@code ENC(keyId:data)}, where data is the base64 encoding of
+ * a 12 byte IV followed by the AES-GCM ciphertext and tag of the UTF-8 value. Keys are looked up by identifier from
+ * the bound {@link SecretKeyProvider}, and {@link #encrypt(SecretKey, String, String)} produces values in this form.
+ * <br>
+ * Decrypted values are cached, keyed by a SHA-256 hash of the encrypted value, up to {@link #CACHE_SIZE_NAME}
+ * entries (default {@value #CACHE_SIZE_DEFAULT}). A value re-emitted by a source, or shared by several properties, is
+ * only decrypted once. Config sources which reload many values at once hand the changed values to
+ * {@link #prepare(Collection)}, which decrypts them in one pass grouped by key. Decrypted values are created as new
+ * strings, never interned, and intermediate plaintext buffers are cleared.
+ */
+@Slf4j
+@Singleton
+public class DecryptingConfigValueInterceptor implements ConfigValueInterceptor
+{
+    private static final String CONFIG_PREFIX = "DecryptingConfigValueInterceptor.";
+
+    /**
+     * Name of optional binding for the maximum number of cached decrypted values.
+     */
+    public static final String CACHE_SIZE_NAME = CONFIG_PREFIX + "cache_size";
+    public static final long CACHE_SIZE_DEFAULT = 10_000L;
+
+    /**
+     * Decryption runs before interceptors installed at the default priority, so that they see decrypted values.
+     */
+    public static final int DEFAULT_INTERCEPTOR_PRIORITY = -100;
+
+    private static final String ENCRYPTED_PREFIX = "ENC(";
+    private static final String ENCRYPTED_SUFFIX = ")";
+    private static final char KEY_ID_SEPARATOR = ':';
+    private static final String CIPHER_TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH_BITS = 128;
+
+    private final SecretKeyProvider keyProvider;
+    private final Cache<HashCode, String> cache;
+
+    @Inject
+    protected DecryptingConfigValueInterceptor(SecretKeyProvider keyProvider, @Named(CACHE_SIZE_NAME) Long cacheSize)
+    {
+        this.keyProvider = checkNotNull(keyProvider);
+        this.cache = CacheBuilder.newBuilder()
+            .maximumSize(cacheSize)
+            .recordStats()
+            .build();
+    }
+
+    public static boolean isEncrypted(String value)
+    {
+        return value != null
+            && value.startsWith(ENCRYPTED_PREFIX)
+            && value.endsWith(ENCRYPTED_SUFFIX)
+            && value.indexOf(KEY_ID_SEPARATOR) > 0;
+    }
+
+    @Override
+    public boolean shouldApply(Method configMethod, Optional<String> inputOpt)
+    {
+        return inputOpt.isPresent() && isEncrypted(inputOpt.get());
+    }
+
+    @Override
+    public Optional<String> apply(Optional<String> inputOpt)
+    {
+        return inputOpt.map(this::decrypt);
+    }
+
+    @Override
+    public boolean stopChainOnApply()
+    {
+        return false;
+    }
+
+    @Override
+    public void prepare(Collection<String> values)
+    {
+        final Map<String, List<String>> uncachedByKeyId = values.stream()
+            .filter(DecryptingConfigValueInterceptor::isEncrypted)
+            .distinct()
+            .filter(value -> cache.getIfPresent(hash(value)) == null)
+            .collect(groupingBy(DecryptingConfigValueInterceptor::keyIdOf, toList()));
+
+        for (Map.Entry<String, List<String>> entry : uncachedByKeyId.entrySet()) {
+            try {
+                // One key lookup and cipher instance for every value encrypted with the same key
+                final SecretKey key = keyProvider.getKey(entry.getKey());
+                final Cipher cipher = Cipher.getInstance(CIPHER_TRANSFORMATION);
+                for (String value : entry.getValue()) {
+                    try {
+                        cache.put(hash(value), decrypt(cipher, key, value));
+                    }
+                    catch (GeneralSecurityException | RuntimeException ex) {
+                        // Left for apply to report against the property using it
+                        log.debug("Failed to decrypt value with key {} while preparing change set", entry.getKey(), ex);
+                    }
+                }
+            }
+            catch (GeneralSecurityException | RuntimeException ex) {
+                log.debug("Failed to prepare decryption with key {}", entry.getKey(), ex);
+            }
+        }
+        log.trace("Prepared decryption of {} values", uncachedByKeyId.values().stream().mapToInt(List::size).sum());
+    }
+
+    private String decrypt(String value)
+    {
+        try {
+            return cache.get(hash(value), () -> decrypt(Cipher.getInstance(CIPHER_TRANSFORMATION), keyProvider.getKey(keyIdOf(value)), value));
+        }
+        catch (ExecutionException | UncheckedExecutionException ex) {
+            throw new ConfigException("Failed to decrypt config value with key {}", keyIdOf(value), ex.getCause());
+        }
+    }
+
+    private static String decrypt(Cipher cipher, SecretKey key, String value) throws GeneralSecurityException
+    {
+        final byte[] data = Base64.getDecoder().decode(
+            value.substring(value.indexOf(KEY_ID_SEPARATOR) + 1, value.length() - ENCRYPTED_SUFFIX.length()));
+        if (data.length <= IV_LENGTH) {
+            throw new GeneralSecurityException("Encrypted value is too short");
+        }
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, data, 0, IV_LENGTH));
+        final byte[] plaintext = cipher.doFinal(data, IV_LENGTH, data.length - IV_LENGTH);
+        try {
+            return new String(plaintext, StandardCharsets.UTF_8);
+        }
+        finally {
+            Arrays.fill(plaintext, (byte) 0);
+        }
+    }
+
+    private static String keyIdOf(String value)
+    {
+        return value.substring(ENCRYPTED_PREFIX.length(), value.indexOf(KEY_ID_SEPARATOR));
+    }
+
+    private static HashCode hash(String value)
+    {
+        return Hashing.sha256().hashString(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Encrypts a value into the form decrypted by this interceptor.
+     *
+     * @param key       the AES key to encrypt with
+     * @param keyId     the identifier of the key in the {@link SecretKeyProvider}
+     * @param plaintext the value to encrypt
+     * @return the encrypted value, to be stored in config
+     */
+    public static String encrypt(SecretKey key, String keyId, String plaintext)
+    {
+        checkNotNull(key);
+        checkNotNull(keyId);
+        checkNotNull(plaintext);
+        try {
+            final byte[] iv = new byte[IV_LENGTH];
+            new SecureRandom().nextBytes(iv);
+            final Cipher cipher = Cipher.getInstance(CIPHER_TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, iv));
+            final byte[] ciphertext = cipher.doFinal(plaintext.getBytes(StandardCharsets.UTF_8));
+            final byte[] data = ByteBuffer.allocate(IV_LENGTH + ciphertext.length).put(iv).put(ciphertext).array();
+            return ENCRYPTED_PREFIX + keyId + KEY_ID_SEPARATOR + Base64.getEncoder().encodeToString(data) + ENCRYPTED_SUFFIX;
+        }
+        catch (GeneralSecurityException ex) {
+            throw new ConfigException("Failed to encrypt value with key {}", keyId, ex);
+        }
+    }
+
+    /**
+     * @return hit, miss and eviction statistics for the decrypted value cache
+     */
+    public CacheStats getCacheStats()
+    {
+        return cache.stats();
+    }
+
+    public static Module module()
+    {
+        return module(DEFAULT_INTERCEPTOR_PRIORITY, CACHE_SIZE_DEFAULT);
+    }
+
+    public static Module module(final int priority, final long cacheSize)
+    {
+        return new AbstractModule()
+        {
+            @Override
+            protected void configure()
+            {
+                bind(Long.class).annotatedWith(Names.named(CACHE_SIZE_NAME)).toInstance(cacheSize);
+                bind(DecryptingConfigValueInterceptor.class);
+                MapBinder<Integer, ConfigValueInterceptor> mapBinder = MapBinder.newMapBinder(binder(), Integer.class, ConfigValueInterceptor.class);
+                mapBinder.addBinding(priority).to(DecryptingConfigValueInterceptor.class);
+            }
+        };
+    }
+}
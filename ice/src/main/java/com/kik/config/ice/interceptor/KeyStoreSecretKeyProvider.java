@@ -0,0 +1,98 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.interceptor;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import com.google.inject.AbstractModule;
+import com.google.inject.Inject;
+import com.google.inject.Module;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.google.inject.name.Names;
+import com.kik.config.ice.exception.ConfigException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyStore;
+import javax.crypto.SecretKey;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link SecretKeyProvider} which reads secret keys from a local JCEKS keystore file, with key identifiers being the
+ * key aliases. Intended for development and tests; production deployments will usually bind a provider backed by
+ * their key management service instead.
+ */
+@Slf4j
+@Singleton
+public class KeyStoreSecretKeyProvider implements SecretKeyProvider
+{
+    private static final String CONFIG_PREFIX = "KeyStoreSecretKeyProvider.";
+    public static final String KEYSTORE_FILE_NAME = CONFIG_PREFIX + "keystore_file";
+    public static final String KEYSTORE_PASSWORD_NAME = CONFIG_PREFIX + "keystore_password";
+
+    public static final String KEYSTORE_TYPE = "JCEKS";
+
+    private final KeyStore keyStore;
+    private final char[] password;
+
+    @Inject
+    protected KeyStoreSecretKeyProvider(@Named(KEYSTORE_FILE_NAME) String keyStoreFile, @Named(KEYSTORE_PASSWORD_NAME) String password)
+    {
+        this.password = checkNotNull(password).toCharArray();
+        try (InputStream input = Files.newInputStream(Paths.get(checkNotNull(keyStoreFile)))) {
+            this.keyStore = KeyStore.getInstance(KEYSTORE_TYPE);
+            this.keyStore.load(input, this.password);
+        }
+        catch (IOException | GeneralSecurityException ex) {
+            throw new ConfigException("Failed to load keystore {}", keyStoreFile, ex);
+        }
+        log.debug("Loaded keystore {}", keyStoreFile);
+    }
+
+    @Override
+    public SecretKey getKey(String keyId)
+    {
+        final Key key;
+        try {
+            key = keyStore.getKey(keyId, password);
+        }
+        catch (GeneralSecurityException ex) {
+            throw new ConfigException("Failed to read key {} from keystore", keyId, ex);
+        }
+        if (!(key instanceof SecretKey)) {
+            throw new ConfigException("No secret key {} in keystore", keyId);
+        }
+        return (SecretKey) key;
+    }
+
+    public static Module module(final String keyStoreFile, final String password)
+    {
+        return new AbstractModule()
+        {
+            @Override
+            protected void configure()
+            {
+                bind(String.class).annotatedWith(Names.named(KEYSTORE_FILE_NAME)).toInstance(keyStoreFile);
+                bind(String.class).annotatedWith(Names.named(KEYSTORE_PASSWORD_NAME)).toInstance(password);
+                bind(SecretKeyProvider.class).to(KeyStoreSecretKeyProvider.class);
+                bind(KeyStoreSecretKeyProvider.class);
+            }
+        };
+    }
+}
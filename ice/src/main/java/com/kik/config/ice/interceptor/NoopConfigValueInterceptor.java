@@ -25,6 +25,12 @@ public class NoopConfigValueInterceptor implements ConfigValueInterceptor
 {
     public static final int DEFAULT_FILTER_PRIORITY = 0;
 
+    @Override
+    public Applicability getApplicability(Method configMethod)
+    {
+        return Applicability.NEVER;
+    }
+
     @Override
     public boolean shouldApply(Method configMethod, Optional<String> input)
     {
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.interceptor;
+
+import javax.crypto.SecretKey;
+
+/**
+ * Provides the keys used by {@link DecryptingConfigValueInterceptor} to decrypt config values.
+ */
+public interface SecretKeyProvider
+{
+    /**
+     * @param keyId identifier of the key, as given in the encrypted value
+     * @return the secret key with the given identifier
+     * @throws com.kik.config.ice.exception.ConfigException if the key is unknown or cannot be loaded
+     */
+    SecretKey getKey(String keyId);
+}
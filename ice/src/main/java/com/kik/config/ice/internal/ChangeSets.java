@@ -0,0 +1,92 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import com.google.common.collect.Sets;
+import java.util.Iterator;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tracks the change set being applied on the current thread, where a change set is every value emitted by one reload
+ * of a config source (eg: re-reading a config file). Work which should only happen once the whole change set has
+ * been applied, such as publishing a snapshot, is deferred until then. Intended for use by the config system only.
+ */
+@Slf4j
+public final class ChangeSets
+{
+    private static final ThreadLocal<Set<Runnable>> deferredActions = new ThreadLocal<>();
+
+    private ChangeSets()
+    {
+    }
+
+    /**
+     * Applies a change set. Actions deferred while it is applied run on this thread once it is complete, before this
+     * method returns. A change set applied while another is being applied on the same thread is part of the outer one.
+     *
+     * @param action applies the changes, by emitting them from a config source
+     */
+    public static void apply(Runnable action)
+    {
+        checkNotNull(action);
+        if (deferredActions.get() != null) {
+            action.run();
+            return;
+        }
+
+        // Insertion ordered, so that an action deferred again before it has run only runs once
+        final Set<Runnable> deferred = Sets.newLinkedHashSet();
+        deferredActions.set(deferred);
+        try {
+            action.run();
+            // Actions may defer further actions, which run after them
+            while (!deferred.isEmpty()) {
+                final Iterator<Runnable> iterator = deferred.iterator();
+                final Runnable next = iterator.next();
+                iterator.remove();
+                try {
+                    next.run();
+                }
+                catch (RuntimeException ex) {
+                    log.warn("Failed to run action deferred until the end of a change set", ex);
+                }
+            }
+        }
+        finally {
+            deferredActions.remove();
+        }
+    }
+
+    /**
+     * Runs an action once the change set being applied on this thread is complete, or immediately if no change set
+     * is being applied. An action deferred more than once before it runs only runs once.
+     *
+     * @param action the action to run
+     */
+    public static void runAfterChangeSet(Runnable action)
+    {
+        checkNotNull(action);
+        final Set<Runnable> deferred = deferredActions.get();
+        if (deferred == null) {
+            action.run();
+        }
+        else {
+            deferred.add(action);
+        }
+    }
+}
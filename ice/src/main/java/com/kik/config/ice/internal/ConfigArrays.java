@@ -0,0 +1,105 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.internal;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import net.bytebuddy.implementation.Implementation;
+import net.bytebuddy.implementation.MethodCall;
+import net.bytebuddy.implementation.bytecode.assign.Assigner;
+import rx.Observable;
+
+/**
+ * Copies array config values (eg: {@code int[]}) as they are handed to the application. Arrays are mutable, so each
+ * read gets its own copy, rather than the instance shared by every reader and kept by the property accessor. Intended
+ * for use by the config system only; public as generated config implementations call it.
+ */
+public final class ConfigArrays
+{
+    private static final Method COPY;
+    private static final Method JUST_COPY;
+
+    static {
+        try {
+            COPY = ConfigArrays.class.getMethod("copy", Object.class);
+            JUST_COPY = ConfigArrays.class.getMethod("justCopy", Object.class);
+        }
+        catch (NoSuchMethodException ex) {
+            throw new ExceptionInInitializerError(ex);
+        }
+    }
+
+    private ConfigArrays()
+    {
+    }
+
+    /**
+     * @param <T>   the type of the value
+     * @param value a config value
+     * @return a shallow copy of the value if it is an array, otherwise the value itself
+     */
+    public static <T> T copy(T value)
+    {
+        if (value == null || !value.getClass().isArray()) {
+            return value;
+        }
+        final int length = Array.getLength(value);
+        final Object copy = Array.newInstance(value.getClass().getComponentType(), length);
+        System.arraycopy(value, 0, copy, 0, length);
+        return (T) copy;
+    }
+
+    /**
+     * @param value a config value
+     * @return an Observable of just a copy of the value
+     */
+    public static Observable<Object> justCopy(Object value)
+    {
+        return Observable.just(copy(value));
+    }
+
+    /**
+     * Implements a config method as returning a copy of a field of the generated class.
+     */
+    static Implementation copyOfField(String fieldName)
+    {
+        return MethodCall.invoke(COPY).withField(fieldName).withAssigner(Assigner.DEFAULT, Assigner.Typing.DYNAMIC);
+    }
+
+    /**
+     * Implements an Observable method as an Observable of just a copy of a field of the generated class.
+     */
+    static Implementation justCopyOfField(String fieldName)
+    {
+        return MethodCall.invoke(JUST_COPY).withField(fieldName).withAssigner(Assigner.DEFAULT, Assigner.Typing.DYNAMIC);
+    }
+
+    /**
+     * Implements a config method as returning a copy of a fixed value.
+     */
+    static Implementation copyOfValue(Object value)
+    {
+        return MethodCall.invoke(COPY).with(value).withAssigner(Assigner.DEFAULT, Assigner.Typing.DYNAMIC);
+    }
+
+    /**
+     * Implements an Observable method as an Observable of just a copy of a fixed value.
+     */
+    static Implementation justCopyOfValue(Object value)
+    {
+        return MethodCall.invoke(JUST_COPY).with(value).withAssigner(Assigner.DEFAULT, Assigner.Typing.DYNAMIC);
+    }
+}
@@ -16,37 +16,54 @@
 package com.kik.config.ice.internal;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.inject.AbstractModule;
+import com.google.inject.Binding;
+import com.google.inject.Injector;
 import com.google.inject.Key;
 import com.google.inject.Module;
 import com.google.inject.Provider;
+import com.google.inject.Scopes;
 import com.google.inject.TypeLiteral;
 import com.google.inject.multibindings.Multibinder;
 import com.google.inject.name.Named;
 import com.google.inject.name.Names;
 import com.google.inject.util.Types;
+import com.kik.config.ice.ConfigEpochs;
 import com.kik.config.ice.ConfigSystem;
+import com.kik.config.ice.FoldedConfigReads;
+import com.kik.config.ice.annotations.Constant;
 import com.kik.config.ice.annotations.DefaultValue;
 import com.kik.config.ice.annotations.NoDefaultValue;
 import com.kik.config.ice.convert.ConfigValueConverter;
 import com.kik.config.ice.exception.ConfigException;
 import com.kik.config.ice.internal.annotations.PropertyIdentifier;
 import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ThreadLocalRandom;
+import static java.util.stream.Collectors.toList;
 import lombok.extern.slf4j.Slf4j;
 import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.modifier.Ownership;
 import net.bytebuddy.description.modifier.Visibility;
 import net.bytebuddy.dynamic.DynamicType;
-import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+import net.bytebuddy.implementation.FixedValue;
+import net.bytebuddy.implementation.Implementation;
 import net.bytebuddy.implementation.InvocationHandlerAdapter;
 import net.bytebuddy.matcher.ElementMatchers;
+import rx.Observable;
 
 /**
  * Static builder class for configuration interfaces. {@link #configModule(java.lang.Class, java.util.Optional)}
@@ -70,8 +87,12 @@ import net.bytebuddy.matcher.ElementMatchers;
  * <li>A {@link ConstantValuePropertyAccessor} which provides the default value</li>
  * <li>A {@link PropertyAccessor} used by the dynamic implementation class</li>
  * <li>The dynamic implementation class is bound to the given configuration interface</li>
+ * <li>A {@link SnapshotPublisher} of immutable snapshots of the configuration interface</li>
  * </ul>
  * <br>
+ * Methods marked {@link Constant} only get a {@link ConstantValuePropertyAccessor}. Their value is resolved when the
+ * configuration interface is first injected, and the implementation class returns it as a fixed value.
+ * <br>
  * Overrides can be accomplished via the {@link OverrideModule}, which has a Mockito-style API.
  */
 @Slf4j
@@ -104,6 +125,8 @@ public class ConfigBuilder
                 DynamicType.Builder<C> typeBuilder = new ByteBuddy().subclass(configInterface);
 
                 Multibinder<ConfigDescriptor> multiBinder = Multibinder.newSetBinder(binder(), ConfigDescriptor.class);
+                Multibinder<ConfigDescriptor> constantMultiBinder = Multibinder.newSetBinder(binder(), ConfigDescriptor.class,
+                    Names.named(ConfigDescriptorHolder.CONSTANT_DESCRIPTORS_NAME));
 
                 // Define a field to keep a local reference to the list of propertyAccessorProviders on the dynamic
                 // instance so the provideres dont get GCed. The providers are supplied to the InvocationHandlerImpl
@@ -112,12 +135,37 @@ public class ConfigBuilder
                 final String propertyAccessorProvidersFieldName = "propertyAccessorProviders$" + ThreadLocalRandom.current().nextLong(Long.MAX_VALUE);
                 typeBuilder = typeBuilder.defineField(propertyAccessorProvidersFieldName, Collection.class, Visibility.PRIVATE);
                 ImmutableList.Builder<Provider<PropertyAccessor<?>>> propertyAccessorProvidersBuilder = ImmutableList.builder();
+                ImmutableList.Builder<ConfigDescriptor> valueDescsBuilder = ImmutableList.builder();
+                ImmutableList.Builder<ConfigDescriptor> observableDescsBuilder = ImmutableList.builder();
+                ImmutableList.Builder<Provider<PropertyAccessor<?>>> valueAccessorProvidersBuilder = ImmutableList.builder();
+                ImmutableList.Builder<ConfigDescriptor> constantDescsBuilder = ImmutableList.builder();
+                ImmutableList.Builder<ConfigDescriptor> constantObservableDescsBuilder = ImmutableList.builder();
+                ImmutableList.Builder<Provider<ConstantValuePropertyAccessor>> constantValueProvidersBuilder = ImmutableList.builder();
+                ImmutableList.Builder<Provider<ConfigValueConverter<?>>> constantConverterProvidersBuilder = ImmutableList.builder();
 
                 for (ConfigDescriptor desc : configDescList) {
                     // Bind the propertyIdentifier
                     final PropertyIdentifier propertyId = ConfigSystem.getIdentifier(desc);
                     bind(PropertyIdentifier.class).annotatedWith(propertyId).toInstance(propertyId);
 
+                    if (StaticConfigHelper.isConstant(desc.getMethod())) {
+                        // Constants have no accessor and are not known to config sources; only the static value,
+                        // which overrides may replace, is bound
+                        if (desc.isObservable()) {
+                            constantObservableDescsBuilder.add(desc);
+                        }
+                        else {
+                            bind(ConstantValuePropertyAccessor.class).annotatedWith(propertyId).toInstance(ConstantValuePropertyAccessor.fromStringOpt(desc.getDefaultValue()));
+                            constantDescsBuilder.add(desc);
+                            constantMultiBinder.addBinding().toInstance(desc);
+                            constantValueProvidersBuilder.add(getProvider(Key.get(ConstantValuePropertyAccessor.class, propertyId)));
+                            TypeLiteral<ConfigValueConverter<?>> converterType =
+                                (TypeLiteral<ConfigValueConverter<?>>) TypeLiteral.get(Types.newParameterizedType(ConfigValueConverter.class, desc.getConfigType()));
+                            constantConverterProvidersBuilder.add(getProvider(Key.get(converterType)));
+                        }
+                        continue;
+                    }
+
                     Provider<PropertyAccessor<?>> accessorProvider;
                     if (desc.isObservable()) {
                         // find associated method descriptor for observable
@@ -126,6 +174,7 @@ public class ConfigBuilder
 
                         // Get accessorProvider of the associated method for use in the configuration method implementation
                         accessorProvider = getAccessorProvider(otherDesc, otherPropertyId);
+                        observableDescsBuilder.add(desc);
                     }
                     else {
                         // Bind the named ConfigDescriptor
@@ -142,6 +191,8 @@ public class ConfigBuilder
 
                         // Get accessorProvider for use in the configuration method implementation
                         accessorProvider = getAccessorProvider(desc, propertyId);
+                        valueDescsBuilder.add(desc);
+                        valueAccessorProvidersBuilder.add(accessorProvider);
                     }
                     propertyAccessorProvidersBuilder.add(accessorProvider);
 
@@ -151,32 +202,59 @@ public class ConfigBuilder
                     typeBuilder = typeBuilder.method(ElementMatchers.is(desc.getMethod())).intercept(InvocationHandlerAdapter.of(new InvocationHandlerImpl(desc, new WeakReference<>(accessorProvider))));
                 }
 
-                Class<? extends C> configImpl = typeBuilder.make()
-                    .load(configInterface.getClassLoader(), ClassLoadingStrategy.Default.INJECTION)
-                    .getLoaded();
+                final List<ConfigDescriptor> valueDescs = valueDescsBuilder.build();
+                final List<ConfigDescriptor> observableDescs = observableDescsBuilder.build();
+                final List<ConfigDescriptor> constantDescs = constantDescsBuilder.build();
+                final List<ConfigDescriptor> constantObservableDescs = constantObservableDescsBuilder.build();
+                final List<Provider<ConstantValuePropertyAccessor>> constantValueProviders = constantValueProvidersBuilder.build();
+                final List<Provider<ConfigValueConverter<?>>> constantConverterProviders = constantConverterProvidersBuilder.build();
+                final Collection<Provider<PropertyAccessor<?>>> propertyAccessorProviders = propertyAccessorProvidersBuilder.build();
+                final Key<C> configKey = nameOpt.isPresent() ? Key.get(configInterface, nameOpt.get()) : Key.get(configInterface);
 
-                // Bind Config Interface to an instance of the newly created impl class
-                try {
-                    C instance = (C) configImpl.newInstance();
+                // Bind the publisher of immutable snapshots, generating the snapshot class alongside the implementation
+                final List<Provider<PropertyAccessor<?>>> valueAccessorProviders = valueAccessorProvidersBuilder.build();
+                final Key<SnapshotPublisher<C>> snapshotKey = snapshotPublisherKey(configInterface, nameOpt);
 
-                    // To prevent the property accessor providers from getting GCed - see comments above:
-                    Field propertyAccessorProvidersField = instance.getClass().getDeclaredField(propertyAccessorProvidersFieldName);
-                    if (!propertyAccessorProvidersField.isAccessible()) {
-                        propertyAccessorProvidersField.setAccessible(true);
-                    }
-                    propertyAccessorProvidersField.set(instance, propertyAccessorProvidersBuilder.build());
+                final Supplier<Map<Method, Object>> constants = Suppliers.memoize(() -> resolveConstants(constantDescs, constantValueProviders, constantConverterProviders));
+                if (constantDescs.isEmpty()) {
+                    final Constructor<? extends C> snapshotConstructor = SnapshotClassFactory.snapshotConstructor(
+                        configInterface, valueDescs, observableDescs, ImmutableMap.of());
+                    bind(snapshotKey).toProvider((Provider<SnapshotPublisher<C>>) () -> new SnapshotPublisher<>(configInterface, snapshotConstructor,
+                        valueAccessorProviders.stream().map(Provider::get).collect(toList()))).in(LazySingletonScope.INSTANCE);
+                }
+                else {
+                    // Constant values can only be resolved by the injector, so the snapshot class is generated on first use
+                    bind(snapshotKey).toProvider((Provider<SnapshotPublisher<C>>) () -> new SnapshotPublisher<>(configInterface,
+                        SnapshotClassFactory.snapshotConstructor(configInterface, valueDescs,
+                            ImmutableList.<ConfigDescriptor>builder().addAll(observableDescs).addAll(constantObservableDescs).build(), constants.get()),
+                        valueAccessorProviders.stream().map(Provider::get).collect(toList()))).in(LazySingletonScope.INSTANCE);
+                }
 
-                    if (nameOpt.isPresent()) {
-                        bind(configInterface).annotatedWith(nameOpt.get()).toInstance(instance);
+                // The implementation depends on constant values and on whether folded reads are installed, so the
+                // Config Interface is bound to an instance of an impl class generated on first injection
+                final DynamicType.Builder<C> dynamicTypeBuilder = typeBuilder;
+                final Provider<Injector> injectorProvider = getProvider(Injector.class);
+                final List<Method> derivedMethods = Arrays.stream(configInterface.getMethods())
+                    .filter(StaticConfigHelper::isDerived)
+                    .collect(toList());
+                bind(configKey).toProvider((Provider<C>) () -> {
+                    DynamicType.Builder<C> implTypeBuilder = withConstants(dynamicTypeBuilder, configDescList, constantObservableDescs, constants.get());
+                    Optional<Map<String, WeakReference<Provider<PropertyAccessor<?>>>>> foldedReadProviders = Optional.empty();
+                    if (injectorProvider.get().getExistingBinding(Key.get(FoldedConfigReads.class)) != null) {
+                        implTypeBuilder = withFoldedReads(implTypeBuilder, valueDescs);
+                        foldedReadProviders = Optional.of(foldedReadProviders(valueDescs, valueAccessorProviders));
                     }
-                    else {
-                        bind(configInterface).toInstance(instance);
+                    final Binding<ConfigEpochs> epochsBinding = injectorProvider.get().getExistingBinding(Key.get(ConfigEpochs.class));
+                    final List<DerivedValue> derivedValues = derivedValues(derivedMethods, valueDescs, valueAccessorProviders,
+                        Optional.ofNullable(epochsBinding).map(binding -> binding.getProvider().get()));
+                    implTypeBuilder = withDerivedValues(implTypeBuilder, derivedValues);
+                    final C instance = newInstance(configInterface, implTypeBuilder, propertyAccessorProvidersFieldName, propertyAccessorProviders, foldedReadProviders);
+                    if (!derivedValues.isEmpty()) {
+                        final C reader = DerivedValue.newReader(configInterface, instance);
+                        derivedValues.forEach(derivedValue -> derivedValue.setReader(reader));
                     }
-                }
-                catch (InstantiationException | IllegalAccessException | NoSuchFieldException | SecurityException ex) {
-                    throw new ConfigException("Failed to instantiate implementation of Config {}",
-                        configInterface.getName(), ex);
-                }
+                    return instance;
+                }).in(Scopes.SINGLETON);
             }
 
             private Provider<PropertyAccessor<?>> getAccessorProvider(ConfigDescriptor desc, PropertyIdentifier propertyId)
@@ -189,6 +267,181 @@ public class ConfigBuilder
         };
     }
 
+    private static <C> C newInstance(Class<C> configInterface, DynamicType.Builder<C> typeBuilder, String propertyAccessorProvidersFieldName,
+        Collection<Provider<PropertyAccessor<?>>> propertyAccessorProviders,
+        Optional<Map<String, WeakReference<Provider<PropertyAccessor<?>>>>> foldedReadProviders)
+    {
+        Class<? extends C> configImpl = typeBuilder.make()
+            .load(configInterface.getClassLoader(), GeneratedClassLoading.strategyFor(configInterface))
+            .getLoaded();
+        try {
+            if (foldedReadProviders.isPresent()) {
+                // Read by FoldedReadLinker when each method is first called, so must be set before any instance exists
+                Field foldedReadProvidersField = configImpl.getDeclaredField(FoldedReadLinker.PROVIDERS_FIELD_NAME);
+                foldedReadProvidersField.setAccessible(true);
+                foldedReadProvidersField.set(null, foldedReadProviders.get());
+            }
+
+            C instance = (C) configImpl.newInstance();
+
+            // To prevent the property accessor providers from getting GCed - see comments in configModule:
+            Field propertyAccessorProvidersField = instance.getClass().getDeclaredField(propertyAccessorProvidersFieldName);
+            if (!propertyAccessorProvidersField.isAccessible()) {
+                propertyAccessorProvidersField.setAccessible(true);
+            }
+            propertyAccessorProvidersField.set(instance, propertyAccessorProviders);
+            return instance;
+        }
+        catch (InstantiationException | IllegalAccessException | NoSuchFieldException | SecurityException ex) {
+            throw new ConfigException("Failed to instantiate implementation of Config {}",
+                configInterface.getName(), ex);
+        }
+    }
+
+    private static Map<Method, Object> resolveConstants(
+        List<ConfigDescriptor> constantDescs,
+        List<Provider<ConstantValuePropertyAccessor>> valueProviders,
+        List<Provider<ConfigValueConverter<?>>> converterProviders)
+    {
+        Map<Method, Object> constants = new LinkedHashMap<>();
+        for (int idx = 0; idx < constantDescs.size(); ++idx) {
+            final ConfigDescriptor desc = constantDescs.get(idx);
+            constants.put(desc.getMethod(), resolveConstant(desc, valueProviders.get(idx).get(), converterProviders.get(idx).get()));
+        }
+        return constants;
+    }
+
+    /**
+     * Resolves the value of a {@link Constant} config method as its implementation does, for validation. Intended for
+     * use by {@link ConfigSystem} only.
+     *
+     * @param injector the injector the config interface is installed in
+     * @param desc     the descriptor of the constant config method
+     * @return the constant value
+     * @throws ConfigException if the value could not be converted
+     */
+    public static Object resolveConstant(Injector injector, ConfigDescriptor desc)
+    {
+        checkNotNull(injector);
+        checkNotNull(desc);
+        TypeLiteral<ConfigValueConverter<?>> converterType =
+            (TypeLiteral<ConfigValueConverter<?>>) TypeLiteral.get(Types.newParameterizedType(ConfigValueConverter.class, desc.getConfigType()));
+        return resolveConstant(desc,
+            injector.getInstance(Key.get(ConstantValuePropertyAccessor.class, ConfigSystem.getIdentifier(desc))),
+            injector.getInstance(Key.get(converterType)));
+    }
+
+    private static Object resolveConstant(ConfigDescriptor desc, ConstantValuePropertyAccessor valueAccessor, ConfigValueConverter<?> converter)
+    {
+        // Resolved the same way as a PropertyAccessor resolves its default value
+        final Optional<Object> rawValue = valueAccessor.getRawValue();
+        try {
+            final Object value = converter.apply(rawValue.isPresent() ? rawValue.get().toString() : valueAccessor.getValue().orElse(null));
+            log.debug("Resolved constant {} to {}", desc.getConfigName(), value);
+            return value;
+        }
+        catch (Exception ex) {
+            throw new ConfigException("Failed to convert constant value for {}", desc.getConfigName(), ex);
+        }
+    }
+
+    private static <C> DynamicType.Builder<C> withConstants(
+        DynamicType.Builder<C> typeBuilder,
+        List<ConfigDescriptor> configDescList,
+        List<ConfigDescriptor> constantObservableDescs,
+        Map<Method, Object> constants)
+    {
+        DynamicType.Builder<C> constantTypeBuilder = typeBuilder;
+        for (Map.Entry<Method, Object> entry : constants.entrySet()) {
+            constantTypeBuilder = constantTypeBuilder.method(ElementMatchers.is(entry.getKey())).intercept(fixedValue(entry.getValue()));
+        }
+        for (ConfigDescriptor desc : constantObservableDescs) {
+            final Object value = constants.get(findAssociatedDescForObservable(configDescList, desc).getMethod());
+            constantTypeBuilder = constantTypeBuilder.method(ElementMatchers.is(desc.getMethod()))
+                .intercept(isArray(value) ? ConfigArrays.justCopyOfValue(value) : fixedValue(Observable.just(value)));
+        }
+        return constantTypeBuilder;
+    }
+
+    private static <C> DynamicType.Builder<C> withFoldedReads(DynamicType.Builder<C> typeBuilder, List<ConfigDescriptor> valueDescs)
+    {
+        DynamicType.Builder<C> foldedTypeBuilder = typeBuilder.defineField(FoldedReadLinker.PROVIDERS_FIELD_NAME, Map.class, Visibility.PRIVATE, Ownership.STATIC);
+        for (ConfigDescriptor desc : valueDescs) {
+            foldedTypeBuilder = foldedTypeBuilder.method(ElementMatchers.is(desc.getMethod())).intercept(FoldedReadLinker.implementation(desc.getMethod()));
+        }
+        return foldedTypeBuilder;
+    }
+
+    private static Map<String, WeakReference<Provider<PropertyAccessor<?>>>> foldedReadProviders(
+        List<ConfigDescriptor> valueDescs,
+        List<Provider<PropertyAccessor<?>>> valueAccessorProviders)
+    {
+        // Weakly referenced for the same reason as in InvocationHandlerImpl; the instance holds the providers strongly
+        ImmutableMap.Builder<String, WeakReference<Provider<PropertyAccessor<?>>>> builder = ImmutableMap.builder();
+        for (int idx = 0; idx < valueDescs.size(); ++idx) {
+            builder.put(valueDescs.get(idx).getMethod().getName(), new WeakReference<>(valueAccessorProviders.get(idx)));
+        }
+        return builder.build();
+    }
+
+    private static List<DerivedValue> derivedValues(
+        List<Method> derivedMethods,
+        List<ConfigDescriptor> valueDescs,
+        List<Provider<PropertyAccessor<?>>> valueAccessorProviders,
+        Optional<ConfigEpochs> epochs)
+    {
+        if (derivedMethods.isEmpty()) {
+            return ImmutableList.of();
+        }
+        // Weakly referenced for the same reason as in InvocationHandlerImpl; the instance holds the providers strongly
+        ImmutableMap.Builder<Method, WeakReference<Provider<PropertyAccessor<?>>>> providersBuilder = ImmutableMap.builder();
+        for (int idx = 0; idx < valueDescs.size(); ++idx) {
+            providersBuilder.put(valueDescs.get(idx).getMethod(), new WeakReference<>(valueAccessorProviders.get(idx)));
+        }
+        final Map<Method, WeakReference<Provider<PropertyAccessor<?>>>> accessorProviders = providersBuilder.build();
+        return derivedMethods.stream()
+            .map(method -> new DerivedValue(method, accessorProviders, epochs))
+            .collect(toList());
+    }
+
+    private static <C> DynamicType.Builder<C> withDerivedValues(DynamicType.Builder<C> typeBuilder, List<DerivedValue> derivedValues)
+    {
+        DynamicType.Builder<C> derivedTypeBuilder = typeBuilder;
+        for (DerivedValue derivedValue : derivedValues) {
+            derivedTypeBuilder = derivedTypeBuilder.method(ElementMatchers.is(derivedValue.getMethod())).intercept(InvocationHandlerAdapter.of(derivedValue));
+        }
+        return derivedTypeBuilder;
+    }
+
+    private static Implementation fixedValue(Object value)
+    {
+        if (isArray(value)) {
+            return ConfigArrays.copyOfValue(value);
+        }
+        // Primitives and Strings are loaded from the constant pool; other values from a static field
+        return value == null ? FixedValue.nullValue() : FixedValue.value(value);
+    }
+
+    private static boolean isArray(Object value)
+    {
+        return value != null && value.getClass().isArray();
+    }
+
+    /**
+     * Intended for use by {@link ConfigSystem} only.
+     *
+     * @param <C>             the config interface class
+     * @param configInterface a reference to the config interface class
+     * @param nameOpt         the optional {@link Named} scope the config module was created with
+     * @return the Guice key of the {@link SnapshotPublisher} for the config interface
+     */
+    public static <C> Key<SnapshotPublisher<C>> snapshotPublisherKey(final Class<C> configInterface, final Optional<Named> nameOpt)
+    {
+        TypeLiteral<SnapshotPublisher<C>> publisherType =
+            (TypeLiteral<SnapshotPublisher<C>>) TypeLiteral.get(Types.newParameterizedType(SnapshotPublisher.class, configInterface));
+        return nameOpt.isPresent() ? Key.get(publisherType, nameOpt.get()) : Key.get(publisherType);
+    }
+
     private static class InvocationHandlerImpl implements InvocationHandler
     {
         private final ConfigDescriptor desc;
@@ -209,13 +462,15 @@ public class ConfigBuilder
         {
             log.debug("InvocationHandler invoking for method {} proxy {}, argCount {}", method1.getName(), proxy.toString(), args.length);
             Object value;
+            PropertyAccessor<?> accessor = accessorProviderRef.get().get();
+            accessor.recordRead();
 
             if (desc.isObservable()) {
-                value = accessorProviderRef.get().get().getObservable();
+                value = accessor.getObservable();
                 log.debug("Invoked method {} returning Observable", method1.getName());
             }
             else {
-                value = accessorProviderRef.get().get().get();
+                value = accessor.get();
                 log.debug("Invoked method {} returning value {}", method1.getName(), value == null ? "null" : value.toString());
             }
             return value;
@@ -20,6 +20,15 @@ import java.util.Optional;
 import lombok.Data;
 import lombok.NonNull;
 
+/**
+ * A change to a config value, as provided by a config source.
+ * <br>
+ * Sources which know which version of a value they are reporting (eg: a ZooKeeper node version, or a file modification
+ * time) include it as the source version, along with the time the value was changed in the source. This allows the
+ * time taken for a change to propagate to the application to be measured.
+ *
+ * @param <T> the type of the value
+ */
 @Data
 public class ConfigChangeEvent<T>
 {
@@ -27,12 +36,39 @@ public class ConfigChangeEvent<T>
     private final String name;
     @NonNull
     private final Optional<T> valueOpt;
+    /**
+     * Time the event was received by the config source, in epoch milliseconds.
+     */
     private final long timestamp;
+    /**
+     * Source-specific version of the value, if the source provides one.
+     */
+    @NonNull
+    private final Optional<String> sourceVersion;
+    /**
+     * Time the value was changed in the source, in epoch milliseconds, or 0 if unknown.
+     */
+    private final long sourceTimestamp;
 
     public ConfigChangeEvent(String name, Optional<T> valueOpt)
+    {
+        this(name, valueOpt, Optional.empty(), 0L);
+    }
+
+    public ConfigChangeEvent(String name, Optional<T> valueOpt, Optional<String> sourceVersion, long sourceTimestamp)
     {
         this.name = checkNotNull(name);
         this.valueOpt = checkNotNull(valueOpt);
         this.timestamp = System.currentTimeMillis();
+        this.sourceVersion = checkNotNull(sourceVersion);
+        this.sourceTimestamp = sourceTimestamp;
+    }
+
+    /**
+     * @return true if the source provided the time the value was changed
+     */
+    public boolean hasSourceTimestamp()
+    {
+        return sourceTimestamp > 0L;
     }
 }
@@ -28,6 +28,7 @@ import com.kik.config.ice.annotations.DefaultValue;
 import com.kik.config.ice.exception.ConfigException;
 import com.kik.config.ice.internal.annotations.None;
 import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.List;
 import java.util.Optional;
@@ -100,6 +101,23 @@ public class ConfigDescriptorFactory
         return descriptors;
     }
 
+    /**
+     * Build a {@link ConfigDescriptor} for another scope of an already validated descriptor, without repeating the
+     * reflection and validation done by {@link #buildDescriptors(Class, Optional)}.
+     *
+     * @param desc  an unscoped descriptor built by this factory
+     * @param scope the scope of the new descriptor
+     * @return a {@link ConfigDescriptor} for the same method and default value in the given scope
+     */
+    public ConfigDescriptor withScope(ConfigDescriptor desc, String scope)
+    {
+        checkNotNull(desc);
+        checkNotNull(scope);
+        final Optional<String> scopeOpt = Optional.of(scope);
+        return new ConfigDescriptor(desc.getMethod(), namingStrategy.methodToFlatName(desc.getMethod(), scopeOpt),
+            desc.getConfigType(), desc.isObservable(), scopeOpt, desc.getDefaultValue());
+    }
+
     /**
      * Build a {@link ConfigDescriptor} for a specific Method, and given optional scope.
      *
@@ -157,9 +175,17 @@ public class ConfigDescriptorFactory
         // Only using the base return type to determine isObservable. Validation is ensuring the other requirements.
         boolean isObservable = Observable.class.isAssignableFrom(method.getReturnType());
 
-        Type configType = innerClass == null
-            ? ensureBoxedType(method.getReturnType())
-            : Types.newParameterizedType(ensureBoxedType(method.getReturnType()), innerClass);
+        Type configType;
+        if (innerClass != null) {
+            configType = Types.newParameterizedType(ensureBoxedType(method.getReturnType()), innerClass);
+        }
+        else if (!isObservable && method.getGenericReturnType() instanceof ParameterizedType) {
+            // Fully specified generic types such as Map<String, Integer>, which can't be described by innerType
+            configType = method.getGenericReturnType();
+        }
+        else {
+            configType = ensureBoxedType(method.getReturnType());
+        }
 
         return new ConfigDescriptor(method, configName, configType, isObservable, scopeOpt, defaultValue);
     }
@@ -17,6 +17,7 @@ package com.kik.config.ice.internal;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import com.google.inject.name.Named;
 import java.util.Set;
 
 /**
@@ -38,6 +39,21 @@ import java.util.Set;
 @Singleton
 public class ConfigDescriptorHolder
 {
+    /**
+     * Name of the set of unscoped descriptors of config interfaces installed for runtime scopes.
+     */
+    public static final String RUNTIME_SCOPED_DESCRIPTORS_NAME = "ConfigDescriptorHolder.runtime_scoped_descriptors";
+
+    /**
+     * Name of the set of descriptors of {@link com.kik.config.ice.annotations.Constant} config methods, which have no
+     * property accessor and are therefore not in the set of all descriptors.
+     */
+    public static final String CONSTANT_DESCRIPTORS_NAME = "ConfigDescriptorHolder.constant_descriptors";
+
     @Inject(optional = true)
     public Set<ConfigDescriptor> configDescriptors;
+
+    @Inject(optional = true)
+    @Named(RUNTIME_SCOPED_DESCRIPTORS_NAME)
+    public Set<ConfigDescriptor> runtimeScopedDescriptors;
 }
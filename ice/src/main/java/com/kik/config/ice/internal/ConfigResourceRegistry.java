@@ -0,0 +1,113 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.internal;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.util.List;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tracks the resources of one injector's config system, so that {@link com.kik.config.ice.ConfigSystem#close()} can
+ * release them: property accessors, runtime scoped config factories and config sources. Intended for use by the
+ * config system only.
+ * <br>
+ * Resources are closed in the reverse order they were registered, so that accessors are closed before the sources
+ * they subscribe to.
+ */
+@Slf4j
+@Singleton
+public class ConfigResourceRegistry
+{
+    // Guarded by itself; insertion ordered
+    private final Set<AutoCloseable> resources = Sets.newLinkedHashSet();
+    // Written while holding resources
+    private volatile boolean closed = false;
+
+    @Inject
+    ConfigResourceRegistry()
+    {
+    }
+
+    /**
+     * Registers a resource to be closed with the config system. A resource registered after the config system was
+     * closed is closed immediately.
+     *
+     * @param resource the resource to register
+     */
+    public void register(AutoCloseable resource)
+    {
+        synchronized (resources) {
+            if (!closed) {
+                resources.add(resource);
+                return;
+            }
+        }
+        log.debug("Config system is closed, closing {}", resource);
+        closeQuietly(resource);
+    }
+
+    public void unregister(AutoCloseable resource)
+    {
+        synchronized (resources) {
+            resources.remove(resource);
+        }
+    }
+
+    /**
+     * @return the number of resources currently registered
+     */
+    public int size()
+    {
+        synchronized (resources) {
+            return resources.size();
+        }
+    }
+
+    public boolean isClosed()
+    {
+        return closed;
+    }
+
+    /**
+     * Closes all registered resources, most recently registered first. Failures are logged, and do not stop the
+     * remaining resources from being closed.
+     */
+    public void closeAll()
+    {
+        final List<AutoCloseable> toClose;
+        synchronized (resources) {
+            closed = true;
+            toClose = Lists.reverse(Lists.newArrayList(resources));
+            resources.clear();
+        }
+        toClose.forEach(ConfigResourceRegistry::closeQuietly);
+        log.debug("Closed {} config resources", toClose.size());
+    }
+
+    private static void closeQuietly(AutoCloseable resource)
+    {
+        try {
+            resource.close();
+        }
+        catch (Exception ex) {
+            log.warn("Failed to close config resource {}", resource, ex);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.internal;
+
+import com.google.common.collect.Lists;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the value changes of one injector's property accessors which have not yet been delivered to subscribers,
+ * so that {@link com.kik.config.ice.ConfigSystem#refresh()} can wait for changes which another thread is still
+ * delivering. Intended for use by the config system only.
+ */
+@Singleton
+public class DeliveryTracker
+{
+    private final AtomicLong pending = new AtomicLong();
+    // Guarded by itself
+    private final List<CompletableFuture<Void>> waiters = Lists.newArrayList();
+
+    @Inject
+    DeliveryTracker()
+    {
+    }
+
+    /**
+     * Records a request to deliver a property's value, before the request is made.
+     */
+    public void requested()
+    {
+        pending.incrementAndGet();
+    }
+
+    /**
+     * Records that delivery requests have been handled, once the value which covers them has been delivered.
+     *
+     * @param count the number of requests handled
+     */
+    public void delivered(int count)
+    {
+        if (pending.addAndGet(-count) != 0) {
+            return;
+        }
+        final List<CompletableFuture<Void>> idle;
+        synchronized (waiters) {
+            if (pending.get() != 0) {
+                return;
+            }
+            idle = Lists.newArrayList(waiters);
+            waiters.clear();
+        }
+        // Completed outside the lock, as completing runs dependent actions
+        idle.forEach(waiter -> waiter.complete(null));
+    }
+
+    /**
+     * @return a future completed once no deliveries are pending
+     */
+    public CompletableFuture<Void> whenDelivered()
+    {
+        synchronized (waiters) {
+            if (pending.get() == 0) {
+                return CompletableFuture.completedFuture(null);
+            }
+            final CompletableFuture<Void> waiter = new CompletableFuture<>();
+            waiters.add(waiter);
+            return waiter;
+        }
+    }
+}
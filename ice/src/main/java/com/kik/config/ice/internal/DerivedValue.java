@@ -0,0 +1,253 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import com.google.common.collect.Maps;
+import com.google.inject.Provider;
+import com.kik.config.ice.ConfigEpochs;
+import com.kik.config.ice.annotations.Derived;
+import com.kik.config.ice.exception.ConfigException;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.implementation.InvocationHandlerAdapter;
+import net.bytebuddy.matcher.ElementMatchers;
+import rx.Subscription;
+
+/**
+ * Implements a {@link Derived} method of a config interface with a cached value.
+ * <br>
+ * The default method is evaluated against a reader of the config interface, which reads each config method through
+ * the config implementation while recording the values read. The cached value is used until the value of a recorded
+ * method changes, which is seen through the method's property accessor. On a thread which pinned a {@link ConfigEpochs}
+ * epoch, the method is evaluated against the pinned values, and the result is cached for that epoch only.
+ */
+@Slf4j
+class DerivedValue implements InvocationHandler
+{
+    // Config methods read by the derivations being evaluated on this thread, with the values read
+    private static final ThreadLocal<Map<Method, Object>> recordedReads = new ThreadLocal<>();
+
+    private final Method method;
+    /**
+     * Weakly referenced for the same reason as in ConfigBuilder's InvocationHandlerImpl, as this handler is held by the
+     * generated class.
+     */
+    private final Map<Method, WeakReference<Provider<PropertyAccessor<?>>>> accessorProviders;
+    // Null unless epochs are installed
+    private final ConfigEpochs epochs;
+    private final AtomicLong changeCount = new AtomicLong();
+    private final Object lock = new Object();
+    private volatile Object reader;
+    private volatile Computed computed;
+    private volatile Computed pinnedComputed;
+    // Guarded by lock
+    private final Map<Method, Subscription> dependencies = Maps.newHashMap();
+
+    /**
+     * @param method            the derived method
+     * @param accessorProviders providers of the accessors of config methods whose values can change
+     * @param epochs            the installed epochs, if any
+     */
+    DerivedValue(Method method, Map<Method, WeakReference<Provider<PropertyAccessor<?>>>> accessorProviders, Optional<ConfigEpochs> epochs)
+    {
+        this.method = checkNotNull(method);
+        this.accessorProviders = checkNotNull(accessorProviders);
+        this.epochs = checkNotNull(epochs).orElse(null);
+        this.method.setAccessible(true);
+    }
+
+    /**
+     * Creates the reader the derived methods of a config implementation are evaluated against.
+     */
+    static <C> C newReader(Class<C> configInterface, C configImpl)
+    {
+        Class<? extends C> readerClass = new ByteBuddy().subclass(configInterface)
+            .method(ElementMatchers.isAbstract()).intercept(InvocationHandlerAdapter.of(new Reader(new WeakReference<>(configImpl))))
+            .make()
+            .load(configInterface.getClassLoader(), GeneratedClassLoading.strategyFor(configInterface))
+            .getLoaded();
+        try {
+            return readerClass.newInstance();
+        }
+        catch (InstantiationException | IllegalAccessException ex) {
+            throw new ConfigException("Failed to instantiate reader of Config {}", configInterface.getName(), ex);
+        }
+    }
+
+    Method getMethod()
+    {
+        return method;
+    }
+
+    void setReader(Object reader)
+    {
+        this.reader = checkNotNull(reader);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method invokedMethod, Object[] args) throws Throwable
+    {
+        if (this.epochs != null) {
+            final long pinnedEpoch = this.epochs.getPinnedEpoch();
+            if (pinnedEpoch != ConfigEpochs.NOT_PINNED) {
+                return evaluatePinned(pinnedEpoch);
+            }
+        }
+        final Computed current = this.computed;
+        if (current != null && current.changeCount == this.changeCount.get()) {
+            return current.value;
+        }
+        synchronized (lock) {
+            final Computed latest = this.computed;
+            if (latest != null && latest.changeCount == this.changeCount.get()) {
+                return latest.value;
+            }
+            return evaluate();
+        }
+    }
+
+    private Object evaluate() throws Throwable
+    {
+        // Changes during evaluation make the result stale as soon as it is cached
+        final long evaluatedAt = this.changeCount.get();
+        final Map<Method, Object> reads = Maps.newHashMap();
+        final Object value = derive(reads);
+        updateDependencies(reads);
+        this.computed = new Computed(value, evaluatedAt);
+        log.debug("Derived method {} evaluated to {}, reading {}", method.getName(), value, reads.keySet());
+        return value;
+    }
+
+    private Object evaluatePinned(long pinnedEpoch) throws Throwable
+    {
+        // The values of an epoch never change, so the result is valid for as long as the epoch is pinned
+        final Computed pinned = this.pinnedComputed;
+        if (pinned != null && pinned.changeCount == pinnedEpoch) {
+            return pinned.value;
+        }
+        final Object value = derive(Maps.newHashMap());
+        this.pinnedComputed = new Computed(value, pinnedEpoch);
+        log.debug("Derived method {} evaluated to {} for epoch {}", method.getName(), value, pinnedEpoch);
+        return value;
+    }
+
+    private Object derive(Map<Method, Object> reads) throws Throwable
+    {
+        checkState(this.reader != null, "Derived method %s called before its reader was set", method.getName());
+        final Map<Method, Object> outerReads = recordedReads.get();
+        recordedReads.set(reads);
+        try {
+            return method.invoke(this.reader);
+        }
+        catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+        finally {
+            recordedReads.set(outerReads);
+            if (outerReads != null) {
+                outerReads.putAll(reads);
+            }
+        }
+    }
+
+    private void updateDependencies(Map<Method, Object> reads)
+    {
+        final Iterator<Map.Entry<Method, Subscription>> iter = this.dependencies.entrySet().iterator();
+        while (iter.hasNext()) {
+            final Map.Entry<Method, Subscription> dependency = iter.next();
+            if (!reads.containsKey(dependency.getKey())) {
+                dependency.getValue().unsubscribe();
+                iter.remove();
+            }
+        }
+        for (Map.Entry<Method, Object> read : reads.entrySet()) {
+            final WeakReference<Provider<PropertyAccessor<?>>> providerRef = this.accessorProviders.get(read.getKey());
+            if (providerRef == null || this.dependencies.containsKey(read.getKey())) {
+                continue;
+            }
+            final Provider<PropertyAccessor<?>> provider = providerRef.get();
+            if (provider == null) {
+                // The injector was discarded, so the value can no longer change
+                continue;
+            }
+            final PropertyAccessor<?> accessor = provider.get();
+            // The current value is replayed on subscription; only later values are changes
+            this.dependencies.put(read.getKey(), accessor.getObservable().skip(1).subscribe(value -> this.changeCount.incrementAndGet()));
+            // A change between the read and the subscription would otherwise be missed
+            if (!Objects.deepEquals(read.getValue(), accessor.get())) {
+                this.changeCount.incrementAndGet();
+            }
+        }
+    }
+
+    private static final class Computed
+    {
+        private final Object value;
+        // The change count, or the epoch for a value computed under a pin
+        private final long changeCount;
+
+        private Computed(Object value, long changeCount)
+        {
+            this.value = value;
+            this.changeCount = changeCount;
+        }
+    }
+
+    private static final class Reader implements InvocationHandler
+    {
+        private final WeakReference<Object> configImplRef;
+
+        private Reader(WeakReference<Object> configImplRef)
+        {
+            this.configImplRef = configImplRef;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method readMethod, Object[] args) throws Throwable
+        {
+            if (!readMethod.isAccessible()) {
+                readMethod.setAccessible(true);
+            }
+            final Object configImpl = configImplRef.get();
+            if (configImpl == null) {
+                throw new ConfigException("Config value read after its injector was discarded");
+            }
+            final Object value;
+            try {
+                value = readMethod.invoke(configImpl, args);
+            }
+            catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+            final Map<Method, Object> reads = recordedReads.get();
+            if (reads != null) {
+                reads.put(readMethod, value);
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.internal;
+
+import com.google.inject.Provider;
+import com.kik.config.ice.FoldedConfigReads;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import net.bytebuddy.implementation.Implementation;
+import net.bytebuddy.implementation.InvokeDynamic;
+
+/**
+ * Links the invokedynamic instructions of config implementations generated for {@link FoldedConfigReads}.
+ * <br>
+ * Each value method of a generated class is an invokedynamic instruction named after the method, with no arguments.
+ * The generated class has a private static field, set once the class is loaded, which maps method names to the
+ * providers of their property accessors. On the first call of a method, {@link #bootstrap} builds the property accessor
+ * and links the instruction to the accessor's call site.
+ */
+@Slf4j
+public final class FoldedReadLinker
+{
+    static final String PROVIDERS_FIELD_NAME = "foldedReadProviders$";
+
+    private static final Method BOOTSTRAP_METHOD;
+
+    static {
+        try {
+            BOOTSTRAP_METHOD = FoldedReadLinker.class.getMethod("bootstrap", MethodHandles.Lookup.class, String.class, MethodType.class);
+        }
+        catch (NoSuchMethodException ex) {
+            throw new ExceptionInInitializerError(ex);
+        }
+    }
+
+    private FoldedReadLinker()
+    {
+    }
+
+    static Implementation implementation(Method method)
+    {
+        return InvokeDynamic.bootstrap(BOOTSTRAP_METHOD).invoke(method.getName(), method.getReturnType()).withoutArguments();
+    }
+
+    /**
+     * Bootstrap method of the generated invokedynamic instructions. Intended for use by generated classes only.
+     */
+    public static CallSite bootstrap(MethodHandles.Lookup caller, String methodName, MethodType type) throws Throwable
+    {
+        final Map<String, WeakReference<Provider<PropertyAccessor<?>>>> providers =
+            (Map<String, WeakReference<Provider<PropertyAccessor<?>>>>) caller.findStaticGetter(caller.lookupClass(), PROVIDERS_FIELD_NAME, Map.class).invoke();
+        final PropertyAccessor<?> accessor = providers.get(methodName).get().get();
+        log.debug("Linking folded read of {} in {}", methodName, caller.lookupClass().getName());
+        return accessor.linkFoldedRead(type);
+    }
+}
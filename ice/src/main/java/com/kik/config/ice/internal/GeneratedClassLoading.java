@@ -0,0 +1,65 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.internal;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import lombok.extern.slf4j.Slf4j;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+
+/**
+ * Chooses how classes generated for a config interface are loaded.
+ * <br>
+ * Where possible, each generated class is defined in its own child class loader of the config interface's class
+ * loader, so that it can be unloaded once the injector using it is garbage collected. A class in a child class loader
+ * is in a different runtime package than the config interface, so it can only use public types. Classes for config
+ * interfaces which use non-public types are injected into the interface's class loader instead, and are never
+ * unloaded.
+ */
+@Slf4j
+final class GeneratedClassLoading
+{
+    private GeneratedClassLoading()
+    {
+    }
+
+    static ClassLoadingStrategy strategyFor(Class<?> configInterface)
+    {
+        if (isPublic(configInterface) && Arrays.stream(configInterface.getMethods()).map(Method::getReturnType).allMatch(GeneratedClassLoading::isPublic)) {
+            return ClassLoadingStrategy.Default.WRAPPER;
+        }
+        log.debug("Config {} uses non-public types, so its generated classes cannot be unloaded", configInterface.getName());
+        return ClassLoadingStrategy.Default.INJECTION;
+    }
+
+    private static boolean isPublic(Class<?> type)
+    {
+        Class<?> cls = type;
+        while (cls.isArray()) {
+            cls = cls.getComponentType();
+        }
+        if (cls.isPrimitive()) {
+            return true;
+        }
+        for (; cls != null; cls = cls.getEnclosingClass()) {
+            if (!Modifier.isPublic(cls.getModifiers())) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.internal;
+
+import com.google.inject.Key;
+import com.google.inject.Provider;
+import com.google.inject.Scope;
+import com.google.inject.Scopes;
+import com.google.inject.Stage;
+
+/**
+ * Singleton scope whose instance is only created when first provided. Instances are scoped by {@link Scopes#SINGLETON}
+ * itself, with its per-key locking and cycle detection; only bindings in that scope are created when the injector is
+ * created in {@link Stage#PRODUCTION}, so bindings in this scope are not. Property accessors are therefore only built
+ * when they are needed or explicitly provisioned. Intended for use by the config system only.
+ */
+public final class LazySingletonScope implements Scope
+{
+    public static final Scope INSTANCE = new LazySingletonScope();
+
+    private LazySingletonScope()
+    {
+    }
+
+    @Override
+    public <T> Provider<T> scope(Key<T> key, Provider<T> unscoped)
+    {
+        return Scopes.SINGLETON.scope(key, unscoped);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "LazySingletonScope.INSTANCE";
+    }
+}
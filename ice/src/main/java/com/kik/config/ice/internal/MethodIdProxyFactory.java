@@ -13,7 +13,6 @@ import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import net.bytebuddy.ByteBuddy;
 import net.bytebuddy.dynamic.DynamicType;
-import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
 import net.bytebuddy.implementation.InvocationHandlerAdapter;
 import net.bytebuddy.matcher.ElementMatchers;
 
@@ -30,7 +29,15 @@ public class MethodIdProxyFactory
 
     private static final ThreadLocal<MethodAndScope> lastIdentifiedMethodAndScope = new ThreadLocal();
 
-    private static final ConcurrentMap<ClassAndScope, Object> proxyMap = Maps.newConcurrentMap();
+    // Proxies are held by their config interface class, so they do not keep the interface's class loader alive
+    private static final ClassValue<ConcurrentMap<Optional<String>, Object>> proxyMap = new ClassValue<ConcurrentMap<Optional<String>, Object>>()
+    {
+        @Override
+        protected ConcurrentMap<Optional<String>, Object> computeValue(Class<?> type)
+        {
+            return Maps.newConcurrentMap();
+        }
+    };
 
     private MethodIdProxyFactory()
     {
@@ -49,17 +56,7 @@ public class MethodIdProxyFactory
      */
     public static <C> C getProxy(final Class<C> configInterface, final Optional<String> scopeNameOpt)
     {
-        final ClassAndScope key = new ClassAndScope(configInterface, scopeNameOpt);
-
-        final C methodIdProxy;
-        if (proxyMap.containsKey(key)) {
-            methodIdProxy = (C) proxyMap.get(key);
-        }
-        else {
-            methodIdProxy = createMethodIdProxy(configInterface, scopeNameOpt);
-            proxyMap.put(key, methodIdProxy);
-        }
-        return methodIdProxy;
+        return (C) proxyMap.get(configInterface).computeIfAbsent(scopeNameOpt, scope -> createMethodIdProxy(configInterface, scope));
     }
 
     /**
@@ -82,13 +79,6 @@ public class MethodIdProxyFactory
         private Optional<String> scopeOpt;
     }
 
-    @Value
-    private static class ClassAndScope
-    {
-        private Class<?> clazz;
-        private Optional<String> scopeOpt;
-    }
-
     private static <C> C createMethodIdProxy(final Class<C> interfaceToProxy, final Optional<String> scopeNameOpt)
     {
         final List<ConfigDescriptor> configDescList = ConfigSystem.descriptorFactory.buildDescriptors(interfaceToProxy, scopeNameOpt);
@@ -103,7 +93,7 @@ public class MethodIdProxyFactory
         }
 
         Class<? extends C> configImpl = typeBuilder.make()
-            .load(interfaceToProxy.getClassLoader(), ClassLoadingStrategy.Default.INJECTION)
+            .load(interfaceToProxy.getClassLoader(), GeneratedClassLoading.strategyFor(interfaceToProxy))
             .getLoaded();
         try {
             return configImpl.newInstance();
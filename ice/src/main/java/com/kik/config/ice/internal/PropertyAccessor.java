@@ -17,25 +17,51 @@ package com.kik.config.ice.internal;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.primitives.Booleans;
+import com.google.common.reflect.TypeToken;
+import com.google.inject.Binding;
 import com.google.inject.Inject;
 import com.google.inject.Injector;
 import com.google.inject.Key;
 import com.google.inject.PrivateModule;
-import com.google.inject.Scopes;
 import com.google.inject.TypeLiteral;
 import com.google.inject.name.Names;
 import com.google.inject.util.Types;
+import com.kik.config.ice.ConfigEpochs;
+import com.kik.config.ice.ConfigInterpolation;
+import com.kik.config.ice.ConfigProvisioning;
+import com.kik.config.ice.FoldedConfigReads;
 import com.kik.config.ice.convert.ConfigValueConverter;
+import com.kik.config.ice.convert.ConvertedValueCache;
+import com.kik.config.ice.exception.ConfigException;
+import com.kik.config.ice.convert.IncrementalConfigValueConverter;
 import com.kik.config.ice.interceptor.ConfigValueInterceptor;
 import com.kik.config.ice.internal.annotations.PropertyIdentifier;
+import com.kik.config.ice.metrics.CompositeConfigMetrics;
+import com.kik.config.ice.metrics.ConfigMetrics;
+import com.kik.config.ice.metrics.ConfigReadTracker;
+import com.kik.config.ice.metrics.NoopConfigMetrics;
 import com.kik.config.ice.source.DynamicConfigSource;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.ConstantCallSite;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.MutableCallSite;
+import java.lang.ref.WeakReference;
 import static java.util.Comparator.comparing;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import static java.util.stream.Collectors.toList;
 import lombok.extern.slf4j.Slf4j;
@@ -45,20 +71,62 @@ import rx.subjects.BehaviorSubject;
 import rx.subjects.Subject;
 
 @Slf4j
-public class PropertyAccessor<T> implements Supplier<T>
+public class PropertyAccessor<T> implements Supplier<T>, AutoCloseable
 {
     private final String propertyName;
-    private final T defaultValue;
+    // Raw default value after interceptors, before interpolation
+    private final Optional<String> defaultRawValue;
+    // Only change after construction when interpolated references change
+    private volatile T defaultValue;
+    private volatile Optional<String> defaultResolvedValue;
     private final ConfigValueConverter<T> convertFunc;
     private final List<DynamicConfigSource> dynamicAccessors;
-    private final List<ConfigValueInterceptor> configValueInterceptors;
+    private final List<String> dynamicAccessorNames;
+    // Interceptors which may apply to this property, and whether each needs a per-value shouldApply check
+    private final ConfigValueInterceptor[] interceptorChain;
+    private final boolean[] interceptorChecksValue;
     private final List<Observable<ConfigChangeEvent<String>>> dynamicObservables;
     private final List<Subscription> subscriptions;
     private final AtomicReferenceArray<Optional<T>> overrides;
     private final AtomicReference<T> lastValueEmitted;
+    // The value in use, set with lastValueEmitted and read by get()
+    private volatile T currentValue;
+    private volatile long lastConversionNanos;
+    // Subscribers are notified by one thread at a time; deliveredValue is only accessed by that thread
+    private final AtomicInteger pendingDeliveries = new AtomicInteger();
+    private final Runnable deliverAction = this::deliver;
+    private T deliveredValue;
+    private final AtomicReferenceArray<Optional<String>> overrideVersions;
+    private final AtomicReferenceArray<Optional<String>> overrideRawValues;
+    private final AtomicReferenceArray<Optional<String>> overrideResolvedValues;
+    // Last event from each source, kept only with interpolation, to resolve the event again when references change
+    private final AtomicReferenceArray<ConfigChangeEvent<String>> lastEvents;
+    private volatile Optional<String> activeResolvedValue;
+    private volatile int activeOverrideIdx = -1;
+    private volatile Optional<String> activeVersion = Optional.empty();
+    private final long constructionMillis = System.currentTimeMillis();
     private final Subject<T, T> propertySubject;
+    // Arrays are mutable, so each read and each subscriber gets its own copy of an array value
+    private final boolean arrayType;
+    private final Observable<T> observable;
     private final Object lock = new Object();
     private final ConfigDescriptor configDescriptor;
+    private final ConfigMetrics metrics;
+    private final boolean metricsEnabled;
+    private final LongAdder readCounter;
+    private final ConvertedValueCache convertedValueCache;
+    private final ConfigEpochs epochs;
+    private final PropertyVersions<T> versions;
+    private final boolean runtimeScoped;
+    private final ConfigProvisioning provisioning;
+    private final ConfigResourceRegistry resourceRegistry;
+    private final DeliveryTracker deliveryTracker;
+    private final FoldedConfigReads foldedReads;
+    private final ConfigInterpolation interpolation;
+    private final Object resolveLock = new Object();
+    // Guarded by lock. Created when a folded read of this property is first linked.
+    private MutableCallSite foldedReadSite;
+    private final AtomicBoolean closed = new AtomicBoolean(false);
 
     @Inject
     public PropertyAccessor(
@@ -69,53 +137,164 @@ public class PropertyAccessor<T> implements Supplier<T>
         Map<Integer, DynamicConfigSource> dynamicAccessors,
         Map<Integer, ConfigValueInterceptor> configValueInterceptorMap)
     {
-        this.propertyName = propertyIdentifier.propertyName();
-        this.configDescriptor = injector.getInstance(Key.get(ConfigDescriptor.class, Names.named(this.propertyName)));
+        this(injector, injector.getInstance(Key.get(ConfigDescriptor.class, Names.named(propertyIdentifier.propertyName()))),
+            defaultValueAccessor, convertFunc, dynamicAccessors, configValueInterceptorMap, false);
+    }
+
+    /**
+     * Creates an accessor outside of Guice, for a descriptor which may not be bound in the injector.
+     *
+     * @param runtimeScoped true if the descriptor is for a scope created at runtime, in which case the config sources are
+     *                      subscribed with {@link DynamicConfigSource#getRuntimeObservable(String)}, and released when
+     *                      this accessor is {@link #close() closed}.
+     */
+    public PropertyAccessor(
+        Injector injector,
+        ConfigDescriptor configDescriptor,
+        ConstantValuePropertyAccessor defaultValueAccessor,
+        ConfigValueConverter<T> convertFunc,
+        Map<Integer, DynamicConfigSource> dynamicAccessors,
+        Map<Integer, ConfigValueInterceptor> configValueInterceptorMap,
+        boolean runtimeScoped)
+    {
+        this.configDescriptor = checkNotNull(configDescriptor);
+        this.propertyName = configDescriptor.getConfigName();
+        this.runtimeScoped = runtimeScoped;
+
+        // Metrics are looked up rather than injected, as they must be available before subscribing below
+        final Binding<Set<ConfigMetrics>> metricsBinding = injector.getExistingBinding(Key.get(CompositeConfigMetrics.SET_TYPE));
+        this.metrics = metricsBinding == null ? NoopConfigMetrics.INSTANCE : CompositeConfigMetrics.of(metricsBinding.getProvider().get());
+        this.metricsEnabled = this.metrics.isEnabled();
+
+        final Binding<ConfigReadTracker> readTrackerBinding = injector.getExistingBinding(Key.get(ConfigReadTracker.class));
+        this.readCounter = readTrackerBinding == null ? null : readTrackerBinding.getProvider().get().getCounter(this.propertyName);
+
+        final Binding<ConvertedValueCache> cacheBinding = injector.getExistingBinding(Key.get(ConvertedValueCache.class));
+        // Arrays are mutable, so converted arrays are never shared between accessors
+        this.arrayType = TypeToken.of(configDescriptor.getConfigType()).isArray();
+        this.convertedValueCache = cacheBinding == null || this.arrayType ? null : cacheBinding.getProvider().get();
+
+        final Binding<ConfigResourceRegistry> registryBinding = injector.getExistingBinding(Key.get(ConfigResourceRegistry.class));
+        this.resourceRegistry = registryBinding == null ? null : registryBinding.getProvider().get();
+
+        final Binding<DeliveryTracker> trackerBinding = injector.getExistingBinding(Key.get(DeliveryTracker.class));
+        this.deliveryTracker = trackerBinding == null ? null : trackerBinding.getProvider().get();
+
+        final Binding<ConfigProvisioning> provisioningBinding = injector.getExistingBinding(Key.get(ConfigProvisioning.class));
+        this.provisioning = provisioningBinding == null ? null : provisioningBinding.getProvider().get();
+
+        final Binding<ConfigEpochs> epochsBinding = injector.getExistingBinding(Key.get(ConfigEpochs.class));
+        this.epochs = epochsBinding == null ? null : epochsBinding.getProvider().get();
+
+        final Binding<FoldedConfigReads> foldedReadsBinding = injector.getExistingBinding(Key.get(FoldedConfigReads.class));
+        this.foldedReads = foldedReadsBinding == null ? null : foldedReadsBinding.getProvider().get();
+
+        final Binding<ConfigInterpolation> interpolationBinding = injector.getExistingBinding(Key.get(ConfigInterpolation.class));
+        this.interpolation = interpolationBinding == null ? null : interpolationBinding.getProvider().get();
+
         this.convertFunc = convertFunc;
         this.dynamicAccessors = dynamicAccessors.entrySet().stream()
             .sorted(comparing(entry -> entry.getKey()))
             .map(entry -> entry.getValue())
             .collect(toList());
-        this.configValueInterceptors = configValueInterceptorMap.entrySet().stream()
+        this.dynamicAccessorNames = this.dynamicAccessors.stream()
+            .map(DynamicConfigSource::getName)
+            .collect(toList());
+
+        // Compile the interceptor chain for this method once, leaving out interceptors which never apply to it
+        final List<ConfigValueInterceptor> chain = Lists.newArrayList();
+        final List<Boolean> checksValue = Lists.newArrayList();
+        configValueInterceptorMap.entrySet().stream()
             .sorted(comparing(entry -> entry.getKey()))
             .map(entry -> entry.getValue())
-            .collect(toList());
+            .forEach(interceptor -> {
+                final ConfigValueInterceptor.Applicability applicability = interceptor.getApplicability(this.configDescriptor.getMethod());
+                if (applicability != ConfigValueInterceptor.Applicability.NEVER) {
+                    chain.add(interceptor);
+                    checksValue.add(applicability == ConfigValueInterceptor.Applicability.DEPENDS_ON_VALUE);
+                }
+            });
+        this.interceptorChain = chain.toArray(new ConfigValueInterceptor[chain.size()]);
+        this.interceptorChecksValue = Booleans.toArray(checksValue);
+        log.trace("Property {} has {} of {} interceptors in its chain", propertyName, chain.size(), configValueInterceptorMap.size());
+
+        this.lastValueEmitted = new AtomicReference<>(null);
+        this.overrides = new AtomicReferenceArray<>(this.dynamicAccessors.size());
+        this.overrideVersions = new AtomicReferenceArray<>(this.dynamicAccessors.size());
+        this.overrideRawValues = new AtomicReferenceArray<>(this.dynamicAccessors.size());
+        this.overrideResolvedValues = new AtomicReferenceArray<>(this.dynamicAccessors.size());
+        this.lastEvents = new AtomicReferenceArray<>(this.interpolation == null ? 0 : this.dynamicAccessors.size());
+        for (int idx = 0; idx < this.dynamicAccessors.size(); ++idx) {
+            this.overrides.set(idx, Optional.empty());
+            this.overrideVersions.set(idx, Optional.empty());
+            this.overrideRawValues.set(idx, Optional.empty());
+            this.overrideResolvedValues.set(idx, Optional.empty());
+        }
 
         Optional<String> rawDefaultValue = applyInterceptors(defaultValueAccessor.getRawValue().map(obj -> (T) obj).map(val -> val.toString()));
         if (rawDefaultValue.isPresent()) {
-            this.defaultValue = convertFunc.apply(rawDefaultValue.get());
+            this.defaultRawValue = rawDefaultValue;
         }
         else {
-            this.defaultValue = convertFunc.apply(applyInterceptors(defaultValueAccessor.getValue()).orElse(null));
+            this.defaultRawValue = applyInterceptors(defaultValueAccessor.getValue());
         }
+        this.defaultResolvedValue = interpolate(-1, this.defaultRawValue);
+        this.defaultValue = convert(this.defaultResolvedValue.orElse(null));
+        this.activeResolvedValue = this.defaultResolvedValue;
 
-        log.trace("Initializing default for {}.  Value is {}", propertyIdentifier.propertyName(), defaultValue);
-
-        this.lastValueEmitted = new AtomicReference<>(null);
-        this.overrides = new AtomicReferenceArray<>(this.dynamicAccessors.size());
-        for (int idx = 0; idx < this.dynamicAccessors.size(); ++idx) {
-            this.overrides.set(idx, Optional.empty());
+        log.trace("Initializing default for {}.  Value is {}", propertyName, defaultValue);
+        if (this.interpolation != null) {
+            // Registered before subscribing, so that changes to referenced configs are seen from the first event
+            this.interpolation.register(this.propertyName, this);
         }
 
+        this.currentValue = this.defaultValue;
+        this.deliveredValue = this.defaultValue;
         this.propertySubject = BehaviorSubject.create(this.defaultValue).toSerialized();
+        this.observable = this.arrayType ? this.propertySubject.map(ConfigArrays::copy) : this.propertySubject;
 
         this.dynamicObservables = this.dynamicAccessors.stream()
-            .map(acc -> checkNotNull(acc.getObservable(this.propertyName)))
+            .map(acc -> checkNotNull(runtimeScoped ? acc.getRuntimeObservable(this.propertyName) : acc.getObservable(this.propertyName)))
             .collect(toList());
 
         this.subscriptions = Lists.newArrayListWithCapacity(this.dynamicObservables.size());
         for (int idx = 0; idx < this.dynamicObservables.size(); ++idx) {
             final int overrideIndex = idx;
             this.subscriptions.add(this.dynamicObservables.get(idx).subscribe(evt -> this.onConfigEvent(overrideIndex, evt)));
-            log.debug("Property {} subscribed to source {}", propertyIdentifier.propertyName(), this.dynamicAccessors.get(idx).getName());
+            log.debug("Property {} subscribed to source {}", propertyName, this.dynamicAccessors.get(idx).getName());
+        }
+
+        if (this.epochs != null) {
+            // Versions start from the value in use once the sources' current values have been applied, labelled with
+            // the epoch it is current at; the write lock keeps a concurrent change from landing in between
+            this.epochs.lockForWrite();
+            try {
+                synchronized (lock) {
+                    this.versions = new PropertyVersions<>(this.propertyName, this.currentValue, this.epochs.getCurrentEpoch());
+                }
+            }
+            finally {
+                this.epochs.unlockForWrite();
+            }
+        }
+        else {
+            this.versions = null;
+        }
+
+        if (this.provisioning != null) {
+            this.provisioning.onAccessorCreated();
+        }
+        if (this.resourceRegistry != null) {
+            this.resourceRegistry.register(this);
         }
     }
 
     private Optional<String> applyInterceptors(final Optional<String> inputOpt)
     {
         Optional<String> valueOpt = inputOpt;
-        for (ConfigValueInterceptor interceptor : this.configValueInterceptors) {
-            if (!interceptor.shouldApply(this.configDescriptor.getMethod(), inputOpt)) {
+        for (int idx = 0; idx < this.interceptorChain.length; ++idx) {
+            final ConfigValueInterceptor interceptor = this.interceptorChain[idx];
+            if (this.interceptorChecksValue[idx] && !interceptor.shouldApply(this.configDescriptor.getMethod(), inputOpt)) {
                 continue;
             }
             valueOpt = interceptor.apply(valueOpt);
@@ -126,16 +305,126 @@ public class PropertyAccessor<T> implements Supplier<T>
         return valueOpt;
     }
 
+    private T convert(String rawValue)
+    {
+        return convertedValueCache == null ? convertFunc.apply(rawValue) : convertedValueCache.convert(convertFunc, rawValue);
+    }
+
+    private T convert(String rawValue, Optional<T> previousValue)
+    {
+        if (!previousValue.isPresent() || !(convertFunc instanceof IncrementalConfigValueConverter)) {
+            return convert(rawValue);
+        }
+        final IncrementalConfigValueConverter<T> incrementalConverter = (IncrementalConfigValueConverter<T>) convertFunc;
+        final Function<String, T> conversion = raw -> incrementalConverter.applyIncrementally(raw, previousValue.get());
+        return convertedValueCache == null ? conversion.apply(rawValue) : convertedValueCache.convert(convertFunc, rawValue, conversion);
+    }
+
+    /**
+     * Updates the references of this property to those of all of its raw values, with the given value in place of the
+     * current one at the given index (-1 for the default), then resolves the references in the given value.
+     */
+    private Optional<String> interpolate(int overrideIdx, Optional<String> rawValue)
+    {
+        if (this.interpolation == null) {
+            return rawValue;
+        }
+        final Set<String> references = Sets.newHashSet();
+        (overrideIdx < 0 ? rawValue : this.defaultRawValue).ifPresent(raw -> references.addAll(ConfigInterpolation.references(raw)));
+        for (int idx = 0; idx < this.overrideRawValues.length(); ++idx) {
+            (idx == overrideIdx ? rawValue : this.overrideRawValues.get(idx)).ifPresent(raw -> references.addAll(ConfigInterpolation.references(raw)));
+        }
+        this.interpolation.setDependencies(this.propertyName, references);
+        return resolve(rawValue);
+    }
+
+    private Optional<String> resolve(Optional<String> rawValue)
+    {
+        return this.interpolation == null ? rawValue : rawValue.map(raw -> this.interpolation.interpolate(this.propertyName, raw));
+    }
+
+    private static boolean hasReferences(Optional<String> rawValue)
+    {
+        return rawValue.isPresent() && !ConfigInterpolation.references(rawValue.get()).isEmpty();
+    }
+
+    /**
+     * Intended for use by {@link ConfigInterpolation} only. Resolves the raw values of this property which have
+     * references again, as a referenced config has changed.
+     */
+    public void resolveReferences()
+    {
+        if (this.closed.get()) {
+            return;
+        }
+        // Serialized so that an older resolution cannot replace a newer one
+        synchronized (resolveLock) {
+            if (hasReferences(this.defaultRawValue)) {
+                try {
+                    final Optional<String> resolvedValue = resolve(this.defaultRawValue);
+                    if (!resolvedValue.equals(this.defaultResolvedValue)) {
+                        final T value = convert(resolvedValue.orElse(null));
+                        updateValue(() -> {
+                            this.defaultValue = value;
+                            this.defaultResolvedValue = resolvedValue;
+                        }, 0L);
+                    }
+                }
+                catch (Exception ex) {
+                    log.warn("Failed to resolve default value for {} again.  Value was '{}'", propertyName, this.defaultRawValue, ex);
+                }
+            }
+            for (int idx = 0; idx < this.lastEvents.length(); ++idx) {
+                final ConfigChangeEvent<String> event = this.lastEvents.get(idx);
+                if (event != null && hasReferences(this.overrideRawValues.get(idx))) {
+                    onConfigEvent(idx, event, true);
+                }
+            }
+        }
+    }
+
     private void onConfigEvent(int eventOverrideIdx, ConfigChangeEvent<String> event)
     {
-        T prevValue;
-        T newValue;
+        onConfigEvent(eventOverrideIdx, event, false);
+    }
 
+    private void onConfigEvent(int eventOverrideIdx, ConfigChangeEvent<String> event, boolean resolvingAgain)
+    {
+        if (this.interpolation != null && !resolvingAgain) {
+            this.lastEvents.set(eventOverrideIdx, event);
+        }
+
+        Optional<String> rawValue;
+        Optional<String> resolvedValue;
         Optional<T> incomingValue;
+        final long conversionStart = metricsEnabled ? System.nanoTime() : 0L;
+        long conversionNanos = 0L;
         try {
-            incomingValue = applyInterceptors(event.getValueOpt()).map(convertFunc);
+            rawValue = applyInterceptors(event.getValueOpt());
+            // Events for a source are delivered serially, so only this thread updates the slot being compared here
+            if (!resolvingAgain && rawValue.equals(this.overrideRawValues.get(eventOverrideIdx))) {
+                log.trace("Skipping conversion for {}, raw value unchanged on Idx {}", propertyName, eventOverrideIdx);
+                resolvedValue = this.overrideResolvedValues.get(eventOverrideIdx);
+                incomingValue = this.overrides.get(eventOverrideIdx);
+            }
+            else {
+                // Raw values resolved again are unchanged, so have the same references
+                resolvedValue = resolvingAgain ? resolve(rawValue) : interpolate(eventOverrideIdx, rawValue);
+                if (resolvingAgain && resolvedValue.equals(this.overrideResolvedValues.get(eventOverrideIdx))) {
+                    return;
+                }
+                final Optional<T> previousValue = this.overrides.get(eventOverrideIdx);
+                incomingValue = resolvedValue.map(raw -> convert(raw, previousValue));
+            }
+            if (metricsEnabled) {
+                conversionNanos = System.nanoTime() - conversionStart;
+                metrics.onConversion(propertyName, conversionNanos, true);
+            }
         }
         catch (Exception ex) {
+            if (metricsEnabled) {
+                metrics.onConversion(propertyName, System.nanoTime() - conversionStart, false);
+            }
             log.warn("Failed to convert value for {}.  Value from {} was '{}'",
                 propertyName,
                 dynamicAccessors.get(eventOverrideIdx).getClass().getName(),
@@ -144,50 +433,288 @@ public class PropertyAccessor<T> implements Supplier<T>
             return;
         }
 
-        synchronized (lock) {
+        updateValue(() -> {
+            // A newer event from the source replaces the one being resolved again
+            if (resolvingAgain && this.lastEvents.get(eventOverrideIdx) != event) {
+                return;
+            }
             this.overrides.set(eventOverrideIdx, incomingValue);
+            this.overrideRawValues.set(eventOverrideIdx, rawValue);
+            this.overrideResolvedValues.set(eventOverrideIdx, resolvedValue);
+            this.overrideVersions.set(eventOverrideIdx, incomingValue.isPresent() ? event.getSourceVersion() : Optional.empty());
 
             log.trace("EVENT for {}, on Idx {} ({}) incomingValue {}",
                 propertyName,
                 eventOverrideIdx, dynamicAccessors.get(eventOverrideIdx),
                 incomingValue.toString());
+        }, conversionNanos);
 
-            newValue = getFirstOverride().orElse(this.defaultValue);
-            prevValue = this.lastValueEmitted.getAndSet(newValue);
+        // Events from before this accessor existed are replayed values rather than new changes, so are not measured
+        if (metricsEnabled && !resolvingAgain && event.hasSourceTimestamp() && event.getTimestamp() >= constructionMillis) {
+            metrics.onPropagation(dynamicAccessorNames.get(eventOverrideIdx), propertyName, System.currentTimeMillis() - event.getSourceTimestamp());
         }
+    }
 
-        if (!Objects.equals(prevValue, newValue)) {
-            log.trace("EMIT {}, value {} (was {})",
-                propertyName,
-                newValue == null ? "NULL" : newValue.toString(),
-                prevValue == null ? "NULL" : prevValue.toString());
+    /**
+     * Applies a change to the default value or to the value from a source, then selects and emits the value in use.
+     */
+    private void updateValue(Runnable change, long conversionNanos)
+    {
+        T prevValue;
+        T newValue;
+        int newOverrideIdx;
+        Optional<String> prevResolvedValue;
+        Optional<String> newResolvedValue;
+
+        MutableCallSite relinkedSite = null;
+        // The epoch write lock is taken before the accessor lock, so that a change set can span many accessors
+        if (this.epochs != null) {
+            this.epochs.lockForWrite();
+        }
+        try {
+            synchronized (lock) {
+                change.run();
+
+                newOverrideIdx = getFirstOverrideIndex();
+                newValue = newOverrideIdx < 0 ? this.defaultValue : this.overrides.get(newOverrideIdx).get();
+                prevValue = this.lastValueEmitted.getAndSet(newValue);
+                this.currentValue = newValue;
+                if (!Objects.deepEquals(prevValue, newValue)) {
+                    this.lastConversionNanos = conversionNanos;
+                }
+                prevResolvedValue = this.activeResolvedValue;
+                newResolvedValue = newOverrideIdx < 0 ? this.defaultResolvedValue : this.overrideResolvedValues.get(newOverrideIdx);
+                this.activeResolvedValue = newResolvedValue;
+                this.activeOverrideIdx = newOverrideIdx;
+                this.activeVersion = newOverrideIdx < 0 ? Optional.empty() : this.overrideVersions.get(newOverrideIdx);
+                if (this.versions != null && !Objects.deepEquals(prevValue, newValue)) {
+                    this.epochs.recordChange(this.versions, newValue);
+                }
+                if (this.foldedReadSite != null && !Objects.deepEquals(prevValue, newValue)) {
+                    this.foldedReadSite.setTarget(constantHandle(this.foldedReadSite.type(), newValue));
+                    this.foldedReads.onRelink();
+                    relinkedSite = this.foldedReadSite;
+                }
+            }
+        }
+        finally {
+            if (this.epochs != null) {
+                this.epochs.unlockForWrite();
+            }
+        }
+        if (relinkedSite != null) {
+            MutableCallSite.syncAll(new MutableCallSite[]{relinkedSite});
+        }
+
+        if (!Objects.deepEquals(prevValue, newValue)) {
+            // Delivered once the change set being applied is complete, after the epoch write lock is released, so
+            // that subscribers cannot hold up changes from other sources
+            ChangeSets.runAfterChangeSet(this.deliverAction);
+        }
+
+        if (this.interpolation != null && !newResolvedValue.equals(prevResolvedValue)) {
+            this.interpolation.onValueChanged(this.propertyName);
+        }
+    }
+
+    /**
+     * Notifies subscribers of the value in use. Requests are drained by one thread at a time, which always delivers the
+     * latest value, so that values changed concurrently cannot be delivered out of order.
+     */
+    private void deliver()
+    {
+        if (this.deliveryTracker != null) {
+            this.deliveryTracker.requested();
+        }
+        int missed = this.pendingDeliveries.incrementAndGet();
+        if (missed != 1) {
+            return;
+        }
+        do {
+            final T prevValue = this.deliveredValue;
+            final T newValue = this.currentValue;
+            if (!Objects.deepEquals(prevValue, newValue)) {
+                this.deliveredValue = newValue;
+                try {
+                    emit(prevValue, newValue);
+                }
+                catch (RuntimeException ex) {
+                    log.warn("Subscriber of {} failed on value {}", propertyName, newValue, ex);
+                }
+            }
+            if (this.deliveryTracker != null) {
+                this.deliveryTracker.delivered(missed);
+            }
+            missed = this.pendingDeliveries.addAndGet(-missed);
+        }
+        while (missed != 0);
+    }
+
+    private void emit(T prevValue, T newValue)
+    {
+        log.trace("EMIT {}, value {} (was {})",
+            propertyName,
+            newValue == null ? "NULL" : newValue.toString(),
+            prevValue == null ? "NULL" : prevValue.toString());
+        if (metricsEnabled) {
+            final long emitStart = System.nanoTime();
+            this.propertySubject.onNext(newValue);
+            metrics.onPropertyEmit(propertyName, getActiveSourceName().orElse(null),
+                prevValue, newValue, this.lastConversionNanos, System.nanoTime() - emitStart);
+        }
+        else {
             this.propertySubject.onNext(newValue);
         }
     }
 
-    private Optional<T> getFirstOverride()
+    private int getFirstOverrideIndex()
     {
         for (int idx = 0; idx < overrides.length(); ++idx) {
             Optional<T> override = overrides.get(idx);
             if (override.isPresent()) {
                 log.trace("Got First override for {} - idx {} ({}), value {}",
                     propertyName, idx, dynamicAccessors.get(idx), override.get());
-                return override;
+                return idx;
             }
         }
         log.trace("First Override for {} - No available overrides ", propertyName);
-        return Optional.empty();
+        return -1;
+    }
+
+    /**
+     * Records a read of this property by application code, if read tracking is enabled. Called by the generated config
+     * implementations only, so that reads by tooling (eg: JMX) are not counted.
+     */
+    void recordRead()
+    {
+        if (readCounter != null) {
+            readCounter.increment();
+        }
+    }
+
+    /**
+     * Provides the call site for folded reads of this property, as linked by {@link FoldedReadLinker}. The site is
+     * relinked to the new value whenever the value changes. Properties which need to see every read (for read tracking
+     * or epoch pinning), and arrays which are copied on every read, get a site which reads through this accessor instead.
+     */
+    CallSite linkFoldedRead(MethodType type) throws ReflectiveOperationException
+    {
+        if (this.readCounter != null || this.versions != null || this.arrayType) {
+            final MethodHandle readHandle = MethodHandles.lookup()
+                .findStatic(PropertyAccessor.class, "readThrough", MethodType.methodType(Object.class, WeakReference.class));
+            return new ConstantCallSite(readHandle.bindTo(new WeakReference<>(this)).asType(type));
+        }
+        synchronized (lock) {
+            if (this.foldedReadSite == null) {
+                this.foldedReadSite = new MutableCallSite(constantHandle(type, get()));
+            }
+            return this.foldedReadSite;
+        }
+    }
+
+    private static MethodHandle constantHandle(MethodType type, Object value)
+    {
+        // A null value for a primitive method fails on invocation, as it does when read through the accessor
+        return value == null
+            ? MethodHandles.constant(Object.class, null).asType(type)
+            : MethodHandles.constant(type.returnType(), value);
+    }
+
+    private static Object readThrough(WeakReference<PropertyAccessor<?>> accessorRef)
+    {
+        final PropertyAccessor<?> accessor = accessorRef.get();
+        if (accessor == null) {
+            throw new ConfigException("Config value read after its injector was discarded");
+        }
+        accessor.recordRead();
+        return accessor.get();
     }
 
     @Override
     public T get()
     {
-        return this.propertySubject.toBlocking().first();
+        T value = this.currentValue;
+        if (this.versions != null) {
+            final long pinnedEpoch = this.epochs.getPinnedEpoch();
+            if (pinnedEpoch != ConfigEpochs.NOT_PINNED) {
+                value = this.versions.get(pinnedEpoch);
+            }
+        }
+        return this.arrayType ? ConfigArrays.copy(value) : value;
     }
 
     public Observable<T> getObservable()
     {
-        return this.propertySubject;
+        return this.observable;
+    }
+
+    /**
+     * @return true if anything is subscribed to the property's Observable
+     */
+    public boolean hasSubscribers()
+    {
+        return this.propertySubject.hasObservers();
+    }
+
+    /**
+     * Provides the raw value currently in use, after interceptors and interpolation, as referenced by other configs.
+     *
+     * @return the raw value in use, or empty if there is none.
+     */
+    public Optional<String> getResolvedValue()
+    {
+        return this.activeResolvedValue;
+    }
+
+    /**
+     * Provides the name of the {@link DynamicConfigSource} whose override is currently providing the value.
+     *
+     * @return the name of the winning config source, or empty if the default value is in use.
+     */
+    public Optional<String> getActiveSourceName()
+    {
+        final int overrideIdx = this.activeOverrideIdx;
+        return overrideIdx < 0 ? Optional.empty() : Optional.of(dynamicAccessorNames.get(overrideIdx));
+    }
+
+    /**
+     * Provides the source-specific version of the value currently in use, such as a ZooKeeper zxid or a file
+     * modification time and hash.
+     *
+     * @return the version of the active value, or empty if the default value is in use or the source has no versions.
+     */
+    public Optional<String> getActiveVersion()
+    {
+        return this.activeVersion;
+    }
+
+    /**
+     * Stops listening to the config sources and completes the property's Observable. Accessors for runtime scopes also
+     * release their source subscriptions, so that sources can stop watching the values. The accessor keeps returning
+     * the last value it had.
+     */
+    @Override
+    public void close()
+    {
+        if (!this.closed.compareAndSet(false, true)) {
+            return;
+        }
+        synchronized (lock) {
+            this.subscriptions.forEach(Subscription::unsubscribe);
+        }
+        this.propertySubject.onCompleted();
+        if (this.runtimeScoped) {
+            this.dynamicAccessors.forEach(acc -> acc.releaseRuntimeObservable(this.propertyName));
+        }
+        if (this.provisioning != null) {
+            this.provisioning.onAccessorClosed();
+        }
+        if (this.resourceRegistry != null) {
+            this.resourceRegistry.unregister(this);
+        }
+        if (this.interpolation != null) {
+            this.interpolation.unregister(this.propertyName, this);
+        }
     }
 
     public static <C> PrivateModule module(final PropertyIdentifier propertyIdentifier, final ConfigDescriptor desc)
@@ -203,7 +730,7 @@ public class PropertyAccessor<T> implements Supplier<T>
                 bind(PropertyIdentifier.class).to(Key.get(PropertyIdentifier.class, propertyIdentifier));
 
                 TypeLiteral<PropertyAccessor<C>> accessorType = (TypeLiteral<PropertyAccessor<C>>) TypeLiteral.get(Types.newParameterizedType(PropertyAccessor.class, desc.getConfigType()));
-                bind(Key.get(accessorType, propertyIdentifier)).to(accessorType).in(Scopes.SINGLETON);
+                bind(Key.get(accessorType, propertyIdentifier)).to(accessorType).in(LazySingletonScope.INSTANCE);
                 expose(Key.get(accessorType, propertyIdentifier));
             }
         };
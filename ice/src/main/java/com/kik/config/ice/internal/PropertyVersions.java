@@ -0,0 +1,118 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.internal;
+
+import com.kik.config.ice.ConfigEpochs;
+import com.kik.config.ice.exception.ConfigException;
+import java.util.Arrays;
+
+/**
+ * The recent values of a single config property, each with the {@link ConfigEpochs epoch} at which it was applied.
+ * Readers pinned to an epoch see the newest value applied at or before that epoch.
+ * <br>
+ * Versions are replaced copy-on-write by {@link ConfigEpochs}, which only keeps the versions that pinned readers
+ * may still need, so reading is a single volatile read and a scan of a small array.
+ *
+ * @param <T> the type of the config property
+ */
+public class PropertyVersions<T>
+{
+    private final String propertyName;
+    private volatile Versions versions;
+
+    PropertyVersions(String propertyName, T initialValue, long createdEpoch)
+    {
+        this.propertyName = propertyName;
+        // Nothing is known of the property's value before the epoch it was first used at
+        this.versions = new Versions(new long[]{createdEpoch}, new Object[]{initialValue});
+    }
+
+    /**
+     * Provides the value of the property as of the given epoch.
+     *
+     * @param epoch the epoch being read
+     * @return the newest value applied at or before the epoch
+     * @throws ConfigException if the property was first used after the epoch, so its value at the epoch is unknown
+     */
+    public T get(long epoch)
+    {
+        final Versions current = this.versions;
+        for (int idx = current.epochs.length - 1; idx >= 0; --idx) {
+            if (current.epochs[idx] <= epoch) {
+                return (T) current.values[idx];
+            }
+        }
+        throw new ConfigException("Config {} was first used at epoch {}, after the pinned epoch {}; "
+            + "call ConfigSystem.validateStaticConfiguration() at startup so it is versioned from the start",
+            propertyName, current.epochs[0], epoch);
+    }
+
+    /**
+     * Adds a new version of the property. Intended for use by {@link ConfigEpochs} only, while holding its write lock.
+     *
+     * @param epoch     the epoch the value is applied at; at least the epoch of every existing version
+     * @param value     the new value
+     * @param minPinned the lowest epoch pinned by any reader, or a negative value if no readers are pinned
+     */
+    public void put(long epoch, T value, long minPinned)
+    {
+        final Versions current = this.versions;
+        final int last = current.epochs.length - 1;
+        if (current.epochs[last] == epoch) {
+            // Changed again within the same change set, which no reader can be pinned to yet
+            final Object[] values = current.values.clone();
+            values[last] = value;
+            this.versions = new Versions(current.epochs, values);
+            return;
+        }
+
+        // Keep the version needed by the oldest pinned reader and everything newer. The latest version is always
+        // kept, as a reader may have pinned the current epoch without yet being visible to the writer.
+        int first = last;
+        if (minPinned >= 0) {
+            while (first > 0 && current.epochs[first] > minPinned) {
+                --first;
+            }
+        }
+        final int kept = current.epochs.length - first;
+        final long[] epochs = Arrays.copyOfRange(current.epochs, first, first + kept + 1);
+        final Object[] values = Arrays.copyOfRange(current.values, first, first + kept + 1);
+        epochs[kept] = epoch;
+        values[kept] = value;
+        this.versions = new Versions(epochs, values);
+    }
+
+    /**
+     * @return the number of versions currently kept
+     */
+    int size()
+    {
+        return versions.epochs.length;
+    }
+
+    private static final class Versions
+    {
+        // Ascending epochs, with the value applied at each
+        private final long[] epochs;
+        private final Object[] values;
+
+        Versions(long[] epochs, Object[] values)
+        {
+            this.epochs = epochs;
+            this.values = values;
+        }
+    }
+}
@@ -0,0 +1,385 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Binding;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+import com.google.inject.util.Types;
+import com.kik.config.ice.ConfigSystem;
+import com.kik.config.ice.ScopedConfigFactory;
+import com.kik.config.ice.convert.ConfigValueConverter;
+import com.kik.config.ice.exception.ConfigException;
+import com.kik.config.ice.interceptor.ConfigValueInterceptor;
+import com.kik.config.ice.source.DynamicConfigSource;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.implementation.InvocationHandlerAdapter;
+import net.bytebuddy.matcher.ElementMatchers;
+
+/**
+ * Implementation of {@link ScopedConfigFactory}, intended for use by {@link ConfigSystem} only.
+ * <br>
+ * The config interface is implemented once, by a class which delegates to a per-instance handler. Each scope has its
+ * own handler, which creates a {@link PropertyAccessor} for a value when it is first read. Scopes which have been
+ * neither requested through {@link #get(String)} nor read for the idle timeout are evicted, closing their accessors,
+ * unless something is still subscribed to one of their Observables. Idle scopes are looked for by a background task,
+ * shared by every factory, every half idle timeout, so requests never pay for the sweep. An evicted instance still held
+ * by the application forwards its reads to the current instance of its scope.
+ *
+ * @param <C> the config interface type
+ */
+@Slf4j
+public class RuntimeScopedConfigFactory<C> implements ScopedConfigFactory<C>, AutoCloseable
+{
+    private static final String HANDLER_FIELD_NAME = "scopeHandler$";
+    private static final long MIN_EVICTION_PERIOD_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final ScheduledThreadPoolExecutor evictionExecutor = newEvictionExecutor();
+
+    private final Injector injector;
+    private final Class<C> configInterface;
+    // Unscoped descriptors of the value methods, indexed the same as the accessors of each scope
+    private final List<ConfigDescriptor> templates;
+    private final List<ConstantValuePropertyAccessor> defaultValues;
+    private final List<ConfigValueConverter<?>> converters;
+    // Observable methods map to the index of their associated value method
+    private final Map<Method, Integer> methodIndexes;
+    private final Map<Method, Boolean> methodIsObservable;
+    private final Map<Integer, DynamicConfigSource> dynamicConfigSources;
+    private final Map<Integer, ConfigValueInterceptor> configValueInterceptors;
+    private final Class<? extends C> configImpl;
+    private final Field handlerField;
+    private final ConcurrentMap<String, ScopeEntry<C>> scopes = Maps.newConcurrentMap();
+    private final long idleTimeoutNanos;
+    private final ScheduledFuture<?> evictionFuture;
+
+    public RuntimeScopedConfigFactory(Injector injector, Class<C> configInterface, List<ConfigDescriptor> configDescs, Duration idleTimeout)
+    {
+        this.injector = checkNotNull(injector);
+        this.configInterface = checkNotNull(configInterface);
+        checkNotNull(configDescs);
+        checkArgument(!checkNotNull(idleTimeout).isNegative(), "idleTimeout may not be negative");
+
+        ImmutableList.Builder<ConfigDescriptor> templatesBuilder = ImmutableList.builder();
+        ImmutableList.Builder<ConstantValuePropertyAccessor> defaultValuesBuilder = ImmutableList.builder();
+        ImmutableList.Builder<ConfigValueConverter<?>> convertersBuilder = ImmutableList.builder();
+        ImmutableMap.Builder<Method, Integer> methodIndexesBuilder = ImmutableMap.builder();
+        ImmutableMap.Builder<Method, Boolean> methodIsObservableBuilder = ImmutableMap.builder();
+        int idx = 0;
+        for (ConfigDescriptor desc : configDescs) {
+            if (desc.isObservable()) {
+                continue;
+            }
+            templatesBuilder.add(desc);
+            defaultValuesBuilder.add(getDefaultValue(desc));
+            convertersBuilder.add(getConverter(desc));
+            methodIndexesBuilder.put(desc.getMethod(), idx);
+            methodIsObservableBuilder.put(desc.getMethod(), false);
+            for (ConfigDescriptor obsDesc : configDescs) {
+                if (obsDesc.isObservable() && obsDesc.getMethod().getName().equals(desc.getMethod().getName() + StaticConfigHelper.OBSERVABLE_METHOD_SUFFIX)) {
+                    methodIndexesBuilder.put(obsDesc.getMethod(), idx);
+                    methodIsObservableBuilder.put(obsDesc.getMethod(), true);
+                }
+            }
+            ++idx;
+        }
+        this.templates = templatesBuilder.build();
+        this.defaultValues = defaultValuesBuilder.build();
+        this.converters = convertersBuilder.build();
+        this.methodIndexes = methodIndexesBuilder.build();
+        this.methodIsObservable = methodIsObservableBuilder.build();
+
+        this.dynamicConfigSources = getMapBinding(new TypeLiteral<Map<Integer, DynamicConfigSource>>()
+        {
+        });
+        this.configValueInterceptors = getMapBinding(new TypeLiteral<Map<Integer, ConfigValueInterceptor>>()
+        {
+        });
+
+        // The adapter defines the handler field, which is set for each scope's instance
+        this.configImpl = new ByteBuddy().subclass(configInterface)
+            .method(ElementMatchers.isAbstract())
+            .intercept(InvocationHandlerAdapter.toInstanceField(HANDLER_FIELD_NAME))
+            .make()
+            .load(configInterface.getClassLoader(), GeneratedClassLoading.strategyFor(configInterface))
+            .getLoaded();
+        try {
+            this.handlerField = this.configImpl.getDeclaredField(HANDLER_FIELD_NAME);
+            this.handlerField.setAccessible(true);
+        }
+        catch (NoSuchFieldException | SecurityException ex) {
+            throw new ConfigException("Failed to implement runtime scoped Config {}", configInterface.getName(), ex);
+        }
+
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        final long evictionPeriodNanos = Math.max(this.idleTimeoutNanos / 2, MIN_EVICTION_PERIOD_NANOS);
+        final IdleScopeSweeper sweeper = new IdleScopeSweeper(this);
+        this.evictionFuture = evictionExecutor.scheduleWithFixedDelay(sweeper, evictionPeriodNanos, evictionPeriodNanos, TimeUnit.NANOSECONDS);
+        sweeper.future = this.evictionFuture;
+
+        final Binding<ConfigResourceRegistry> registryBinding = injector.getExistingBinding(Key.get(ConfigResourceRegistry.class));
+        if (registryBinding != null) {
+            registryBinding.getProvider().get().register(this);
+        }
+    }
+
+    private static ScheduledThreadPoolExecutor newEvictionExecutor()
+    {
+        final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder()
+            .setNameFormat("ice-scope-eviction-%d")
+            .setDaemon(true)
+            .build());
+        // Factories which are closed cancel their sweep, which should not stay queued
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    private ConstantValuePropertyAccessor getDefaultValue(ConfigDescriptor desc)
+    {
+        // Use the default of the unscoped config interface if it is installed, so that default value overrides apply
+        final Binding<ConstantValuePropertyAccessor> binding =
+            injector.getExistingBinding(Key.get(ConstantValuePropertyAccessor.class, ConfigSystem.getIdentifier(desc)));
+        return binding == null ? ConstantValuePropertyAccessor.fromStringOpt(desc.getDefaultValue()) : binding.getProvider().get();
+    }
+
+    private ConfigValueConverter<?> getConverter(ConfigDescriptor desc)
+    {
+        TypeLiteral<ConfigValueConverter<?>> converterType =
+            (TypeLiteral<ConfigValueConverter<?>>) TypeLiteral.get(Types.newParameterizedType(ConfigValueConverter.class, desc.getConfigType()));
+        return injector.getInstance(Key.get(converterType));
+    }
+
+    private <V> Map<Integer, V> getMapBinding(TypeLiteral<Map<Integer, V>> mapType)
+    {
+        final Binding<Map<Integer, V>> binding = injector.getExistingBinding(Key.get(mapType));
+        return binding == null ? Collections.emptyMap() : binding.getProvider().get();
+    }
+
+    @Override
+    public C get(String scope)
+    {
+        return getEntry(scope).getInstance();
+    }
+
+    private ScopeEntry<C> getEntry(String scope)
+    {
+        checkNotNull(scope);
+        final ScopeEntry<C> entry = scopes.computeIfAbsent(scope, this::newEntry);
+        entry.getHandler().onAccess();
+        return entry;
+    }
+
+    private ScopeEntry<C> newEntry(String scope)
+    {
+        log.debug("Creating runtime scope {} of Config {}", scope, configInterface.getName());
+        final ScopeHandler handler = new ScopeHandler(scope);
+        try {
+            final C instance = configImpl.newInstance();
+            handlerField.set(instance, handler);
+            return new ScopeEntry<>(instance, handler);
+        }
+        catch (ReflectiveOperationException ex) {
+            throw new ConfigException("Failed to create runtime scope {} of Config {}", scope, configInterface.getName(), ex);
+        }
+    }
+
+    private void evictIdleScopes(long now)
+    {
+        for (ScopeEntry<C> entry : scopes.values()) {
+            final ScopeHandler handler = entry.getHandler();
+            if (now - handler.lastAccessNanos >= idleTimeoutNanos && !handler.hasSubscribers()) {
+                log.debug("Closing idle runtime scope {} of Config {}", handler.scope, configInterface.getName());
+                remove(entry);
+            }
+        }
+    }
+
+    private void remove(ScopeEntry<C> entry)
+    {
+        if (scopes.remove(entry.getHandler().scope, entry)) {
+            entry.getHandler().close();
+        }
+    }
+
+    @Override
+    public void evict(String scope)
+    {
+        final ScopeEntry<C> entry = scopes.get(checkNotNull(scope));
+        if (entry != null) {
+            log.debug("Closing evicted runtime scope {} of Config {}", scope, configInterface.getName());
+            remove(entry);
+        }
+    }
+
+    @Override
+    public long size()
+    {
+        return scopes.size();
+    }
+
+    /**
+     * Stops looking for idle scopes, and evicts all scopes, closing their accessors.
+     */
+    @Override
+    public void close()
+    {
+        evictionFuture.cancel(false);
+        scopes.values().forEach(this::remove);
+    }
+
+    private PropertyAccessor<?> newAccessor(int idx, String scope)
+    {
+        final ConfigDescriptor desc = ConfigSystem.descriptorFactory.withScope(templates.get(idx), scope);
+        return new PropertyAccessor<>(injector, desc, defaultValues.get(idx), (ConfigValueConverter<Object>) converters.get(idx),
+            dynamicConfigSources, configValueInterceptors, true);
+    }
+
+    /**
+     * Periodically evicts the idle scopes of a factory. Only weakly holds the factory, so that a factory which is
+     * discarded without being closed can still be collected, at which point the sweep cancels itself.
+     */
+    private static class IdleScopeSweeper implements Runnable
+    {
+        private final WeakReference<RuntimeScopedConfigFactory<?>> factoryRef;
+        private volatile ScheduledFuture<?> future;
+
+        IdleScopeSweeper(RuntimeScopedConfigFactory<?> factory)
+        {
+            this.factoryRef = new WeakReference<>(factory);
+        }
+
+        @Override
+        public void run()
+        {
+            final RuntimeScopedConfigFactory<?> factory = factoryRef.get();
+            if (factory == null) {
+                if (future != null) {
+                    future.cancel(false);
+                }
+                return;
+            }
+            try {
+                factory.evictIdleScopes(System.nanoTime());
+            }
+            catch (RuntimeException ex) {
+                // Thrown out of a periodic task, this would stop the sweep for good
+                log.warn("Failed to evict idle runtime scopes of Config {}", factory.configInterface.getName(), ex);
+            }
+        }
+    }
+
+    @Value
+    private static class ScopeEntry<C>
+    {
+        private C instance;
+        private RuntimeScopedConfigFactory<C>.ScopeHandler handler;
+    }
+
+    private class ScopeHandler implements InvocationHandler
+    {
+        private final String scope;
+        private final AtomicReferenceArray<PropertyAccessor<?>> accessors;
+        private volatile long lastAccessNanos = System.nanoTime();
+        // Guarded by this
+        private boolean closed = false;
+
+        ScopeHandler(String scope)
+        {
+            this.scope = scope;
+            this.accessors = new AtomicReferenceArray<>(templates.size());
+        }
+
+        void onAccess()
+        {
+            lastAccessNanos = System.nanoTime();
+        }
+
+        boolean hasSubscribers()
+        {
+            for (int idx = 0; idx < accessors.length(); ++idx) {
+                final PropertyAccessor<?> accessor = accessors.get(idx);
+                if (accessor != null && accessor.hasSubscribers()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+        {
+            // Reads keep the scope from being evicted while the application uses an instance it holds on to
+            onAccess();
+            final int idx = methodIndexes.get(method);
+            final Optional<PropertyAccessor<?>> accessorOpt = getAccessor(idx);
+            if (!accessorOpt.isPresent()) {
+                // This scope was evicted while the application held on to its instance
+                return getEntry(scope).getHandler().invoke(proxy, method, args);
+            }
+            return methodIsObservable.get(method) ? accessorOpt.get().getObservable() : accessorOpt.get().get();
+        }
+
+        private Optional<PropertyAccessor<?>> getAccessor(int idx)
+        {
+            final PropertyAccessor<?> accessor = accessors.get(idx);
+            if (accessor != null) {
+                return Optional.of(accessor);
+            }
+            synchronized (this) {
+                if (closed) {
+                    return Optional.empty();
+                }
+                if (accessors.get(idx) == null) {
+                    accessors.set(idx, newAccessor(idx, scope));
+                }
+                return Optional.of(accessors.get(idx));
+            }
+        }
+
+        synchronized void close()
+        {
+            closed = true;
+            for (int idx = 0; idx < accessors.length(); ++idx) {
+                final PropertyAccessor<?> accessor = accessors.getAndSet(idx, null);
+                if (accessor != null) {
+                    accessor.close();
+                }
+            }
+        }
+    }
+}
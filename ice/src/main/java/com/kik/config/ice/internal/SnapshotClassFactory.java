@@ -0,0 +1,207 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import com.google.common.collect.ImmutableList;
+import com.kik.config.ice.exception.ConfigException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.field.FieldDescription;
+import net.bytebuddy.description.modifier.FieldManifestation;
+import net.bytebuddy.description.modifier.Visibility;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.dynamic.scaffold.InstrumentedType;
+import net.bytebuddy.dynamic.scaffold.subclass.ConstructorStrategy;
+import net.bytebuddy.implementation.FieldAccessor;
+import net.bytebuddy.implementation.FixedValue;
+import net.bytebuddy.implementation.Implementation;
+import net.bytebuddy.implementation.MethodCall;
+import net.bytebuddy.implementation.bytecode.ByteCodeAppender;
+import net.bytebuddy.implementation.bytecode.StackManipulation;
+import net.bytebuddy.implementation.bytecode.assign.Assigner;
+import net.bytebuddy.implementation.bytecode.collection.ArrayAccess;
+import net.bytebuddy.implementation.bytecode.constant.IntegerConstant;
+import net.bytebuddy.implementation.bytecode.member.FieldAccess;
+import net.bytebuddy.implementation.bytecode.member.MethodInvocation;
+import net.bytebuddy.implementation.bytecode.member.MethodReturn;
+import net.bytebuddy.implementation.bytecode.member.MethodVariableAccess;
+import net.bytebuddy.matcher.ElementMatchers;
+import rx.Observable;
+
+/**
+ * Generates immutable snapshot implementations of configuration interfaces. A snapshot class has a private final
+ * field for each configuration value, assigned by a constructor taking the values in order, and each configuration
+ * method simply returns its field, or a copy of it for arrays. As a snapshot never changes, Observable methods return an Observable of just the
+ * snapshot's value; see {@link SnapshotPublisher#getObservable()} to observe changes.
+ */
+@Slf4j
+class SnapshotClassFactory
+{
+    private static final String FIELD_PREFIX = "value$";
+    private static final Method OBSERVABLE_JUST;
+
+    static {
+        try {
+            OBSERVABLE_JUST = Observable.class.getMethod("just", Object.class);
+        }
+        catch (NoSuchMethodException ex) {
+            throw new ExceptionInInitializerError(ex);
+        }
+    }
+
+    private SnapshotClassFactory()
+    {
+    }
+
+    /**
+     * Generates a snapshot class for a configuration interface.
+     *
+     * @param <C>             the config interface class
+     * @param configInterface the config interface to implement
+     * @param valueDescs      descriptors of the (non-observable) configuration values, in constructor argument order
+     * @param observableDescs descriptors of the observable methods of the interface
+     * @param constants       fixed values of the constant methods of the interface
+     * @return the constructor of the snapshot class, taking an {@code Object[]} of values
+     */
+    static <C> Constructor<? extends C> snapshotConstructor(
+        Class<C> configInterface,
+        List<ConfigDescriptor> valueDescs,
+        List<ConfigDescriptor> observableDescs,
+        Map<Method, Object> constants)
+    {
+        checkNotNull(configInterface);
+        DynamicType.Builder<C> typeBuilder = new ByteBuddy()
+            .subclass(configInterface, ConstructorStrategy.Default.NO_CONSTRUCTORS);
+
+        ImmutableList.Builder<String> fieldNames = ImmutableList.builder();
+        for (int idx = 0; idx < valueDescs.size(); ++idx) {
+            final Method method = valueDescs.get(idx).getMethod();
+            final String fieldName = FIELD_PREFIX + idx;
+            fieldNames.add(fieldName);
+            typeBuilder = typeBuilder
+                .defineField(fieldName, method.getGenericReturnType(), Visibility.PRIVATE, FieldManifestation.FINAL)
+                .method(ElementMatchers.is(method))
+                .intercept(method.getReturnType().isArray() ? ConfigArrays.copyOfField(fieldName) : FieldAccessor.ofField(fieldName));
+        }
+        for (ConfigDescriptor desc : observableDescs) {
+            typeBuilder = typeBuilder.method(ElementMatchers.is(desc.getMethod()))
+                .intercept(observableImplementation(desc, valueDescs, constants));
+        }
+        for (Map.Entry<Method, Object> entry : constants.entrySet()) {
+            typeBuilder = typeBuilder.method(ElementMatchers.is(entry.getKey()))
+                .intercept(entry.getValue() == null ? FixedValue.nullValue()
+                    : entry.getKey().getReturnType().isArray() ? ConfigArrays.copyOfValue(entry.getValue()) : FixedValue.value(entry.getValue()));
+        }
+        typeBuilder = typeBuilder.defineConstructor(Visibility.PUBLIC)
+            .withParameters(Object[].class)
+            .intercept(new ConstructorImplementation(fieldNames.build()));
+
+        Class<? extends C> snapshotClass = typeBuilder.make()
+            .load(configInterface.getClassLoader(), GeneratedClassLoading.strategyFor(configInterface))
+            .getLoaded();
+        try {
+            Constructor<? extends C> constructor = snapshotClass.getConstructor(Object[].class);
+            constructor.setAccessible(true);
+            log.debug("Generated snapshot class {} with {} values", snapshotClass.getName(), valueDescs.size());
+            return constructor;
+        }
+        catch (NoSuchMethodException | SecurityException ex) {
+            throw new ConfigException("Failed to generate snapshot implementation of Config {}", configInterface.getName(), ex);
+        }
+    }
+
+    /**
+     * Implements an Observable method as {@code Observable.just(value)}, with the value of its associated config method.
+     */
+    private static Implementation observableImplementation(ConfigDescriptor observableDesc, List<ConfigDescriptor> valueDescs, Map<Method, Object> constants)
+    {
+        final String methodName = observableDesc.getMethod().getName();
+        final String valueMethodName = methodName.substring(0, methodName.length() - StaticConfigHelper.OBSERVABLE_METHOD_SUFFIX.length());
+        for (int idx = 0; idx < valueDescs.size(); ++idx) {
+            if (valueDescs.get(idx).getMethod().getName().equals(valueMethodName)) {
+                if (valueDescs.get(idx).getMethod().getReturnType().isArray()) {
+                    return ConfigArrays.justCopyOfField(FIELD_PREFIX + idx);
+                }
+                return MethodCall.invoke(OBSERVABLE_JUST)
+                    .withField(FIELD_PREFIX + idx)
+                    .withAssigner(Assigner.DEFAULT, Assigner.Typing.DYNAMIC);
+            }
+        }
+        for (Map.Entry<Method, Object> entry : constants.entrySet()) {
+            if (entry.getKey().getName().equals(valueMethodName)) {
+                if (entry.getKey().getReturnType().isArray()) {
+                    return ConfigArrays.justCopyOfValue(entry.getValue());
+                }
+                return FixedValue.value(Observable.just(entry.getValue()));
+            }
+        }
+        throw new ConfigException("No config method found for Observable method {}", methodName);
+    }
+
+    /**
+     * Calls {@code Object()} and then assigns each field from the matching element of the {@code Object[]} argument,
+     * casting or unboxing it to the field type.
+     */
+    private static class ConstructorImplementation implements Implementation
+    {
+        private final List<String> fieldNames;
+
+        ConstructorImplementation(List<String> fieldNames)
+        {
+            this.fieldNames = fieldNames;
+        }
+
+        @Override
+        public InstrumentedType prepare(InstrumentedType instrumentedType)
+        {
+            return instrumentedType;
+        }
+
+        @Override
+        public ByteCodeAppender appender(Target target)
+        {
+            return (methodVisitor, context, instrumentedMethod) -> {
+                final TypeDescription instrumentedType = target.getInstrumentedType();
+                final ImmutableList.Builder<StackManipulation> steps = ImmutableList.builder();
+                steps.add(MethodVariableAccess.REFERENCE.loadOffset(0));
+                steps.add(MethodInvocation.invoke(new TypeDescription.ForLoadedType(Object.class)
+                    .getDeclaredMethods()
+                    .filter(ElementMatchers.isConstructor().and(ElementMatchers.takesArguments(0)))
+                    .getOnly()));
+                for (int idx = 0; idx < fieldNames.size(); ++idx) {
+                    final FieldDescription field = instrumentedType.getDeclaredFields()
+                        .filter(ElementMatchers.named(fieldNames.get(idx)))
+                        .getOnly();
+                    steps.add(MethodVariableAccess.REFERENCE.loadOffset(0));
+                    steps.add(MethodVariableAccess.REFERENCE.loadOffset(1));
+                    steps.add(IntegerConstant.forValue(idx));
+                    steps.add(ArrayAccess.REFERENCE.load());
+                    steps.add(Assigner.DEFAULT.assign(TypeDescription.Generic.OBJECT, field.getType(), Assigner.Typing.DYNAMIC));
+                    steps.add(FieldAccess.forField(field).putter());
+                }
+                steps.add(MethodReturn.VOID);
+                final StackManipulation.Size size = new StackManipulation.Compound(steps.build()).apply(methodVisitor, context);
+                return new ByteCodeAppender.Size(size.getMaximalSize(), instrumentedMethod.getStackSize());
+            };
+        }
+    }
+}
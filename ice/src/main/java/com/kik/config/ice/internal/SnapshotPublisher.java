@@ -0,0 +1,146 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import com.google.common.collect.ImmutableList;
+import com.kik.config.ice.exception.ConfigException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.List;
+import java.util.Objects;
+import lombok.extern.slf4j.Slf4j;
+import rx.Observable;
+import rx.Subscription;
+import rx.subjects.BehaviorSubject;
+import rx.subjects.Subject;
+
+/**
+ * Publishes immutable snapshots of a configuration interface. Every snapshot holds the values of all configuration
+ * methods of the interface at one point in time, so values read from the same snapshot are always consistent with
+ * each other. Reading {@link #get()} is a single volatile read, and reading values from the snapshot are plain field
+ * reads.
+ * <br>
+ * A new snapshot is built and published whenever any value of the interface changes. Values changed together by one
+ * change set of a config source (eg: a reload of a config file, or a batch of debug overrides) are published as a
+ * single snapshot, once the whole change set has been applied.
+ *
+ * @param <C> the config interface type
+ */
+@Slf4j
+public class SnapshotPublisher<C> implements AutoCloseable
+{
+    private final Class<C> configInterface;
+    private final Constructor<? extends C> snapshotConstructor;
+    private final Subject<C, C> snapshotSubject;
+    private final List<Subscription> subscriptions;
+    private final Object lock = new Object();
+
+    // Guarded by lock
+    private final Object[] values;
+    private boolean initialized = false;
+    private boolean changed = false;
+    private final Runnable publishAction = this::publish;
+
+    private volatile C current;
+
+    SnapshotPublisher(Class<C> configInterface, Constructor<? extends C> snapshotConstructor, List<PropertyAccessor<?>> accessors)
+    {
+        this.configInterface = checkNotNull(configInterface);
+        this.snapshotConstructor = checkNotNull(snapshotConstructor);
+        this.values = new Object[accessors.size()];
+
+        synchronized (lock) {
+            // Accessors replay their current value on subscription, filling in every value before the first snapshot
+            ImmutableList.Builder<Subscription> subscriptionsBuilder = ImmutableList.builder();
+            for (int idx = 0; idx < accessors.size(); ++idx) {
+                final int valueIdx = idx;
+                subscriptionsBuilder.add(accessors.get(idx).getObservable().subscribe(value -> onValue(valueIdx, value)));
+            }
+            this.subscriptions = subscriptionsBuilder.build();
+            this.current = newSnapshot();
+            this.snapshotSubject = BehaviorSubject.create(this.current).toSerialized();
+            this.initialized = true;
+        }
+    }
+
+    private void onValue(int idx, Object value)
+    {
+        synchronized (lock) {
+            if (!initialized) {
+                values[idx] = value;
+                return;
+            }
+            if (Objects.deepEquals(values[idx], value)) {
+                return;
+            }
+            values[idx] = value;
+            changed = true;
+        }
+        ChangeSets.runAfterChangeSet(publishAction);
+    }
+
+    private void publish()
+    {
+        synchronized (lock) {
+            if (!changed) {
+                return;
+            }
+            changed = false;
+            final C snapshot = newSnapshot();
+            current = snapshot;
+            log.trace("Published new snapshot of {}", configInterface.getName());
+            snapshotSubject.onNext(snapshot);
+        }
+    }
+
+    private C newSnapshot()
+    {
+        try {
+            // The snapshot copies the values into its own final fields
+            return snapshotConstructor.newInstance((Object) values);
+        }
+        catch (InstantiationException | IllegalAccessException | InvocationTargetException ex) {
+            throw new ConfigException("Failed to create snapshot of Config {}", configInterface.getName(), ex);
+        }
+    }
+
+    /**
+     * @return the latest snapshot of the config interface
+     */
+    public C get()
+    {
+        return current;
+    }
+
+    /**
+     * @return an Observable which emits the latest snapshot on subscription, and each new snapshot after that
+     */
+    public Observable<C> getObservable()
+    {
+        return snapshotSubject;
+    }
+
+    /**
+     * Stops publishing snapshots, and completes the Observable. {@link #get()} keeps returning the last snapshot.
+     */
+    @Override
+    public void close()
+    {
+        subscriptions.forEach(Subscription::unsubscribe);
+        snapshotSubject.onCompleted();
+    }
+}
@@ -16,7 +16,9 @@
 package com.kik.config.ice.internal;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import com.kik.config.ice.annotations.Constant;
 import com.kik.config.ice.annotations.DefaultValue;
+import com.kik.config.ice.annotations.Derived;
 import com.kik.config.ice.annotations.NoDefaultValue;
 import java.lang.reflect.Method;
 import java.util.Arrays;
@@ -65,6 +67,10 @@ public class StaticConfigHelper
          * Method returning Observable found with no matching configuration method.
          */
         OBSERVABLE_WITH_NO_MATCHING_CONFIG_METHOD,
+        /**
+         * Method annotated with {@link Derived} is not a default method.
+         */
+        DERIVED_WITHOUT_IMPLEMENTATION,
         /**
          * Error occurred while validating the method.
          */
@@ -82,9 +88,17 @@ public class StaticConfigHelper
     public static MethodValidationState isValidConfigInterfaceMethod(Method method)
     {
         if (method.isDefault()) {
+            if (isDerived(method) && (method.getParameterCount() > 0 || method.getReturnType() == void.class)) {
+                log.warn("Derived method {} may not have parameters or return void", method.getName());
+                return MethodValidationState.BAD_SIGNATURE;
+            }
             log.debug("Method {} found to be a default method.", method.getName());
             return MethodValidationState.IS_DEFAULT;
         }
+        if (method.isAnnotationPresent(Derived.class)) {
+            log.warn("Method {} is annotated with @Derived, but is not a default method", method.getName());
+            return MethodValidationState.DERIVED_WITHOUT_IMPLEMENTATION;
+        }
         if (method.getParameterCount() > 0) {
             log.warn("Method {} may not have parameters, but found to have {}", method.getName(), method.getParameterCount());
             return MethodValidationState.BAD_SIGNATURE;
@@ -160,6 +174,44 @@ public class StaticConfigHelper
         return MethodValidationState.OK;
     }
 
+    /**
+     * Checks whether a method of a config interface is a default method whose value is derived from other config
+     * methods, marked {@link Derived}.
+     *
+     * @param method a method of a config interface
+     * @return true if the method's value is derived
+     */
+    public static boolean isDerived(Method method)
+    {
+        checkNotNull(method);
+        return method.isDefault() && method.isAnnotationPresent(Derived.class);
+    }
+
+    /**
+     * Checks whether a config method is a deploy-time constant, marked {@link Constant} on the method or its interface.
+     * Observable methods are constant when their associated config method is.
+     *
+     * @param method a method of a config interface
+     * @return true if the method's value is constant
+     */
+    public static boolean isConstant(Method method)
+    {
+        checkNotNull(method);
+        if (method.getDeclaringClass().isAnnotationPresent(Constant.class)) {
+            return true;
+        }
+        if (Observable.class.isAssignableFrom(method.getReturnType()) && method.getName().endsWith(OBSERVABLE_METHOD_SUFFIX)) {
+            final String otherMethodName = method.getName().substring(0, method.getName().length() - OBSERVABLE_METHOD_SUFFIX.length());
+            try {
+                return method.getDeclaringClass().getMethod(otherMethodName).isAnnotationPresent(Constant.class);
+            }
+            catch (NoSuchMethodException ex) {
+                return false;
+            }
+        }
+        return method.isAnnotationPresent(Constant.class);
+    }
+
     /**
      * Validates that a given config interface is valid. NOTE that this does not validate the methods, which needs
      * to be done with separate calls to {@link #isValidConfigInterfaceMethod(java.lang.reflect.Method) }.
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.metrics;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Binder;
+import com.google.inject.TypeLiteral;
+import com.google.inject.multibindings.Multibinder;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * {@link ConfigMetrics} which records to several implementations, so that more than one can be installed together
+ * (eg: {@link CountingConfigMetrics} and Java Flight Recorder events). Implementations are bound into a set with
+ * {@link #addBinding(Binder, Class)}, and the config system records to all of them.
+ */
+public final class CompositeConfigMetrics implements ConfigMetrics
+{
+    /**
+     * The set of bound implementations.
+     */
+    public static final TypeLiteral<Set<ConfigMetrics>> SET_TYPE = new TypeLiteral<Set<ConfigMetrics>>()
+    {
+    };
+
+    private final List<ConfigMetrics> metrics;
+
+    private CompositeConfigMetrics(List<ConfigMetrics> metrics)
+    {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Adds an implementation to the set of bound implementations. Intended for use by the modules of implementations.
+     *
+     * @param binder      the binder of the module
+     * @param metricsType the implementation to add
+     */
+    public static void addBinding(Binder binder, Class<? extends ConfigMetrics> metricsType)
+    {
+        Multibinder.newSetBinder(binder, ConfigMetrics.class).addBinding().to(metricsType);
+    }
+
+    /**
+     * Provides the metrics to record to, skipping disabled implementations.
+     *
+     * @param metrics the bound implementations
+     * @return {@link NoopConfigMetrics#INSTANCE} if none is enabled, the implementation if only one is, or a composite
+     */
+    public static ConfigMetrics of(Collection<? extends ConfigMetrics> metrics)
+    {
+        final List<ConfigMetrics> enabled = checkNotNull(metrics).stream()
+            .filter(ConfigMetrics::isEnabled)
+            .collect(toList());
+        if (enabled.isEmpty()) {
+            return NoopConfigMetrics.INSTANCE;
+        }
+        return enabled.size() == 1 ? enabled.get(0) : new CompositeConfigMetrics(ImmutableList.copyOf(enabled));
+    }
+
+    @Override
+    public void onSourceEvent(String sourceName, String configName, boolean changed)
+    {
+        for (ConfigMetrics metric : metrics) {
+            metric.onSourceEvent(sourceName, configName, changed);
+        }
+    }
+
+    @Override
+    public void onConversion(String configName, long conversionNanos, boolean success)
+    {
+        for (ConfigMetrics metric : metrics) {
+            metric.onConversion(configName, conversionNanos, success);
+        }
+    }
+
+    @Override
+    public void onPropertyEmit(String configName, String sourceName, Object oldValue, Object newValue, long conversionNanos, long subscriberNanos)
+    {
+        for (ConfigMetrics metric : metrics) {
+            metric.onPropertyEmit(configName, sourceName, oldValue, newValue, conversionNanos, subscriberNanos);
+        }
+    }
+
+    @Override
+    public void onReload(String sourceName, long reloadNanos, int keyCount, int changedCount, boolean success)
+    {
+        for (ConfigMetrics metric : metrics) {
+            metric.onReload(sourceName, reloadNanos, keyCount, changedCount, success);
+        }
+    }
+
+    @Override
+    public void onPropagation(String sourceName, String configName, long latencyMillis)
+    {
+        for (ConfigMetrics metric : metrics) {
+            metric.onPropagation(sourceName, configName, latencyMillis);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.metrics;
+
+/**
+ * Instrumentation hooks called by the config system as values flow from config sources to config interfaces.
+ * <br>
+ * Install an implementation of this interface (eg: via {@link CountingConfigMetrics#module()}) to enable
+ * instrumentation. Implementations are bound into a set with {@link CompositeConfigMetrics#addBinding}, so several can
+ * be installed together. When nothing is bound, the config system uses {@link NoopConfigMetrics} and skips all
+ * timing, so there is no overhead.
+ * <br>
+ * Implementations are called on the threads which deliver config changes, and should be cheap and non-blocking.
+ */
+public interface ConfigMetrics
+{
+    /**
+     * Called when a config source receives a value for a config key.
+     *
+     * @param sourceName the name of the config source
+     * @param configName the full configuration name
+     * @param changed    true if the value differed from the previous value and was emitted to subscribers
+     */
+    void onSourceEvent(String sourceName, String configName, boolean changed);
+
+    /**
+     * Called when a config value has been intercepted and converted to the config type.
+     *
+     * @param configName      the full configuration name
+     * @param conversionNanos time spent applying interceptors and the value converter, in nanoseconds
+     * @param success         false if an interceptor or the converter threw an exception
+     */
+    void onConversion(String configName, long conversionNanos, boolean success);
+
+    /**
+     * Called when a new active value is emitted for a config property.
+     *
+     * @param configName      the full configuration name
+     * @param sourceName      the name of the config source now providing the value, or null if the default value is
+     *                        now in use
+     * @param oldValue        the previously active value
+     * @param newValue        the newly active value
+     * @param conversionNanos time spent converting the change which caused the emission, in nanoseconds
+     * @param subscriberNanos time spent in subscriber callbacks for the new value, in nanoseconds
+     */
+    void onPropertyEmit(String configName, String sourceName, Object oldValue, Object newValue, long conversionNanos, long subscriberNanos);
+
+    /**
+     * Called when a config source finishes a full reload of its values (eg: re-reading a config file).
+     *
+     * @param sourceName   the name of the config source
+     * @param reloadNanos  time taken by the reload, in nanoseconds
+     * @param keyCount     number of config keys processed by the reload
+     * @param changedCount number of config keys whose value changed
+     * @param success      false if the reload failed
+     */
+    void onReload(String sourceName, long reloadNanos, int keyCount, int changedCount, boolean success);
+
+    /**
+     * Called when a config property receives a change which carries the time it was made in the config source. Values
+     * replayed to a property when it is first used are not reported.
+     *
+     * @param sourceName    the name of the config source
+     * @param configName    the full configuration name
+     * @param latencyMillis time from the change in the config source until it was applied, in milliseconds
+     */
+    default void onPropagation(String sourceName, String configName, long latencyMillis)
+    {
+    }
+
+    /**
+     * Determines if the config system should call this instance at all. Timing measurements are skipped entirely when
+     * this returns false.
+     *
+     * @return true if this instance records metrics
+     */
+    default boolean isEnabled()
+    {
+        return true;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.metrics;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.AbstractModule;
+import com.google.inject.Module;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts reads of each config property made through config interfaces, to find hot and unused configuration.
+ * <br>
+ * Read tracking is disabled unless {@link #module()} is installed. Each property gets its own striped
+ * {@link LongAdder}, which is looked up once when the property is first used, so recording a read is a single
+ * uncontended increment. Results are available from {@link com.kik.config.ice.ConfigSystem}.
+ */
+public class ConfigReadTracker
+{
+    private final ConcurrentMap<String, LongAdder> readCounters = new ConcurrentHashMap<>();
+    private final long startNanos = System.nanoTime();
+
+    // Private so Guice cannot create an instance unless read tracking was explicitly enabled via module()
+    private ConfigReadTracker()
+    {
+    }
+
+    /**
+     * Provides the counter to increment for each read of the given property.
+     *
+     * @param configName the full configuration name
+     * @return the read counter for the property
+     */
+    public LongAdder getCounter(String configName)
+    {
+        return readCounters.computeIfAbsent(configName, key -> new LongAdder());
+    }
+
+    /**
+     * @return number of reads since startup for each property which has been used, keyed by config name
+     */
+    public Map<String, Long> getReadCounts()
+    {
+        ImmutableMap.Builder<String, Long> builder = ImmutableMap.builder();
+        readCounters.keySet().stream().sorted().forEach(key -> builder.put(key, readCounters.get(key).sum()));
+        return builder.build();
+    }
+
+    /**
+     * @return time elapsed since read tracking started, in seconds
+     */
+    public double getTrackedSeconds()
+    {
+        return (System.nanoTime() - startNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+
+    public static Module module()
+    {
+        return new AbstractModule()
+        {
+            @Override
+            protected void configure()
+            {
+                bind(ConfigReadTracker.class).toInstance(new ConfigReadTracker());
+            }
+        };
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.metrics;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.AbstractModule;
+import com.google.inject.Module;
+import com.google.inject.Singleton;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * {@link ConfigMetrics} implementation which keeps in-memory counters and timers, keyed by source name or config
+ * name.
+ * <br>
+ * Counters are striped {@link LongAdder}s, so recording does not contend between threads, and does not allocate once
+ * the counter for a given key exists.
+ */
+@Singleton
+public class CountingConfigMetrics implements ConfigMetrics
+{
+    private final ConcurrentMap<String, LongAdder> sourceEventCounts = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> sourceChangeCounts = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> propertyEmitCounts = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Timer> conversionTimers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Timer> subscriberTimers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Timer> reloadTimers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Histogram> propagationHistograms = new ConcurrentHashMap<>();
+
+    @Override
+    public void onSourceEvent(String sourceName, String configName, boolean changed)
+    {
+        lookup(sourceEventCounts, sourceName, key -> new LongAdder()).increment();
+        if (changed) {
+            lookup(sourceChangeCounts, sourceName, key -> new LongAdder()).increment();
+        }
+    }
+
+    @Override
+    public void onConversion(String configName, long conversionNanos, boolean success)
+    {
+        lookup(conversionTimers, configName, key -> new Timer()).record(conversionNanos, success);
+    }
+
+    @Override
+    public void onPropertyEmit(String configName, String sourceName, Object oldValue, Object newValue, long conversionNanos, long subscriberNanos)
+    {
+        lookup(propertyEmitCounts, configName, key -> new LongAdder()).increment();
+        lookup(subscriberTimers, configName, key -> new Timer()).record(subscriberNanos, true);
+    }
+
+    @Override
+    public void onReload(String sourceName, long reloadNanos, int keyCount, int changedCount, boolean success)
+    {
+        lookup(reloadTimers, sourceName, key -> new Timer()).record(reloadNanos, success);
+    }
+
+    @Override
+    public void onPropagation(String sourceName, String configName, long latencyMillis)
+    {
+        lookup(propagationHistograms, sourceName, key -> new Histogram()).record(latencyMillis);
+    }
+
+    /**
+     * @return number of values received by each config source, keyed by source name
+     */
+    public Map<String, Long> getSourceEventCounts()
+    {
+        return countSnapshot(sourceEventCounts);
+    }
+
+    /**
+     * @return number of values received by each config source which changed a value, keyed by source name
+     */
+    public Map<String, Long> getSourceChangeCounts()
+    {
+        return countSnapshot(sourceChangeCounts);
+    }
+
+    /**
+     * @return number of new active values emitted for each property, keyed by config name
+     */
+    public Map<String, Long> getPropertyEmitCounts()
+    {
+        return countSnapshot(propertyEmitCounts);
+    }
+
+    /**
+     * @return interceptor and converter timings for each property, keyed by config name
+     */
+    public Map<String, TimerSnapshot> getConversionTimes()
+    {
+        return timerSnapshot(conversionTimers);
+    }
+
+    /**
+     * @return subscriber callback timings for each property, keyed by config name
+     */
+    public Map<String, TimerSnapshot> getSubscriberCallbackTimes()
+    {
+        return timerSnapshot(subscriberTimers);
+    }
+
+    /**
+     * @return reload timings for each config source, keyed by source name
+     */
+    public Map<String, TimerSnapshot> getReloadTimes()
+    {
+        return timerSnapshot(reloadTimers);
+    }
+
+    /**
+     * @return latency from a change in a config source until it was applied, keyed by source name
+     */
+    public Map<String, HistogramSnapshot> getPropagationLatencies()
+    {
+        ImmutableMap.Builder<String, HistogramSnapshot> builder = ImmutableMap.builder();
+        propagationHistograms.keySet().stream().sorted().forEach(key -> builder.put(key, propagationHistograms.get(key).snapshot()));
+        return builder.build();
+    }
+
+    private static <V> V lookup(ConcurrentMap<String, V> map, String key, Function<String, V> factory)
+    {
+        // get() first, as computeIfAbsent locks even when the key is present
+        V value = map.get(key);
+        return value != null ? value : map.computeIfAbsent(key, factory);
+    }
+
+    private static Map<String, Long> countSnapshot(ConcurrentMap<String, LongAdder> counters)
+    {
+        ImmutableMap.Builder<String, Long> builder = ImmutableMap.builder();
+        counters.keySet().stream().sorted().forEach(key -> builder.put(key, counters.get(key).sum()));
+        return builder.build();
+    }
+
+    private static Map<String, TimerSnapshot> timerSnapshot(ConcurrentMap<String, Timer> timers)
+    {
+        ImmutableMap.Builder<String, TimerSnapshot> builder = ImmutableMap.builder();
+        timers.keySet().stream().sorted().forEach(key -> builder.put(key, timers.get(key).snapshot()));
+        return builder.build();
+    }
+
+    private static final class Timer
+    {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder failureCount = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+
+        void record(long nanos, boolean success)
+        {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            if (!success) {
+                failureCount.increment();
+            }
+        }
+
+        TimerSnapshot snapshot()
+        {
+            return new TimerSnapshot(count.sum(), failureCount.sum(), totalNanos.sum(), maxNanos.get());
+        }
+    }
+
+    /**
+     * Histogram with power-of-two bucket boundaries. Bucket 0 holds values of 0, and bucket i holds values in
+     * [2^(i-1), 2^i).
+     */
+    private static final class Histogram
+    {
+        private static final int BUCKET_COUNT = 64;
+
+        private final LongAdder[] buckets = new LongAdder[BUCKET_COUNT];
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+        Histogram()
+        {
+            for (int i = 0; i < BUCKET_COUNT; ++i) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void record(long value)
+        {
+            // Clock differences between hosts can produce negative latencies; count them as zero
+            final long clamped = Math.max(0L, value);
+            buckets[BUCKET_COUNT - Long.numberOfLeadingZeros(clamped)].increment();
+            max.accumulate(clamped);
+        }
+
+        HistogramSnapshot snapshot()
+        {
+            final long[] counts = new long[BUCKET_COUNT];
+            long total = 0L;
+            for (int i = 0; i < BUCKET_COUNT; ++i) {
+                counts[i] = buckets[i].sum();
+                total += counts[i];
+            }
+            final long maxValue = max.get();
+            return new HistogramSnapshot(total, maxValue,
+                percentile(counts, total, maxValue, 0.50),
+                percentile(counts, total, maxValue, 0.90),
+                percentile(counts, total, maxValue, 0.99));
+        }
+
+        /**
+         * @return the upper bound of the bucket containing the given percentile, capped at the maximum value seen
+         */
+        private static long percentile(long[] counts, long total, long maxValue, double percentile)
+        {
+            final long rank = (long) Math.ceil(total * percentile);
+            long seen = 0L;
+            for (int i = 0; i < BUCKET_COUNT; ++i) {
+                seen += counts[i];
+                if (seen >= rank && seen > 0L) {
+                    final long upperBound = i == 0 ? 0L : (i >= 63 ? Long.MAX_VALUE : (1L << i) - 1);
+                    return Math.min(upperBound, maxValue);
+                }
+            }
+            return 0L;
+        }
+    }
+
+    public static Module module()
+    {
+        return new AbstractModule()
+        {
+            @Override
+            protected void configure()
+            {
+                bind(CountingConfigMetrics.class);
+                CompositeConfigMetrics.addBinding(binder(), CountingConfigMetrics.class);
+            }
+        };
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.metrics;
+
+/**
+ * {@link ConfigMetrics} implementation used when no metrics are bound. It records nothing, and reports itself as
+ * disabled so that callers skip timing measurements.
+ */
+public final class NoopConfigMetrics implements ConfigMetrics
+{
+    public static final NoopConfigMetrics INSTANCE = new NoopConfigMetrics();
+
+    private NoopConfigMetrics()
+    {
+    }
+
+    @Override
+    public void onSourceEvent(String sourceName, String configName, boolean changed)
+    {
+    }
+
+    @Override
+    public void onConversion(String configName, long conversionNanos, boolean success)
+    {
+    }
+
+    @Override
+    public void onPropertyEmit(String configName, String sourceName, Object oldValue, Object newValue, long conversionNanos, long subscriberNanos)
+    {
+    }
+
+    @Override
+    public void onReload(String sourceName, long reloadNanos, int keyCount, int changedCount, boolean success)
+    {
+    }
+
+    @Override
+    public boolean isEnabled()
+    {
+        return false;
+    }
+}
@@ -19,15 +19,29 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
+import com.google.inject.Inject;
+import com.kik.config.ice.ConfigEpochs;
 import com.kik.config.ice.exception.ConfigException;
+import com.kik.config.ice.internal.ChangeSets;
 import com.kik.config.ice.internal.ConfigChangeEvent;
+import com.kik.config.ice.interceptor.ConfigValueInterceptor;
 import com.kik.config.ice.internal.ConfigDescriptor;
+import com.kik.config.ice.internal.ConfigResourceRegistry;
+import com.kik.config.ice.metrics.CompositeConfigMetrics;
+import com.kik.config.ice.metrics.ConfigMetrics;
+import com.kik.config.ice.metrics.NoopConfigMetrics;
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collector;
+import static java.util.stream.Collectors.toList;
 import lombok.extern.slf4j.Slf4j;
 import rx.Observable;
 import rx.subjects.BehaviorSubject;
@@ -37,11 +51,25 @@ import rx.subjects.Subject;
  * Base class that implements much of the shared plumbing for all DynamicConfigSource implementations
  */
 @Slf4j
-public abstract class AbstractDynamicConfigSource implements DynamicConfigSource
+public abstract class AbstractDynamicConfigSource implements DynamicConfigSource, Closeable
 {
     protected final ImmutableList<ConfigDescriptor> configDescriptors;
     protected final ConcurrentMap<String, Optional<String>> lastEmittedValues;
+    // Source version of the last event for each key, for sources which provide versions
+    private final ConcurrentMap<String, Optional<String>> lastEmittedVersions = Maps.newConcurrentMap();
     protected final ImmutableMap<String, Subject<ConfigChangeEvent<String>, ConfigChangeEvent<String>>> subjectMap;
+    // Subjects of config values only known at runtime, created on first use
+    protected final ConcurrentMap<String, Subject<ConfigChangeEvent<String>, ConfigChangeEvent<String>>> runtimeSubjectMap = Maps.newConcurrentMap();
+    // Guarded by runtimeLock. Number of unreleased uses of each runtime subject.
+    private final Map<String, Integer> runtimeSubjectUses = Maps.newHashMap();
+    private final Object runtimeLock = new Object();
+
+    // Set during injection, before the source is used
+    protected ConfigMetrics metrics = NoopConfigMetrics.INSTANCE;
+    protected boolean metricsEnabled = false;
+    private String metricsSourceName;
+    private Collection<ConfigValueInterceptor> configValueInterceptors = Collections.emptyList();
+    private ConfigEpochs epochs;
 
     protected AbstractDynamicConfigSource(Collection<ConfigDescriptor> configDescriptors)
     {
@@ -72,6 +100,118 @@ public abstract class AbstractDynamicConfigSource implements DynamicConfigSource
         log.debug("Finished constructing Rx.Subjects for {} configuration keys", configDescriptors.size());
     }
 
+    /**
+     * Sets the {@link ConfigMetrics} used to instrument this source, if any are bound.
+     *
+     * @param metrics the metrics implementations to record events with
+     */
+    @Inject(optional = true)
+    protected void setConfigMetrics(Set<ConfigMetrics> metrics)
+    {
+        this.metrics = CompositeConfigMetrics.of(metrics);
+        this.metricsEnabled = this.metrics.isEnabled();
+        this.metricsSourceName = getName();
+    }
+
+    /**
+     * Sets the interceptors which are given the chance to prepare each change set, if any are bound.
+     *
+     * @param interceptors the bound interceptors, keyed by priority
+     */
+    @Inject(optional = true)
+    protected void setConfigValueInterceptors(Map<Integer, ConfigValueInterceptor> interceptors)
+    {
+        this.configValueInterceptors = ImmutableList.copyOf(checkNotNull(interceptors).values());
+    }
+
+    /**
+     * Sets the {@link ConfigEpochs} used to apply change sets as a single epoch, if epochs are enabled.
+     *
+     * @param epochs the config epochs
+     */
+    @Inject(optional = true)
+    protected void setConfigEpochs(ConfigEpochs epochs)
+    {
+        this.epochs = checkNotNull(epochs);
+    }
+
+    /**
+     * Registers this source to be closed with the config system, if the config system tracks its resources.
+     *
+     * @param resourceRegistry the registry of the config system's resources
+     */
+    @Inject(optional = true)
+    protected void setConfigResourceRegistry(ConfigResourceRegistry resourceRegistry)
+    {
+        checkNotNull(resourceRegistry).register(this);
+    }
+
+    /**
+     * Completes the Observables of all config values. Sources which hold other resources, such as threads or
+     * connections, override this to release them as well.
+     *
+     * @throws IOException if a resource of the source failed to close
+     */
+    @Override
+    public void close() throws IOException
+    {
+        subjectMap.values().forEach(Subject::onCompleted);
+        final List<Subject<ConfigChangeEvent<String>, ConfigChangeEvent<String>>> runtimeSubjects;
+        synchronized (runtimeLock) {
+            runtimeSubjects = ImmutableList.copyOf(runtimeSubjectMap.values());
+            runtimeSubjectMap.clear();
+            runtimeSubjectUses.clear();
+        }
+        runtimeSubjects.forEach(Subject::onCompleted);
+    }
+
+    /**
+     * Runs an action which emits the values of a change set, so that they are all applied in a single
+     * {@link ConfigEpochs epoch} if epochs are enabled, and snapshots of config interfaces are only published once the
+     * whole change set is applied.
+     *
+     * @param emitAction emits the changed values
+     */
+    protected void emitChangeSet(Runnable emitAction)
+    {
+        if (epochs == null) {
+            ChangeSets.apply(emitAction);
+        }
+        else {
+            ChangeSets.apply(() -> epochs.applyChangeSet(emitAction));
+        }
+    }
+
+    /**
+     * Hands the new values of a change set to every interceptor's {@link ConfigValueInterceptor#prepare(Collection)}.
+     * Sources which change many values at once call this before emitting them. Values which are unchanged from the
+     * last emitted value are not included.
+     *
+     * @param changeSet new values keyed by full configuration name
+     */
+    protected void prepareChangeSet(Map<String, Optional<String>> changeSet)
+    {
+        if (configValueInterceptors.isEmpty()) {
+            return;
+        }
+        final List<String> changedValues = changeSet.entrySet().stream()
+            .filter(entry -> entry.getValue().isPresent())
+            .filter(entry -> !entry.getValue().equals(lastEmittedValues.get(entry.getKey())))
+            .map(entry -> entry.getValue().get())
+            .collect(toList());
+        if (changedValues.isEmpty()) {
+            return;
+        }
+        for (ConfigValueInterceptor interceptor : configValueInterceptors) {
+            try {
+                interceptor.prepare(changedValues);
+            }
+            catch (Exception ex) {
+                log.warn("Interceptor {} failed to prepare {} changed values", interceptor.getClass().getName(), changedValues.size(), ex);
+            }
+        }
+    }
+
     @Override
     public Observable<ConfigChangeEvent<String>> getObservable(String configName)
     {
@@ -81,27 +221,125 @@ public abstract class AbstractDynamicConfigSource implements DynamicConfigSource
         return subjectMap.get(configName);
     }
 
-    protected void emitEvent(String configKey, Optional<String> valueOpt)
+    @Override
+    public Observable<ConfigChangeEvent<String>> getRuntimeObservable(String configName)
+    {
+        checkNotNull(configName);
+        if (subjectMap.containsKey(configName)) {
+            return subjectMap.get(configName);
+        }
+        synchronized (runtimeLock) {
+            runtimeSubjectUses.merge(configName, 1, Integer::sum);
+            // Starts from any value already emitted for the name, such as a value read from a file before first use
+            return runtimeSubjectMap.computeIfAbsent(configName, name -> {
+                BehaviorSubject<ConfigChangeEvent<String>> behaviorSubject = BehaviorSubject.create(
+                    new ConfigChangeEvent<>(name, lastEmittedValues.getOrDefault(name, Optional.empty())));
+                onRuntimeSubscribe(name);
+                return behaviorSubject.toSerialized();
+            });
+        }
+    }
+
+    @Override
+    public void releaseRuntimeObservable(String configName)
+    {
+        final Subject<ConfigChangeEvent<String>, ConfigChangeEvent<String>> subject;
+        synchronized (runtimeLock) {
+            // The subject is shared by every use of the name, and only released by the last one
+            final Integer uses = runtimeSubjectUses.get(configName);
+            if (uses != null && uses > 1) {
+                runtimeSubjectUses.put(configName, uses - 1);
+                return;
+            }
+            runtimeSubjectUses.remove(configName);
+            subject = runtimeSubjectMap.remove(configName);
+        }
+        if (subject != null) {
+            onRuntimeRelease(configName);
+            subject.onCompleted();
+        }
+    }
+
+    /**
+     * Called when a runtime config value is first used, so that the source can start providing it. Does nothing by
+     * default, for sources which emit all values they know about.
+     *
+     * @param configName the full configuration name
+     */
+    protected void onRuntimeSubscribe(String configName)
     {
-        emitEvent(new ConfigChangeEvent<>(configKey, valueOpt));
     }
 
-    protected void emitEvent(ConfigChangeEvent<String> event)
+    /**
+     * Called when a runtime config value is no longer used. Does nothing by default.
+     *
+     * @param configName the full configuration name
+     */
+    protected void onRuntimeRelease(String configName)
+    {
+    }
+
+    protected boolean emitEvent(String configKey, Optional<String> valueOpt)
+    {
+        return emitEvent(new ConfigChangeEvent<>(configKey, valueOpt));
+    }
+
+    /**
+     * Emits a value along with the version of the value in the config source.
+     *
+     * @param configKey       full configuration name
+     * @param valueOpt        the value to be emitted (if different from last emission)
+     * @param sourceVersion   source-specific version of the value
+     * @param sourceTimestamp time the value was changed in the config source, in epoch milliseconds
+     * An unchanged value with a new version is still passed to subscribers, so that they know the version in use.
+     *
+     * @return true if the value differed from the previous value and was emitted
+     */
+    protected boolean emitEvent(String configKey, Optional<String> valueOpt, Optional<String> sourceVersion, long sourceTimestamp)
+    {
+        return emitEvent(new ConfigChangeEvent<>(configKey, valueOpt, sourceVersion, sourceTimestamp));
+    }
+
+    protected boolean emitEvent(ConfigChangeEvent<String> event)
     {
         checkNotNull(event);
 
-        final Optional<String> oldEventValue = this.lastEmittedValues.put(event.getName(), event.getValueOpt());
-        if (!event.getValueOpt().equals(oldEventValue)) {
-            Subject<ConfigChangeEvent<String>, ConfigChangeEvent<String>> subject = subjectMap.get(event.getName());
+        Subject<ConfigChangeEvent<String>, ConfigChangeEvent<String>> subject = subjectMap.get(event.getName());
+        final Optional<String> oldEventValue;
+        if (subject != null) {
+            oldEventValue = this.lastEmittedValues.put(event.getName(), event.getValueOpt());
+        }
+        else {
+            // Recorded together with the subject lookup, so a runtime subject created concurrently sees the value
+            synchronized (runtimeLock) {
+                oldEventValue = this.lastEmittedValues.put(event.getName(), event.getValueOpt());
+                subject = runtimeSubjectMap.get(event.getName());
+            }
+        }
+        final boolean changed = !event.getValueOpt().equals(oldEventValue);
+        final boolean versionChanged = event.getSourceVersion().isPresent()
+            && !event.getSourceVersion().equals(lastEmittedVersions.put(event.getName(), event.getSourceVersion()));
+        if (metricsEnabled) {
+            metrics.onSourceEvent(metricsSourceName, event.getName(), changed);
+        }
+        if (changed) {
             if (subject == null) {
-                log.warn("Event Subject was not initialized for key {} !", event.getName());
-                return;
+                log.debug("No subscriber for key {}, value is kept for runtime scopes", event.getName());
+                return false;
             }
             log.trace("EMIT {} - value {}", event.getName(), event.getValueOpt());
             subject.onNext(event);
+            return true;
+        }
+        else if (versionChanged && subject != null) {
+            // Subscribers keep their value, and only record the version the source is now at
+            log.trace("EMIT {} - version {}, value unchanged", event.getName(), event.getSourceVersion());
+            subject.onNext(event);
+            return false;
         }
         else {
             log.trace("NOT EMITTING key {} value {} - no change from previous value.", event.getName(), event.getValueOpt());
+            return false;
         }
     }
 
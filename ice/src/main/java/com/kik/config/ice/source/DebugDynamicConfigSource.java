@@ -15,21 +15,33 @@
  */
 package com.kik.config.ice.source;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.inject.AbstractModule;
 import com.google.inject.Inject;
 import com.google.inject.Module;
 import com.google.inject.Singleton;
 import com.google.inject.multibindings.MapBinder;
+import com.kik.config.ice.ConfigSystem;
+import com.kik.config.ice.convert.ConfigValueConverters;
 import com.kik.config.ice.exception.ConfigException;
 import com.kik.config.ice.internal.ConfigDescriptor;
 import com.kik.config.ice.internal.ConfigDescriptorHolder;
 import com.kik.config.ice.internal.MethodIdProxyFactory;
 import com.kik.config.ice.sink.ConfigEventSink;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -45,6 +57,8 @@ import lombok.extern.slf4j.Slf4j;
  * // Also, the value may be cleared:
  * debugSource.set(debugSource.id().foo()).toEmpty();
  * </code></pre>
+ * Code which changes values at a high rate should identify each value once with {@link #handle(Object)}, and change
+ * several values at once with {@link #batch()}.
  */
 @Slf4j
 @Singleton
@@ -52,10 +66,25 @@ public class DebugDynamicConfigSource extends AbstractDynamicConfigSource implem
 {
     private static final int CONFIG_SOURCE_PRIORITY_DEFAULT = 0;
 
+    // Descriptors indexed by method and scope, so that identified methods are resolved without a scan
+    private final ImmutableMap<MethodIdProxyFactory.MethodAndScope, ConfigDescriptor> descriptorLookup;
+    private final ImmutableMap<Method, ConfigDescriptor> runtimeScopedLookup;
+    // Names of the values currently set in this source
+    private final Set<String> overriddenNames = Sets.newConcurrentHashSet();
+
     @Inject
     protected DebugDynamicConfigSource(ConfigDescriptorHolder configDescriptorHolder)
     {
         super(configDescriptorHolder.configDescriptors);
+        final ImmutableMap.Builder<MethodIdProxyFactory.MethodAndScope, ConfigDescriptor> lookupBuilder = ImmutableMap.builder();
+        configDescriptors.forEach(desc -> lookupBuilder.put(new MethodIdProxyFactory.MethodAndScope(desc.getMethod(), desc.getScope()), desc));
+        this.descriptorLookup = lookupBuilder.build();
+
+        final Map<Method, ConfigDescriptor> runtimeLookup = Maps.newHashMap();
+        if (configDescriptorHolder.runtimeScopedDescriptors != null) {
+            configDescriptorHolder.runtimeScopedDescriptors.forEach(desc -> runtimeLookup.put(desc.getMethod(), desc));
+        }
+        this.runtimeScopedLookup = ImmutableMap.copyOf(runtimeLookup);
     }
 
     /**
@@ -97,45 +126,114 @@ public class DebugDynamicConfigSource extends AbstractDynamicConfigSource implem
      */
     public <V> DebugValueSetter<V> set(final V ignoredValueFromProxy)
     {
-        final MethodIdProxyFactory.MethodAndScope lastProxyMethodAndScope = MethodIdProxyFactory.getLastIdentifiedMethodAndScope();
-        if (lastProxyMethodAndScope == null) {
-            throw new ConfigException("Failed to identify config method previous to calling overrideDefault");
-        }
-
-        final Optional<ConfigDescriptor> configDescOpt = configDescriptors.stream()
-            .filter(desc -> desc.getMethod().equals(lastProxyMethodAndScope.getMethod()) && desc.getScope().equals(lastProxyMethodAndScope.getScopeOpt()))
-            .findAny();
-        final String configKey = configDescOpt.map(desc -> desc.getConfigName()).orElseThrow(
-            () -> new ConfigException("Config method identified is not correctly registered in the config system"));
-        final Class<?> configClass = getClass(configDescOpt.get().getConfigType());
-
+        final OverrideHandle<V> handle = handle(ignoredValueFromProxy);
         return new DebugValueSetter<V>()
         {
             @Override
             public void toValue(final V value)
             {
-                final String stringValue;
-
-                if (configClass != null && Collection.class.isAssignableFrom(configClass)) {
-                    final Collection collection = (Collection) value;
-                    stringValue = collection == null ? "" : (String) collection.stream()
-                        .map(v -> "\"" + String.valueOf(v).replaceAll("\"", "\"\"") + "\"")
-                        .collect(Collectors.joining(","));
-                }
-                else {
-                    stringValue = value == null ? "" : String.valueOf(value);
-                }
-                fireEvent(configKey, Optional.ofNullable(stringValue));
+                handle.set(value);
             }
 
             @Override
             public void toEmpty()
             {
-                fireEvent(configKey, Optional.empty());
+                handle.reset();
             }
         };
     }
 
+    /**
+     * Identifies a configuration value once, for code which changes it repeatedly, such as load and chaos tests. Used
+     * like {@link #set(Object)}, eg: {@code debugSource.handle(debugSource.id(Config.class).foo())}.
+     *
+     * @param ignoredValueFromProxy The value returned by the method call against a method-identifying proxy. The actual
+     *                              value here is irrelevant and is ignored.
+     * @param <V>                   The value type of the configuration entry to be changed
+     * @return a reusable {@link OverrideHandle} for the identified configuration value.
+     */
+    public <V> OverrideHandle<V> handle(final V ignoredValueFromProxy)
+    {
+        final MethodIdProxyFactory.MethodAndScope lastProxyMethodAndScope = MethodIdProxyFactory.getLastIdentifiedMethodAndScope();
+        if (lastProxyMethodAndScope == null) {
+            throw new ConfigException("Failed to identify config method previous to calling overrideDefault");
+        }
+
+        ConfigDescriptor configDesc = descriptorLookup.get(lastProxyMethodAndScope);
+        if (configDesc == null && lastProxyMethodAndScope.getScopeOpt().isPresent()) {
+            // Values of config interfaces installed for runtime scopes can be set for any scope
+            final ConfigDescriptor runtimeDesc = runtimeScopedLookup.get(lastProxyMethodAndScope.getMethod());
+            if (runtimeDesc != null) {
+                configDesc = ConfigSystem.descriptorFactory.withScope(runtimeDesc, lastProxyMethodAndScope.getScopeOpt().get());
+            }
+        }
+        if (configDesc == null) {
+            throw new ConfigException("Config method identified is not correctly registered in the config system");
+        }
+        return new OverrideHandle<>(this, configDesc.getConfigName(), formatterFor(getClass(configDesc.getConfigType())));
+    }
+
+    /**
+     * Starts a set of changes which are applied together, as a single change set.
+     *
+     * @return an empty batch of changes
+     */
+    public OverrideBatch batch()
+    {
+        return new OverrideBatch(this);
+    }
+
+    /**
+     * Clears every value currently set in this source, as a single change set. Only values which are set are cleared.
+     *
+     * @return the number of values cleared
+     */
+    public int resetAll()
+    {
+        final Map<String, Optional<String>> changeSet = Maps.newLinkedHashMap();
+        overriddenNames.forEach(name -> changeSet.put(name, Optional.empty()));
+        applyChangeSet(changeSet);
+        return changeSet.size();
+    }
+
+    private void applyChangeSet(Map<String, Optional<String>> changeSet)
+    {
+        if (changeSet.isEmpty()) {
+            return;
+        }
+        prepareChangeSet(changeSet);
+        emitChangeSet(() -> changeSet.forEach(this::emitOverride));
+    }
+
+    private void emitOverride(String configName, Optional<String> valueOpt)
+    {
+        if (valueOpt.isPresent()) {
+            overriddenNames.add(configName);
+        }
+        else {
+            overriddenNames.remove(configName);
+        }
+        emitEvent(configName, valueOpt);
+    }
+
+    private static Function<Object, String> formatterFor(Class<?> configClass)
+    {
+        if (configClass != null && Collection.class.isAssignableFrom(configClass)) {
+            return value -> value == null ? "" : ((Collection<?>) value).stream()
+                .map(v -> "\"" + String.valueOf(v).replaceAll("\"", "\"\"") + "\"")
+                .collect(Collectors.joining(","));
+        }
+        else if (configClass != null && Map.class.isAssignableFrom(configClass)) {
+            return value -> value == null ? "" : ConfigValueConverters.fromMap((Map<String, ?>) value);
+        }
+        else if (configClass != null && configClass.isArray()) {
+            return value -> value == null ? "" : IntStream.range(0, Array.getLength(value))
+                .mapToObj(idx -> String.valueOf(Array.get(value, idx)))
+                .collect(Collectors.joining(","));
+        }
+        return value -> value == null ? "" : String.valueOf(value);
+    }
+
     public interface DebugValueSetter<V>
     {
         void toValue(V value);
@@ -143,6 +241,75 @@ public class DebugDynamicConfigSource extends AbstractDynamicConfigSource implem
         void toEmpty();
     }
 
+    /**
+     * A configuration value identified once by {@link #handle(Object)}, which can be set and cleared any number of
+     * times without identifying it again.
+     *
+     * @param <V> The value type of the configuration entry
+     */
+    public static final class OverrideHandle<V>
+    {
+        private final DebugDynamicConfigSource source;
+        private final String configName;
+        private final Function<Object, String> formatter;
+
+        private OverrideHandle(DebugDynamicConfigSource source, String configName, Function<Object, String> formatter)
+        {
+            this.source = source;
+            this.configName = configName;
+            this.formatter = formatter;
+        }
+
+        public String getConfigName()
+        {
+            return configName;
+        }
+
+        public void set(V value)
+        {
+            source.emitOverride(configName, Optional.of(formatter.apply(value)));
+        }
+
+        public void reset()
+        {
+            source.emitOverride(configName, Optional.empty());
+        }
+    }
+
+    /**
+     * Changes to several configuration values, which are applied together by {@link #apply()}. Later changes to the
+     * same value replace earlier ones.
+     */
+    public static final class OverrideBatch
+    {
+        private final DebugDynamicConfigSource source;
+        private final Map<String, Optional<String>> changeSet = Maps.newLinkedHashMap();
+
+        private OverrideBatch(DebugDynamicConfigSource source)
+        {
+            this.source = source;
+        }
+
+        public <V> OverrideBatch set(OverrideHandle<V> handle, V value)
+        {
+            checkArgument(handle.source == source, "Handle %s is for another config source", handle.configName);
+            changeSet.put(handle.configName, Optional.of(handle.formatter.apply(value)));
+            return this;
+        }
+
+        public OverrideBatch reset(OverrideHandle<?> handle)
+        {
+            checkArgument(handle.source == source, "Handle %s is for another config source", handle.configName);
+            changeSet.put(handle.configName, Optional.empty());
+            return this;
+        }
+
+        public void apply()
+        {
+            source.applyChangeSet(ImmutableMap.copyOf(changeSet));
+        }
+    }
+
     /**
      * A raw handle to cause this ConfigSource to be updated to the new value, emitting an event if it is different
      * than the previous value.
@@ -156,10 +323,21 @@ public class DebugDynamicConfigSource extends AbstractDynamicConfigSource implem
     @Override
     public void fireEvent(String configName, Optional<String> valueOpt) throws ConfigException
     {
-        if (!subjectMap.containsKey(configName)) {
+        if (!subjectMap.containsKey(configName) && !isRuntimeScopedName(configName)) {
             throw new ConfigException("Unknown configName {}", configName);
         }
-        emitEvent(configName, valueOpt);
+        emitOverride(configName, valueOpt);
+    }
+
+    private boolean isRuntimeScopedName(String configName)
+    {
+        final int scopeIdx = configName.lastIndexOf(':');
+        if (scopeIdx < 0) {
+            return false;
+        }
+        final Optional<String> scopeOpt = Optional.of(configName.substring(scopeIdx + 1));
+        return runtimeScopedLookup.values().stream()
+            .anyMatch(desc -> ConfigSystem.namingStrategy.methodToFlatName(desc.getMethod(), scopeOpt).equals(configName));
     }
 
     private static Class<?> getClass(Type type)
@@ -16,6 +16,8 @@
 package com.kik.config.ice.source;
 
 import com.kik.config.ice.internal.ConfigChangeEvent;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import rx.Observable;
 
 public interface DynamicConfigSource
@@ -26,4 +28,41 @@ public interface DynamicConfigSource
     }
 
     Observable<ConfigChangeEvent<String>> getObservable(String configName);
+
+    /**
+     * Provides an Observable for a config value which is only known at runtime, such as a value of a config interface
+     * in a runtime scope. Unlike {@link #getObservable(String)}, the value does not need to be known when the source
+     * is created. Sources which do not support runtime values provide a single empty value.
+     *
+     * @param configName the full configuration name
+     * @return an Observable of changes to the value
+     */
+    default Observable<ConfigChangeEvent<String>> getRuntimeObservable(String configName)
+    {
+        return Observable.just(new ConfigChangeEvent<>(configName, Optional.empty()));
+    }
+
+    /**
+     * Releases resources held for a config value provided by {@link #getRuntimeObservable(String)}, once it is no
+     * longer used. Each call to {@link #getRuntimeObservable(String)} is matched by one release, and resources are
+     * only released once every use of the value has been released.
+     *
+     * @param configName the full configuration name
+     */
+    default void releaseRuntimeObservable(String configName)
+    {
+    }
+
+    /**
+     * Reads every value from the source's backing store again, and applies any changes. Values are emitted to the
+     * property accessors, and by them to subscribers, on the emitting thread, so once the future completes every
+     * change has been applied. Sources which always hold their current values complete immediately.
+     *
+     * @return a future which completes once the changes have been emitted, or completes exceptionally if the values
+     *         could not be read
+     */
+    default CompletableFuture<Void> refresh()
+    {
+        return CompletableFuture.completedFuture(null);
+    }
 }
@@ -18,7 +18,9 @@ package com.kik.config.ice.source;
 import com.google.common.annotations.VisibleForTesting;
 import static com.google.common.base.Preconditions.checkState;
 import com.google.common.base.Strings;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.hash.Hashing;
 import com.google.common.util.concurrent.AbstractIdleService;
 import com.google.common.util.concurrent.Service;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
@@ -33,10 +35,14 @@ import com.kik.config.ice.exception.ConfigException;
 import com.kik.config.ice.internal.ConfigChangeEvent;
 import com.kik.config.ice.internal.ConfigDescriptorHolder;
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.time.Duration;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -77,6 +83,8 @@ public class FileDynamicConfigSource extends AbstractDynamicConfigSource
 
     private volatile boolean isInitialized = false;
     private final Object initializationLock = new Object();
+    // Serializes reads of the file by polling and by refresh()
+    private final Object readLock = new Object();
 
     @Inject(optional = true)
     @Named(FILENAME_NAME)
@@ -159,35 +167,117 @@ public class FileDynamicConfigSource extends AbstractDynamicConfigSource
         return subjectMap.get(configName);
     }
 
-    private void readFile()
+    /**
+     * Reads the config file again on the source's executor, and applies any changes.
+     *
+     * @return a future which completes once the changes have been emitted, or completes exceptionally with a
+     *         {@link ConfigException} if the file could not be read
+     */
+    @Override
+    public CompletableFuture<Void> refresh()
+    {
+        if (file == null) {
+            // Nothing is read when there are no config descriptors
+            return CompletableFuture.completedFuture(null);
+        }
+        checkState(!closed);
+        return CompletableFuture.runAsync(() -> {
+            if (!readFile()) {
+                throw new ConfigException("Failed to read config file {}", file);
+            }
+        }, executorService);
+    }
+
+    /**
+     * Stops polling the config file, and completes the Observables of all config values.
+     *
+     * @throws IOException never
+     */
+    @Override
+    public void close() throws IOException
+    {
+        synchronized (initializationLock) {
+            if (pollFuture != null) {
+                pollFuture.cancel(true);
+                pollFuture = null;
+            }
+            closed = true;
+
+            if (executorService != null) {
+                executorService.shutdown();
+            }
+        }
+        super.close();
+    }
+
+    private boolean readFile()
     {
+        synchronized (readLock) {
+            return readFileLocked();
+        }
+    }
+
+    private boolean readFileLocked()
+    {
+        final long reloadStart = metricsEnabled ? System.nanoTime() : 0L;
+        boolean success = false;
+        int keyCount = 0;
+        int changedCount = 0;
         try {
             log.debug("Reading config file now...");
-            Set<String> remainingConfigKeys = Sets.newHashSet(subjectMap.keySet());
+            // Includes runtime values previously read from the file, which are removed if no longer present
+            Set<String> remainingConfigKeys = Sets.newHashSet(lastEmittedValues.keySet());
+
+            // The file's modification time and content hash identify the version of every value read from it
+            final long lastModified = file.lastModified();
+            final byte[] content = Files.readAllBytes(file.toPath());
+            final Optional<String> version = Optional.of(lastModified + ":" + Hashing.murmur3_32().hashBytes(content));
 
-            Files.lines(file.toPath()).forEach(line -> {
+            // Parse the whole file first, so interceptors can prepare the change set before anything is emitted
+            final Map<String, Optional<String>> values = Maps.newLinkedHashMap();
+            for (String line : new String(content, StandardCharsets.UTF_8).split("\\r?\\n")) {
                 // parse line
                 ConfigChangeEvent<String> event = parseLine(line);
                 if (event == null) {
-                    return;
+                    continue;
                 }
 
                 log.trace("File-based event: {}", event);
 
                 remainingConfigKeys.remove(event.getName());
-
-                // update currentValues
-                emitEvent(event);
-            });
+                values.put(event.getName(), event.getValueOpt());
+            }
 
             // Remaining keys are effectively "Removed" - emit the removals if this is different from previous
-            remainingConfigKeys.stream().forEach(key -> {
-                emitEvent(key, Optional.empty());
+            for (String key : remainingConfigKeys) {
+                values.put(key, Optional.empty());
+            }
+
+            prepareChangeSet(values);
+
+            // update currentValues
+            final int[] counts = new int[2];
+            emitChangeSet(() -> {
+                for (Map.Entry<String, Optional<String>> entry : values.entrySet()) {
+                    ++counts[0];
+                    if (emitEvent(entry.getKey(), entry.getValue(), version, lastModified)) {
+                        ++counts[1];
+                    }
+                }
             });
+            keyCount = counts[0];
+            changedCount = counts[1];
+            success = true;
         }
         catch (Exception ex) {
             log.error("Error while reading config file {}", file, ex);
         }
+        finally {
+            if (metricsEnabled) {
+                metrics.onReload(getName(), System.nanoTime() - reloadStart, keyCount, changedCount, success);
+            }
+        }
+        return success;
     }
 
     @VisibleForTesting
@@ -222,18 +312,7 @@ public class FileDynamicConfigSource extends AbstractDynamicConfigSource
         @Override
         protected void shutDown() throws Exception
         {
-            // stop polling
-            if (configSource.pollFuture != null) {
-                configSource.pollFuture.cancel(true);
-                configSource.pollFuture = null;
-            }
-            configSource.closed = true;
-
-            configSource.subjectMap.values().forEach(subject -> subject.onCompleted());
-
-            if (configSource.executorService != null) {
-                configSource.executorService.shutdown();
-            }
+            configSource.close();
         }
     }
 
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.kik.config.ice.annotations.DefaultValue;
+import com.kik.config.ice.exception.ConfigException;
+import com.kik.config.ice.source.DebugDynamicConfigSource;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Before;
+import org.junit.Test;
+import rx.Observable;
+import rx.Subscription;
+
+public class ConfigEpochsTest
+{
+    private static final String hostName = "com.kik.config.ice.ConfigEpochsTest$ServerConfig.host";
+    private static final String portName = "com.kik.config.ice.ConfigEpochsTest$ServerConfig.port";
+    private static final String poolSizeName = "com.kik.config.ice.ConfigEpochsTest$PoolConfig.poolSize";
+
+    public interface ServerConfig
+    {
+        @DefaultValue("localhost")
+        String host();
+
+        @DefaultValue("8080")
+        int port();
+
+        @DefaultValue("localhost")
+        Observable<String> hostObservable();
+    }
+
+    public interface PoolConfig
+    {
+        @DefaultValue("10")
+        int poolSize();
+    }
+
+    private ConfigSystem configSystem;
+    private ConfigEpochs epochs;
+    private DebugDynamicConfigSource debugSource;
+    private ServerConfig serverConfig;
+    private PoolConfig poolConfig;
+
+    @Before
+    public void setup()
+    {
+        Injector injector = Guice.createInjector(
+            new ExplicitBindingModule(),
+            ConfigConfigurator.testModules(),
+            ConfigEpochs.module(),
+            ConfigSystem.configModule(ServerConfig.class),
+            ConfigSystem.configModule(PoolConfig.class));
+        configSystem = injector.getInstance(ConfigSystem.class);
+        epochs = injector.getInstance(ConfigEpochs.class);
+        debugSource = injector.getInstance(DebugDynamicConfigSource.class);
+        serverConfig = injector.getInstance(ServerConfig.class);
+        poolConfig = injector.getInstance(PoolConfig.class);
+
+        // Creates every property accessor, so that all changes are versioned
+        configSystem.validateStaticConfiguration();
+    }
+
+    @Test(timeout = 5000)
+    public void testPinnedReadsSeeOneVersion() throws Exception
+    {
+        assertEquals("localhost", serverConfig.host());
+        assertEquals(10, poolConfig.poolSize());
+        final long startEpoch = configSystem.getCurrentEpoch();
+
+        try (ConfigEpochs.Pin pin = configSystem.pinEpoch()) {
+            assertEquals(startEpoch, pin.getEpoch());
+
+            // Change values from another thread while this one is pinned
+            Thread writer = new Thread(() -> {
+                debugSource.fireEvent(hostName, Optional.of("example.com"));
+                debugSource.fireEvent(portName, Optional.of("9090"));
+                debugSource.fireEvent(poolSizeName, Optional.of("20"));
+            });
+            writer.start();
+            writer.join();
+            assertEquals(startEpoch + 3, configSystem.getCurrentEpoch());
+
+            assertEquals("localhost", serverConfig.host());
+            assertEquals(8080, serverConfig.port());
+            assertEquals(10, poolConfig.poolSize());
+
+            // Nested pins keep the outer epoch
+            try (ConfigEpochs.Pin nested = configSystem.pinEpoch()) {
+                assertEquals(startEpoch, nested.getEpoch());
+                assertEquals("localhost", serverConfig.host());
+            }
+            assertEquals(8080, serverConfig.port());
+        }
+
+        assertEquals(ConfigEpochs.NOT_PINNED, epochs.getPinnedEpoch());
+        assertEquals("example.com", serverConfig.host());
+        assertEquals(9090, serverConfig.port());
+        assertEquals(20, poolConfig.poolSize());
+
+        try (ConfigEpochs.Pin pin = configSystem.pinEpoch()) {
+            assertEquals(startEpoch + 3, pin.getEpoch());
+            assertEquals("example.com", serverConfig.host());
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testChangeSetAppliedAsOneEpoch() throws Exception
+    {
+        final long startEpoch = configSystem.getCurrentEpoch();
+
+        epochs.applyChangeSet(() -> {
+            debugSource.fireEvent(hostName, Optional.of("example.com"));
+            debugSource.fireEvent(portName, Optional.of("9090"));
+            debugSource.fireEvent(portName, Optional.of("9091"));
+        });
+        assertEquals(startEpoch + 1, configSystem.getCurrentEpoch());
+        assertEquals(9091, serverConfig.port());
+
+        // An unchanged value does not advance the epoch
+        debugSource.fireEvent(hostName, Optional.of("example.com"));
+        assertEquals(startEpoch + 1, configSystem.getCurrentEpoch());
+    }
+
+    @Test(timeout = 5000)
+    public void testValuesKeptWhilePinned() throws Exception
+    {
+        final AtomicInteger pinnedPort = new AtomicInteger();
+        Thread reader = new Thread(() -> {
+            try (ConfigEpochs.Pin pin = epochs.pin()) {
+                synchronized (this) {
+                    notifyAll();
+                    wait();
+                }
+                pinnedPort.set(serverConfig.port());
+            }
+            catch (InterruptedException ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+        synchronized (this) {
+            reader.start();
+            wait();
+            // Many changes while the reader is pinned must not drop the version it needs
+            for (int port = 9000; port < 9100; ++port) {
+                debugSource.fireEvent(portName, Optional.of(Integer.toString(port)));
+            }
+            notifyAll();
+        }
+        reader.join();
+        assertEquals(8080, pinnedPort.get());
+        assertEquals(9099, serverConfig.port());
+    }
+
+    @Test(timeout = 5000)
+    public void testSubscribersNotifiedAfterChangeSet() throws Exception
+    {
+        final CountDownLatch notified = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Subscription subscription = serverConfig.hostObservable().skip(1).subscribe(host -> {
+            notified.countDown();
+            Uninterruptibles.awaitUninterruptibly(release);
+        });
+
+        DebugDynamicConfigSource.OverrideHandle<String> host = debugSource.handle(debugSource.id(ServerConfig.class).host());
+        Thread applier = new Thread(() -> debugSource.batch().set(host, "example.com").apply());
+        applier.start();
+        notified.await();
+
+        // The subscriber of the change set is still running, and does not hold up other changes
+        debugSource.set(debugSource.id(PoolConfig.class).poolSize()).toValue(20);
+        assertEquals(20, poolConfig.poolSize());
+        assertEquals("example.com", serverConfig.host());
+
+        release.countDown();
+        applier.join();
+        subscription.unsubscribe();
+    }
+
+    @Test(timeout = 5000)
+    public void testLazyPropertyNotReadAtOlderPin() throws Exception
+    {
+        Injector injector = Guice.createInjector(
+            new ExplicitBindingModule(),
+            ConfigConfigurator.testModules(),
+            ConfigEpochs.module(),
+            ConfigSystem.configModule(ServerConfig.class),
+            ConfigSystem.configModule(PoolConfig.class));
+        DebugDynamicConfigSource lazySource = injector.getInstance(DebugDynamicConfigSource.class);
+        ServerConfig lazyServerConfig = injector.getInstance(ServerConfig.class);
+        PoolConfig lazyPoolConfig = injector.getInstance(PoolConfig.class);
+        assertEquals(10, lazyPoolConfig.poolSize());
+
+        try (ConfigEpochs.Pin pin = injector.getInstance(ConfigSystem.class).pinEpoch()) {
+            Thread writer = new Thread(() -> lazySource.fireEvent(poolSizeName, Optional.of("20")));
+            writer.start();
+            writer.join();
+            assertEquals(10, lazyPoolConfig.poolSize());
+
+            // The port was first used after the pinned epoch, so its value as of that epoch is unknown
+            try {
+                lazyServerConfig.port();
+                fail("Expected ConfigException");
+            }
+            catch (ConfigException ex) {
+                assertTrue(ex.getMessage().contains(portName));
+            }
+        }
+        assertEquals(8080, lazyServerConfig.port());
+    }
+
+    @Test(timeout = 5000, expected = ConfigException.class)
+    public void testEpochsNotEnabled()
+    {
+        Injector injector = Guice.createInjector(
+            new ExplicitBindingModule(),
+            ConfigConfigurator.testModules(),
+            ConfigSystem.configModule(ServerConfig.class));
+        injector.getInstance(ConfigSystem.class).pinEpoch();
+    }
+}
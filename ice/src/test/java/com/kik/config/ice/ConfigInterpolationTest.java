@@ -0,0 +1,181 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.kik.config.ice.annotations.DefaultValue;
+import com.kik.config.ice.source.DebugDynamicConfigSource;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+import rx.Observable;
+
+public class ConfigInterpolationTest
+{
+    private static final String PREFIX = Config.class.getName() + ".";
+
+    public interface Config
+    {
+        @DefaultValue("localhost")
+        String host();
+
+        @DefaultValue("5432")
+        int port();
+
+        @DefaultValue("${com.kik.config.ice.ConfigInterpolationTest$Config.host}:${com.kik.config.ice.ConfigInterpolationTest$Config.port}")
+        String address();
+
+        @DefaultValue("http://${com.kik.config.ice.ConfigInterpolationTest$Config.address}/")
+        String url();
+
+        @DefaultValue("http://${com.kik.config.ice.ConfigInterpolationTest$Config.address}/")
+        Observable<String> urlObservable();
+
+        @DefaultValue("${com.kik.config.ice.ConfigInterpolationTest$Config.port}")
+        int adminPort();
+
+        @DefaultValue("${com.kik.config.ice.ConfigInterpolationTest$Config.port}")
+        Observable<Integer> adminPortObservable();
+
+        @DefaultValue("literal")
+        String other();
+    }
+
+    @Test(timeout = 5000)
+    public void testDefaultsInterpolated()
+    {
+        Injector injector = Guice.createInjector(
+            new ExplicitBindingModule(),
+            ConfigConfigurator.testModules(),
+            ConfigInterpolation.module(),
+            ConfigSystem.configModule(Config.class));
+        Config config = injector.getInstance(Config.class);
+        ConfigInterpolation interpolation = injector.getInstance(ConfigInterpolation.class);
+
+        assertEquals("localhost:5432", config.address());
+        assertEquals("http://localhost:5432/", config.urlObservable().toBlocking().first());
+        assertEquals(Integer.valueOf(5432), config.adminPortObservable().toBlocking().first());
+
+        assertEquals(ImmutableSet.of(PREFIX + "host", PREFIX + "port"), interpolation.getDependencies(PREFIX + "address"));
+        assertEquals(ImmutableSet.of(PREFIX + "address", PREFIX + "adminPort"), interpolation.getDependents(PREFIX + "port"));
+        assertEquals(ImmutableSet.of(), interpolation.getDependencies(PREFIX + "other"));
+    }
+
+    @Test(timeout = 5000)
+    public void testOnlyDependentsResolvedAgain()
+    {
+        Injector injector = Guice.createInjector(
+            new ExplicitBindingModule(),
+            ConfigConfigurator.testModules(),
+            ConfigInterpolation.module(),
+            ConfigSystem.configModule(Config.class));
+        Config config = injector.getInstance(Config.class);
+        DebugDynamicConfigSource debugSource = injector.getInstance(DebugDynamicConfigSource.class);
+
+        List<String> urls = new CopyOnWriteArrayList<>();
+        List<Integer> adminPorts = new CopyOnWriteArrayList<>();
+        config.urlObservable().subscribe(urls::add);
+        config.adminPortObservable().subscribe(adminPorts::add);
+
+        debugSource.set(debugSource.id(Config.class).host()).toValue("db1");
+        assertEquals("db1:5432", config.address());
+        assertEquals("http://db1:5432/", config.urlObservable().toBlocking().first());
+        // Not dependent on the host, so not resolved again
+        assertEquals(1, adminPorts.size());
+
+        debugSource.set(debugSource.id(Config.class).port()).toValue(6543);
+        assertEquals("db1:6543", config.address());
+        assertEquals(Integer.valueOf(6543), config.adminPortObservable().toBlocking().first());
+
+        // Setting a value to the one in use changes nothing downstream
+        debugSource.set(debugSource.id(Config.class).host()).toValue("db1");
+        debugSource.set(debugSource.id(Config.class).other()).toValue("changed");
+        assertEquals(3, urls.size());
+        assertEquals(2, adminPorts.size());
+
+        // Values from sources are interpolated, and resolved again when their references change
+        debugSource.set(debugSource.id(Config.class).address()).toValue("${" + PREFIX + "other}:1");
+        assertEquals("changed:1", config.address());
+        debugSource.set(debugSource.id(Config.class).other()).toValue("again");
+        assertEquals("again:1", config.address());
+        assertEquals("http://again:1/", config.urlObservable().toBlocking().first());
+
+        debugSource.set(debugSource.id(Config.class).address()).toEmpty();
+        debugSource.set(debugSource.id(Config.class).host()).toEmpty();
+        assertEquals("localhost:6543", config.address());
+        assertEquals("http://localhost:6543/", config.urlObservable().toBlocking().first());
+    }
+
+    @Test(timeout = 5000)
+    public void testCycleRejected()
+    {
+        Injector injector = Guice.createInjector(
+            new ExplicitBindingModule(),
+            ConfigConfigurator.testModules(),
+            ConfigInterpolation.module(),
+            ConfigSystem.configModule(Config.class));
+        Config config = injector.getInstance(Config.class);
+        DebugDynamicConfigSource debugSource = injector.getInstance(DebugDynamicConfigSource.class);
+        ConfigInterpolation interpolation = injector.getInstance(ConfigInterpolation.class);
+        assertEquals("http://localhost:5432/", config.urlObservable().toBlocking().first());
+
+        debugSource.set(debugSource.id(Config.class).host()).toValue("${" + PREFIX + "url}");
+        assertEquals("localhost", config.host());
+        assertEquals(ImmutableSet.of(), interpolation.getDependencies(PREFIX + "host"));
+
+        debugSource.set(debugSource.id(Config.class).other()).toValue("${" + PREFIX + "other}");
+        assertEquals("literal", config.other());
+    }
+
+    @Test(timeout = 5000)
+    public void testEscapesAndUnknownReferences()
+    {
+        Injector injector = Guice.createInjector(
+            new ExplicitBindingModule(),
+            ConfigConfigurator.testModules(),
+            ConfigInterpolation.module(),
+            ConfigSystem.configModule(Config.class));
+        Config config = injector.getInstance(Config.class);
+        DebugDynamicConfigSource debugSource = injector.getInstance(DebugDynamicConfigSource.class);
+
+        debugSource.set(debugSource.id(Config.class).other()).toValue("$${not.a.reference}");
+        assertEquals("${not.a.reference}", config.other());
+
+        debugSource.set(debugSource.id(Config.class).other()).toValue("${com.example.Unknown.value}");
+        assertEquals("${not.a.reference}", config.other());
+
+        debugSource.set(debugSource.id(Config.class).other()).toValue("${" + PREFIX + "host");
+        assertEquals("${not.a.reference}", config.other());
+    }
+
+    @Test(timeout = 5000)
+    public void testDisabledWithoutModule()
+    {
+        Injector injector = Guice.createInjector(
+            new ExplicitBindingModule(),
+            ConfigConfigurator.testModules(),
+            ConfigSystem.configModule(Config.class));
+        Config config = injector.getInstance(Config.class);
+
+        assertEquals("${" + PREFIX + "host}:${" + PREFIX + "port}", config.address());
+        assertNull(injector.getExistingBinding(Key.get(ConfigInterpolation.class)));
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Stage;
+import com.kik.config.ice.annotations.DefaultValue;
+import com.kik.config.ice.exception.ConfigException;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class ConfigProvisioningTest
+{
+    public interface Config
+    {
+        @DefaultValue("1")
+        int first();
+
+        @DefaultValue("2")
+        int second();
+
+        @DefaultValue("3")
+        int third();
+    }
+
+    public interface ScopedConfig
+    {
+        @DefaultValue("4")
+        int value();
+    }
+
+    @Test(timeout = 5000)
+    public void testLazy()
+    {
+        Injector injector = Guice.createInjector(
+            new ExplicitBindingModule(),
+            ConfigConfigurator.testModules(),
+            ConfigProvisioning.module(ConfigProvisioning.Strategy.LAZY, 2),
+            ConfigSystem.configModule(Config.class));
+        ConfigSystem configSystem = injector.getInstance(ConfigSystem.class);
+
+        ConfigProvisioning.Report report = configSystem.provision();
+        assertEquals(ConfigProvisioning.Strategy.LAZY, report.getStrategy());
+        assertEquals(0, report.getAccessorCount());
+        assertEquals(0L, report.getWarmUpNanos());
+
+        Config config = injector.getInstance(Config.class);
+        assertEquals(2, config.second());
+        assertEquals(2, config.second());
+        assertEquals(1, configSystem.getProvisioningReport().getAccessorCount());
+    }
+
+    @Test(timeout = 5000)
+    public void testEager()
+    {
+        Injector injector = Guice.createInjector(
+            new ExplicitBindingModule(),
+            ConfigConfigurator.testModules(),
+            ConfigProvisioning.module(ConfigProvisioning.Strategy.EAGER, 2),
+            ConfigSystem.configModule(Config.class));
+        ConfigSystem configSystem = injector.getInstance(ConfigSystem.class);
+
+        ConfigProvisioning.Report report = configSystem.provision();
+        assertEquals(ConfigProvisioning.Strategy.EAGER, report.getStrategy());
+        assertEquals(3, report.getAccessorCount());
+        assertTrue(report.getWarmUpNanos() > 0);
+
+        // Reads use the accessors built during warm-up
+        assertEquals(3, injector.getInstance(Config.class).third());
+        assertEquals(3, configSystem.getProvisioningReport().getAccessorCount());
+    }
+
+    @Test(timeout = 5000)
+    public void testLazyInProductionStage()
+    {
+        Injector injector = Guice.createInjector(Stage.PRODUCTION,
+            new ExplicitBindingModule(),
+            ConfigConfigurator.testModules(),
+            ConfigProvisioning.module(ConfigProvisioning.Strategy.LAZY, 2),
+            ConfigSystem.configModule(Config.class));
+        ConfigSystem configSystem = injector.getInstance(ConfigSystem.class);
+        assertEquals(0, configSystem.provision().getAccessorCount());
+
+        assertEquals(1, injector.getInstance(Config.class).first());
+        assertEquals(1, configSystem.getProvisioningReport().getAccessorCount());
+    }
+
+    @Test(timeout = 5000)
+    public void testEagerInProductionStage()
+    {
+        ConfigSystem configSystem = Guice.createInjector(Stage.PRODUCTION,
+            new ExplicitBindingModule(),
+            ConfigConfigurator.testModules(),
+            ConfigProvisioning.module(ConfigProvisioning.Strategy.EAGER, 2),
+            ConfigSystem.configModule(Config.class))
+            .getInstance(ConfigSystem.class);
+
+        // Built with the injector, as other singletons are in the production stage
+        assertEquals(3, configSystem.getProvisioningReport().getAccessorCount());
+    }
+
+    @Test(timeout = 5000)
+    public void testRuntimeScopedAccessorsCounted()
+    {
+        ConfigSystem configSystem = Guice.createInjector(
+            new ExplicitBindingModule(),
+            ConfigConfigurator.testModules(),
+            ConfigProvisioning.module(ConfigProvisioning.Strategy.LAZY, 2),
+            ConfigSystem.scopedConfigModule(ScopedConfig.class))
+            .getInstance(ConfigSystem.class);
+        ScopedConfigFactory<ScopedConfig> factory = configSystem.scoped(ScopedConfig.class);
+
+        assertEquals(4, factory.get("a").value());
+        assertEquals(4, factory.get("b").value());
+        assertEquals(2, configSystem.getProvisioningReport().getAccessorCount());
+
+        factory.evict("a");
+        assertEquals(1, configSystem.getProvisioningReport().getAccessorCount());
+    }
+
+    @Test(timeout = 5000, expected = ConfigException.class)
+    public void testNotConfigured()
+    {
+        Guice.createInjector(new ExplicitBindingModule(), ConfigConfigurator.testModules())
+            .getInstance(ConfigSystem.class)
+            .provision();
+    }
+}
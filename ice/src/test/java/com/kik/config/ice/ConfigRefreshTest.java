@@ -0,0 +1,210 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.multibindings.MapBinder;
+import static com.google.inject.name.Names.named;
+import com.kik.config.ice.annotations.DefaultValue;
+import com.kik.config.ice.exception.ConfigException;
+import com.kik.config.ice.internal.ConfigChangeEvent;
+import com.kik.config.ice.source.DebugDynamicConfigSource;
+import com.kik.config.ice.source.DynamicConfigSource;
+import com.kik.config.ice.source.FileDynamicConfigSource;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import rx.Observable;
+import rx.Subscription;
+
+public class ConfigRefreshTest
+{
+    private static final String PREFIX = Config.class.getName() + ".";
+
+    public interface Config
+    {
+        @DefaultValue("1")
+        int threads();
+
+        @DefaultValue("none")
+        String mode();
+
+        @DefaultValue("none")
+        Observable<String> modeObservable();
+    }
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private File configFile;
+    private Config config;
+    private ConfigSystem configSystem;
+    private DebugDynamicConfigSource debugSource;
+
+    @Before
+    public void setup() throws Exception
+    {
+        configFile = folder.newFile("app.config");
+        writeConfig(configFile, PREFIX + "threads=4\n");
+        Injector injector = Guice.createInjector(
+            ConfigConfigurator.standardModules(),
+            DebugDynamicConfigSource.module(),
+            ConfigSystem.configModule(Config.class),
+            new AbstractModule()
+            {
+                @Override
+                protected void configure()
+                {
+                    // No poll interval is bound, so the file is only read again by a refresh
+                    bind(String.class).annotatedWith(named(FileDynamicConfigSource.FILENAME_NAME)).toInstance(configFile.getAbsolutePath());
+                }
+            });
+        config = injector.getInstance(Config.class);
+        configSystem = injector.getInstance(ConfigSystem.class);
+        debugSource = injector.getInstance(DebugDynamicConfigSource.class);
+    }
+
+    private static void writeConfig(File configFile, String content) throws Exception
+    {
+        Files.write(configFile.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test(timeout = 5000)
+    public void testRefreshAppliesChanges() throws Exception
+    {
+        assertEquals(4, config.threads());
+
+        writeConfig(configFile, PREFIX + "threads=8\n" + PREFIX + "mode=fast\n");
+        assertEquals(4, config.threads());
+
+        RefreshReport report = configSystem.refresh().get(2, TimeUnit.SECONDS);
+        assertTrue(report.getSummary(), report.isSuccessful());
+        assertEquals(8, config.threads());
+        assertEquals("fast", config.mode());
+
+        assertEquals(2, report.getResults().size());
+        assertEquals("DebugDynamicConfigSource", report.getResults().get(0).getName());
+        assertEquals("FileDynamicConfigSource", report.getResults().get(1).getName());
+        report.getResults().forEach(result -> assertTrue(result.getElapsedNanos() <= report.getElapsedNanos()));
+        assertTrue(report.getAppliedMillis() <= System.currentTimeMillis());
+
+        // Removed values are cleared
+        writeConfig(configFile, PREFIX + "threads=8\n");
+        configSystem.refresh().get(2, TimeUnit.SECONDS).throwIfFailed();
+        assertEquals("none", config.mode());
+    }
+
+    @Test(timeout = 5000)
+    public void testRefreshWaitsForDeliveriesOnOtherThreads() throws Exception
+    {
+        final CountDownLatch delivering = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Subscription subscription = config.modeObservable().filter(mode -> mode.equals("slow")).subscribe(mode -> {
+            delivering.countDown();
+            Uninterruptibles.awaitUninterruptibly(release);
+        });
+        Thread writer = new Thread(() -> debugSource.fireEvent(PREFIX + "mode", Optional.of("slow")));
+        writer.start();
+        delivering.await();
+
+        writeConfig(configFile, PREFIX + "threads=8\n");
+        CompletableFuture<RefreshReport> refreshed = configSystem.refresh();
+        try {
+            refreshed.get(200, TimeUnit.MILLISECONDS);
+            fail("Refresh completed while a change was still being delivered");
+        }
+        catch (TimeoutException expected) {
+        }
+        assertEquals(8, config.threads());
+
+        release.countDown();
+        assertTrue(refreshed.get(2, TimeUnit.SECONDS).isSuccessful());
+        writer.join();
+        subscription.unsubscribe();
+    }
+
+    @Test(timeout = 5000, expected = ConfigException.class)
+    public void testFailedSourceReported() throws Exception
+    {
+        assertTrue(configFile.delete());
+        RefreshReport report = configSystem.refresh().get(2, TimeUnit.SECONDS);
+        assertFalse(report.isSuccessful());
+        assertEquals(1, report.getFailures().size());
+        assertEquals("FileDynamicConfigSource", report.getFailures().get(0).getName());
+        assertEquals(4, config.threads());
+        report.throwIfFailed();
+    }
+
+    @Test(timeout = 5000)
+    public void testSourceWithoutRefreshFutureReported() throws Exception
+    {
+        DynamicConfigSource source = new DynamicConfigSource()
+        {
+            @Override
+            public String getName()
+            {
+                return "NullRefreshSource";
+            }
+
+            @Override
+            public Observable<ConfigChangeEvent<String>> getObservable(String configName)
+            {
+                return Observable.never();
+            }
+
+            @Override
+            public CompletableFuture<Void> refresh()
+            {
+                return null;
+            }
+        };
+        ConfigSystem nullRefreshConfigSystem = Guice.createInjector(
+            new ExplicitBindingModule(),
+            ConfigConfigurator.testModules(),
+            ConfigSystem.configModule(Config.class),
+            new AbstractModule()
+            {
+                @Override
+                protected void configure()
+                {
+                    MapBinder.newMapBinder(binder(), Integer.class, DynamicConfigSource.class).addBinding(200).toInstance(source);
+                }
+            })
+            .getInstance(ConfigSystem.class);
+
+        RefreshReport report = nullRefreshConfigSystem.refresh().get(2, TimeUnit.SECONDS);
+        assertEquals(1, report.getFailures().size());
+        assertEquals("NullRefreshSource", report.getFailures().get(0).getName());
+        assertTrue(report.getFailures().get(0).getError().get() instanceof ConfigException);
+        assertEquals(ConfigReport.Status.OK, report.getResults().get(0).getStatus());
+    }
+}
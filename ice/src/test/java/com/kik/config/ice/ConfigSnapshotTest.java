@@ -0,0 +1,181 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice;
+
+import com.google.common.collect.Lists;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.name.Names;
+import com.kik.config.ice.annotations.DefaultValue;
+import com.kik.config.ice.annotations.NoDefaultValue;
+import com.kik.config.ice.exception.ConfigException;
+import com.kik.config.ice.source.DebugDynamicConfigSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+import rx.Observable;
+import rx.Subscription;
+
+public class ConfigSnapshotTest
+{
+    public interface Config
+    {
+        @DefaultValue("localhost")
+        String host();
+
+        @DefaultValue("8080")
+        int port();
+
+        @DefaultValue("true")
+        boolean enabled();
+
+        @DefaultValue("PT5S")
+        Duration timeout();
+
+        @NoDefaultValue
+        Optional<String> description();
+
+        @DefaultValue("8080")
+        Observable<Integer> portObservable();
+
+        default String address()
+        {
+            return host() + ":" + port();
+        }
+    }
+
+    private ConfigSystem configSystem;
+    private DebugDynamicConfigSource debugSource;
+
+    @Before
+    public void setup()
+    {
+        Injector injector = Guice.createInjector(
+            new ExplicitBindingModule(),
+            ConfigConfigurator.testModules(),
+            ConfigSystem.configModule(Config.class),
+            ConfigSystem.configModule(Config.class, Names.named("other")));
+        configSystem = injector.getInstance(ConfigSystem.class);
+        debugSource = injector.getInstance(DebugDynamicConfigSource.class);
+    }
+
+    @Test(timeout = 5000)
+    public void testSnapshotValues()
+    {
+        Config snapshot = configSystem.snapshot(Config.class);
+        assertEquals("localhost", snapshot.host());
+        assertEquals(8080, snapshot.port());
+        assertTrue(snapshot.enabled());
+        assertEquals(Duration.ofSeconds(5), snapshot.timeout());
+        assertEquals(Optional.empty(), snapshot.description());
+        assertEquals("localhost:8080", snapshot.address());
+
+        // Unchanged config gives the same snapshot
+        assertSame(snapshot, configSystem.snapshot(Config.class));
+    }
+
+    @Test(timeout = 5000)
+    public void testSnapshotIsImmutable()
+    {
+        Config before = configSystem.snapshot(Config.class);
+
+        debugSource.set(debugSource.id(Config.class).host()).toValue("example.com");
+        debugSource.set(debugSource.id(Config.class).port()).toValue(9090);
+        debugSource.fireEvent("com.kik.config.ice.ConfigSnapshotTest$Config.description", Optional.of("primary"));
+
+        Config after = configSystem.snapshot(Config.class);
+        assertNotSame(before, after);
+        assertEquals("localhost:8080", before.address());
+        assertEquals(Optional.empty(), before.description());
+        assertEquals("example.com:9090", after.address());
+        assertEquals(Optional.of("primary"), after.description());
+    }
+
+    @Test(timeout = 5000)
+    public void testSnapshotObservable()
+    {
+        List<Config> snapshots = Lists.newArrayList();
+        Subscription subscription = configSystem.snapshotObservable(Config.class).subscribe(snapshots::add);
+
+        debugSource.set(debugSource.id(Config.class).enabled()).toValue(false);
+        // Setting the same value again does not publish a new snapshot
+        debugSource.set(debugSource.id(Config.class).enabled()).toValue(false);
+        debugSource.set(debugSource.id(Config.class).timeout()).toValue(Duration.ofSeconds(10));
+        subscription.unsubscribe();
+
+        assertEquals(3, snapshots.size());
+        assertTrue(snapshots.get(0).enabled());
+        assertFalse(snapshots.get(1).enabled());
+        assertEquals(Duration.ofSeconds(5), snapshots.get(1).timeout());
+        assertFalse(snapshots.get(2).enabled());
+        assertEquals(Duration.ofSeconds(10), snapshots.get(2).timeout());
+        assertSame(snapshots.get(2), configSystem.snapshot(Config.class));
+    }
+
+    @Test(timeout = 5000)
+    public void testScopedSnapshot()
+    {
+        debugSource.set(debugSource.id(Config.class, Optional.of("other")).host()).toValue("other.example.com");
+
+        assertEquals("localhost", configSystem.snapshot(Config.class).host());
+        assertEquals("other.example.com", configSystem.snapshot(Config.class, Names.named("other")).host());
+    }
+
+    @Test(timeout = 5000)
+    public void testChangeSetPublishedAsOneSnapshot()
+    {
+        List<Config> snapshots = Lists.newArrayList();
+        Subscription subscription = configSystem.snapshotObservable(Config.class).subscribe(snapshots::add);
+
+        DebugDynamicConfigSource.OverrideHandle<String> host = debugSource.handle(debugSource.id(Config.class).host());
+        DebugDynamicConfigSource.OverrideHandle<Integer> port = debugSource.handle(debugSource.id(Config.class).port());
+        debugSource.batch()
+            .set(host, "example.com")
+            .set(port, 9090)
+            .apply();
+        subscription.unsubscribe();
+
+        // No snapshot with the new host and the old port is published
+        assertEquals(2, snapshots.size());
+        assertEquals("localhost:8080", snapshots.get(0).address());
+        assertEquals("example.com:9090", snapshots.get(1).address());
+        assertSame(snapshots.get(1), configSystem.snapshot(Config.class));
+    }
+
+    @Test(timeout = 5000)
+    public void testSnapshotObservableMethod()
+    {
+        debugSource.set(debugSource.id(Config.class).port()).toValue(9090);
+        Config snapshot = configSystem.snapshot(Config.class);
+        debugSource.set(debugSource.id(Config.class).port()).toValue(9091);
+
+        // Emits only the snapshot's own value, which never changes
+        assertEquals(Lists.newArrayList(9090), snapshot.portObservable().toList().toBlocking().single());
+    }
+
+    @Test(timeout = 5000, expected = ConfigException.class)
+    public void testUnknownScope()
+    {
+        configSystem.snapshot(Config.class, Names.named("unknown"));
+    }
+}
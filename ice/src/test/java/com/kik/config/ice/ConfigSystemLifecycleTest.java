@@ -0,0 +1,144 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice;
+
+import com.google.common.collect.Lists;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.kik.config.ice.annotations.DefaultValue;
+import com.kik.config.ice.source.DebugDynamicConfigSource;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.ref.WeakReference;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import rx.Observable;
+
+public class ConfigSystemLifecycleTest
+{
+    public interface Config
+    {
+        @DefaultValue("1")
+        int value();
+
+        @DefaultValue("1")
+        Observable<Integer> valueObservable();
+
+        @DefaultValue("a")
+        String name();
+    }
+
+    public interface ScopedConfig
+    {
+        @DefaultValue("2")
+        int value();
+    }
+
+    // Run with -Dice.leak_test_injectors=10000 for a longer soak; the default keeps the build fast
+    private static final int LEAK_TEST_INJECTORS = Integer.getInteger("ice.leak_test_injectors", 1_000);
+    // Each leaked injector would keep several generated classes, taking well over this much Metaspace
+    private static final long MAX_METASPACE_GROWTH_BYTES_PER_INJECTOR = 1024L;
+
+    @Test(timeout = 5000)
+    public void testClose()
+    {
+        Injector injector = Guice.createInjector(
+            new ExplicitBindingModule(),
+            ConfigConfigurator.testModules(),
+            ConfigSystem.configModule(Config.class),
+            ConfigSystem.scopedConfigModule(ScopedConfig.class));
+        ConfigSystem configSystem = injector.getInstance(ConfigSystem.class);
+        DebugDynamicConfigSource debugSource = injector.getInstance(DebugDynamicConfigSource.class);
+        Config config = injector.getInstance(Config.class);
+        ScopedConfigFactory<ScopedConfig> factory = configSystem.scoped(ScopedConfig.class);
+
+        List<Integer> observed = Lists.newArrayList();
+        List<Boolean> completed = Lists.newArrayList();
+        config.valueObservable().subscribe(observed::add, ex -> {
+        }, () -> completed.add(true));
+        debugSource.set(debugSource.id(Config.class).value()).toValue(5);
+        assertEquals(2, factory.get("a").value());
+        assertEquals(1, factory.size());
+
+        configSystem.close();
+        assertEquals(Lists.newArrayList(1, 5), observed);
+        assertEquals(Lists.newArrayList(true), completed);
+        assertEquals(0, factory.size());
+
+        // Values stay readable, but no longer change
+        debugSource.set(debugSource.id(Config.class).value()).toValue(6);
+        assertEquals(5, config.value());
+        assertEquals("a", config.name());
+
+        // Closing again does nothing
+        configSystem.close();
+    }
+
+    @Test(timeout = 60_000)
+    public void testDisposedInjectorsAreCollected()
+    {
+        final MemoryPoolMXBean metaspace = ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getName().equals("Metaspace"))
+            .findAny()
+            .orElse(null);
+
+        // Warm up, so that classes loaded once are not counted as growth
+        createAndDispose(100);
+        final long metaspaceBefore = usedAfterGc(metaspace);
+
+        final WeakReference<Class<?>> firstImplClass = createAndDispose(LEAK_TEST_INJECTORS);
+        final long metaspaceAfter = usedAfterGc(metaspace);
+
+        assertNull(firstImplClass.get());
+        if (metaspace != null) {
+            assertTrue("Metaspace grew by " + (metaspaceAfter - metaspaceBefore) + " bytes",
+                metaspaceAfter - metaspaceBefore < LEAK_TEST_INJECTORS * MAX_METASPACE_GROWTH_BYTES_PER_INJECTOR);
+        }
+    }
+
+    private static WeakReference<Class<?>> createAndDispose(int count)
+    {
+        WeakReference<Class<?>> firstImplClass = null;
+        for (int idx = 0; idx < count; ++idx) {
+            Injector injector = Guice.createInjector(
+                new ExplicitBindingModule(),
+                ConfigConfigurator.testModules(),
+                ConfigSystem.configModule(Config.class),
+                ConfigSystem.scopedConfigModule(ScopedConfig.class));
+            ConfigSystem configSystem = injector.getInstance(ConfigSystem.class);
+            Config config = injector.getInstance(Config.class);
+            assertEquals(1, config.value());
+            assertEquals(2, configSystem.scoped(ScopedConfig.class).get("scope").value());
+            configSystem.snapshot(Config.class);
+            if (firstImplClass == null) {
+                firstImplClass = new WeakReference<>(config.getClass());
+            }
+            configSystem.close();
+        }
+        return firstImplClass;
+    }
+
+    private static long usedAfterGc(MemoryPoolMXBean pool)
+    {
+        for (int idx = 0; idx < 3; ++idx) {
+            System.gc();
+        }
+        return pool == null ? 0L : pool.getUsage().getUsed();
+    }
+}
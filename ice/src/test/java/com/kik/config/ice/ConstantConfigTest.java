@@ -0,0 +1,196 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.kik.config.ice.annotations.Constant;
+import com.kik.config.ice.annotations.DefaultValue;
+import com.kik.config.ice.exception.ConfigException;
+import com.kik.config.ice.source.DebugDynamicConfigSource;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import rx.Observable;
+
+public class ConstantConfigTest
+{
+    public interface Config
+    {
+        @Constant
+        @DefaultValue("8")
+        int poolSize();
+
+        @Constant
+        @DefaultValue("PT5S")
+        Duration timeout();
+
+        @Constant
+        @DefaultValue("a,b,c")
+        List<String> hosts();
+
+        @DefaultValue("8")
+        Observable<Integer> poolSizeObservable();
+
+        @DefaultValue("true")
+        boolean enabled();
+    }
+
+    @Constant
+    public interface AllConstantConfig
+    {
+        @DefaultValue("ice")
+        String name();
+
+        @DefaultValue("3")
+        long retries();
+    }
+
+    public interface InvalidConstantConfig
+    {
+        @Constant
+        @DefaultValue("abc")
+        int value();
+    }
+
+    @Test(timeout = 5000)
+    public void testDefaultValues()
+    {
+        Injector injector = Guice.createInjector(
+            new ExplicitBindingModule(),
+            ConfigConfigurator.testModules(),
+            ConfigSystem.configModule(Config.class),
+            ConfigSystem.configModule(AllConstantConfig.class));
+        Config config = injector.getInstance(Config.class);
+
+        assertEquals(8, config.poolSize());
+        assertEquals(Duration.ofSeconds(5), config.timeout());
+        assertEquals(Arrays.asList("a", "b", "c"), config.hosts());
+        assertEquals(Integer.valueOf(8), config.poolSizeObservable().toBlocking().first());
+        assertSame(config, injector.getInstance(Config.class));
+
+        AllConstantConfig allConstant = injector.getInstance(AllConstantConfig.class);
+        assertEquals("ice", allConstant.name());
+        assertEquals(3L, allConstant.retries());
+    }
+
+    @Test(timeout = 5000)
+    public void testOverrides()
+    {
+        Injector injector = Guice.createInjector(
+            new ExplicitBindingModule(),
+            ConfigConfigurator.testModules(),
+            ConfigSystem.configModuleWithOverrides(Config.class, om -> {
+                om.override(om.id().poolSize()).withValue(16);
+                om.override(om.id().timeout()).withValue(Duration.ofSeconds(30));
+            }));
+        Config config = injector.getInstance(Config.class);
+
+        assertEquals(16, config.poolSize());
+        assertEquals(Duration.ofSeconds(30), config.timeout());
+        assertEquals(Integer.valueOf(16), config.poolSizeObservable().toBlocking().first());
+    }
+
+    @Test(timeout = 5000)
+    public void testSourcesCannotChangeConstants()
+    {
+        Injector injector = Guice.createInjector(
+            new ExplicitBindingModule(),
+            ConfigConfigurator.testModules(),
+            ConfigSystem.configModule(Config.class));
+        Config config = injector.getInstance(Config.class);
+        DebugDynamicConfigSource debugSource = injector.getInstance(DebugDynamicConfigSource.class);
+
+        try {
+            debugSource.set(debugSource.id(Config.class).poolSize()).toValue(4);
+            throw new AssertionError("Expected constant to be unknown to the debug source");
+        }
+        catch (ConfigException ex) {
+            // expected
+        }
+        try {
+            debugSource.fireEvent(Config.class.getName() + ".poolSize", Optional.of("4"));
+            throw new AssertionError("Expected constant to be unknown to the debug source");
+        }
+        catch (ConfigException ex) {
+            // expected
+        }
+        assertEquals(8, config.poolSize());
+
+        // Dynamic methods on the same interface are unaffected
+        debugSource.set(debugSource.id(Config.class).enabled()).toValue(false);
+        assertEquals(false, config.enabled());
+    }
+
+    @Test(timeout = 5000)
+    public void testSnapshotIncludesConstants()
+    {
+        Injector injector = Guice.createInjector(
+            new ExplicitBindingModule(),
+            ConfigConfigurator.testModules(),
+            ConfigSystem.configModule(Config.class));
+        ConfigSystem configSystem = injector.getInstance(ConfigSystem.class);
+        DebugDynamicConfigSource debugSource = injector.getInstance(DebugDynamicConfigSource.class);
+
+        debugSource.set(debugSource.id(Config.class).enabled()).toValue(false);
+        Config snapshot = configSystem.snapshot(Config.class);
+        assertEquals(8, snapshot.poolSize());
+        assertEquals(Arrays.asList("a", "b", "c"), snapshot.hosts());
+        assertEquals(false, snapshot.enabled());
+    }
+
+    @Test(timeout = 5000)
+    public void testConstantsAreNotValidatedAsAccessors()
+    {
+        Injector injector = Guice.createInjector(
+            new ExplicitBindingModule(),
+            ConfigConfigurator.testModules(),
+            ConfigProvisioning.module(ConfigProvisioning.Strategy.EAGER),
+            ConfigSystem.configModule(AllConstantConfig.class),
+            ConfigSystem.configModule(Config.class));
+        ConfigSystem configSystem = injector.getInstance(ConfigSystem.class);
+
+        configSystem.validateStaticConfiguration();
+        assertEquals(1, configSystem.getProvisioningReport().getAccessorCount());
+    }
+
+    @Test(timeout = 5000)
+    public void testInvalidConstantFailsValidation()
+    {
+        ValidationReport report = StaticConfigValidator.validate(
+            new ExplicitBindingModule(),
+            ConfigConfigurator.testModules(),
+            ConfigSystem.configModule(InvalidConstantConfig.class),
+            ConfigSystem.configModule(Config.class));
+
+        assertFalse(report.isSuccessful());
+        assertEquals(1, report.getFailures().size());
+        assertEquals(InvalidConstantConfig.class.getName() + ".value", report.getFailures().get(0).getName());
+        assertTrue(report.getResults().stream().anyMatch(result -> result.getName().equals(Config.class.getName() + ".poolSize")));
+    }
+
+    @Test(timeout = 5000, expected = ConfigException.class)
+    public void testRuntimeScopesRejectConstants()
+    {
+        ConfigSystem.scopedConfigModule(Config.class);
+    }
+}
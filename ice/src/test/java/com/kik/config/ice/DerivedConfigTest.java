@@ -0,0 +1,234 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.kik.config.ice.annotations.Constant;
+import com.kik.config.ice.annotations.DefaultValue;
+import com.kik.config.ice.annotations.Derived;
+import com.kik.config.ice.exception.ConfigException;
+import com.kik.config.ice.source.DebugDynamicConfigSource;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DerivedConfigTest
+{
+    private static final AtomicInteger timeoutEvaluations = new AtomicInteger();
+    private static final AtomicInteger patternEvaluations = new AtomicInteger();
+    private static final AtomicInteger limitEvaluations = new AtomicInteger();
+
+    public interface Config
+    {
+        @DefaultValue("1500")
+        long timeoutMillis();
+
+        @DefaultValue("[a-z]+")
+        String namePattern();
+
+        @DefaultValue("false")
+        boolean unlimited();
+
+        @DefaultValue("10")
+        int limit();
+
+        @Constant
+        @DefaultValue("2")
+        int multiplier();
+
+        @Derived
+        default Duration timeout()
+        {
+            timeoutEvaluations.incrementAndGet();
+            return Duration.ofMillis(timeoutMillis());
+        }
+
+        @Derived
+        default Pattern compiledNamePattern()
+        {
+            patternEvaluations.incrementAndGet();
+            return Pattern.compile(namePattern());
+        }
+
+        @Derived
+        default int effectiveLimit()
+        {
+            limitEvaluations.incrementAndGet();
+            return unlimited() ? Integer.MAX_VALUE : limit() * multiplier();
+        }
+
+        default Duration uncachedTimeout()
+        {
+            return Duration.ofMillis(timeoutMillis());
+        }
+    }
+
+    public interface InvalidConfig
+    {
+        @Derived
+        @DefaultValue("1")
+        int value();
+    }
+
+    @Before
+    public void setup()
+    {
+        timeoutEvaluations.set(0);
+        patternEvaluations.set(0);
+        limitEvaluations.set(0);
+    }
+
+    @Test(timeout = 5000)
+    public void testDerivedValuesCached()
+    {
+        Injector injector = Guice.createInjector(
+            new ExplicitBindingModule(),
+            ConfigConfigurator.testModules(),
+            ConfigSystem.configModule(Config.class));
+        Config config = injector.getInstance(Config.class);
+
+        for (int i = 0; i < 10; ++i) {
+            assertEquals(Duration.ofMillis(1500), config.timeout());
+            assertTrue(config.compiledNamePattern().matcher("abc").matches());
+            assertEquals(20, config.effectiveLimit());
+        }
+        assertEquals(1, timeoutEvaluations.get());
+        assertEquals(1, patternEvaluations.get());
+        assertEquals(1, limitEvaluations.get());
+        assertEquals(Duration.ofMillis(1500), config.uncachedTimeout());
+    }
+
+    @Test(timeout = 5000)
+    public void testPinnedEpochSeesPinnedValues() throws Exception
+    {
+        Injector injector = Guice.createInjector(
+            new ExplicitBindingModule(),
+            ConfigConfigurator.testModules(),
+            ConfigSystem.configModule(Config.class),
+            ConfigEpochs.module());
+        ConfigSystem configSystem = injector.getInstance(ConfigSystem.class);
+        Config config = injector.getInstance(Config.class);
+        DebugDynamicConfigSource debugSource = injector.getInstance(DebugDynamicConfigSource.class);
+        configSystem.validateStaticConfiguration();
+        assertEquals(Duration.ofMillis(1500), config.timeout());
+
+        try (ConfigEpochs.Pin pin = configSystem.pinEpoch()) {
+            assertEquals(Duration.ofMillis(1500), config.timeout());
+
+            // Another thread changes the value and caches the new derived value while this one is pinned
+            CompletableFuture.runAsync(() -> debugSource.set(debugSource.id(Config.class).timeoutMillis()).toValue(250L)).get();
+            assertEquals(Duration.ofMillis(250), CompletableFuture.supplyAsync(config::timeout).get());
+
+            assertEquals(Duration.ofMillis(1500), config.timeout());
+        }
+        assertEquals(Duration.ofMillis(250), config.timeout());
+        try (ConfigEpochs.Pin pin = configSystem.pinEpoch()) {
+            assertEquals(Duration.ofMillis(250), config.timeout());
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testRecomputedOnlyWhenReadValueChanges()
+    {
+        Injector injector = Guice.createInjector(
+            new ExplicitBindingModule(),
+            ConfigConfigurator.testModules(),
+            ConfigSystem.configModule(Config.class));
+        Config config = injector.getInstance(Config.class);
+        DebugDynamicConfigSource debugSource = injector.getInstance(DebugDynamicConfigSource.class);
+        assertEquals(Duration.ofMillis(1500), config.timeout());
+        assertTrue(config.compiledNamePattern().matcher("abc").matches());
+
+        debugSource.set(debugSource.id(Config.class).timeoutMillis()).toValue(250L);
+        assertEquals(Duration.ofMillis(250), config.timeout());
+        assertEquals(Duration.ofMillis(250), config.timeout());
+        assertTrue(config.compiledNamePattern().matcher("abc").matches());
+        assertEquals(2, timeoutEvaluations.get());
+        assertEquals(1, patternEvaluations.get());
+
+        // Setting the value in use is not a change
+        debugSource.set(debugSource.id(Config.class).timeoutMillis()).toValue(250L);
+        assertEquals(Duration.ofMillis(250), config.timeout());
+        assertEquals(2, timeoutEvaluations.get());
+
+        debugSource.set(debugSource.id(Config.class).namePattern()).toValue("[0-9]+");
+        assertFalse(config.compiledNamePattern().matcher("abc").matches());
+        assertTrue(config.compiledNamePattern().matcher("123").matches());
+        assertEquals(2, patternEvaluations.get());
+        assertEquals(2, timeoutEvaluations.get());
+    }
+
+    @Test(timeout = 5000)
+    public void testDependenciesFollowReads()
+    {
+        Injector injector = Guice.createInjector(
+            new ExplicitBindingModule(),
+            ConfigConfigurator.testModules(),
+            ConfigSystem.configModule(Config.class));
+        Config config = injector.getInstance(Config.class);
+        DebugDynamicConfigSource debugSource = injector.getInstance(DebugDynamicConfigSource.class);
+        assertEquals(20, config.effectiveLimit());
+
+        debugSource.set(debugSource.id(Config.class).unlimited()).toValue(true);
+        assertEquals(Integer.MAX_VALUE, config.effectiveLimit());
+        assertEquals(2, limitEvaluations.get());
+
+        // No longer read while unlimited
+        debugSource.set(debugSource.id(Config.class).limit()).toValue(5);
+        assertEquals(Integer.MAX_VALUE, config.effectiveLimit());
+        assertEquals(2, limitEvaluations.get());
+
+        debugSource.set(debugSource.id(Config.class).unlimited()).toValue(false);
+        assertEquals(10, config.effectiveLimit());
+        assertEquals(3, limitEvaluations.get());
+
+        debugSource.set(debugSource.id(Config.class).limit()).toValue(7);
+        assertEquals(14, config.effectiveLimit());
+        assertEquals(4, limitEvaluations.get());
+    }
+
+    @Test(timeout = 5000)
+    public void testWithFoldedReads()
+    {
+        Injector injector = Guice.createInjector(
+            new ExplicitBindingModule(),
+            ConfigConfigurator.testModules(),
+            ConfigSystem.configModule(Config.class),
+            FoldedConfigReads.module());
+        Config config = injector.getInstance(Config.class);
+        DebugDynamicConfigSource debugSource = injector.getInstance(DebugDynamicConfigSource.class);
+        assertEquals(Duration.ofMillis(1500), config.timeout());
+        assertEquals(Duration.ofMillis(1500), config.timeout());
+        assertEquals(1, timeoutEvaluations.get());
+
+        debugSource.set(debugSource.id(Config.class).timeoutMillis()).toValue(100L);
+        assertEquals(Duration.ofMillis(100), config.timeout());
+        assertEquals(2, timeoutEvaluations.get());
+    }
+
+    @Test(timeout = 5000, expected = ConfigException.class)
+    public void testDerivedRequiresDefaultMethod()
+    {
+        ConfigSystem.configModule(InvalidConfig.class);
+    }
+}
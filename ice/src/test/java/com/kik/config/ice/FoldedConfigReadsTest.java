@@ -0,0 +1,145 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.kik.config.ice.annotations.DefaultValue;
+import com.kik.config.ice.annotations.NoDefaultValue;
+import com.kik.config.ice.metrics.ConfigReadTracker;
+import com.kik.config.ice.source.DebugDynamicConfigSource;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import rx.Observable;
+
+public class FoldedConfigReadsTest
+{
+    public interface Config
+    {
+        @DefaultValue("8")
+        int poolSize();
+
+        @DefaultValue("true")
+        boolean enabled();
+
+        @DefaultValue("PT5S")
+        Duration timeout();
+
+        @DefaultValue("a,b")
+        List<String> hosts();
+
+        @NoDefaultValue
+        Optional<String> description();
+
+        @DefaultValue("8")
+        Observable<Integer> poolSizeObservable();
+    }
+
+    @Test(timeout = 5000)
+    public void testFoldedReads()
+    {
+        Injector injector = Guice.createInjector(
+            new ExplicitBindingModule(),
+            ConfigConfigurator.testModules(),
+            FoldedConfigReads.module(),
+            ConfigSystem.configModule(Config.class));
+        Config config = injector.getInstance(Config.class);
+
+        assertEquals(8, config.poolSize());
+        assertTrue(config.enabled());
+        assertEquals(Duration.ofSeconds(5), config.timeout());
+        assertEquals(Arrays.asList("a", "b"), config.hosts());
+        assertEquals(Optional.empty(), config.description());
+        assertEquals(Integer.valueOf(8), config.poolSizeObservable().toBlocking().first());
+    }
+
+    @Test(timeout = 5000)
+    public void testRelinkOnlyWhenValueChanges()
+    {
+        Injector injector = Guice.createInjector(
+            new ExplicitBindingModule(),
+            ConfigConfigurator.testModules(),
+            FoldedConfigReads.module(),
+            ConfigSystem.configModule(Config.class));
+        Config config = injector.getInstance(Config.class);
+        DebugDynamicConfigSource debugSource = injector.getInstance(DebugDynamicConfigSource.class);
+        FoldedConfigReads foldedReads = injector.getInstance(FoldedConfigReads.class);
+
+        // Link the call sites before changing values
+        assertEquals(8, config.poolSize());
+        assertEquals(Optional.empty(), config.description());
+        assertEquals(0, foldedReads.getRelinkCount());
+
+        debugSource.set(debugSource.id(Config.class).poolSize()).toValue(16);
+        assertEquals(16, config.poolSize());
+        assertEquals(Integer.valueOf(16), config.poolSizeObservable().toBlocking().first());
+        assertEquals(1, foldedReads.getRelinkCount());
+
+        debugSource.set(debugSource.id(Config.class).poolSize()).toValue(16);
+        assertEquals(16, config.poolSize());
+        assertEquals(1, foldedReads.getRelinkCount());
+
+        debugSource.fireEvent(Config.class.getName() + ".description", Optional.of("folded"));
+        assertEquals(Optional.of("folded"), config.description());
+        assertEquals(2, foldedReads.getRelinkCount());
+
+        debugSource.set(debugSource.id(Config.class).poolSize()).toEmpty();
+        assertEquals(8, config.poolSize());
+        assertEquals(3, foldedReads.getRelinkCount());
+    }
+
+    @Test(timeout = 5000)
+    public void testValueChangedBeforeFirstRead()
+    {
+        Injector injector = Guice.createInjector(
+            new ExplicitBindingModule(),
+            ConfigConfigurator.testModules(),
+            FoldedConfigReads.module(),
+            ConfigSystem.configModule(Config.class));
+        DebugDynamicConfigSource debugSource = injector.getInstance(DebugDynamicConfigSource.class);
+        debugSource.set(debugSource.id(Config.class).enabled()).toValue(false);
+
+        Config config = injector.getInstance(Config.class);
+        assertFalse(config.enabled());
+    }
+
+    @Test(timeout = 5000)
+    public void testReadTrackingSeesFoldedReads()
+    {
+        Injector injector = Guice.createInjector(
+            new ExplicitBindingModule(),
+            ConfigConfigurator.testModules(),
+            FoldedConfigReads.module(),
+            ConfigSystem.configModule(Config.class),
+            ConfigReadTracker.module());
+        Config config = injector.getInstance(Config.class);
+        DebugDynamicConfigSource debugSource = injector.getInstance(DebugDynamicConfigSource.class);
+        ConfigReadTracker readTracker = injector.getInstance(ConfigReadTracker.class);
+
+        for (int i = 0; i < 3; ++i) {
+            assertEquals(8, config.poolSize());
+        }
+        debugSource.set(debugSource.id(Config.class).poolSize()).toValue(4);
+        assertEquals(4, config.poolSize());
+        assertEquals(Long.valueOf(4), readTracker.getReadCounts().get(Config.class.getName() + ".poolSize"));
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice;
+
+import com.google.common.collect.Lists;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.kik.config.ice.annotations.DefaultValue;
+import com.kik.config.ice.annotations.NoDefaultValue;
+import com.kik.config.ice.exception.ConfigException;
+import com.kik.config.ice.source.DebugDynamicConfigSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+import rx.Observable;
+import rx.Subscription;
+
+public class ScopedConfigFactoryTest
+{
+    public interface Config
+    {
+        @DefaultValue("10")
+        int maxConnections();
+
+        @DefaultValue("10")
+        Observable<Integer> maxConnectionsObservable();
+
+        @NoDefaultValue
+        Optional<String> plan();
+
+        default String describe()
+        {
+            return plan().orElse("free") + "/" + maxConnections();
+        }
+    }
+
+    public interface UnscopedConfig
+    {
+        @DefaultValue("1")
+        int value();
+    }
+
+    private static final String maxConnectionsName = "com.kik.config.ice.ScopedConfigFactoryTest$Config.maxConnections";
+    private static final String planName = "com.kik.config.ice.ScopedConfigFactoryTest$Config.plan";
+
+    private ConfigSystem configSystem;
+    private DebugDynamicConfigSource debugSource;
+    private ScopedConfigFactory<Config> factory;
+
+    @Before
+    public void setup()
+    {
+        Injector injector = Guice.createInjector(
+            new ExplicitBindingModule(),
+            ConfigConfigurator.testModules(),
+            ConfigSystem.configModule(UnscopedConfig.class),
+            ConfigSystem.scopedConfigModule(Config.class));
+        configSystem = injector.getInstance(ConfigSystem.class);
+        debugSource = injector.getInstance(DebugDynamicConfigSource.class);
+        factory = configSystem.scoped(Config.class);
+    }
+
+    @Test(timeout = 5000)
+    public void testScopesShareClass()
+    {
+        assertEquals(0, factory.size());
+
+        Config tenant1 = factory.get("tenant-1");
+        Config tenant2 = factory.get("tenant-2");
+        assertEquals(2, factory.size());
+        assertSame(tenant1, factory.get("tenant-1"));
+        assertNotSame(tenant1, tenant2);
+        assertSame(tenant1.getClass(), tenant2.getClass());
+
+        assertEquals(10, tenant1.maxConnections());
+        assertEquals("free/10", tenant2.describe());
+    }
+
+    @Test(timeout = 5000)
+    public void testScopedValues()
+    {
+        Config tenant1 = factory.get("tenant-1");
+        Config tenant2 = factory.get("tenant-2");
+        List<Integer> observed = Lists.newArrayList();
+        tenant1.maxConnectionsObservable().subscribe(observed::add);
+
+        debugSource.fireEvent(maxConnectionsName + ":tenant-1", Optional.of("25"));
+        debugSource.fireEvent(planName + ":tenant-1", Optional.of("gold"));
+        debugSource.set(debugSource.id(Config.class, Optional.of("tenant-2")).maxConnections()).toValue(5);
+
+        assertEquals("gold/25", tenant1.describe());
+        assertEquals("free/5", tenant2.describe());
+        assertEquals(Lists.newArrayList(10, 25), observed);
+    }
+
+    @Test(timeout = 5000)
+    public void testValueSetBeforeFirstUse()
+    {
+        debugSource.fireEvent(maxConnectionsName + ":tenant-3", Optional.of("30"));
+        assertEquals(30, factory.get("tenant-3").maxConnections());
+    }
+
+    @Test(timeout = 5000)
+    public void testEvict()
+    {
+        Config tenant1 = factory.get("tenant-1");
+        debugSource.fireEvent(maxConnectionsName + ":tenant-1", Optional.of("25"));
+        assertEquals(25, tenant1.maxConnections());
+
+        factory.evict("tenant-1");
+        assertEquals(0, factory.size());
+
+        // The evicted instance is still usable, and brings its scope back
+        debugSource.fireEvent(maxConnectionsName + ":tenant-1", Optional.of("40"));
+        assertEquals(40, tenant1.maxConnections());
+        assertEquals(1, factory.size());
+        assertNotSame(tenant1, factory.get("tenant-1"));
+        assertEquals(40, factory.get("tenant-1").maxConnections());
+    }
+
+    @Test(timeout = 5000)
+    public void testIdleScopesExpire() throws Exception
+    {
+        Injector injector = Guice.createInjector(
+            new ExplicitBindingModule(),
+            ConfigConfigurator.testModules(),
+            ConfigSystem.scopedConfigModule(Config.class, Duration.ofMillis(50)));
+        ScopedConfigFactory<Config> expiringFactory = injector.getInstance(ConfigSystem.class).scoped(Config.class);
+
+        expiringFactory.get("tenant-1").maxConnections();
+        assertEquals(1, expiringFactory.size());
+        // Evicted by the background sweep, without further requests
+        Thread.sleep(200);
+        assertEquals(0, expiringFactory.size());
+    }
+
+    @Test(timeout = 5000)
+    public void testReadsAndSubscribersKeepScopes() throws Exception
+    {
+        Injector injector = Guice.createInjector(
+            new ExplicitBindingModule(),
+            ConfigConfigurator.testModules(),
+            ConfigSystem.scopedConfigModule(Config.class, Duration.ofMillis(200)));
+        ScopedConfigFactory<Config> expiringFactory = injector.getInstance(ConfigSystem.class).scoped(Config.class);
+        DebugDynamicConfigSource expiringSource = injector.getInstance(DebugDynamicConfigSource.class);
+
+        // An instance held by the application and read regularly is not evicted
+        Config tenant1 = expiringFactory.get("tenant-1");
+        for (int idx = 0; idx < 5; ++idx) {
+            Thread.sleep(50);
+            tenant1.maxConnections();
+        }
+        assertEquals(1, expiringFactory.size());
+
+        // Nor is an idle instance with a subscriber, which keeps receiving changes
+        List<Integer> values = Lists.newArrayList();
+        Subscription subscription = tenant1.maxConnectionsObservable().subscribe(values::add);
+        Thread.sleep(400);
+        assertEquals(1, expiringFactory.size());
+        expiringSource.fireEvent(maxConnectionsName + ":tenant-1", Optional.of("25"));
+        assertEquals(Lists.newArrayList(10, 25), values);
+
+        subscription.unsubscribe();
+        Thread.sleep(600);
+        assertEquals(0, expiringFactory.size());
+    }
+
+    @Test(timeout = 5000)
+    public void testRuntimeValuesReleasedByLastUse()
+    {
+        final String name = maxConnectionsName + ":tenant-1";
+        List<Optional<String>> values = Lists.newArrayList();
+        AtomicBoolean completed = new AtomicBoolean(false);
+        debugSource.getRuntimeObservable(name).subscribe(event -> values.add(event.getValueOpt()), ex -> {}, () -> completed.set(true));
+
+        // A second use of the value, such as a new instance of a scope, before the first use is released
+        debugSource.getRuntimeObservable(name);
+        debugSource.releaseRuntimeObservable(name);
+
+        debugSource.fireEvent(name, Optional.of("30"));
+        assertEquals(Lists.newArrayList(Optional.empty(), Optional.of("30")), values);
+        assertFalse(completed.get());
+
+        debugSource.releaseRuntimeObservable(name);
+        assertTrue(completed.get());
+    }
+
+    @Test(timeout = 5000, expected = ConfigException.class)
+    public void testUnknownRuntimeName()
+    {
+        debugSource.fireEvent("com.kik.config.ice.ScopedConfigFactoryTest$Config.unknown:tenant-1", Optional.of("1"));
+    }
+
+    @Test(timeout = 5000, expected = ConfigException.class)
+    public void testNotInstalledForRuntimeScopes()
+    {
+        configSystem.scoped(UnscopedConfig.class);
+    }
+}
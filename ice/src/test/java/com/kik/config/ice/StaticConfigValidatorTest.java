@@ -0,0 +1,117 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Ordering;
+import com.google.inject.AbstractModule;
+import com.google.inject.Module;
+import com.kik.config.ice.annotations.DefaultValue;
+import com.kik.config.ice.exception.ConfigException;
+import java.time.Duration;
+import java.util.List;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+public class StaticConfigValidatorTest
+{
+    public interface GoodConfig
+    {
+        @DefaultValue("123")
+        int size();
+
+        @DefaultValue("PT1M")
+        Duration timeout();
+
+        @DefaultValue("a,b,c")
+        List<String> hosts();
+    }
+
+    public interface BadConfig
+    {
+        // intentionally bad
+        @DefaultValue("asdf")
+        Integer myValue();
+
+        @DefaultValue("true")
+        boolean enabled();
+    }
+
+    private static Module configModules(Class<?>... configInterfaces)
+    {
+        return new AbstractModule()
+        {
+            @Override
+            protected void configure()
+            {
+                for (Class<?> configInterface : configInterfaces) {
+                    install(ConfigSystem.configModule(configInterface));
+                }
+            }
+        };
+    }
+
+    @Test(timeout = 5000)
+    public void testParallelReport()
+    {
+        ValidationReport report = StaticConfigValidator.validate(4, ImmutableList.of(
+            ConfigConfigurator.testModules(),
+            configModules(GoodConfig.class, BadConfig.class)));
+
+        assertFalse(report.isSuccessful());
+        assertEquals(4, report.getParallelism());
+        assertEquals(5, report.getResults().size());
+        assertTrue(report.getResults().stream().allMatch(r -> r.getElapsedNanos() >= 0));
+
+        List<String> names = report.getResults().stream()
+            .map(ConfigReport.Result::getName)
+            .collect(toList());
+        assertEquals(Ordering.natural().sortedCopy(names), names);
+
+        List<String> failedNames = report.getFailures().stream()
+            .map(ConfigReport.Result::getName)
+            .collect(toList());
+        assertEquals(ImmutableList.of("com.kik.config.ice.StaticConfigValidatorTest$BadConfig.myValue"), failedNames);
+        assertTrue(report.getFailures().get(0).getError().isPresent());
+        assertTrue(report.getSummary().startsWith("1 of 5 configuration values failed static config checks"));
+
+        try {
+            report.throwIfFailed();
+            fail("Expected validation failure");
+        }
+        catch (ConfigException ex) {
+            assertEquals("1 of 5 configuration values failed static config checks", ex.getMessage());
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testAssertValid()
+    {
+        StaticConfigValidator.assertValid(ConfigConfigurator.testModules(), configModules(GoodConfig.class));
+
+        try {
+            StaticConfigValidator.assertValid(ConfigConfigurator.testModules(), configModules(BadConfig.class));
+            fail("Expected validation failure");
+        }
+        catch (ConfigException ex) {
+            assertTrue(ex.getMessage().contains("BadConfig.myValue"));
+        }
+    }
+}
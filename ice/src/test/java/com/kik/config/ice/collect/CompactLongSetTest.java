@@ -0,0 +1,65 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.collect;
+
+import com.google.common.collect.Sets;
+import java.util.Random;
+import java.util.Set;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class CompactLongSetTest
+{
+    @Test(timeout = 5000)
+    public void testSortsAndRemovesDuplicates()
+    {
+        CompactLongSet set = CompactLongSet.copyOf(5L, -3L, 5L, Long.MAX_VALUE, 0L, -3L);
+        assertEquals(4, set.size());
+        assertArrayEquals(new long[]{-3L, 0L, 5L, Long.MAX_VALUE}, set.toLongArray());
+        assertTrue(set.contains(0L));
+        assertTrue(set.contains(Long.MAX_VALUE));
+        assertFalse(set.contains(1L));
+        assertFalse(set.contains("5"));
+        assertFalse(set.hasBloomPrefilter());
+
+        Set<Long> expected = Sets.newHashSet(5L, -3L, Long.MAX_VALUE, 0L);
+        assertEquals(expected, set);
+        assertEquals(set, expected);
+        assertEquals(expected.hashCode(), set.hashCode());
+        assertTrue(CompactLongSet.of().isEmpty());
+    }
+
+    @Test(timeout = 5000)
+    public void testBloomPrefilter()
+    {
+        Random random = new Random(42);
+        long[] values = random.longs(CompactLongSet.BLOOM_PREFILTER_MIN_SIZE).toArray();
+        CompactLongSet set = CompactLongSet.copyOf(values);
+        assertTrue(set.hasBloomPrefilter());
+        for (long value : values) {
+            assertTrue(set.contains(value));
+        }
+
+        CompactLongSet unfiltered = CompactLongSet.copyOf(values, false);
+        for (int idx = 0; idx < 10_000; ++idx) {
+            long value = random.nextLong();
+            assertEquals(unfiltered.contains(value), set.contains(value));
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.collect;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+import com.kik.config.ice.ConfigConfigurator;
+import com.kik.config.ice.ConfigSystem;
+import com.kik.config.ice.annotations.DefaultValue;
+import com.kik.config.ice.source.DebugDynamicConfigSource;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import static java.util.stream.Collectors.toList;
+import java.util.stream.IntStream;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class CompactStringSetTest
+{
+    private static final String blockedHostsName = "com.kik.config.ice.collect.CompactStringSetTest$Config.blockedHosts";
+
+    public interface Config
+    {
+        @DefaultValue("a.example.com,b.example.com")
+        CompactStringSet blockedHosts();
+
+        @DefaultValue("1,2,3")
+        CompactLongSet blockedIds();
+    }
+
+    @Inject
+    private Config config;
+
+    @Inject
+    private DebugDynamicConfigSource configSource;
+
+    @Test(timeout = 5000)
+    public void testMembership()
+    {
+        List<String> values = hosts(0, 1000);
+        CompactStringSet set = CompactStringSet.copyOf(values);
+        assertEquals(1000, set.size());
+        for (String value : values) {
+            assertTrue(set.contains(value));
+        }
+        assertFalse(set.contains("host-1000.example.com"));
+        assertFalse(set.contains(""));
+        assertFalse(set.contains((Object) null));
+        assertFalse(set.hasBloomPrefilter());
+        assertEquals(ImmutableSet.copyOf(values), set);
+
+        CompactStringSet withEmpty = CompactStringSet.copyOf(Arrays.asList("", "x", "x", "y"));
+        assertEquals(3, withEmpty.size());
+        assertTrue(withEmpty.contains(""));
+        assertEquals(ImmutableSet.of("", "x", "y"), withEmpty);
+        assertTrue(CompactStringSet.of().isEmpty());
+    }
+
+    @Test(timeout = 5000)
+    public void testFullHashCollision()
+    {
+        final String first = "\u54a8\u567a\u560d\u5cdf\u0020";
+        final String second = "\u4e85\u5969\u5dba\u4f87\ub44f";
+        assertEquals(Hashes.hash(first), Hashes.hash(second));
+
+        List<String> values = hosts(0, 100);
+        values.add(first);
+        values.add(second);
+        CompactStringSet set = CompactStringSet.copyOf(values);
+        assertEquals(102, set.size());
+        assertTrue(set.contains(first));
+        assertTrue(set.contains(second));
+        assertEquals(ImmutableSet.copyOf(values), set);
+
+        // Still found once the table is reused by a delta
+        values.remove(0);
+        CompactStringSet delta = CompactStringSet.copyOf(values, set);
+        assertTrue(delta.contains(first));
+        assertTrue(delta.contains(second));
+        assertEquals(ImmutableSet.copyOf(values), delta);
+    }
+
+    @Test(timeout = 5000)
+    public void testLargeSet()
+    {
+        List<String> values = hosts(0, CompactStringSet.BLOOM_PREFILTER_MIN_SIZE * 2);
+        CompactStringSet set = CompactStringSet.copyOf(values);
+        assertTrue(set.hasBloomPrefilter());
+        assertEquals(values.size(), set.size());
+        for (String value : values) {
+            assertTrue(set.contains(value));
+        }
+        for (String value : hosts(-1000, 0)) {
+            assertFalse(set.contains(value));
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testDelta()
+    {
+        CompactStringSet previous = CompactStringSet.copyOf(hosts(0, 1000), true);
+
+        // Removes 0-9 and adds 1000-1004
+        List<String> values = hosts(10, 1005);
+        CompactStringSet delta = CompactStringSet.copyOf(values, previous);
+        assertTrue(delta.isDelta());
+        assertTrue(delta.hasBloomPrefilter());
+        assertEquals(ImmutableSet.copyOf(values), delta);
+        assertFalse(delta.contains("host-5.example.com"));
+        assertTrue(delta.contains("host-1004.example.com"));
+
+        // Deltas are always against the previous table, so a later change back is also small
+        CompactStringSet reverted = CompactStringSet.copyOf(hosts(0, 1000), delta);
+        assertFalse(reverted.isDelta());
+        assertEquals(ImmutableSet.copyOf(hosts(0, 1000)), reverted);
+
+        // Large changes rebuild the table
+        CompactStringSet rebuilt = CompactStringSet.copyOf(hosts(500, 1500), previous);
+        assertFalse(rebuilt.isDelta());
+        assertEquals(ImmutableSet.copyOf(hosts(500, 1500)), rebuilt);
+    }
+
+    @Test(timeout = 5000)
+    public void testConfigValues()
+    {
+        Injector injector = Guice.createInjector(
+            ConfigConfigurator.testModules(),
+            ConfigSystem.configModule(Config.class));
+        injector.injectMembers(this);
+
+        assertTrue(config.blockedHosts().contains("a.example.com"));
+        assertFalse(config.blockedHosts().contains("c.example.com"));
+        assertTrue(config.blockedIds().contains(2L));
+
+        List<String> values = hosts(0, 1000);
+        configSource.fireEvent(blockedHostsName, Optional.of(String.join(",", values)));
+        CompactStringSet first = config.blockedHosts();
+        assertFalse(first.isDelta());
+
+        // A small change from the same source is applied to the previous value
+        values.add("c.example.com");
+        configSource.fireEvent(blockedHostsName, Optional.of(String.join(",", values)));
+        assertTrue(config.blockedHosts().isDelta());
+        assertTrue(config.blockedHosts().contains("c.example.com"));
+        assertEquals(1001, config.blockedHosts().size());
+    }
+
+    private static List<String> hosts(int from, int to)
+    {
+        return IntStream.range(from, to).mapToObj(idx -> "host-" + idx + ".example.com").collect(toList());
+    }
+}
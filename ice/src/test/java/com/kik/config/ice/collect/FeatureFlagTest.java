@@ -0,0 +1,174 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.collect;
+
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.kik.config.ice.ConfigConfigurator;
+import com.kik.config.ice.ConfigSystem;
+import com.kik.config.ice.ExplicitBindingModule;
+import com.kik.config.ice.annotations.DefaultValue;
+import com.kik.config.ice.convert.ConfigValueConverters;
+import com.kik.config.ice.source.DebugDynamicConfigSource;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Assume;
+import org.junit.Test;
+
+public class FeatureFlagTest
+{
+    public interface Config
+    {
+        @DefaultValue("percent=10,salt=checkout,allow=42;alice,deny=7")
+        FeatureFlag newCheckout();
+    }
+
+    @Test(timeout = 5000)
+    public void testParse()
+    {
+        assertSame(FeatureFlag.ON, ConfigValueConverters.toFeatureFlag("on"));
+        assertSame(FeatureFlag.OFF, ConfigValueConverters.toFeatureFlag(" off "));
+        assertSame(FeatureFlag.OFF, ConfigValueConverters.toFeatureFlag(""));
+
+        FeatureFlag flag = ConfigValueConverters.toFeatureFlag("percent=12.5,salt=a\\,b,allow=42;alice,deny=7");
+        assertEquals(new BigDecimal("12.5"), flag.getRolloutPercent());
+        assertEquals("a,b", flag.getSalt());
+        assertTrue(flag.getAllowedIds().contains("alice"));
+        assertTrue(flag.getDeniedIds().contains("7"));
+        assertEquals(flag, ConfigValueConverters.toFeatureFlag(flag.toString()));
+        assertEquals("percent=100", FeatureFlag.ON.toString());
+    }
+
+    @Test(timeout = 5000, expected = IllegalArgumentException.class)
+    public void testParseUnknownKey()
+    {
+        ConfigValueConverters.toFeatureFlag("percent=10,pecrent=20");
+    }
+
+    @Test(timeout = 5000, expected = IllegalArgumentException.class)
+    public void testParseTooPrecise()
+    {
+        ConfigValueConverters.toFeatureFlag("percent=0.001");
+    }
+
+    @Test(timeout = 5000, expected = IllegalArgumentException.class)
+    public void testParseOutOfRange()
+    {
+        ConfigValueConverters.toFeatureFlag("percent=101");
+    }
+
+    @Test(timeout = 5000)
+    public void testAllowAndDeny()
+    {
+        FeatureFlag flag = FeatureFlag.of(BigDecimal.ZERO, "", ImmutableList.of("42", "alice"), ImmutableList.of("7"));
+        assertTrue(flag.isEnabledFor(42L));
+        assertTrue(flag.isEnabledFor("42"));
+        assertTrue(flag.isEnabledFor("alice"));
+        assertFalse(flag.isEnabledFor(43L));
+
+        FeatureFlag everyoneButSeven = FeatureFlag.of(BigDecimal.valueOf(100), "", ImmutableList.of("7"), ImmutableList.of("7"));
+        assertFalse(everyoneButSeven.isEnabledFor(7L));
+        assertFalse(everyoneButSeven.isEnabledFor("7"));
+        assertTrue(everyoneButSeven.isEnabledFor(8L));
+        assertFalse(FeatureFlag.OFF.isEnabledFor(8L));
+    }
+
+    @Test(timeout = 5000)
+    public void testRolloutIsProportionalAndMonotonic()
+    {
+        FeatureFlag tenPercent = FeatureFlag.of(BigDecimal.TEN, "exp", ImmutableList.of(), ImmutableList.of());
+        FeatureFlag twentyPercent = FeatureFlag.of(BigDecimal.valueOf(20), "exp", ImmutableList.of(), ImmutableList.of());
+        FeatureFlag otherSalt = FeatureFlag.of(BigDecimal.TEN, "other", ImmutableList.of(), ImmutableList.of());
+
+        final int ids = 100_000;
+        int enabled = 0;
+        int enabledForStrings = 0;
+        int enabledForBothSalts = 0;
+        for (long id = 0; id < ids; ++id) {
+            if (tenPercent.isEnabledFor(id)) {
+                ++enabled;
+                assertTrue(twentyPercent.isEnabledFor(id));
+                if (otherSalt.isEnabledFor(id)) {
+                    ++enabledForBothSalts;
+                }
+            }
+            if (tenPercent.isEnabledFor("user-" + id)) {
+                ++enabledForStrings;
+            }
+        }
+        assertEquals(ids / 10, enabled, ids / 100);
+        assertEquals(ids / 10, enabledForStrings, ids / 100);
+        // Independent salts overlap on about 10% of 10%
+        assertEquals(ids / 100, enabledForBothSalts, ids / 500);
+    }
+
+    @Test(timeout = 5000)
+    public void testEvaluationDoesNotAllocate()
+    {
+        final java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+        final com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+        Assume.assumeTrue(allocationBean.isThreadAllocatedMemorySupported());
+
+        FeatureFlag flag = ConfigValueConverters.toFeatureFlag("percent=50,salt=exp,allow=42;alice,deny=7;bob");
+        final String[] stringIds = {"alice", "bob", "carol", "12345"};
+        int enabled = 0;
+        // Warm up, so the measured loop runs compiled code
+        for (int round = 0; round < 2; ++round) {
+            final long threadId = Thread.currentThread().getId();
+            final long before = allocationBean.getThreadAllocatedBytes(threadId);
+            for (long id = 0; id < 100_000; ++id) {
+                enabled += flag.isEnabledFor(id) ? 1 : 0;
+                enabled += flag.isEnabledFor(stringIds[(int) (id & 3)]) ? 1 : 0;
+            }
+            final long allocated = allocationBean.getThreadAllocatedBytes(threadId) - before;
+            if (round == 1) {
+                // Allow for the allocation counter itself
+                assertTrue("Allocated " + allocated + " bytes", allocated < 1024);
+            }
+        }
+        assertTrue(enabled > 0);
+    }
+
+    @Test(timeout = 5000)
+    public void testConfigChangesApplyAsOneValue()
+    {
+        Injector injector = Guice.createInjector(
+            new ExplicitBindingModule(),
+            ConfigConfigurator.testModules(),
+            ConfigSystem.configModule(Config.class));
+        Config config = injector.getInstance(Config.class);
+        DebugDynamicConfigSource debugSource = injector.getInstance(DebugDynamicConfigSource.class);
+
+        FeatureFlag flag = config.newCheckout();
+        assertTrue(flag.isEnabledFor(42L));
+        assertFalse(flag.isEnabledFor(7L));
+
+        debugSource.set(debugSource.id(Config.class).newCheckout()).toValue(
+            FeatureFlag.of(BigDecimal.valueOf(100), "checkout", ImmutableList.of(), ImmutableList.of("42")));
+        assertFalse(config.newCheckout().isEnabledFor(42L));
+        assertTrue(config.newCheckout().isEnabledFor(7L));
+
+        // A value already read keeps all of its rules
+        assertTrue(flag.isEnabledFor(42L));
+        assertFalse(flag.isEnabledFor(7L));
+    }
+}
@@ -15,6 +15,8 @@
  */
 package com.kik.config.ice.convert;
 
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.google.inject.Guice;
 import com.google.inject.Inject;
@@ -29,13 +31,18 @@ import java.time.LocalTime;
 import java.time.Month;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import static java.util.stream.Collectors.joining;
+import java.util.stream.LongStream;
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertNotNull;
 import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.fail;
+import static org.junit.Assert.assertArrayEquals;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -183,6 +190,122 @@ public class ConfigValueConvertersTest
         assertListValues(ConfigValueConverters.parseCsvLine("a,\"b,b,b\",c"), "a", "b,b,b", "c");
         assertListValues(ConfigValueConverters.parseCsvLine("a, \"b\"\"stuff\"\"b\" ,c"), "a", "b\"stuff\"b", "c");
         assertListValues(ConfigValueConverters.parseCsvLine("\"a,b\"\"asdf\"\"b,c\""), "a,b\"asdf\"b,c");
+
+        // Malformed quoted fields are taken as-is
+        assertEquals(Arrays.asList("\"a", "b"), ConfigValueConverters.parseCsvLine("\"a,b"));
+        assertEquals(Arrays.asList("\"a\"b", "c"), ConfigValueConverters.parseCsvLine("\"a\"b,c"));
+        assertEquals(Arrays.asList(" a ", "", "b"), ConfigValueConverters.parseCsvLine(" a ,,b"));
+    }
+
+    @Test(timeout = 5000)
+    public void testNumericListConverters()
+    {
+        ConfigValueConverter<List<Integer>> intListConverter = (ConfigValueConverter<List<Integer>>) converterMap.get(new TypeLiteral<List<Integer>>()
+        {
+        });
+        assertNull(intListConverter.apply(""));
+        assertEquals(Arrays.asList(1, -2, 3), intListConverter.apply("1, -2,\"3\""));
+
+        ConfigValueConverter<List<Long>> longListConverter = (ConfigValueConverter<List<Long>>) converterMap.get(new TypeLiteral<List<Long>>()
+        {
+        });
+        assertEquals(Arrays.asList(Long.MIN_VALUE, 0L, Long.MAX_VALUE), longListConverter.apply(Long.MIN_VALUE + ",0,+" + Long.MAX_VALUE));
+
+        ConfigValueConverter<Set<Long>> longSetConverter = (ConfigValueConverter<Set<Long>>) converterMap.get(new TypeLiteral<Set<Long>>()
+        {
+        });
+        assertEquals(Sets.newHashSet(5L, 7L), longSetConverter.apply("7,5,7"));
+    }
+
+    @Test(timeout = 5000)
+    public void testPrimitiveArrayConverters()
+    {
+        ConfigValueConverter<int[]> intArrayConverter = getConverter(int[].class);
+        assertNull(intArrayConverter.apply(null));
+        assertArrayEquals(new int[]{Integer.MIN_VALUE, 2, Integer.MAX_VALUE}, intArrayConverter.apply("-2147483648,2,2147483647"));
+
+        // More values than the initial capacity of the parser
+        String manyValues = LongStream.range(0, 100).mapToObj(String::valueOf).collect(joining(","));
+        assertArrayEquals(LongStream.range(0, 100).toArray(), getConverter(long[].class).apply(manyValues));
+
+        assertArrayEquals(new double[]{1.5d, -0.25d, 1e3d}, getConverter(double[].class).apply("1.5, -0.25 ,1e3"), 0d);
+    }
+
+    @Test(timeout = 5000)
+    public void testNumericConverters_failures()
+    {
+        ConfigValueConverter<int[]> intArrayConverter = getConverter(int[].class);
+        ConfigValueConverter<long[]> longArrayConverter = getConverter(long[].class);
+        for (String invalid : Arrays.asList("1,,2", "1,a", "1,-", "2147483648", "1 2")) {
+            try {
+                intArrayConverter.apply(invalid);
+                fail("Expected failure to parse " + invalid);
+            }
+            catch (NumberFormatException ex) {
+                // expected
+            }
+        }
+        try {
+            longArrayConverter.apply("9223372036854775808");
+            fail("Expected overflow");
+        }
+        catch (NumberFormatException ex) {
+            // expected
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testMapConverters()
+    {
+        ConfigValueConverter<Map<String, String>> stringMapConverter = (ConfigValueConverter<Map<String, String>>) converterMap.get(new TypeLiteral<Map<String, String>>()
+        {
+        });
+        assertNull(stringMapConverter.apply(""));
+        Map<String, String> stringMap = stringMapConverter.apply("b=2,a=1,c\\,d=x\\=y,e=,f=g=h");
+        assertEquals(ImmutableMap.of("a", "1", "b", "2", "c,d", "x=y", "e", "", "f", "g=h"), stringMap);
+        assertEquals(Arrays.asList("a", "b", "c,d", "e", "f"), Lists.newArrayList(stringMap.keySet()));
+
+        ConfigValueConverter<Map<String, Integer>> intMapConverter = (ConfigValueConverter<Map<String, Integer>>) converterMap.get(new TypeLiteral<Map<String, Integer>>()
+        {
+        });
+        assertEquals(ImmutableMap.of("x", 1, "y", -2), intMapConverter.apply("x=1,y= -2"));
+
+        ConfigValueConverter<Map<String, Long>> longMapConverter = (ConfigValueConverter<Map<String, Long>>) converterMap.get(new TypeLiteral<Map<String, Long>>()
+        {
+        });
+        assertEquals(ImmutableMap.of("x", Long.MAX_VALUE), longMapConverter.apply("x=" + Long.MAX_VALUE));
+
+        ConfigValueConverter<Map<String, Double>> doubleMapConverter = (ConfigValueConverter<Map<String, Double>>) converterMap.get(new TypeLiteral<Map<String, Double>>()
+        {
+        });
+        assertEquals(ImmutableMap.of("x", 1.5d), doubleMapConverter.apply("x=1.5"));
+
+        ConfigValueConverter<Map<String, List<String>>> listMapConverter = (ConfigValueConverter<Map<String, List<String>>>) converterMap.get(new TypeLiteral<Map<String, List<String>>>()
+        {
+        });
+        Map<String, List<String>> listMap = listMapConverter.apply("us-east=host1;host2,eu\\,west=host\\;3");
+        assertEquals(ImmutableMap.of("us-east", Arrays.asList("host1", "host2"), "eu,west", Arrays.asList("host;3")), listMap);
+
+        // Formatting produces the same syntax
+        assertEquals(listMap, listMapConverter.apply(ConfigValueConverters.fromMap(listMap)));
+        assertEquals(stringMap, stringMapConverter.apply(ConfigValueConverters.fromMap(stringMap)));
+    }
+
+    @Test(timeout = 5000)
+    public void testMapConverters_failures()
+    {
+        ConfigValueConverter<Map<String, Integer>> intMapConverter = (ConfigValueConverter<Map<String, Integer>>) converterMap.get(new TypeLiteral<Map<String, Integer>>()
+        {
+        });
+        for (String invalid : Arrays.asList("x=1,y", "x=1,x=2", "x=a", "x=1\\", "x=1,")) {
+            try {
+                intMapConverter.apply(invalid);
+                fail("Expected failure to parse " + invalid);
+            }
+            catch (IllegalArgumentException ex) {
+                // expected, including NumberFormatException
+            }
+        }
     }
 
     @Test(timeout = 5000)
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.convert;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.Module;
+import com.google.inject.name.Names;
+import com.kik.config.ice.ConfigConfigurator;
+import com.kik.config.ice.ConfigSystem;
+import com.kik.config.ice.annotations.DefaultValue;
+import com.kik.config.ice.source.DebugDynamicConfigSource;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+public class ConvertedValueCacheTest
+{
+    private static final String FIRST = "first";
+    private static final String SECOND = "second";
+
+    public interface Config
+    {
+        @DefaultValue(value = "alpha,beta,gamma", innerType = String.class)
+        List<String> hosts();
+
+        @DefaultValue("80,443")
+        int[] ports();
+    }
+
+    private static Injector createInjector(Module... extraModules)
+    {
+        return Guice.createInjector(
+            ConfigConfigurator.testModules(),
+            new AbstractModule()
+            {
+                @Override
+                protected void configure()
+                {
+                    install(ConfigSystem.configModule(Config.class, Names.named(FIRST)));
+                    install(ConfigSystem.configModule(Config.class, Names.named(SECOND)));
+                    for (Module module : extraModules) {
+                        install(module);
+                    }
+                }
+            });
+    }
+
+    @Test(timeout = 5000)
+    public void testValuesSharedAcrossScopes()
+    {
+        Injector injector = createInjector(ConvertedValueCache.module());
+        Config first = injector.getInstance(Key.get(Config.class, Names.named(FIRST)));
+        Config second = injector.getInstance(Key.get(Config.class, Names.named(SECOND)));
+
+        assertEquals(3, first.hosts().size());
+        assertSame(first.hosts(), second.hosts());
+
+        // Equal raw values set on different scopes also share their converted value
+        DebugDynamicConfigSource dcs = injector.getInstance(DebugDynamicConfigSource.class);
+        dcs.set(dcs.id(Config.class, Optional.of(FIRST)).hosts()).toValue(Arrays.asList("x", "y"));
+        dcs.set(dcs.id(Config.class, Optional.of(SECOND)).hosts()).toValue(Arrays.asList("x", "y"));
+        assertEquals(2, first.hosts().size());
+        assertSame(first.hosts(), second.hosts());
+
+        assertEquals(2L, injector.getInstance(ConvertedValueCache.class).getStats().hitCount());
+    }
+
+    @Test(timeout = 5000)
+    public void testArraysNotShared()
+    {
+        Injector injector = createInjector(ConvertedValueCache.module());
+        Config first = injector.getInstance(Key.get(Config.class, Names.named(FIRST)));
+        Config second = injector.getInstance(Key.get(Config.class, Names.named(SECOND)));
+
+        assertArrayEquals(new int[]{80, 443}, first.ports());
+        assertNotSame(first.ports(), second.ports());
+
+        // Changing one scope's array cannot change another's
+        first.ports()[0] = 8080;
+        assertEquals(80, second.ports()[0]);
+    }
+
+    @Test(timeout = 5000)
+    public void testValuesNotSharedWithoutCache()
+    {
+        Injector injector = createInjector();
+        Config first = injector.getInstance(Key.get(Config.class, Names.named(FIRST)));
+        Config second = injector.getInstance(Key.get(Config.class, Names.named(SECOND)));
+
+        assertEquals(first.hosts(), second.hosts());
+        assertNotSame(first.hosts(), second.hosts());
+    }
+
+    @Test(timeout = 5000)
+    public void testFailedConversionNotCached()
+    {
+        ConvertedValueCache cache = new ConvertedValueCache(10L);
+        AtomicInteger calls = new AtomicInteger();
+        ConfigValueConverter<Integer> converter = raw -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new IllegalArgumentException("first call fails");
+            }
+            return Integer.valueOf(raw);
+        };
+
+        try {
+            cache.convert(converter, "12");
+            fail("Expected conversion failure");
+        }
+        catch (IllegalArgumentException ex) {
+            assertEquals("first call fails", ex.getMessage());
+        }
+
+        assertEquals(Integer.valueOf(12), cache.convert(converter, "12"));
+        assertEquals(Integer.valueOf(12), cache.convert(converter, "12"));
+        assertEquals(2, calls.get());
+    }
+}
@@ -15,21 +15,29 @@
  */
 package com.kik.config.ice.convert;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.google.inject.Guice;
 import com.google.inject.Inject;
 import com.google.inject.Injector;
+import com.google.inject.TypeLiteral;
 import com.kik.config.ice.ConfigConfigurator;
 import com.kik.config.ice.ConfigSystem;
 import com.kik.config.ice.ExplicitBindingModule;
+import com.kik.config.ice.FoldedConfigReads;
+import com.kik.config.ice.annotations.Constant;
 import com.kik.config.ice.annotations.DefaultValue;
+import com.kik.config.ice.internal.ConfigDescriptor;
 import com.kik.config.ice.source.DebugDynamicConfigSource;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import org.junit.Test;
+import rx.Observable;
 
 public class EndToEndValueConvertersTest
 {
@@ -43,6 +51,33 @@ public class EndToEndValueConvertersTest
 
         @DefaultValue(value = "abc,\"foo,bar\"", innerType = String.class)
         Set<String> setOfStrings();
+
+        @DefaultValue(value = "1,2,3", innerType = Long.class)
+        List<Long> listOfLongs();
+
+        @DefaultValue("4,5,6")
+        long[] arrayOfLongs();
+
+        @DefaultValue("read=PT1S,write=PT5S")
+        Map<String, String> timeouts();
+
+        @DefaultValue("a=1;2,b=3")
+        Map<String, List<String>> groups();
+
+        @DefaultValue("x,y")
+        List<String> listWithoutInnerType();
+    }
+
+    public interface ArrayConfig
+    {
+        @DefaultValue("1,2,3")
+        int[] ports();
+
+        Observable<int[]> portsObservable();
+
+        @Constant
+        @DefaultValue("4,5")
+        long[] ids();
     }
 
     @Inject
@@ -71,6 +106,69 @@ public class EndToEndValueConvertersTest
 
         configSource.fireEvent("com.kik.config.ice.convert.EndToEndValueConvertersTest$Config.setOfStrings", Optional.of("1,2,3"));
         assertEquals(Sets.newHashSet("3", "2", "1"), config.setOfStrings());
+
+        assertEquals(Lists.newArrayList(1L, 2L, 3L), config.listOfLongs());
+        configSource.set(configSource.id(Config.class).listOfLongs()).toValue(Lists.newArrayList(7L, 8L));
+        assertEquals(Lists.newArrayList(7L, 8L), config.listOfLongs());
+
+        assertArrayEquals(new long[]{4, 5, 6}, config.arrayOfLongs());
+        configSource.set(configSource.id(Config.class).arrayOfLongs()).toValue(new long[]{9, 10});
+        assertArrayEquals(new long[]{9, 10}, config.arrayOfLongs());
+
+        assertEquals(ImmutableMap.of("read", "PT1S", "write", "PT5S"), config.timeouts());
+        configSource.set(configSource.id(Config.class).timeouts()).toValue(ImmutableMap.of("read", "PT2S", "a,b", "c=d"));
+        assertEquals(ImmutableMap.of("read", "PT2S", "a,b", "c=d"), config.timeouts());
+
+        assertEquals(ImmutableMap.of("a", Lists.newArrayList("1", "2"), "b", Lists.newArrayList("3")), config.groups());
+    }
+
+    @Test(timeout = 5000)
+    public void testArrayValuesCopiedOnRead()
+    {
+        Injector injector = Guice.createInjector(
+            new ExplicitBindingModule(),
+            ConfigConfigurator.testModules(),
+            FoldedConfigReads.module(),
+            ConfigSystem.configModule(ArrayConfig.class));
+        ArrayConfig arrayConfig = injector.getInstance(ArrayConfig.class);
+
+        // Changing a returned array must not change the value seen by later reads
+        arrayConfig.ports()[0] = 100;
+        assertArrayEquals(new int[]{1, 2, 3}, arrayConfig.ports());
+        arrayConfig.ids()[0] = 100L;
+        assertArrayEquals(new long[]{4, 5}, arrayConfig.ids());
+
+        arrayConfig.portsObservable().subscribe(ports -> ports[1] = 200);
+        assertArrayEquals(new int[]{1, 2, 3}, arrayConfig.ports());
+
+        ArrayConfig snapshot = injector.getInstance(ConfigSystem.class).snapshot(ArrayConfig.class);
+        snapshot.ports()[2] = 300;
+        assertArrayEquals(new int[]{1, 2, 3}, snapshot.ports());
+        snapshot.ids()[1] = 300L;
+        assertArrayEquals(new long[]{4, 5}, snapshot.ids());
+        snapshot.portsObservable().subscribe(ports -> ports[0] = 400);
+        assertArrayEquals(new int[]{1, 2, 3}, snapshot.ports());
+    }
+
+    @Test(timeout = 5000)
+    public void testGenericReturnTypeWithoutInnerType() throws Exception
+    {
+        Injector injector = Guice.createInjector(
+            new ExplicitBindingModule(),
+            ConfigConfigurator.testModules(),
+            ConfigSystem.configModule(Config.class));
+
+        injector.injectMembers(this);
+
+        // Without innerType, the method's full generic return type is the config type
+        ConfigDescriptor desc = ConfigSystem.descriptorFactory.buildDescriptor(Config.class.getMethod("listWithoutInnerType"), Optional.empty());
+        assertEquals(new TypeLiteral<List<String>>()
+        {
+        }.getType(), desc.getConfigType());
+
+        assertEquals(Lists.newArrayList("x", "y"), config.listWithoutInnerType());
+        configSource.set(configSource.id(Config.class).listWithoutInnerType()).toValue(Lists.newArrayList("z"));
+        assertEquals(Lists.newArrayList("z"), config.listWithoutInnerType());
     }
 
 }
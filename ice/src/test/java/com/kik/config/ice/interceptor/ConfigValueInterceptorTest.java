@@ -87,4 +87,39 @@ public class ConfigValueInterceptorTest
         debugSource.fireEvent(cfgName1, Optional.of("abcd"));
         assertEquals("abcdefgh", example.config.myValue());
     }
+
+    public interface ScopedConfig
+    {
+        @DefaultValue("hello")
+        String loudGreeting();
+
+        @DefaultValue("hello")
+        String quietGreeting();
+    }
+
+    @Test(timeout = 5000)
+    public void testMethodScopedInterceptor() throws Exception
+    {
+        Injector injector = Guice.createInjector(
+            new ExplicitBindingModule(),
+            ConfigConfigurator.testModules(),
+            ConfigSystem.configModule(ScopedConfig.class),
+            MethodScopedInterceptor.module(5));
+
+        DebugDynamicConfigSource debugSource = injector.getInstance(DebugDynamicConfigSource.class);
+        ScopedConfig config = injector.getInstance(ScopedConfig.class);
+        MethodScopedInterceptor interceptor = injector.getInstance(MethodScopedInterceptor.class);
+
+        assertEquals("hello!", config.loudGreeting());
+        assertEquals("hello", config.quietGreeting());
+
+        debugSource.fireEvent("com.kik.config.ice.interceptor.ConfigValueInterceptorTest$ScopedConfig.loudGreeting", Optional.of("hi"));
+        debugSource.fireEvent("com.kik.config.ice.interceptor.ConfigValueInterceptorTest$ScopedConfig.quietGreeting", Optional.of("hi"));
+        assertEquals("hi!", config.loudGreeting());
+        assertEquals("hi", config.quietGreeting());
+
+        // Applicability is decided once per accessor, and values are never checked
+        assertEquals(2, interceptor.applicabilityChecks.get());
+        assertEquals(0, interceptor.valueChecks.get());
+    }
 }
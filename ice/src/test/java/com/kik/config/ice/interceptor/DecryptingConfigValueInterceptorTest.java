@@ -0,0 +1,203 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.interceptor;
+
+import com.google.common.util.concurrent.Service;
+import com.google.common.util.concurrent.ServiceManager;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+import static com.google.inject.name.Names.named;
+import com.kik.config.ice.ConfigConfigurator;
+import com.kik.config.ice.ConfigSystem;
+import com.kik.config.ice.ExplicitBindingModule;
+import com.kik.config.ice.annotations.DefaultValue;
+import com.kik.config.ice.exception.ConfigException;
+import com.kik.config.ice.source.DebugDynamicConfigSource;
+import com.kik.config.ice.source.FileDynamicConfigSource;
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.KeyStore;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DecryptingConfigValueInterceptorTest
+{
+    private static final String KEY_ID = "config-key";
+    private static final String PASSWORD = "changeit";
+    private static final String passwordName = "com.kik.config.ice.interceptor.DecryptingConfigValueInterceptorTest$Config.password";
+    private static final String tokenName = "com.kik.config.ice.interceptor.DecryptingConfigValueInterceptorTest$Config.token";
+    private static final String hostName = "com.kik.config.ice.interceptor.DecryptingConfigValueInterceptorTest$Config.host";
+
+    public interface Config
+    {
+        @DefaultValue("")
+        String password();
+
+        @DefaultValue("")
+        String token();
+
+        @DefaultValue("localhost")
+        String host();
+    }
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private SecretKey key;
+    private File keyStoreFile;
+    private ServiceManager serviceManager;
+
+    @Before
+    public void setup() throws Exception
+    {
+        KeyGenerator keyGenerator = KeyGenerator.getInstance("AES");
+        keyGenerator.init(128);
+        key = keyGenerator.generateKey();
+
+        KeyStore keyStore = KeyStore.getInstance(KeyStoreSecretKeyProvider.KEYSTORE_TYPE);
+        keyStore.load(null, PASSWORD.toCharArray());
+        keyStore.setEntry(KEY_ID, new KeyStore.SecretKeyEntry(key), new KeyStore.PasswordProtection(PASSWORD.toCharArray()));
+        keyStoreFile = tempFolder.newFile("config.jceks");
+        try (OutputStream output = Files.newOutputStream(keyStoreFile.toPath())) {
+            keyStore.store(output, PASSWORD.toCharArray());
+        }
+    }
+
+    @After
+    public void teardown()
+    {
+        if (serviceManager != null) {
+            serviceManager.stopAsync().awaitStopped();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testDecryptsEncryptedValues() throws Exception
+    {
+        Injector injector = Guice.createInjector(
+            new ExplicitBindingModule(),
+            ConfigConfigurator.testModules(),
+            ConfigSystem.configModule(Config.class),
+            KeyStoreSecretKeyProvider.module(keyStoreFile.getAbsolutePath(), PASSWORD),
+            DecryptingConfigValueInterceptor.module());
+
+        Config config = injector.getInstance(Config.class);
+        DebugDynamicConfigSource debugSource = injector.getInstance(DebugDynamicConfigSource.class);
+        DecryptingConfigValueInterceptor interceptor = injector.getInstance(DecryptingConfigValueInterceptor.class);
+
+        String encrypted = DecryptingConfigValueInterceptor.encrypt(key, KEY_ID, "s3cr3t");
+        assertTrue(DecryptingConfigValueInterceptor.isEncrypted(encrypted));
+        assertNotEquals(encrypted, DecryptingConfigValueInterceptor.encrypt(key, KEY_ID, "s3cr3t"));
+
+        debugSource.fireEvent(passwordName, Optional.of(encrypted));
+        assertEquals("s3cr3t", config.password());
+
+        // Plain values pass through untouched
+        debugSource.fireEvent(hostName, Optional.of("example.com"));
+        assertEquals("example.com", config.host());
+
+        // A second property with the same encrypted value is served from the cache
+        debugSource.fireEvent(tokenName, Optional.of(encrypted));
+        assertEquals("s3cr3t", config.token());
+        assertEquals(1L, interceptor.getCacheStats().missCount());
+        assertEquals(1L, interceptor.getCacheStats().hitCount());
+    }
+
+    @Test(timeout = 5000)
+    public void testUndecryptableValueRejected() throws Exception
+    {
+        Injector injector = Guice.createInjector(
+            new ExplicitBindingModule(),
+            ConfigConfigurator.testModules(),
+            ConfigSystem.configModule(Config.class),
+            KeyStoreSecretKeyProvider.module(keyStoreFile.getAbsolutePath(), PASSWORD),
+            DecryptingConfigValueInterceptor.module());
+
+        Config config = injector.getInstance(Config.class);
+        DebugDynamicConfigSource debugSource = injector.getInstance(DebugDynamicConfigSource.class);
+        debugSource.fireEvent(passwordName, Optional.of(DecryptingConfigValueInterceptor.encrypt(key, KEY_ID, "s3cr3t")));
+        assertEquals("s3cr3t", config.password());
+
+        // Values which fail to decrypt are rejected like any other invalid value, keeping the previous value
+        debugSource.fireEvent(passwordName, Optional.of(DecryptingConfigValueInterceptor.encrypt(key, "other-key", "wrong")));
+        assertEquals("s3cr3t", config.password());
+    }
+
+    @Test(timeout = 5000, expected = ConfigException.class)
+    public void testUnknownKeyIdThrows() throws Exception
+    {
+        new KeyStoreSecretKeyProvider(keyStoreFile.getAbsolutePath(), PASSWORD).getKey("other-key");
+    }
+
+    @Test(timeout = 5000)
+    public void testFileReloadDecryptsInOneBatch() throws Exception
+    {
+        final File configFile = tempFolder.newFile("app.config");
+        Files.write(configFile.toPath(), (
+            passwordName + "=" + DecryptingConfigValueInterceptor.encrypt(key, KEY_ID, "s3cr3t") + "\n"
+            + tokenName + "=" + DecryptingConfigValueInterceptor.encrypt(key, KEY_ID, "t0k3n") + "\n"
+            + hostName + "=example.com\n").getBytes(StandardCharsets.UTF_8));
+
+        final AtomicInteger keyLookups = new AtomicInteger();
+        Injector injector = Guice.createInjector(
+            ConfigConfigurator.standardModules(),
+            ConfigSystem.configModule(Config.class),
+            DecryptingConfigValueInterceptor.module(),
+            new AbstractModule()
+            {
+                @Override
+                protected void configure()
+                {
+                    bind(SecretKeyProvider.class).toInstance(keyId -> {
+                        keyLookups.incrementAndGet();
+                        return key;
+                    });
+                    bind(String.class).annotatedWith(named(FileDynamicConfigSource.FILENAME_NAME)).toInstance(configFile.getAbsolutePath());
+                }
+            });
+        serviceManager = new ServiceManager(injector.getInstance(Key.get(new TypeLiteral<Set<Service>>() {}))).startAsync();
+        serviceManager.awaitHealthy();
+
+        Config config = injector.getInstance(Config.class);
+        DecryptingConfigValueInterceptor interceptor = injector.getInstance(DecryptingConfigValueInterceptor.class);
+
+        assertEquals("s3cr3t", config.password());
+        assertEquals("t0k3n", config.token());
+        assertEquals("example.com", config.host());
+
+        // Both values were decrypted together when the file was read, with a single key lookup
+        assertEquals(1, keyLookups.get());
+        assertEquals(2L, interceptor.getCacheStats().hitCount());
+        assertFalse(interceptor.getCacheStats().loadCount() > 0);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.metrics;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+import com.kik.config.ice.ConfigConfigurator;
+import com.kik.config.ice.ConfigSystem;
+import com.kik.config.ice.annotations.DefaultValue;
+import com.kik.config.ice.exception.ConfigException;
+import rx.Observable;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class ConfigReadTrackerTest
+{
+    private static final String prefix = "com.kik.config.ice.metrics.ConfigReadTrackerTest$Config.";
+
+    public interface Config
+    {
+        @DefaultValue("true")
+        boolean enabled();
+
+        @DefaultValue("100")
+        long timeout();
+
+        Observable<Long> timeoutObservable();
+
+        @DefaultValue("unused")
+        String neverRead();
+    }
+
+    @Inject
+    private ConfigSystem configSystem;
+
+    @Inject
+    private Config config;
+
+    private void setup(boolean trackReads)
+    {
+        Injector injector = Guice.createInjector(new AbstractModule()
+        {
+            @Override
+            protected void configure()
+            {
+                install(ConfigConfigurator.testModules());
+                install(ConfigSystem.configModule(Config.class));
+                if (trackReads) {
+                    install(ConfigReadTracker.module());
+                }
+
+                binder().requireExplicitBindings();
+            }
+        });
+
+        injector.injectMembers(this);
+    }
+
+    @Test(timeout = 5000)
+    public void testReadsCounted()
+    {
+        setup(true);
+
+        // Validation constructs every accessor, but does not count as a read
+        configSystem.validateStaticConfiguration();
+        assertEquals(ImmutableSet.of(prefix + "enabled", prefix + "neverRead", prefix + "timeout"), configSystem.getUnreadProperties());
+
+        for (int i = 0; i < 5; ++i) {
+            assertTrue(config.enabled());
+        }
+        config.timeout();
+        config.timeoutObservable();
+
+        assertEquals(5L, (long) configSystem.getReadCounts().get(prefix + "enabled"));
+        assertEquals(2L, (long) configSystem.getReadCounts().get(prefix + "timeout"));
+        assertEquals(0L, (long) configSystem.getReadCounts().get(prefix + "neverRead"));
+        assertEquals(ImmutableSet.of(prefix + "neverRead"), configSystem.getUnreadProperties());
+        assertTrue(configSystem.getReadRates().get(prefix + "enabled") > 0.0);
+    }
+
+    @Test(timeout = 5000, expected = ConfigException.class)
+    public void testTrackingDisabledByDefault()
+    {
+        setup(false);
+        assertTrue(config.enabled());
+        configSystem.getReadCounts();
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.metrics;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+import com.kik.config.ice.ConfigConfigurator;
+import com.kik.config.ice.ConfigSystem;
+import com.kik.config.ice.annotations.DefaultValue;
+import com.kik.config.ice.source.DebugDynamicConfigSource;
+import java.util.Optional;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CountingConfigMetricsTest
+{
+    private static final String timeoutName = "com.kik.config.ice.metrics.CountingConfigMetricsTest$Config.timeout";
+    private static final String sourceName = DebugDynamicConfigSource.class.getSimpleName();
+
+    public interface Config
+    {
+        @DefaultValue("100")
+        long timeout();
+    }
+
+    @Inject
+    private DebugDynamicConfigSource dcs;
+
+    @Inject
+    private CountingConfigMetrics metrics;
+
+    @Inject
+    private Config config;
+
+    @Before
+    public void setup()
+    {
+        Injector injector = Guice.createInjector(new AbstractModule()
+        {
+            @Override
+            protected void configure()
+            {
+                install(ConfigConfigurator.testModules());
+                install(CountingConfigMetrics.module());
+                install(ConfigSystem.configModule(Config.class));
+
+                binder().requireExplicitBindings();
+            }
+        });
+
+        injector.injectMembers(this);
+    }
+
+    @Test(timeout = 5000)
+    public void testEventsRecorded()
+    {
+        assertEquals(100L, config.timeout());
+        long initialEmits = metrics.getPropertyEmitCounts().getOrDefault(timeoutName, 0L);
+
+        dcs.fireEvent(timeoutName, Optional.of("200"));
+        dcs.fireEvent(timeoutName, Optional.of("200"));
+        dcs.fireEvent(timeoutName, Optional.of("300"));
+        assertEquals(300L, config.timeout());
+
+        assertEquals(3L, (long) metrics.getSourceEventCounts().get(sourceName));
+        assertEquals(2L, (long) metrics.getSourceChangeCounts().get(sourceName));
+        assertEquals(initialEmits + 2, (long) metrics.getPropertyEmitCounts().get(timeoutName));
+
+        TimerSnapshot subscriberTimes = metrics.getSubscriberCallbackTimes().get(timeoutName);
+        assertEquals(initialEmits + 2, subscriberTimes.getCount());
+        assertTrue(subscriberTimes.getMaxNanos() <= subscriberTimes.getTotalNanos());
+    }
+
+    @Test(timeout = 5000)
+    public void testConversionFailuresRecorded()
+    {
+        assertEquals(100L, config.timeout());
+        TimerSnapshot before = metrics.getConversionTimes().get(timeoutName);
+
+        dcs.fireEvent(timeoutName, Optional.of("not a number"));
+        assertEquals(100L, config.timeout());
+
+        TimerSnapshot after = metrics.getConversionTimes().get(timeoutName);
+        assertEquals(before.getCount() + 1, after.getCount());
+        assertEquals(before.getFailureCount() + 1, after.getFailureCount());
+    }
+}
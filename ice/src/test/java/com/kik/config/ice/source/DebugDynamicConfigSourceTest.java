@@ -148,6 +148,58 @@ public class DebugDynamicConfigSourceTest
         assertTrue(c2.stringList().containsAll(Lists.newArrayList("x", "y")));
     }
 
+    @Test(timeout = 5_000)
+    public void testOverrideHandles()
+    {
+        DebugDynamicConfigSource.OverrideHandle<Long> timeout = dcs.handle(dcs.id(Config1.class).timeout());
+        DebugDynamicConfigSource.OverrideHandle<Set<String>> stringSet = dcs.handle(dcs.id(Config2.class).stringSet());
+        assertEquals("com.kik.config.ice.source.DebugDynamicConfigSourceTest$Config1.timeout", timeout.getConfigName());
+
+        // Handles are resolved once, and can be used any number of times
+        for (long value = 0; value < 10_000; ++value) {
+            timeout.set(value);
+            assertEquals(value, c1.timeout());
+        }
+        stringSet.set(Sets.newHashSet("a,b", "c"));
+        assertEquals(Sets.newHashSet("a,b", "c"), c2.stringSet());
+
+        timeout.reset();
+        stringSet.reset();
+        assertEquals(123L, c1.timeout());
+        assertEquals(Sets.newHashSet("alice", "bob"), c2.stringSet());
+    }
+
+    @Test(timeout = 5_000)
+    public void testBatchAndResetAll()
+    {
+        DebugDynamicConfigSource.OverrideHandle<Boolean> enabled = dcs.handle(dcs.id(Config1.class).enabled());
+        DebugDynamicConfigSource.OverrideHandle<Long> timeout = dcs.handle(dcs.id(Config1.class).timeout());
+        DebugDynamicConfigSource.OverrideHandle<Duration> expiry = dcs.handle(dcs.id(Config2.class).expiry());
+
+        dcs.batch()
+            .set(enabled, true)
+            .set(timeout, 1L)
+            .set(timeout, 2L)
+            .set(expiry, Duration.ofMinutes(5))
+            .apply();
+        assertEquals(true, c1.enabled());
+        assertEquals(2L, c1.timeout());
+        assertEquals(Duration.ofMinutes(5), c2.expiry());
+
+        dcs.batch().reset(enabled).apply();
+        assertEquals(false, c1.enabled());
+
+        // Only the values still set are cleared
+        assertEquals(2, dcs.resetAll());
+        assertEquals(123L, c1.timeout());
+        assertEquals(Duration.ofHours(1), c2.expiry());
+        assertEquals(0, dcs.resetAll());
+
+        dcs.fireEvent("com.kik.config.ice.source.DebugDynamicConfigSourceTest$Config1.connectionString", Optional.of("Foo"));
+        assertEquals(1, dcs.resetAll());
+        assertEquals("a test string", c1.connectionString());
+    }
+
     @Test(timeout = 5_000, expected = ConfigException.class)
     public void testNoMethodId()
     {
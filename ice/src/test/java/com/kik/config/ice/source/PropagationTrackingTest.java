@@ -0,0 +1,169 @@
+/*
+ * Copyright 2016 Kik Interactive, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kik.config.ice.source;
+
+import com.google.common.util.concurrent.Service;
+import com.google.common.util.concurrent.ServiceManager;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+import static com.google.inject.name.Names.named;
+import com.kik.config.ice.ConfigConfigurator;
+import com.kik.config.ice.ConfigSystem;
+import com.kik.config.ice.annotations.DefaultValue;
+import com.kik.config.ice.metrics.CountingConfigMetrics;
+import com.kik.config.ice.metrics.HistogramSnapshot;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.After;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PropagationTrackingTest
+{
+    private static final String timeoutName = "com.kik.config.ice.source.PropagationTrackingTest$Config.timeout";
+
+    public interface Config
+    {
+        @DefaultValue("100")
+        long timeout();
+
+        @DefaultValue("true")
+        boolean enabled();
+    }
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Inject
+    private ConfigSystem configSystem;
+
+    @Inject
+    private CountingConfigMetrics metrics;
+
+    @Inject
+    private Config config;
+
+    @Inject
+    private Set<Service> services;
+
+    private ServiceManager serviceManager;
+
+    @After
+    public void teardown()
+    {
+        // Stops the file poller before the temporary folder is removed
+        if (serviceManager != null) {
+            serviceManager.stopAsync().awaitStopped();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testVersionAndPropagationTracked() throws Exception
+    {
+        final File configFile = tempFolder.newFile("app.config");
+        Files.write(configFile.toPath(), (timeoutName + "=200\n").getBytes(StandardCharsets.UTF_8));
+
+        Injector injector = Guice.createInjector(
+            ConfigConfigurator.standardModules(),
+            CountingConfigMetrics.module(),
+            ConfigSystem.configModule(Config.class),
+            new AbstractModule()
+            {
+                @Override
+                protected void configure()
+                {
+                    bind(Duration.class).annotatedWith(named(FileDynamicConfigSource.POLL_INTERVAL_NAME)).toInstance(Duration.ofMillis(50));
+                    bind(String.class).annotatedWith(named(FileDynamicConfigSource.FILENAME_NAME)).toInstance(configFile.getAbsolutePath());
+                }
+            });
+        injector.injectMembers(this);
+        serviceManager = new ServiceManager(services).startAsync();
+        serviceManager.awaitHealthy();
+
+        assertEquals(200L, config.timeout());
+        Optional<String> firstVersion = configSystem.getActiveVersion(timeoutName);
+        assertTrue(firstVersion.isPresent());
+        assertTrue(firstVersion.get().startsWith(configFile.lastModified() + ":"));
+
+        // Default values have no version
+        assertTrue(config.enabled());
+        assertEquals(Optional.empty(), configSystem.getActiveVersion("com.kik.config.ice.source.PropagationTrackingTest$Config.enabled"));
+
+        // Values replayed to a new accessor are not measured
+        assertEquals(null, metrics.getPropagationLatencies().get(FileDynamicConfigSource.class.getSimpleName()));
+
+        Files.write(configFile.toPath(), (timeoutName + "=300\n").getBytes(StandardCharsets.UTF_8));
+        // Propagation is recorded just after the new value is published, so wait for both
+        HistogramSnapshot latencies = null;
+        while (config.timeout() != 300L || latencies == null) {
+            Thread.sleep(10);
+            latencies = metrics.getPropagationLatencies().get(FileDynamicConfigSource.class.getSimpleName());
+        }
+
+        assertNotEquals(firstVersion, configSystem.getActiveVersion(timeoutName));
+        assertTrue(latencies.getCount() >= 1);
+        assertTrue(latencies.getP50() <= latencies.getMax());
+    }
+
+    @Test(timeout = 5000)
+    public void testVersionAdvancesForUnchangedValue() throws Exception
+    {
+        final File configFile = tempFolder.newFile("app.config");
+        Files.write(configFile.toPath(), (timeoutName + "=200\n").getBytes(StandardCharsets.UTF_8));
+
+        Injector injector = Guice.createInjector(
+            ConfigConfigurator.standardModules(),
+            CountingConfigMetrics.module(),
+            ConfigSystem.configModule(Config.class),
+            new AbstractModule()
+            {
+                @Override
+                protected void configure()
+                {
+                    bind(Duration.class).annotatedWith(named(FileDynamicConfigSource.POLL_INTERVAL_NAME)).toInstance(Duration.ofMillis(50));
+                    bind(String.class).annotatedWith(named(FileDynamicConfigSource.FILENAME_NAME)).toInstance(configFile.getAbsolutePath());
+                }
+            });
+        injector.injectMembers(this);
+        serviceManager = new ServiceManager(services).startAsync();
+        serviceManager.awaitHealthy();
+
+        assertEquals(200L, config.timeout());
+        Optional<String> firstVersion = configSystem.getActiveVersion(timeoutName);
+        assertTrue(firstVersion.isPresent());
+
+        // Rewrite the same value; the modification time is moved explicitly, as file times may be coarse
+        final long rewrittenMillis = configFile.lastModified() + 2000L;
+        Files.write(configFile.toPath(), (timeoutName + "=200\n").getBytes(StandardCharsets.UTF_8));
+        assertTrue(configFile.setLastModified(rewrittenMillis));
+        while (configSystem.getActiveVersion(timeoutName).equals(firstVersion)) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(200L, config.timeout());
+        assertTrue(configSystem.getActiveVersion(timeoutName).get().startsWith(rewrittenMillis + ":"));
+    }
+}